@@ -0,0 +1,59 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.typographic.TypographicExtension;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of link sparse prose and link dense text with the autolink extension
+ * <p>
+ * Prose has only a few link candidates so most text nodes should not be passed to the link extractor. Typographic
+ * extension splits text into nodes which autolink combines when looking for links.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutolinkBenchmark {
+    @Param({ "prose", "autolink" })
+    public String sample;
+
+    @Param({ "false", "true" })
+    public boolean typographic;
+
+    @Param({ "64k", "1m" })
+    public String size;
+
+    private Parser parser;
+    private String markdown;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(AutolinkBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        MutableDataSet options = new MutableDataSet();
+        options.set(Parser.EXTENSIONS, typographic ? Arrays.asList(AutolinkExtension.create(), TypographicExtension.create()) : Collections.singletonList(AutolinkExtension.create()));
+
+        parser = Parser.builder(options).build();
+        markdown = BenchmarkDocuments.getDocument(sample, size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        markdown = null;
+    }
+
+    @Benchmark
+    public Document parse() {
+        return parser.parse(markdown);
+    }
+}
@@ -0,0 +1,73 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.test.specs.TestSpecLocator;
+import com.vladsch.flexmark.test.util.spec.ResourceLocation;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+
+/**
+ * Benchmark documents in size tiers
+ * <p>
+ * Documents are created by repeating a sample until the tier size is reached and cutting the result at
+ * the last line end which fits. Size tiers are given as number of characters with optional k or m suffix: 1k, 64k, 1m, 50m
+ */
+public final class BenchmarkDocuments {
+    public static final String SPEC_SAMPLE = "spec";
+
+    private static final HashMap<String, String> documents = new HashMap<>();
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * @param size size tier
+     * @return number of characters in the size tier
+     */
+    public static int getSize(@NotNull String size) {
+        String lowerSize = size.trim().toLowerCase();
+        if (lowerSize.endsWith("k")) return Integer.parseInt(lowerSize.substring(0, lowerSize.length() - 1)) * 1024;
+        if (lowerSize.endsWith("m")) return Integer.parseInt(lowerSize.substring(0, lowerSize.length() - 1)) * 1024 * 1024;
+        return Integer.parseInt(lowerSize);
+    }
+
+    /**
+     * @param sample name of sample, {@link #SPEC_SAMPLE} for the CommonMark spec or name of markdown resource in this package without .md extension
+     * @return sample text
+     */
+    public static @NotNull String getSample(@NotNull String sample) {
+        if (SPEC_SAMPLE.equals(sample)) {
+            return TestSpecLocator.DEFAULT_RESOURCE_LOCATION.getResourceText();
+        } else {
+            return ResourceLocation.of(BenchmarkDocuments.class, sample + ".md").getResourceText();
+        }
+    }
+
+    /**
+     * @param sample name of sample, see {@link #getSample(String)}
+     * @param size   size tier
+     * @return document of the given size, documents are cached so repeated requests do not re-create them
+     */
+    public static synchronized @NotNull String getDocument(@NotNull String sample, @NotNull String size) {
+        return documents.computeIfAbsent(sample + ":" + size, key -> repeat(getSample(sample), getSize(size)));
+    }
+
+    /**
+     * Release cached documents, used in tear down of benchmarks with large documents
+     */
+    public static synchronized void clear() {
+        documents.clear();
+    }
+
+    static @NotNull String repeat(@NotNull String sample, int size) {
+        StringBuilder sb = new StringBuilder(size + sample.length());
+        while (sb.length() < size) {
+            sb.append(sample);
+            if (sample.charAt(sample.length() - 1) != '\n') sb.append('\n');
+            sb.append('\n');
+        }
+
+        int end = sb.lastIndexOf("\n", size - 1);
+        return sb.substring(0, end > 0 ? end + 1 : size);
+    }
+}
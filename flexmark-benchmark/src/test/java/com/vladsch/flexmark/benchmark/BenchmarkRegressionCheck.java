@@ -0,0 +1,137 @@
+package com.vladsch.flexmark.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compare JMH CSV results of a run to baseline results and fail if any benchmark regressed
+ * <p>
+ * Arguments: baseline.csv current.csv [threshold percent, default 10]
+ * <p>
+ * Primary scores are compared according to benchmark mode, lower is better for all modes except throughput.
+ * Of the secondary gc profiler results only normalized allocation rate, gc.alloc.rate.norm, is compared.
+ * Exits with status 1 if any score regressed by more than the threshold.
+ */
+public class BenchmarkRegressionCheck {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkRegressionCheck baseline.csv current.csv [threshold percent]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100.0 : 0.10;
+        Map<String, Score> baseline = readScores(args[0]);
+        Map<String, Score> current = readScores(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score baselineScore = baseline.get(entry.getKey());
+            if (baselineScore == null || baselineScore.score == 0) continue;
+
+            Score score = entry.getValue();
+            double change = (score.score - baselineScore.score) / baselineScore.score;
+            boolean isRegression = score.higherIsBetter ? change < -threshold : change > threshold;
+            if (isRegression) regressions++;
+
+            System.out.println(String.format(Locale.US, "%s %s: %.3f -> %.3f %s (%+.1f%%)",
+                    isRegression ? "REGRESSED" : "ok       ", entry.getKey(), baselineScore.score, score.score, score.unit, change * 100));
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark results regressed by more than " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    static class Score {
+        final double score;
+        final @NotNull String unit;
+        final boolean higherIsBetter;
+
+        Score(double score, @NotNull String unit, boolean higherIsBetter) {
+            this.score = score;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+
+    /**
+     * Read scores from JMH CSV result file
+     *
+     * @param fileName file name
+     * @return map of benchmark name with parameters to score
+     * @throws IOException if file could not be read
+     */
+    static @NotNull Map<String, Score> readScores(@NotNull String fileName) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8);
+        LinkedHashMap<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) return scores;
+
+        List<String> header = splitCsv(lines.get(0));
+        int benchmarkColumn = header.indexOf("Benchmark");
+        int modeColumn = header.indexOf("Mode");
+        int scoreColumn = header.indexOf("Score");
+        int unitColumn = header.indexOf("Unit");
+
+        int iMax = lines.size();
+        for (int i = 1; i < iMax; i++) {
+            List<String> values = splitCsv(lines.get(i));
+            if (values.size() < header.size()) continue;
+
+            String benchmark = values.get(benchmarkColumn);
+            int pos = benchmark.indexOf(':');
+            if (pos != -1 && !benchmark.endsWith("gc.alloc.rate.norm")) continue;
+
+            StringBuilder key = new StringBuilder(benchmark);
+            for (int j = unitColumn + 1; j < header.size(); j++) {
+                if (values.get(j).isEmpty()) continue;
+                key.append(' ').append(header.get(j).replace("Param: ", "")).append('=').append(values.get(j));
+            }
+
+            boolean higherIsBetter = pos == -1 && values.get(modeColumn).equals("thrpt");
+            scores.put(key.toString(), new Score(Double.parseDouble(values.get(scoreColumn)), values.get(unitColumn), higherIsBetter));
+        }
+        return scores;
+    }
+
+    static @NotNull List<String> splitCsv(@NotNull String line) {
+        ArrayList<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean inQuotes = false;
+
+        int iMax = line.length();
+        for (int i = 0; i < iMax; i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < iMax && line.charAt(i + 1) == '"') {
+                        value.append(c);
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
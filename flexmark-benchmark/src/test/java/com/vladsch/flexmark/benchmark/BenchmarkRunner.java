@@ -0,0 +1,59 @@
+package com.vladsch.flexmark.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+import org.openjdk.jmh.util.Optional;
+
+/**
+ * Run benchmarks with defaults suitable for regression checks
+ * <p>
+ * Takes standard JMH command line arguments, which override the defaults: 1 fork, 5 warmup and 5 measurement iterations,
+ * gc profiler for allocation rates and 4g max heap for the largest document size tier.
+ * <p>
+ * For example, to run only parser benchmarks for the smaller size tiers and save the results for
+ * {@link BenchmarkRegressionCheck}: {@code BlockParserBenchmark -p size=1k,64k -rf csv -rff current.csv}
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        run(BenchmarkRunner.class.getPackage().getName() + ".", args);
+    }
+
+    public static void run(Class<?> benchmarkClass, String[] args) throws Exception {
+        run(benchmarkClass.getName() + ".", args);
+    }
+
+    static void run(String include, String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+
+        if (commandLine.getIncludes().isEmpty()) builder.include(include);
+        if (!commandLine.getForkCount().hasValue()) builder.forks(1);
+        if (!commandLine.getWarmupIterations().hasValue()) builder.warmupIterations(5);
+        if (!commandLine.getMeasurementIterations().hasValue()) builder.measurementIterations(5);
+        if (!hasValue(commandLine.getJvmArgs()) && !hasValue(commandLine.getJvmArgsAppend())) builder.jvmArgsAppend("-Xmx4g");
+
+        boolean hasGcProfiler = false;
+        for (ProfilerConfig profiler : commandLine.getProfilers()) {
+            if (profiler.getKlass().equals(GCProfiler.class.getName()) || profiler.getKlass().equals("gc")) {
+                hasGcProfiler = true;
+                break;
+            }
+        }
+        if (!hasGcProfiler) builder.addProfiler(GCProfiler.class);
+
+        try {
+            new Runner(builder.build()).run();
+        } catch (RunnerException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean hasValue(Optional<?> optional) {
+        return optional.hasValue();
+    }
+}
@@ -0,0 +1,42 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block parsing of the CommonMark spec document, inline content is not parsed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockParserBenchmark {
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private Parser parser;
+    private String document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(BlockParserBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        parser = RecordingInlineParser.blockParser(new MutableDataSet(), inlineParser -> {});
+        document = BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+    }
+
+    @Benchmark
+    public Document parseBlocks() {
+        return parser.parse(document);
+    }
+}
@@ -0,0 +1,93 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.ext.attributes.AttributesExtension;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.emoji.EmojiExtension;
+import com.vladsch.flexmark.ext.footnotes.FootnoteExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.ext.toc.TocExtension;
+import com.vladsch.flexmark.ext.typographic.TypographicExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.builder.Extension;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and rendering of extension specific documents with only the extension under test enabled
+ * <p>
+ * Each extension uses the markdown resource with the same name as its sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExtensionBenchmark {
+    @Param({ "tables", "footnotes", "toc", "emoji", "typographic", "autolink", "attributes" })
+    public String extension;
+
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private Parser parser;
+    private HtmlRenderer renderer;
+    private String markdown;
+    private Document document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(ExtensionBenchmark.class, args);
+    }
+
+    static @NotNull Extension getExtension(@NotNull String extension) {
+        switch (extension) {
+            case "tables":
+                return TablesExtension.create();
+            case "footnotes":
+                return FootnoteExtension.create();
+            case "toc":
+                return TocExtension.create();
+            case "emoji":
+                return EmojiExtension.create();
+            case "typographic":
+                return TypographicExtension.create();
+            case "autolink":
+                return AutolinkExtension.create();
+            case "attributes":
+                return AttributesExtension.create();
+            default:
+                throw new IllegalArgumentException("Unknown extension " + extension);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        MutableDataSet options = new MutableDataSet();
+        options.set(Parser.EXTENSIONS, Collections.singletonList(getExtension(extension)));
+
+        parser = Parser.builder(options).build();
+        renderer = HtmlRenderer.builder(options).build();
+        markdown = BenchmarkDocuments.getDocument(extension, size);
+        document = parser.parse(markdown);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        markdown = null;
+        document = null;
+    }
+
+    @Benchmark
+    public Document parse() {
+        return parser.parse(markdown);
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
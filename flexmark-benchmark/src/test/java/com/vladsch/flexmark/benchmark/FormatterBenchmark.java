@@ -0,0 +1,57 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.formatter.Formatter;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of the CommonMark spec document back to markdown
+ * <p>
+ * format measures only the formatter, roundTrip measures parsing and formatting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatterBenchmark {
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private Parser parser;
+    private Formatter formatter;
+    private String markdown;
+    private Document document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(FormatterBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        MutableDataSet options = new MutableDataSet();
+        parser = Parser.builder(options).build();
+        formatter = Formatter.builder(options).build();
+        markdown = BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size);
+        document = parser.parse(markdown);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        markdown = null;
+        document = null;
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.render(document);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return formatter.render(parser.parse(markdown));
+    }
+}
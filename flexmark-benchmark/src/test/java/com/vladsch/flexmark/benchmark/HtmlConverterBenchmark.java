@@ -0,0 +1,45 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML to markdown conversion of the HTML rendered for the CommonMark spec document
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HtmlConverterBenchmark {
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private FlexmarkHtmlConverter converter;
+    private String html;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(HtmlConverterBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        MutableDataSet options = new MutableDataSet();
+        converter = FlexmarkHtmlConverter.builder(options).build();
+        html = HtmlRenderer.builder(options).build().render(Parser.builder(options).build().parse(BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        html = null;
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(html);
+    }
+}
@@ -0,0 +1,45 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML rendering of the CommonMark spec document, parsing is done in setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HtmlRendererBenchmark {
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private HtmlRenderer renderer;
+    private Document document;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(HtmlRendererBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        MutableDataSet options = new MutableDataSet();
+        renderer = HtmlRenderer.builder(options).build();
+        document = Parser.builder(options).build().parse(BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size));
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        document = null;
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(document);
+    }
+}
@@ -0,0 +1,56 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inline parsing of paragraph and heading content of the CommonMark spec document, block parsing is done in setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InlineParserBenchmark {
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private RecordingInlineParser inlineParser;
+    private List<BasedSequence> inlineContent;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(InlineParserBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        RecordingInlineParser[] inlineParsers = { null };
+        Document document = RecordingInlineParser.blockParser(new MutableDataSet(), inlineParser -> inlineParsers[0] = inlineParser)
+                .parse(BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size));
+
+        inlineParser = inlineParsers[0];
+        inlineParser.setParseInlines(true);
+        inlineParser.initializeDocument(document);
+        inlineContent = inlineParser.getInlineContent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+    }
+
+    @Benchmark
+    public int parseInlines() {
+        int count = 0;
+        for (BasedSequence content : inlineContent) {
+            Paragraph paragraph = new Paragraph(content);
+            inlineParser.parse(content, paragraph);
+            if (paragraph.hasChildren()) count++;
+        }
+        return count;
+    }
+}
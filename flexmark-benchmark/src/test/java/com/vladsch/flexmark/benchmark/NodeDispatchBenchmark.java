@@ -0,0 +1,72 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.ast.*;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.ast.NodeVisitor;
+import com.vladsch.flexmark.util.ast.VisitHandler;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visiting all nodes of the parsed CommonMark spec document with {@link NodeVisitor}, which dispatches handlers
+ * through a map keyed by node class
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NodeDispatchBenchmark {
+    @Param({ "64k", "1m" })
+    public String size;
+
+    private Document document;
+    private NodeVisitor visitor;
+    private int count;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(NodeDispatchBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        document = Parser.builder(new MutableDataSet()).build().parse(BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size));
+
+        VisitHandler<?>[] handlers = {
+                new VisitHandler<>(Text.class, this::visitLeaf),
+                new VisitHandler<>(Code.class, this::visitLeaf),
+                new VisitHandler<>(FencedCodeBlock.class, this::visitLeaf),
+                new VisitHandler<>(Link.class, this::visit),
+                new VisitHandler<>(Emphasis.class, this::visit),
+                new VisitHandler<>(StrongEmphasis.class, this::visit),
+                new VisitHandler<>(Heading.class, this::visit),
+                new VisitHandler<>(Paragraph.class, this::visit),
+        };
+
+        visitor = new NodeVisitor(handlers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        document = null;
+    }
+
+    void visitLeaf(Node node) {
+        count++;
+    }
+
+    void visit(Node node) {
+        count++;
+        visitor.visitChildren(node);
+    }
+
+    @Benchmark
+    public int nodeVisitor() {
+        count = 0;
+        visitor.visit(document);
+        return count;
+    }
+}
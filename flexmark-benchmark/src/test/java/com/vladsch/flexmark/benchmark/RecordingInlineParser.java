@@ -0,0 +1,72 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.parser.InlineParserExtensionFactory;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.parser.core.ReferencePreProcessorFactory;
+import com.vladsch.flexmark.parser.delimiter.DelimiterProcessor;
+import com.vladsch.flexmark.parser.internal.CommonmarkInlineParser;
+import com.vladsch.flexmark.parser.internal.LinkRefProcessorData;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Inline parser which only records the inline content passed to it until inline parsing is enabled
+ * <p>
+ * Used to measure block parsing without inline parsing and to collect inline content of a document for
+ * measuring inline parsing without block parsing.
+ */
+public class RecordingInlineParser extends CommonmarkInlineParser {
+    private final ArrayList<BasedSequence> inlineContent = new ArrayList<>();
+    private boolean parseInlines;
+
+    public RecordingInlineParser(
+            DataHolder options, BitSet specialCharacters, BitSet delimiterCharacters,
+            Map<Character, DelimiterProcessor> delimiterProcessors, LinkRefProcessorData referenceLinkProcessors, List<InlineParserExtensionFactory> inlineParserExtensions
+    ) {
+        super(options, specialCharacters, delimiterCharacters, delimiterProcessors, referenceLinkProcessors, inlineParserExtensions);
+    }
+
+    public @NotNull List<BasedSequence> getInlineContent() {
+        return inlineContent;
+    }
+
+    public void setParseInlines(boolean parseInlines) {
+        this.parseInlines = parseInlines;
+    }
+
+    @Override
+    public void parse(@NotNull BasedSequence content, @NotNull Node block) {
+        if (parseInlines) {
+            super.parse(content, block);
+        } else {
+            inlineContent.add(content);
+        }
+    }
+
+    /**
+     * Build a parser which uses this inline parser
+     *
+     * @param options        parser options
+     * @param parserConsumer consumer of inline parsers created by the parser, one per parsed document
+     * @return parser
+     */
+    public static @NotNull Parser blockParser(@NotNull DataHolder options, @NotNull Consumer<RecordingInlineParser> parserConsumer) {
+        return Parser.builder(options)
+                .customInlineParserFactory((inlineOptions, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensions) -> {
+                    RecordingInlineParser inlineParser = new RecordingInlineParser(inlineOptions, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensions);
+                    parserConsumer.accept(inlineParser);
+                    return inlineParser;
+                })
+                // core reference paragraph pre-processor is only added for the default inline parser
+                .paragraphPreProcessorFactory(new ReferencePreProcessorFactory())
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML rendering of a small snippet with and without {@link HtmlRenderer#RENDER_CONTEXT_POOL_SIZE},
+ * output is appended to a reused buffer so gc.alloc.rate.norm is the allocation of rendering only
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderContextPoolBenchmark {
+    static final String SNIPPET = "" +
+            "Hello *world* with [a link](http://example.com) and `code`.\n" +
+            "\n" +
+            "- item\n" +
+            "- item **2**\n" +
+            "";
+
+    @Param({ "0", "4" })
+    public int poolSize;
+
+    private HtmlRenderer renderer;
+    private Document document;
+    private StringBuilder output;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(RenderContextPoolBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        MutableDataSet options = new MutableDataSet();
+        options.set(HtmlRenderer.RENDER_CONTEXT_POOL_SIZE, poolSize);
+        renderer = HtmlRenderer.builder(options).build();
+        document = Parser.builder(options).build().parse(SNIPPET);
+        output = new StringBuilder();
+    }
+
+    @Benchmark
+    public StringBuilder render() {
+        output.setLength(0);
+        renderer.render(document, output);
+        return output;
+    }
+}
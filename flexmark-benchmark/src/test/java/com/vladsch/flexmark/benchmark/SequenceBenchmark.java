@@ -0,0 +1,111 @@
+package com.vladsch.flexmark.benchmark;
+
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.builder.SequenceBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BasedSequence and SegmentedSequence operations on the CommonMark spec document
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SequenceBenchmark {
+    @Param({ "1k", "64k", "1m", "50m" })
+    public String size;
+
+    private BasedSequence sequence;
+    private List<BasedSequence> lines;
+    private BasedSequence segmented;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.run(SequenceBenchmark.class, args);
+    }
+
+    @Setup
+    public void setup() {
+        sequence = BasedSequence.of(BenchmarkDocuments.getDocument(BenchmarkDocuments.SPEC_SAMPLE, size));
+        lines = sequence.splitListEOL(false);
+        segmented = segmentedSequence();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDocuments.clear();
+        sequence = null;
+        lines = null;
+        segmented = null;
+    }
+
+    @Benchmark
+    public int splitLines() {
+        return sequence.splitListEOL(false).size();
+    }
+
+    @Benchmark
+    public int trimLines() {
+        int length = 0;
+        for (BasedSequence line : lines) {
+            length += line.trim().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int indexOf() {
+        int count = 0;
+        int index = sequence.indexOf("example");
+        while (index != -1) {
+            count++;
+            index = sequence.indexOf("example", index + 1);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int linesToString() {
+        int length = 0;
+        for (BasedSequence line : lines) {
+            length += line.toString().length();
+        }
+        return length;
+    }
+
+    /**
+     * Segmented sequence of every other line, with an out of base separator after each line
+     *
+     * @return segmented sequence
+     */
+    @Benchmark
+    public BasedSequence segmentedSequence() {
+        SequenceBuilder builder = sequence.getBuilder();
+        int iMax = lines.size();
+        for (int i = 0; i < iMax; i += 2) {
+            builder.append(lines.get(i)).append('\n');
+        }
+        return builder.toSequence();
+    }
+
+    @Benchmark
+    public int segmentedCharAt() {
+        int sum = 0;
+        int iMax = segmented.length();
+        for (int i = 0; i < iMax; i++) {
+            sum += segmented.charAt(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int segmentedIndexOffset() {
+        int sum = 0;
+        int iMax = segmented.length();
+        for (int i = 0; i < iMax; i += 16) {
+            sum += segmented.getIndexOffset(i);
+        }
+        return sum;
+    }
+}
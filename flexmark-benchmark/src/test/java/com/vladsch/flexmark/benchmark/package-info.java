@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks, run {@link com.vladsch.flexmark.benchmark.BenchmarkRunner} to execute all of them
+ */
+package com.vladsch.flexmark.benchmark;
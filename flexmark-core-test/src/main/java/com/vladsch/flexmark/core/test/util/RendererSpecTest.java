@@ -5,15 +5,19 @@ import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.test.util.ComboSpecTestCase;
 import com.vladsch.flexmark.test.util.FlexmarkSpecExampleRenderer;
 import com.vladsch.flexmark.test.util.SpecExampleRenderer;
+import com.vladsch.flexmark.test.util.TestUtils;
 import com.vladsch.flexmark.test.util.spec.SpecExample;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+
 public abstract class RendererSpecTest extends ComboSpecTestCase {
     private static DataHolder OPTIONS = new MutableDataSet()
             .set(HtmlRenderer.INDENT_SIZE, 2)
@@ -34,9 +38,32 @@ public abstract class RendererSpecTest extends ComboSpecTestCase {
         return true;
     }
 
+    /**
+     * @return false to disable checking that parallel inline parsing gives the same AST as sequential parsing
+     */
+    protected boolean wantParallelInlineParsingCheck() {
+        return true;
+    }
+
     @Override
     final public @NotNull SpecExampleRenderer getSpecExampleRenderer(@NotNull SpecExample example, @Nullable DataHolder exampleOptions) {
         DataHolder combinedOptions = aggregate(myDefaultOptions, exampleOptions);
-        return new FlexmarkSpecExampleRenderer(example, combinedOptions, Parser.builder(combinedOptions).build(), HtmlRenderer.builder(combinedOptions).build(), wantExampleInfo());
+        if (!wantParallelInlineParsingCheck()) {
+            return new FlexmarkSpecExampleRenderer(example, combinedOptions, Parser.builder(combinedOptions).build(), HtmlRenderer.builder(combinedOptions).build(), wantExampleInfo());
+        }
+
+        // every block with inlines is a separate task so even small examples are parsed by more than one inline parser
+        Parser parallelParser = Parser.builder(new MutableDataSet(combinedOptions)
+                .set(Parser.PARALLEL_INLINE_PARSING, true)
+                .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+        ).build();
+
+        return new FlexmarkSpecExampleRenderer(example, combinedOptions, Parser.builder(combinedOptions).build(), HtmlRenderer.builder(combinedOptions).build(), wantExampleInfo()) {
+            @Override
+            public void parse(CharSequence input) {
+                super.parse(input);
+                assertEquals("parallel inline parsing AST", TestUtils.ast(getDocument()), TestUtils.ast(parallelParser.parse(BasedSequence.of(input))));
+            }
+        };
     }
 }
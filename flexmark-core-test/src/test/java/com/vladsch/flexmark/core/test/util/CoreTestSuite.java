@@ -5,7 +5,9 @@ import com.vladsch.flexmark.core.test.util.html.HtmlRendererTest;
 import com.vladsch.flexmark.core.test.util.html.PathologicalTestSuite;
 import com.vladsch.flexmark.core.test.util.parser.*;
 import com.vladsch.flexmark.core.test.util.parser.ast.AbstractVisitorTest;
+import com.vladsch.flexmark.core.test.util.parser.ast.CompactDocumentTest;
 import com.vladsch.flexmark.core.test.util.parser.ast.DelimitedNodeTest;
+import com.vladsch.flexmark.core.test.util.parser.ast.NodeRepositoryTest;
 import com.vladsch.flexmark.core.test.util.parser.ast.TextCollectingVisitorTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -14,6 +16,8 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
         AbstractVisitorTest.class,
         DelimitedNodeTest.class,
+        NodeRepositoryTest.class,
+        CompactDocumentTest.class,
         DelimiterProcessorTest.class,
         HtmlRendererTest.class,
         ParserTest.class,
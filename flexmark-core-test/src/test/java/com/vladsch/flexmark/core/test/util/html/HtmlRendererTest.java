@@ -3,6 +3,7 @@ package com.vladsch.flexmark.core.test.util.html;
 import com.vladsch.flexmark.ast.FencedCodeBlock;
 import com.vladsch.flexmark.ast.Image;
 import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.ast.ThematicBreak;
 import com.vladsch.flexmark.html.*;
 import com.vladsch.flexmark.html.renderer.*;
 import com.vladsch.flexmark.parser.Parser;
@@ -14,6 +15,8 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -328,6 +331,102 @@ final public class HtmlRendererTest {
                 defaultRenderer().render(parse("![foo &auml;](/url)\n")));
     }
 
+    @Test
+    public void streamTopLevelBlocks() {
+        String markdown = "# Heading\n\nparagraph with *emphasis*\n\n- item 1\n- item 2\n\n  item 2 para\n\n> quote\n>\n> more\n\n```\ncode\n\n\nblock\n```\n\n    indented\n\n<div>\nhtml\n</div>\n\n---\n\nlast\n";
+        Node document = parse(markdown);
+
+        for (int indentSize : new int[] { 0, 2 }) {
+            for (int maxBlankLines : new int[] { -1, 0, 1, 2 }) {
+                DataHolder options = new MutableDataSet().set(HtmlRenderer.INDENT_SIZE, indentSize);
+                StringBuilder expected = new StringBuilder();
+                HtmlRenderer.builder(options).build().render(document, expected, maxBlankLines);
+
+                StringBuilder streamed = new StringBuilder();
+                DataHolder streamOptions = new MutableDataSet(options).set(HtmlRenderer.STREAM_TOP_LEVEL_BLOCKS, true);
+                HtmlRenderer.builder(streamOptions).build().render(document, streamed, maxBlankLines);
+
+                assertEquals("indentSize: " + indentSize + " maxBlankLines: " + maxBlankLines, expected.toString(), streamed.toString());
+            }
+        }
+    }
+
+    @Test
+    public void streamTopLevelBlocksOutputsCompletedBlocks() {
+        StringBuilder out = new StringBuilder();
+        int[] outputLength = { -1 };
+
+        NodeRendererFactory nodeRendererFactory = options -> () -> {
+            HashSet<NodeRenderingHandler<?>> set = new HashSet<>();
+            set.add(new NodeRenderingHandler<>(ThematicBreak.class, (node, context, html) -> {
+                outputLength[0] = out.length();
+                context.delegateRender();
+            }));
+
+            return set;
+        };
+
+        DataHolder options = new MutableDataSet().set(HtmlRenderer.STREAM_TOP_LEVEL_BLOCKS, true);
+        HtmlRenderer renderer = HtmlRenderer.builder(options).nodeRendererFactory(nodeRendererFactory).build();
+
+        renderer.render(parse("first\n\nsecond\n\n---\n\nthird\n"), out);
+        assertEquals("<p>first</p>\n<p>second</p>\n<hr />\n<p>third</p>\n", out.toString());
+        assertEquals("<p>first</p>\n".length(), outputLength[0]);
+    }
+
+    @Test
+    public void streamTopLevelBlocksStopsOnOutputFailure() {
+        int[] appends = { 0 };
+        Appendable out = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) throws IOException {
+                appends[0]++;
+                throw new IOException("output failed");
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) throws IOException {
+                return append(csq.subSequence(start, end));
+            }
+
+            @Override
+            public Appendable append(char c) throws IOException {
+                return append(String.valueOf(c));
+            }
+        };
+
+        DataHolder options = new MutableDataSet().set(HtmlRenderer.STREAM_TOP_LEVEL_BLOCKS, true);
+        try {
+            HtmlRenderer.builder(options).build().render(parse("first\n\nsecond\n\nthird\n\nfourth\n"), out);
+            Assert.fail("output failure not reported");
+        } catch (UncheckedIOException e) {
+            assertEquals("output failed", e.getCause().getMessage());
+        }
+        assertEquals(1, appends[0]);
+    }
+
+    @Test
+    public void handlersDependingOnDocumentOptions() {
+        DataKey<Boolean> CUSTOM_BREAK = new DataKey<>("CUSTOM_BREAK", false);
+
+        // handler set depends on document options, handler table must not carry over between renders
+        NodeRendererFactory nodeRendererFactory = options -> () -> {
+            HashSet<NodeRenderingHandler<?>> set = new HashSet<>();
+            if (CUSTOM_BREAK.get(options)) {
+                set.add(new NodeRenderingHandler<>(ThematicBreak.class, (node, context, html) -> html.raw("<hr class=\"custom\" />").line()));
+            }
+            return set;
+        };
+
+        HtmlRenderer renderer = HtmlRenderer.builder().nodeRendererFactory(nodeRendererFactory).build();
+        Parser parser = Parser.builder().build();
+        Parser customParser = Parser.builder(new MutableDataSet().set(CUSTOM_BREAK, true)).build();
+
+        assertEquals("<hr />\n", renderer.render(parser.parse("---\n")));
+        assertEquals("<hr class=\"custom\" />\n", renderer.render(customParser.parse("---\n")));
+        assertEquals("<hr />\n", renderer.render(parser.parse("---\n")));
+    }
+
     static class CustomLinkResolverImpl implements LinkResolver {
         public static final DataKey<String> DOC_RELATIVE_URL = new DataKey<>("DOC_RELATIVE_URL", "");
 
@@ -346,7 +445,7 @@ final public class HtmlRendererTest {
                     return link.withUrl("www.url.com" + docUrl);
                 }
             }
-            return null;
+            return link;
         }
 
         static class Factory extends IndependentLinkResolverFactory {
@@ -376,6 +475,153 @@ final public class HtmlRendererTest {
         assertEquals("<p>foo <a href=\"www.url.com/url2\">bar</a></p>\n", rendered2);
     }
 
+    @Test
+    public void renderContextPool() {
+        DataHolder OPTIONS = new MutableDataSet().set(HtmlRenderer.RENDER_HEADER_ID, true);
+        HtmlRenderer renderer = HtmlRenderer.builder(OPTIONS).linkResolverFactory(new CustomLinkResolverImpl.Factory()).build();
+        HtmlRenderer pooledRenderer = HtmlRenderer.builder(new MutableDataSet(OPTIONS).set(HtmlRenderer.RENDER_CONTEXT_POOL_SIZE, 1)).linkResolverFactory(new CustomLinkResolverImpl.Factory()).build();
+
+        String[] sources = {
+                "# Heading\n\n# Heading\n\nfoo [bar](/url) [ref]\n\n[ref]: /ref1\n",
+                "# Heading\n\n- item *emphasis*\n- [ref]\n\n[ref]: /ref2\n",
+                "```java\ncode\n```\n\n<div>html</div>\n\n[ref]\n",
+        };
+
+        for (int i = 0; i < 2; i++) {
+            for (String source : sources) {
+                // document options are used by the link resolver
+                DataHolder docOptions = new MutableDataSet().set(CustomLinkResolverImpl.DOC_RELATIVE_URL, "/doc" + i);
+                Node document = Parser.builder(docOptions).build().parse(source);
+                assertEquals(renderer.render(document), pooledRenderer.render(document));
+            }
+        }
+    }
+
+    static class ReusableLinkResolver implements LinkResolver, Reusable {
+        final Factory factory;
+
+        ReusableLinkResolver(Factory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public boolean reset(@NotNull LinkResolverContext context) {
+            factory.resetCount++;
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public ResolvedLink resolveLink(@NotNull Node node, @NotNull LinkResolverContext context, @NotNull ResolvedLink link) {
+            return link;
+        }
+
+        static class Factory extends IndependentLinkResolverFactory {
+            int createCount;
+            int resetCount;
+
+            @NotNull
+            @Override
+            public LinkResolver apply(@NotNull LinkResolverContext context) {
+                createCount++;
+                return new ReusableLinkResolver(this);
+            }
+        }
+    }
+
+    @Test
+    public void renderContextPoolReusesComponents() {
+        ReusableLinkResolver.Factory factory = new ReusableLinkResolver.Factory();
+        HtmlRenderer renderer = HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.RENDER_CONTEXT_POOL_SIZE, 1)).linkResolverFactory(factory).build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("<p><a href=\"/url\">link" + i + "</a></p>\n", renderer.render(parse("[link" + i + "](/url)")));
+        }
+
+        assertEquals(1, factory.createCount);
+        assertEquals(2, factory.resetCount);
+    }
+
+    static class ReusableNodeRenderer implements NodeRenderer, Reusable {
+        int handlersCount;
+
+        @Override
+        public boolean reset(@NotNull LinkResolverContext context) {
+            return true;
+        }
+
+        @Override
+        public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+            handlersCount++;
+            HashSet<NodeRenderingHandler<?>> set = new HashSet<>();
+            set.add(new NodeRenderingHandler<>(ThematicBreak.class, (node, context, html) -> html.raw("<hr class=\"reused\" />").line()));
+            return set;
+        }
+    }
+
+    @Test
+    public void renderContextPoolKeepsHandlers() {
+        ReusableNodeRenderer reusableNodeRenderer = new ReusableNodeRenderer();
+        int[] createCount = { 0 };
+
+        // node renderer created for every document overrides a handler of the kept core node renderer
+        NodeRendererFactory nodeRendererFactory = options -> () -> {
+            createCount[0]++;
+            HashSet<NodeRenderingHandler<?>> set = new HashSet<>();
+            set.add(new NodeRenderingHandler<>(Link.class, (node, context, html) -> {
+                if (node.getText().equals("bar")) {
+                    context.getHtmlWriter().text("test");
+                } else {
+                    context.delegateRender();
+                }
+            }));
+            return set;
+        };
+
+        HtmlRenderer renderer = HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.RENDER_CONTEXT_POOL_SIZE, 1))
+                .nodeRendererFactory(options -> reusableNodeRenderer)
+                .nodeRendererFactory(nodeRendererFactory)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("<p>foo test <a href=\"/url\">bars</a></p>\n<hr class=\"reused\" />\n", renderer.render(parse("foo [bar](/url) [bars](/url)\n\n---\n")));
+        }
+
+        // handlers of kept node renderers are not requested again
+        assertEquals(3, createCount[0]);
+        assertEquals(1, reusableNodeRenderer.handlersCount);
+    }
+
+    @Test
+    public void renderContextPoolReplacesHandlers() {
+        int[] createCount = { 0 };
+
+        // handlers of each new instance are used in place of the previous instance handlers
+        NodeRendererFactory nodeRendererFactory = options -> {
+            int instance = ++createCount[0];
+            return () -> {
+                HashSet<NodeRenderingHandler<?>> set = new HashSet<>();
+                set.add(new NodeRenderingHandler<>(Link.class, (node, context, html) -> {
+                    if (node.getText().equals("bar")) {
+                        context.getHtmlWriter().text("test" + instance);
+                    } else {
+                        context.delegateRender();
+                    }
+                }));
+                set.add(new NodeRenderingHandler<>(ThematicBreak.class, (node, context, html) -> html.raw("<hr class=\"test" + instance + "\" />").line()));
+                return set;
+            };
+        };
+
+        HtmlRenderer renderer = HtmlRenderer.builder(new MutableDataSet().set(HtmlRenderer.RENDER_CONTEXT_POOL_SIZE, 1))
+                .nodeRendererFactory(nodeRendererFactory)
+                .build();
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals("<p>foo test" + i + " <a href=\"/url\">bars</a></p>\n<hr class=\"test" + i + "\" />\n", renderer.render(parse("foo [bar](/url) [bars](/url)\n\n---\n")));
+        }
+    }
+
     private static HtmlRenderer defaultRenderer() {
         return HtmlRenderer.builder().build();
     }
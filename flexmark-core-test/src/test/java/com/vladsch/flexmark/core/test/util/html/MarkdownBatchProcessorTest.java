@@ -0,0 +1,93 @@
+package com.vladsch.flexmark.core.test.util.html;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.MarkdownBatchProcessor;
+import com.vladsch.flexmark.parser.Parser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class MarkdownBatchProcessorTest {
+    private static List<String> sources(int count) {
+        ArrayList<String> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sources.add("# Heading " + i + "\n\nparagraph *" + i + "*\n\n- item " + i + "\n");
+        }
+        return sources;
+    }
+
+    @Test
+    public void test_preserveOrder() throws InterruptedException {
+        Parser parser = Parser.builder().build();
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        List<String> sources = sources(200);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            MarkdownBatchProcessor processor = MarkdownBatchProcessor.builder(parser, renderer).executor(executor).maxPending(8).build();
+            ArrayList<MarkdownBatchProcessor.BatchResult> results = new ArrayList<>();
+            MarkdownBatchProcessor.BatchStatistics statistics = processor.process(sources, results::add);
+
+            assertEquals(sources.size(), results.size());
+            assertEquals(sources.size(), statistics.getDocumentCount());
+            assertEquals(0, statistics.getErrorCount());
+
+            for (int i = 0; i < sources.size(); i++) {
+                MarkdownBatchProcessor.BatchResult result = results.get(i);
+                assertEquals(i, result.getIndex());
+                assertEquals(renderer.render(parser.parse(sources.get(i))), result.getHtml());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_completionOrder() throws InterruptedException {
+        Parser parser = Parser.builder().build();
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        List<String> sources = sources(200);
+
+        MarkdownBatchProcessor processor = MarkdownBatchProcessor.builder(parser, renderer).preserveOrder(false).build();
+        String[] html = new String[sources.size()];
+        MarkdownBatchProcessor.BatchStatistics statistics = processor.process(sources, result -> html[result.getIndex()] = result.getHtml());
+
+        assertEquals(sources.size(), statistics.getDocumentCount());
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals(renderer.render(parser.parse(sources.get(i))), html[i]);
+        }
+    }
+
+    @Test
+    public void test_pendingCancelledWhenConsumerThrows() throws InterruptedException {
+        Parser parser = Parser.builder().build();
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        ArrayList<Runnable> queued = new ArrayList<>();
+
+        // runs the first document, all others stay queued
+        MarkdownBatchProcessor processor = MarkdownBatchProcessor.builder(parser, renderer).maxPending(4).executor(command -> {
+            if (queued.isEmpty()) command.run();
+            queued.add(command);
+        }).build();
+
+        try {
+            processor.process(sources(10), result -> {
+                throw new IllegalStateException("consumer");
+            });
+            fail("expected consumer exception");
+        } catch (IllegalStateException e) {
+            assertEquals("consumer", e.getMessage());
+        }
+
+        assertEquals(4, queued.size());
+        for (int i = 1; i < queued.size(); i++) {
+            assertTrue(((Future<?>) queued.get(i)).isCancelled());
+        }
+    }
+}
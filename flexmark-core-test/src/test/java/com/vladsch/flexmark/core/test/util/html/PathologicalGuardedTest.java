@@ -0,0 +1,151 @@
+package com.vladsch.flexmark.core.test.util.html;
+
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.test.util.Strings;
+import com.vladsch.flexmark.test.util.spec.ResourceLocation;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parsing with {@link Parser#GUARDED_PARSING}, limits degrade excess markup to literal text
+ */
+final public class PathologicalGuardedTest {
+    @Rule
+    public Timeout timeout = new Timeout(10, TimeUnit.SECONDS);
+
+    static String render(DataHolder options, String markdown) {
+        return HtmlRenderer.builder(options).build().render(Parser.builder(options).build().parse(markdown));
+    }
+
+    static MutableDataSet guarded() {
+        return new MutableDataSet().set(Parser.GUARDED_PARSING, true);
+    }
+
+    /**
+     * Units of inputs found by fuzzing guarded parsing, each is repeated to make a test input
+     *
+     * @return units with escapes replaced
+     */
+    static List<String> corpus() {
+        String text = ResourceLocation.of(PathologicalGuardedTest.class, "/pathological_guarded_corpus.txt").getResourceText();
+        ArrayList<String> units = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            units.add(unescape(line));
+        }
+        return units;
+    }
+
+    static String unescape(String line) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                c = line.charAt(++i);
+                sb.append(c == 'n' ? '\n' : c == 't' ? '\t' : c);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void test_blockNesting() {
+        assertEquals("" +
+                "<blockquote>\n" +
+                "<blockquote>\n" +
+                "<blockquote>\n" +
+                "<p>&gt; &gt; a</p>\n" +
+                "</blockquote>\n" +
+                "</blockquote>\n" +
+                "</blockquote>\n" +
+                "", render(guarded().set(Parser.MAX_BLOCK_NESTING, 3), "> > > > > a\n"));
+    }
+
+    @Test
+    public void test_delimiterRuns() {
+        assertEquals("<p><em>a</em> *b* **c**</p>\n", render(guarded().set(Parser.MAX_DELIMITER_RUNS, 2), "*a* *b* **c**\n"));
+    }
+
+    @Test
+    public void test_brackets() {
+        assertEquals("<p><a href=\"/u\">a</a> [b](/v) ![c](/w)</p>\n", render(guarded().set(Parser.MAX_BRACKETS, 1), "[a](/u) [b](/v) ![c](/w)\n"));
+    }
+
+    @Test
+    public void test_inlineNodes() {
+        assertEquals("<p>a <code>b</code> *c* [d](/u) e</p>\n", render(guarded().set(Parser.MAX_INLINE_NODES, 3), "a `b` *c* [d](/u) e\n"));
+    }
+
+    @Test
+    public void test_limitsIgnoredUnguarded() {
+        assertEquals("<p><a href=\"/u\">a</a> <a href=\"/v\">b</a></p>\n", render(new MutableDataSet().set(Parser.MAX_BRACKETS, 1), "[a](/u) [b](/v)\n"));
+    }
+
+    @Test
+    public void test_timeLimitKeepsText() {
+        String markdown = Strings.repeat("*a* ", 100000);
+        MutableDataSet options = guarded().set(Parser.MAX_DELIMITER_RUNS, 1000000).set(Parser.MAX_INLINE_NODES, 1000000);
+
+        // emphasis without time limit, delimiters left as text when time limit is reached
+        assertEquals("<p>" + Strings.repeat("<em>a</em> ", 100000).trim() + "</p>\n", render(options, markdown));
+        assertEquals("<p>" + markdown.trim() + "</p>\n", render(options.set(Parser.PARSE_TIME_LIMIT, 1), markdown));
+    }
+
+    @Test
+    public void test_timeLimitNotInDocument() {
+        Document document = Parser.builder(guarded().set(Parser.PARSE_TIME_LIMIT, 0)).build().parse("*a*\n");
+        Document limitedDocument = Parser.builder(guarded().set(Parser.PARSE_TIME_LIMIT, 1000)).build().parse("*a*\n");
+
+        // deadline is kept by the parser, document data is the same as without a time limit
+        assertEquals(new HashSet<>(document.getKeys()), new HashSet<>(limitedDocument.getKeys()));
+    }
+
+    @Test
+    public void test_corpus() {
+        Parser parser = Parser.builder(guarded()).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(guarded()).build();
+        for (String unit : corpus()) {
+            String html = renderer.render(parser.parse(Strings.repeat(unit, 20000 / unit.length())));
+            assertTrue(html.length() > 0);
+        }
+    }
+
+    @Test
+    public void test_nestedLists() {
+        // cubic without block nesting limit, takes minutes unguarded
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(Strings.repeat("  ", i)).append("- a\n");
+        }
+        Parser.builder(guarded()).build().parse(sb.toString());
+    }
+
+    @Test
+    public void test_backticks() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 10000; i++) {
+            sb.append(Strings.repeat("`", i % 50 + 1)).append("a");
+        }
+        Parser.builder(guarded()).build().parse(sb.toString());
+    }
+
+    @Test
+    public void test_referenceDefinitions() {
+        Parser.builder(guarded()).build().parse(Strings.repeat("[a]: /u\n", 10000) + Strings.repeat("[a] ", 10000));
+    }
+}
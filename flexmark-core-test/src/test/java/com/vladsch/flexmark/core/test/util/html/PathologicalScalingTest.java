@@ -0,0 +1,103 @@
+package com.vladsch.flexmark.core.test.util.html;
+
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.test.util.Strings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Guarded parse time must grow linearly with input size, compared for n, 2n and 4n sized inputs
+ * <p>
+ * Each doubling of input size may at most triple the parse time, quadratic parsing quadruples it.
+ */
+final public class PathologicalScalingTest {
+    static final long SLACK_NANOS = 10_000_000L;
+    static final int MAX_ATTEMPTS = 3;
+
+    @Rule
+    public Timeout timeout = new Timeout(60, TimeUnit.SECONDS);
+
+    /**
+     * Get parse time, CPU time of the parsing thread is used so garbage collection does not add to it
+     */
+    static long parseNanos(Parser parser, String markdown) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = threadMXBean.getCurrentThreadCpuTime();
+            parser.parse(markdown);
+            best = Math.min(best, threadMXBean.getCurrentThreadCpuTime() - start);
+        }
+        return best;
+    }
+
+    static void assertLinear(String name, IntFunction<String> input, int n) {
+        Parser parser = Parser.builder(PathologicalGuardedTest.guarded()).build();
+        String[] inputs = { input.apply(n), input.apply(2 * n), input.apply(4 * n) };
+        parser.parse(inputs[2]);
+
+        // measured again when not linear, only superlinear parsing fails every time
+        String message = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long t1 = parseNanos(parser, inputs[0]);
+            long t2 = parseNanos(parser, inputs[1]);
+            long t4 = parseNanos(parser, inputs[2]);
+            if (t2 <= 3 * t1 + SLACK_NANOS && t4 <= 3 * t2 + SLACK_NANOS) return;
+
+            message = String.format("%s parse time for n, 2n, 4n: %.1f, %.1f, %.1f ms", name, t1 / 1e6, t2 / 1e6, t4 / 1e6);
+        }
+        fail(message);
+    }
+
+    @Test
+    public void test_corpus() {
+        for (String unit : PathologicalGuardedTest.corpus()) {
+            assertLinear("\"" + unit.replace("\n", "\\n") + "\"", n -> Strings.repeat(unit, n), 20000 / unit.length());
+        }
+    }
+
+    @Test
+    public void test_nestedLists() {
+        assertLinear("nested lists", n -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                sb.append(Strings.repeat("  ", i % 100)).append("- a\n");
+            }
+            return sb.toString();
+        }, 1000);
+    }
+
+    @Test
+    public void test_backticks() {
+        assertLinear("backticks", n -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i <= n; i++) {
+                sb.append(Strings.repeat("`", i % 50 + 1)).append("a");
+            }
+            return sb.toString();
+        }, 5000);
+    }
+
+    @Test
+    public void test_referenceDefinitions() {
+        assertLinear("reference definitions", n -> Strings.repeat("[a]: /u\n", n) + Strings.repeat("[a] ", n), 5000);
+    }
+
+    @Test
+    public void test_emphasis() {
+        assertLinear("emphasis", n -> Strings.repeat("*a _b ", n), 5000);
+    }
+
+    @Test
+    public void test_brackets() {
+        assertLinear("brackets", n -> Strings.repeat("[a](", n), 5000);
+    }
+}
@@ -7,6 +7,8 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
         PathologicalTest.class,
         PathologicalSpcUrlTest.class,
+        PathologicalGuardedTest.class,
+        PathologicalScalingTest.class,
 })
 final public class PathologicalTestSuite {
 }
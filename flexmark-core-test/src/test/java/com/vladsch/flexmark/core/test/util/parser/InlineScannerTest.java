@@ -0,0 +1,144 @@
+package com.vladsch.flexmark.core.test.util.parser;
+
+import com.vladsch.flexmark.ast.util.Parsing;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.parser.core.ThematicBreakParser;
+import com.vladsch.flexmark.parser.internal.InlineScanner;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scanners must match the same text as the patterns they replace, compared on random text made of characters significant to the patterns
+ */
+final public class InlineScannerTest {
+    static final int ITERATIONS = 100000;
+
+    static int patternEnd(Pattern pattern, String input, int index) {
+        Matcher matcher = pattern.matcher(input);
+        matcher.region(index, input.length());
+        return matcher.find() ? matcher.end() : -1;
+    }
+
+    static void assertSameMatches(String name, Pattern pattern, BiFunction<String, Integer, Integer> scanner, String chars, String prefix, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        int matched = 0;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            sb.setLength(0);
+            sb.append(prefix);
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                sb.append(chars.charAt(random.nextInt(chars.length())));
+            }
+
+            String input = sb.toString();
+            int index = random.nextInt(3) == 0 ? 0 : 1;
+            String text = index == 0 ? input : "x" + input;
+            int expected = patternEnd(pattern, text, index);
+            assertEquals(name + " of: \"" + text + "\"", expected, (int) scanner.apply(text, index));
+            if (expected != -1) matched++;
+        }
+
+        // make sure the test exercises matches
+        assertTrue(name + " matched " + matched, matched > ITERATIONS / 100);
+    }
+
+    static void assertScanners(boolean intellijDummyIdentifier) {
+        MutableDataSet options = new MutableDataSet().set(Parser.INTELLIJ_DUMMY_IDENTIFIER, intellijDummyIdentifier);
+        Parsing parsing = new Parsing(options);
+        InlineScanner scanner = new InlineScanner(intellijDummyIdentifier);
+        String us = intellijDummyIdentifier ? "\u001f" : "";
+
+        assertSameMatches("LINK_LABEL", parsing.LINK_LABEL, scanner::scanLinkLabel, "[]\\\\\\a*\n", "[", 1);
+        assertSameMatches("LINK_TITLE", parsing.LINK_TITLE, scanner::scanLinkTitle, "\"'()\\\\\\a*\0\n", "", 2);
+        assertSameMatches("ENTITY_HERE", parsing.ENTITY_HERE, scanner::scanEntity, "&#xXaF09;;;;g" + us, "&", 3);
+        assertSameMatches("EMAIL_AUTOLINK", parsing.EMAIL_AUTOLINK, scanner::scanEmailAutolink, ">>@..--aaZ9+ " + us, "<a", 4);
+        assertSameMatches("AUTOLINK", parsing.AUTOLINK, scanner::scanAutolink, "<>::..+-aZ9 \t" + us, "<a", 5);
+        assertSameMatches("WWW_AUTOLINK", parsing.WWW_AUTOLINK, scanner::scanWwwAutolink, "<>>wwww..a " + us, "<ww", 6);
+        assertSameMatches("HTML_TAG", parsing.HTML_TAG, scanner::scanHtmlTag, "<>>/b1-_:= \n\"'`{", "<a", 7);
+        assertSameMatches("HTML_TAG comment", parsing.HTML_TAG, scanner::scanHtmlTag, "<>---!a \n", "<!-", 8);
+        assertSameMatches("HTML_TAG instruction", parsing.HTML_TAG, scanner::scanHtmlTag, "<>??a\n ", "<?", 9);
+        assertSameMatches("HTML_TAG declaration", parsing.HTML_TAG, scanner::scanHtmlTag, "<>![]aZ \n\t", "<!", 10);
+        assertSameMatches("HTML_TAG cdata", parsing.HTML_TAG, scanner::scanHtmlTag, "]]]>>a", "<![cDaTa[", 11);
+    }
+
+    @Test
+    public void test_scannersMatchPatterns() {
+        assertScanners(false);
+    }
+
+    @Test
+    public void test_scannersMatchPatternsDummyIdentifier() {
+        assertScanners(true);
+    }
+
+    @Test
+    public void test_linkLabelLinear() {
+        InlineScanner scanner = new InlineScanner(false);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 100000; i++) {
+            sb.append("\\]");
+        }
+
+        // pattern limits label to 999 items, the last escaped ] within the limit ends the label
+        assertEquals(1 + 2 * 999, scanner.scanLinkLabel(sb, 0));
+        assertEquals(-1, scanner.scanLinkLabel(sb.toString().replace(']', 'a'), 0));
+    }
+
+    static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void test_linkLabelLimit() {
+        Parsing parsing = new Parsing(new MutableDataSet());
+        InlineScanner scanner = new InlineScanner(false);
+
+        // escaped backslash followed by [ is one backslash item and one escaped [ item
+        String input = "[" + repeat('a', 996) + "\\\\[b]";
+        assertEquals(1002, patternEnd(parsing.LINK_LABEL, input, 0));
+        assertEquals(1002, scanner.scanLinkLabel(input, 0));
+
+        input = "[" + repeat('a', 997) + "\\\\[b]";
+        assertEquals(-1, patternEnd(parsing.LINK_LABEL, input, 0));
+        assertEquals(-1, scanner.scanLinkLabel(input, 0));
+
+        // random text ending around the item limit
+        Random random = new Random(12);
+        String chars = "[]\\\\a*\n";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.setLength(0);
+            sb.append('[').append(repeat('a', 985 + random.nextInt(15)));
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                sb.append(chars.charAt(random.nextInt(chars.length())));
+            }
+
+            String text = sb.toString();
+            assertEquals("LINK_LABEL of: \"" + text.substring(980) + "\"", patternEnd(parsing.LINK_LABEL, text, 0), scanner.scanLinkLabel(text, 0));
+        }
+    }
+
+    @Test
+    public void test_thematicBreakMatchesPattern() {
+        Pattern pattern = Pattern.compile("^(?:(?:\\*[ \t]*){3,}|(?:_[ \t]*){3,}|(?:-[ \t]*){3,})[ \t]*$");
+        assertSameMatches("THEMATIC_BREAK", pattern, (text, index) -> ThematicBreakParser.isThematicBreak(text.subSequence(index, text.length())) ? text.length() : -1, "**__-- \t", "**", 13);
+
+        // pattern overflows the stack for long lines
+        assertTrue(ThematicBreakParser.isThematicBreak(repeat('*', 100000)));
+    }
+}
@@ -1,19 +1,30 @@
 package com.vladsch.flexmark.core.test.util.parser;
 
 import com.vladsch.flexmark.ast.*;
+import com.vladsch.flexmark.ast.util.Parsing;
 import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.InstrumentationAggregator;
+import com.vladsch.flexmark.parser.InlineParser;
+import com.vladsch.flexmark.parser.InlineParserExtension;
+import com.vladsch.flexmark.parser.InlineParserExtensionFactory;
+import com.vladsch.flexmark.parser.InstrumentationListener;
+import com.vladsch.flexmark.parser.LightInlineParser;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.parser.block.*;
+import com.vladsch.flexmark.parser.core.ReferencePreProcessorFactory;
 import com.vladsch.flexmark.test.specs.TestSpecLocator;
+import com.vladsch.flexmark.test.util.AstCollectingVisitor;
 import com.vladsch.flexmark.test.util.spec.ResourceLocation;
 import com.vladsch.flexmark.util.ast.Block;
 import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.ast.NodeTracker;
 import com.vladsch.flexmark.util.collection.iteration.ReversiblePeekingIterator;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.MutableDataHolder;
 import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.managed.BaseSequenceManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
@@ -23,7 +34,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -54,6 +74,301 @@ final public class ParserTest {
         assertEquals(renderer.render(document2), renderer.render(document1));
     }
 
+    @Test
+    public void mappedFileTest() throws IOException {
+        Parser parser = Parser.builder().build();
+        String spec = TestSpecLocator.DEFAULT_RESOURCE_LOCATION.getResourceText();
+
+        Path path = Files.createTempFile("flexmark-parser-test", ".md");
+        try {
+            Files.write(path, spec.getBytes(StandardCharsets.UTF_8));
+            Document document1 = parser.parse(path);
+            Document document2 = parser.parse(spec);
+
+            assertEquals(spec, document1.getChars().toString());
+            assertEquals(new AstCollectingVisitor().collectAndGetAstText(document2), new AstCollectingVisitor().collectAndGetAstText(document1));
+
+            HtmlRenderer renderer = HtmlRenderer.builder().escapeHtml(true).build();
+            assertEquals(renderer.render(document2), renderer.render(document1));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void assertReparse(Parser parser, String text, int editStart, int editEnd, String newText) {
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        String edited = text.substring(0, editStart) + newText + text.substring(editEnd);
+
+        Document expected = parser.parse(edited);
+        Document actual = parser.reparse(parser.parse(text), editStart, editEnd, newText);
+
+        String message = "edit [" + editStart + ", " + editEnd + ") with \"" + newText + "\"";
+        assertEquals(message, edited, actual.getChars().toString());
+        assertEquals(message, new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(actual));
+        assertEquals(message, renderer.render(expected), renderer.render(actual));
+
+        for (Node node : actual.getDescendants()) {
+            assertSame(message, actual.getChars().getBase(), node.getChars().getBase());
+        }
+    }
+
+    @Test
+    public void reparseMatchesParse() {
+        Parser parser = Parser.builder().build();
+        String text = "" +
+                "# Heading\n" +
+                "\n" +
+                "[ref]: /url\n" +
+                "\n" +
+                "paragraph with [ref] and *emphasis*\n" +
+                "continued\n" +
+                "\n" +
+                "- item 1\n" +
+                "- item 2\n" +
+                "\n" +
+                "    continued item\n" +
+                "\n" +
+                "```\n" +
+                "code\n" +
+                "\n" +
+                "```\n" +
+                "\n" +
+                "last [ref]\n" +
+                "";
+
+        for (int i = 0; i <= text.length(); i++) {
+            assertReparse(parser, text, i, i, "x");
+            assertReparse(parser, text, i, i, "\n");
+            assertReparse(parser, text, i, i, "===\n");
+            assertReparse(parser, text, i, i, "```\n");
+            if (i < text.length()) {
+                assertReparse(parser, text, i, i + 1, "");
+                assertReparse(parser, text, i, Math.min(text.length(), i + 5), "- ");
+            }
+        }
+
+        // new reference definition affects reused nodes
+        assertReparse(parser, text, text.length(), text.length(), "\n[other]: /other\n");
+        assertReparse(parser, text + "\n[other]\n", text.length(), text.length(), "\n[other]: /other\n");
+    }
+
+    @Test
+    public void reparseReusesBlocks() {
+        Parser parser = Parser.builder().build();
+        String text = "" +
+                "paragraph 1\n" +
+                "\n" +
+                "paragraph 2\n" +
+                "\n" +
+                "paragraph 3\n" +
+                "";
+
+        Document previous = parser.parse(text);
+        Node first = previous.getFirstChild();
+        Node third = previous.getLastChild();
+        Document document = parser.reparse(previous, text.length() - 2, text.length() - 1, "33");
+
+        assertSame(first, document.getFirstChild());
+        assertNotSame(third, document.getLastChild());
+        assertEquals("<p>paragraph 1</p>\n<p>paragraph 2</p>\n<p>paragraph 33</p>\n", HtmlRenderer.builder().build().render(document));
+    }
+
+    @Test
+    public void reparseDoesNotPostProcessReusedBlocks() {
+        ArrayList<String> processed = new ArrayList<>();
+        ArrayList<Integer> parsedNodeCounts = new ArrayList<>();
+        InstrumentationListener listener = new InstrumentationListener() {
+            @Override
+            public void documentParsed(@NotNull Document document, long nanos, int nodeCount, long allocatedBytes) {
+                parsedNodeCounts.add(nodeCount);
+            }
+        };
+
+        Parser parser = Parser.builder(new MutableDataSet().set(Parser.INSTRUMENTATION, listener))
+                .postProcessorFactory(new NodePostProcessorFactory(false) {
+                    {
+                        addNodes(Text.class);
+                    }
+
+                    @NotNull
+                    @Override
+                    public NodePostProcessor apply(@NotNull Document document) {
+                        return new NodePostProcessor() {
+                            @Override
+                            public void process(@NotNull NodeTracker state, @NotNull Node node) {
+                                processed.add(node.getChars().toString());
+                            }
+                        };
+                    }
+                })
+                .build();
+
+        String text = "" +
+                "paragraph 1\n" +
+                "\n" +
+                "paragraph 2\n" +
+                "\n" +
+                "paragraph 3\n" +
+                "";
+
+        Document previous = parser.parse(text);
+        processed.clear();
+        Document document = parser.reparse(previous, text.length() - 2, text.length() - 1, "33");
+
+        assertEquals("[paragraph 2, paragraph 33]", processed.toString());
+        assertEquals("[7, 7]", parsedNodeCounts.toString());
+        assertSame(document.getChars().getBase(), document.getFirstChild().getChars().getBase());
+    }
+
+    @Test
+    public void parallelInlineParsingMatchesSequential() {
+        String spec = TestSpecLocator.DEFAULT_RESOURCE_LOCATION.getResourceText();
+        Parser parser = Parser.builder().build();
+        Parser parallelParser = Parser.builder(new MutableDataSet()
+                .set(Parser.PARALLEL_INLINE_PARSING, true)
+                .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+        ).build();
+
+        Document document = parser.parse(spec);
+        Document parallelDocument = parallelParser.parse(spec);
+
+        assertEquals(new AstCollectingVisitor().collectAndGetAstText(document), new AstCollectingVisitor().collectAndGetAstText(parallelDocument));
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        assertEquals(renderer.render(document), renderer.render(parallelDocument));
+    }
+
+    @Test
+    public void parallelInlineParsingExecutor() {
+        String spec = TestSpecLocator.DEFAULT_RESOURCE_LOCATION.getResourceText();
+        AtomicInteger tasks = new AtomicInteger();
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        Executor executor = command -> {
+            tasks.incrementAndGet();
+            threadPool.execute(command);
+        };
+
+        try {
+            Parser parser = Parser.builder().build();
+            Parser parallelParser = Parser.builder(new MutableDataSet()
+                    .set(Parser.PARALLEL_INLINE_PARSING, true)
+                    .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+                    .set(Parser.PARALLEL_INLINE_PARSING_EXECUTOR, executor)
+            ).build();
+
+            Document parallelDocument = parallelParser.parse(spec);
+            assertTrue(tasks.get() > 0);
+            assertEquals(new AstCollectingVisitor().collectAndGetAstText(parser.parse(spec)), new AstCollectingVisitor().collectAndGetAstText(parallelDocument));
+            assertFalse(parallelDocument.isConcurrentAccess());
+            assertFalse(Parser.REFERENCES.get(parallelDocument).isReadOnly());
+
+            // blocks without inline content are not distributed to workers
+            tasks.set(0);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                sb.append("***\n\n");
+            }
+            parallelParser.parse(sb.toString());
+            assertEquals(0, tasks.get());
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    /**
+     * Records paragraph numbers after '%', adds them to finalized when the document is finalized
+     */
+    static class RecordingInlineExtension implements InlineParserExtension {
+        final List<String> finalized;
+        final ArrayList<String> parsed = new ArrayList<>();
+
+        RecordingInlineExtension(List<String> finalized) {
+            this.finalized = finalized;
+        }
+
+        @Override
+        public void finalizeDocument(@NotNull InlineParser inlineParser) {
+            finalized.addAll(parsed);
+        }
+
+        @Override
+        public void finalizeBlock(@NotNull InlineParser inlineParser) {
+        }
+
+        @Override
+        public boolean parse(@NotNull LightInlineParser inlineParser) {
+            parsed.add(inlineParser.getInput().subSequence(inlineParser.getIndex() + 1).trim().toString());
+            return false;
+        }
+    }
+
+    @Test
+    public void parallelInlineParsingFinalizesInDocumentOrder() {
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        List<String> finalized = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            Parser parallelParser = Parser.builder(new MutableDataSet()
+                    .set(Parser.PARALLEL_INLINE_PARSING, true)
+                    .set(Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS, 1)
+                    .set(Parser.PARALLEL_INLINE_PARSING_EXECUTOR, threadPool)
+            ).customInlineParserExtensionFactory(new InlineParserExtensionFactory() {
+                @Override
+                public @NotNull CharSequence getCharacters() {
+                    return "%";
+                }
+
+                @Override
+                public @NotNull InlineParserExtension apply(@NotNull LightInlineParser inlineParser) {
+                    return new RecordingInlineExtension(finalized);
+                }
+
+                @Override
+                public @Nullable Set<Class<?>> getAfterDependents() {
+                    return null;
+                }
+
+                @Override
+                public @Nullable Set<Class<?>> getBeforeDependents() {
+                    return null;
+                }
+
+                @Override
+                public boolean affectsGlobalScope() {
+                    return false;
+                }
+            }).build();
+
+            StringBuilder sb = new StringBuilder();
+            ArrayList<String> expected = new ArrayList<>();
+            for (int i = 0; i < 9; i++) {
+                sb.append("%").append(i).append("\n\n");
+                expected.add(String.valueOf(i));
+            }
+
+            parallelParser.parse(sb.toString());
+            assertEquals(expected, finalized);
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void baseSequenceManager() {
+        BaseSequenceManager manager = new BaseSequenceManager();
+        Parser parser = Parser.builder(new MutableDataSet().set(Parser.BASE_SEQUENCE_MANAGER, manager)).build();
+        String input = "# Heading\n\nparagraph *text*\n";
+
+        Document document1 = parser.parse(input);
+        Document document2 = parser.parse(new String(input.toCharArray()));
+        assertSame(document1.getChars().getBaseSequence(), document2.getChars().getBaseSequence());
+        assertEquals(1, manager.getMissCount());
+        assertEquals(1, manager.getSetHitCount());
+        assertEquals(new AstCollectingVisitor().collectAndGetAstText(document1), new AstCollectingVisitor().collectAndGetAstText(document2));
+
+        Document document3 = Parser.builder().build().parse(input);
+        assertNotSame(document1.getChars().getBaseSequence(), document3.getChars().getBaseSequence());
+    }
+
     @Test
     public void customBlockParserFactory() {
         Parser parser = Parser.builder().customBlockParserFactory(new DashBlockParserFactory()).build();
@@ -394,4 +709,139 @@ final public class ParserTest {
             return BlockStart.none();
         }
     }
+
+    @Test
+    public void instrumentationReportsPhasesAndActivities() {
+        ArrayList<String> phases = new ArrayList<>();
+        InstrumentationAggregator aggregator = new InstrumentationAggregator() {
+            @Override
+            public void phaseStarted(@NotNull Document document, @NotNull ParserPhase phase) {
+                phases.add(phase.name());
+            }
+
+            @Override
+            public void phaseFinished(@NotNull Document document, @NotNull ParserPhase phase, long nanos) {
+                super.phaseFinished(document, phase, nanos);
+                phases.add("/" + phase.name());
+            }
+
+            @Override
+            public void documentParsed(@NotNull Document document, long nanos, int nodeCount, long allocatedBytes) {
+                super.documentParsed(document, nanos, nodeCount, allocatedBytes);
+                phases.add("parsed");
+            }
+        };
+
+        MutableDataSet options = new MutableDataSet().set(Parser.INSTRUMENTATION, aggregator);
+        Parser parser = Parser.builder(options).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+
+        Document document = parser.parse("# Heading\n\nparagraph with [link]\n\n[link]: /url\n\n* item\n");
+        renderer.render(document);
+
+        assertEquals("[PARSE_BLOCKS, /PARSE_BLOCKS, PRE_PROCESS_PARAGRAPHS, /PRE_PROCESS_PARAGRAPHS, PRE_PROCESS_BLOCKS, /PRE_PROCESS_BLOCKS, " +
+                "PARSE_INLINES, /PARSE_INLINES, POST_PROCESS, /POST_PROCESS, parsed]", phases.toString());
+
+        Map<String, InstrumentationAggregator.Histogram> histograms = aggregator.getHistograms();
+        assertEquals(1, histograms.get("phase:PARSE_BLOCKS").getCount());
+        assertEquals(1, histograms.get("phase:PARSE_INLINES").getCount());
+        assertEquals(1, histograms.get("phase:POST_PROCESS").getCount());
+        assertFalse(histograms.containsKey("phase:DONE"));
+        assertEquals(1, histograms.get("parse.nanos").getCount());
+        assertEquals(InstrumentationListener.getNodeCount(document), histograms.get("parse.nodes").getMax());
+        assertEquals(1, histograms.get("render.nanos").getCount());
+        assertTrue(histograms.containsKey(InstrumentationListener.Activity.PARAGRAPH_PRE_PROCESSOR.name() + ":" + ReferencePreProcessorFactory.class.getName()));
+        assertTrue(histograms.get(InstrumentationListener.Activity.NODE_RENDERING.name() + ":" + Heading.class.getName()).getCount() == 1);
+
+        boolean hadBlockStart = false;
+        for (String name : histograms.keySet()) {
+            if (name.startsWith(InstrumentationListener.Activity.BLOCK_START.name() + ":")) hadBlockStart = true;
+        }
+        assertTrue(hadBlockStart);
+    }
+
+    @Test
+    public void instrumentationHistogram() {
+        InstrumentationAggregator aggregator = new InstrumentationAggregator();
+        for (int i = 1; i <= 100; i++) {
+            aggregator.add("test", i * 10);
+        }
+
+        InstrumentationAggregator.Histogram histogram = aggregator.getHistogram("test");
+        assertNotNull(histogram);
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(505, histogram.getMean());
+
+        // bucket bounds are within 25% of the value
+        assertTrue(histogram.getPercentile(50) >= 500 && histogram.getPercentile(50) <= 625);
+        assertTrue(histogram.getPercentile(90) >= 900 && histogram.getPercentile(90) <= 1000);
+        assertEquals(1000, histogram.getPercentile(100));
+        assertTrue(aggregator.toString().contains("test"));
+    }
+
+    @Test
+    public void instrumentationConcurrentActivity() throws InterruptedException {
+        InstrumentationAggregator aggregator = new InstrumentationAggregator();
+        String name = InstrumentationListener.Activity.NODE_RENDERING.name() + ":" + Heading.class.getName();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    aggregator.activity(InstrumentationListener.Activity.NODE_RENDERING, Heading.class, i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        InstrumentationAggregator.Histogram histogram = aggregator.getHistogram(name);
+        assertNotNull(histogram);
+        assertEquals(4000, histogram.getCount());
+        assertEquals(4 * 500500, histogram.getTotal());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1000, histogram.getPercentile(100));
+
+        aggregator.clear();
+        assertNull(aggregator.getHistogram(name));
+        aggregator.activity(InstrumentationListener.Activity.NODE_RENDERING, new Heading(), 10);
+        assertEquals(1, aggregator.getHistogram(name).getCount());
+    }
+
+    @Test
+    public void parsingPatternsShared() {
+        MutableDataSet options1 = new MutableDataSet().set(Parser.HEADING_NO_ATX_SPACE, true);
+        MutableDataSet options2 = new MutableDataSet().set(Parser.BLANK_LINES_IN_AST, true);
+        Parsing parsing1 = new Parsing(options1);
+        Parsing parsing2 = new Parsing(options2);
+
+        assertSame(options1, parsing1.options);
+        assertSame(options2, parsing2.options);
+        assertSame(parsing1.LINK_DESTINATION, parsing2.LINK_DESTINATION);
+        assertSame(parsing1.ENTITY_HERE, parsing2.ENTITY_HERE);
+
+        Parsing parsing3 = new Parsing(new MutableDataSet().set(Parser.SPACE_IN_LINK_URLS, true));
+        assertNotSame(parsing1.LINK_DESTINATION, parsing3.LINK_DESTINATION);
+
+        Parsing shared = Parsing.of(options1);
+        assertSame(shared, Parsing.of(options2));
+        assertNotSame(options1, shared.options);
+        assertSame(parsing1.LINK_DESTINATION, shared.LINK_DESTINATION);
+        assertNotSame(shared, Parsing.of(new MutableDataSet().set(Parser.SPACE_IN_LINK_URLS, true)));
+        assertSame(Parsing.compile("a+b"), Parsing.compile("a+b"));
+        assertNotSame(Parsing.compile("a+b"), Parsing.compile("a+b", Pattern.CASE_INSENSITIVE));
+    }
+
+    @Test
+    public void warmUp() {
+        Parser parser = Parser.builder().build();
+        assertSame(parser, parser.warmUp(2));
+
+        Node document = parser.parse("# Heading\n");
+        assertEquals("Document[0, 10]\n  Heading[0, 9] textOpen:[0, 1, \"#\"] text:[2, 9, \"Heading\"]\n    Text[2, 9] chars:[2, 9, \"Heading\"]\n", new AstCollectingVisitor().collectAndGetAstText(document));
+    }
 }
@@ -0,0 +1,289 @@
+package com.vladsch.flexmark.core.test.util.parser;
+
+import com.vladsch.flexmark.ast.Emphasis;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.parser.internal.PostProcessorManager;
+import com.vladsch.flexmark.parser.internal.PostProcessorManager.PostProcessorDependencies;
+import com.vladsch.flexmark.parser.internal.PostProcessorManager.PostProcessorDependencyStage;
+import com.vladsch.flexmark.parser.block.DocumentPostProcessor;
+import com.vladsch.flexmark.parser.block.DocumentPostProcessorFactory;
+import com.vladsch.flexmark.parser.block.NodePostProcessor;
+import com.vladsch.flexmark.parser.block.NodePostProcessorFactory;
+import com.vladsch.flexmark.test.util.AstCollectingVisitor;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.ast.NodeTracker;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+final public class PostProcessorTest {
+    final static String MARKDOWN = "" +
+            "first::second text!! and *emphasis::split!!*\n" +
+            "\n" +
+            "- item::one!!\n" +
+            "- item two\n" +
+            "\n" +
+            "> quoted!! text::split::twice\n" +
+            "";
+
+    /**
+     * Splits text nodes at "::" into separate text nodes
+     */
+    static class SplittingFactory extends NodePostProcessorFactory {
+        final List<String> processed = new ArrayList<>();
+
+        SplittingFactory() {
+            super(false);
+            addNodes(Text.class);
+        }
+
+        @Override
+        public boolean isNodeLocal() {
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public NodePostProcessor apply(@NotNull Document document) {
+            return new NodePostProcessor() {
+                @Override
+                public void process(@NotNull NodeTracker state, @NotNull Node node) {
+                    processed.add(node.getChars().toString());
+
+                    BasedSequence chars = node.getChars();
+                    int pos = chars.indexOf("::");
+                    if (pos > 0) {
+                        Text before = new Text(chars.subSequence(0, pos));
+                        Text after = new Text(chars.subSequence(pos + 2));
+                        node.insertBefore(before);
+                        state.nodeAdded(before);
+                        node.insertBefore(after);
+                        state.nodeAdded(after);
+                        node.unlink();
+                        state.nodeRemoved(node);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Adds a marker text node after text nodes containing "!!", not in emphasis
+     */
+    static class MarkingFactory extends NodePostProcessorFactory {
+        final List<String> processed = new ArrayList<>();
+
+        MarkingFactory() {
+            super(false);
+            addNodeWithExclusions(Text.class, Emphasis.class);
+        }
+
+        @Override
+        public boolean isNodeLocal() {
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public NodePostProcessor apply(@NotNull Document document) {
+            return new NodePostProcessor() {
+                @Override
+                public void process(@NotNull NodeTracker state, @NotNull Node node) {
+                    processed.add(node.getChars().toString());
+
+                    int pos = node.getChars().indexOf("!!");
+                    if (pos >= 0) {
+                        Text marker = new Text(node.getChars().subSequence(pos, pos + 1));
+                        node.insertAfter(marker);
+                        state.nodeAdded(marker);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Records text nodes
+     */
+    static class RecordingFactory extends NodePostProcessorFactory {
+        final List<String> processed = new ArrayList<>();
+
+        RecordingFactory() {
+            super(false);
+            addNodes(Text.class);
+        }
+
+        @Override
+        public boolean isNodeLocal() {
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public NodePostProcessor apply(@NotNull Document document) {
+            return new NodePostProcessor() {
+                @Override
+                public void process(@NotNull NodeTracker state, @NotNull Node node) {
+                    processed.add(node.getChars().toString());
+                }
+            };
+        }
+    }
+
+    /**
+     * Joins text nodes preceded by text in emphasis with the text after the emphasis, not node local
+     */
+    static class JoiningFactory extends NodePostProcessorFactory {
+        JoiningFactory() {
+            super(false);
+            addNodes(Emphasis.class);
+        }
+
+        @NotNull
+        @Override
+        public NodePostProcessor apply(@NotNull Document document) {
+            return new NodePostProcessor() {
+                @Override
+                public void process(@NotNull NodeTracker state, @NotNull Node node) {
+                    Node next = node.getNext();
+                    if (next instanceof Text && node.getLastChild() instanceof Text) {
+                        Node last = node.getLastChild();
+                        last.setChars(last.getChars().baseSubSequence(last.getStartOffset(), next.getEndOffset()));
+                        next.unlink();
+                        state.nodeRemoved(next);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Appends a paragraph with text to the document
+     */
+    static class AppendingFactory extends DocumentPostProcessorFactory {
+        @NotNull
+        @Override
+        public DocumentPostProcessor apply(@NotNull Document document) {
+            return new DocumentPostProcessor() {
+                @NotNull
+                @Override
+                public Document processDocument(@NotNull Document document) {
+                    Paragraph paragraph = new Paragraph();
+                    paragraph.appendChild(new Text(document.getChars().subSequence(0, 6)));
+                    paragraph.setCharsFromContent();
+                    document.appendChild(paragraph);
+                    return document;
+                }
+            };
+        }
+    }
+
+    static class Result {
+        final String ast;
+        final String html;
+        final List<String> split;
+        final List<String> marked;
+        final List<String> recorded;
+
+        Result(boolean fused) {
+            this(fused, false);
+        }
+
+        Result(boolean fused, boolean joining) {
+            SplittingFactory splitting = new SplittingFactory();
+            MarkingFactory marking = new MarkingFactory();
+            RecordingFactory recording = new RecordingFactory();
+
+            MutableDataSet options = new MutableDataSet().set(Parser.FUSED_POST_PROCESSING, fused);
+            Parser.Builder builder = Parser.builder(options)
+                    .postProcessorFactory(splitting);
+            if (joining) builder.postProcessorFactory(new JoiningFactory());
+            Parser parser = builder
+                    .postProcessorFactory(marking)
+                    .postProcessorFactory(recording)
+                    .build();
+
+            Document document = parser.parse(MARKDOWN);
+            ast = new AstCollectingVisitor().collectAndGetAstText(document);
+            html = HtmlRenderer.builder().build().render(document);
+            split = splitting.processed;
+            marked = marking.processed;
+            recorded = recording.processed;
+        }
+    }
+
+    @Test
+    public void fusedMatchesSeparatePasses() {
+        Result separate = new Result(false);
+        Result fused = new Result(true);
+
+        assertEquals(separate.ast, fused.ast);
+        assertEquals(separate.html, fused.html);
+        assertEquals(separate.split, fused.split);
+        assertEquals(separate.marked, fused.marked);
+        assertEquals(separate.recorded, fused.recorded);
+    }
+
+    @Test
+    public void addedNodesProcessedByFollowingPostProcessors() {
+        Result fused = new Result(true);
+
+        // split results are not split again, text in emphasis is not marked, markers are only seen by the recorder
+        assertEquals("[first::second text!! and , emphasis::split!!, item::one!!, item two, quoted!! text::split::twice]", fused.split.toString());
+        assertEquals("[item two, first, second text!! and , item, one!!, quoted!! text, split::twice]", fused.marked.toString());
+        assertEquals("[item two, first, second text!! and , emphasis, split!!, item, one!!, quoted!! text, split::twice, !, !, !]", fused.recorded.toString());
+    }
+
+    @Test
+    public void fusedWithNodeLocalAndOtherPostProcessors() {
+        Result separate = new Result(false, true);
+        Result fused = new Result(true, true);
+
+        assertEquals(separate.ast, fused.ast);
+        assertEquals(separate.html, fused.html);
+        assertEquals(separate.split, fused.split);
+        assertEquals(separate.marked, fused.marked);
+        assertEquals(separate.recorded, fused.recorded);
+    }
+
+    @Test
+    public void nodePostProcessorAfterGlobalInStage() {
+        for (boolean fused : new boolean[] { false, true }) {
+            RecordingFactory recording = new RecordingFactory();
+            MarkingFactory marking = new MarkingFactory();
+            PostProcessorDependencies dependencies = new PostProcessorDependencies(Collections.singletonList(
+                    new PostProcessorDependencyStage(Arrays.asList(recording, new AppendingFactory(), marking))
+            ));
+
+            Parser parser = Parser.builder(new MutableDataSet().set(Parser.FUSED_POST_PROCESSING, fused)).build();
+            Document document = PostProcessorManager.processDocument(parser.parse("text!! *emphasis*\n"), dependencies);
+
+            // text appended by the global post processor is only seen by the node post processor after it
+            assertEquals("[text!! , emphasis]", recording.processed.toString());
+            assertEquals("[text!! , text!!]", marking.processed.toString());
+            assertEquals("" +
+                    "Document[0, 18]\n" +
+                    "  Paragraph[0, 18]\n" +
+                    "    Text[0, 7] chars:[0, 7, \"text!! \"]\n" +
+                    "    Text[4, 5] chars:[4, 5, \"!\"]\n" +
+                    "    Emphasis[7, 17] textOpen:[7, 8, \"*\"] text:[8, 16, \"emphasis\"] textClose:[16, 17, \"*\"]\n" +
+                    "      Text[8, 16] chars:[8, 16, \"emphasis\"]\n" +
+                    "  Paragraph[0, 6]\n" +
+                    "    Text[0, 6] chars:[0, 6, \"text!!\"]\n" +
+                    "    Text[4, 5] chars:[4, 5, \"!\"]\n" +
+                    "", new AstCollectingVisitor().collectAndGetAstText(document));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.vladsch.flexmark.core.test.util.parser.ast;
+
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.ast.util.ReferenceRepository;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.test.specs.TestSpecLocator;
+import com.vladsch.flexmark.test.util.AstCollectingVisitor;
+import com.vladsch.flexmark.util.ast.*;
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class CompactDocumentTest {
+    static final String MARKDOWN = "" +
+            "# Heading [with link][ref]\n" +
+            "\n" +
+            "Paragraph with *emphasis*, `code` and [shared]\n" +
+            "\n" +
+            "* item 1\n" +
+            "* item 2\n" +
+            "\n" +
+            "    > quoted [ref] text\n" +
+            "\n" +
+            "## Second heading\n" +
+            "\n" +
+            "[ref]: /url 'Title'\n" +
+            "";
+
+    static void assertSameAst(Node expected, Node actual) {
+        assertEquals(new AstCollectingVisitor().collectAndGetAstText(expected), new AstCollectingVisitor().collectAndGetAstText(actual));
+    }
+
+    static int childCount(Node node) {
+        int count = 0;
+        for (Node ignored : node.getChildren()) {
+            count++;
+        }
+        return count;
+    }
+
+    static void assertCompactDocument(DataHolder options, String markdown) {
+        Parser parser = Parser.builder(options).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+        Document document = parser.parse(markdown);
+        String html = renderer.render(document);
+
+        CompactDocument compact = CompactDocument.of(document);
+        Document materialized = compact.toDocument();
+
+        assertNotSame(document, materialized);
+        assertSameAst(document, materialized);
+        assertEquals(html, renderer.render(materialized));
+        assertEquals(html, renderer.render(compact.toDocument()));
+
+        // original document is not affected
+        assertEquals(html, renderer.render(document));
+    }
+
+    @Test
+    public void test_structure() {
+        Document document = Parser.builder().build().parse(MARKDOWN);
+        CompactDocument compact = CompactDocument.of(document);
+
+        ArrayList<Node> nodes = new ArrayList<>();
+        nodes.add(document);
+        for (Node node : document.getDescendants()) {
+            nodes.add(node);
+        }
+
+        assertEquals(nodes.size(), compact.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            assertSame(node.getClass(), compact.getNodeClass(i));
+            assertEquals(node.getStartOffset(), compact.getStartOffset(i));
+            assertEquals(node.getEndOffset(), compact.getEndOffset(i));
+            assertEquals(node.getChars().toString(), compact.getChars(i).toString());
+            assertEquals(nodes.indexOf(node.getParent()), compact.getParent(i));
+            assertEquals(nodes.indexOf(node.getFirstChild()), compact.getFirstChild(i));
+            assertEquals(nodes.indexOf(node.getLastChild()), compact.getLastChild(i));
+            assertEquals(nodes.indexOf(node.getNext()), compact.getNext(i));
+            assertEquals(nodes.indexOf(node.getPrevious()), compact.getPrevious(i));
+        }
+
+        assertEquals(nodes.size(), compact.getSubtreeEnd(0));
+    }
+
+    @Test
+    public void test_toDocument() {
+        assertCompactDocument(new MutableDataSet(), MARKDOWN);
+    }
+
+    @Test
+    public void test_toDocumentBlankLines() {
+        assertCompactDocument(new MutableDataSet().set(Parser.BLANK_LINES_IN_AST, true), MARKDOWN);
+    }
+
+    @Test
+    public void test_toDocumentSpec() {
+        assertCompactDocument(new MutableDataSet(), TestSpecLocator.DEFAULT_RESOURCE_LOCATION.getResourceText());
+    }
+
+    @Test
+    public void test_toDocumentSharedReferences() {
+        ReferenceRepository shared = NodeRepositoryTest.frozenReferences(new MutableDataSet());
+        DataHolder options = new MutableDataSet().set(Parser.REFERENCES, shared).toImmutable();
+        assertCompactDocument(options, MARKDOWN + "\n[shared]: /local-shared\n");
+
+        Document document = CompactDocument.of(Parser.builder(options).build().parse(MARKDOWN)).toDocument();
+        ReferenceRepository references = Parser.REFERENCES.get(document);
+        assertSame(shared, references.getSharedRepository());
+        assertEquals("/url", references.get(references.normalizeKey("ref")).getUrl().toString());
+        assertSame(document, references.get(references.normalizeKey("ref")).getDocument());
+    }
+
+    @Test
+    public void test_toNode() {
+        Parser parser = Parser.builder().build();
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        Document document = parser.parse(MARKDOWN);
+        CompactDocument compact = CompactDocument.of(document);
+
+        int index = 0;
+        for (Node node : document.getDescendants()) {
+            index++;
+            if (!(node instanceof Heading)) continue;
+
+            Node materialized = compact.toNode(index);
+            assertSame(node.getClass(), materialized.getClass());
+            assertSameAst(node, materialized);
+            assertEquals(renderer.render(node), renderer.render(materialized));
+
+            // only ancestors and referenced nodes are materialized
+            Document materializedDocument = materialized.getDocument();
+            assertNotSame(document, materializedDocument);
+            assertSame(materializedDocument, materialized.getParent());
+            assertTrue(childCount(materializedDocument) < childCount(document));
+        }
+    }
+
+    @Test
+    public void test_toNodeText() {
+        Document document = Parser.builder().build().parse(MARKDOWN);
+        CompactDocument compact = CompactDocument.of(document);
+
+        for (int i = 0; i < compact.size(); i++) {
+            if (compact.getNodeClass(i) != Text.class) continue;
+
+            Node text = compact.toNode(i);
+            assertEquals(compact.getChars(i).toString(), text.getChars().toString());
+
+            int parentIndex = compact.getParent(i);
+            Node parent = text.getParent();
+            while (parentIndex != -1) {
+                assertNotNull(parent);
+                assertSame(compact.getNodeClass(parentIndex), parent.getClass());
+                parentIndex = compact.getParent(parentIndex);
+                parent = parent.getParent();
+            }
+            assertNull(parent);
+        }
+    }
+
+    @Test
+    public void test_visitor() {
+        Document document = Parser.builder().build().parse(MARKDOWN);
+        ArrayList<String> expected = new ArrayList<>();
+        ArrayList<String> actual = new ArrayList<>();
+
+        new NodeVisitor(new VisitHandler<>(Text.class, text -> expected.add(text.getChars().toString()))).visit(document);
+        new NodeVisitor(new VisitHandler<>(Text.class, text -> actual.add(text.getChars().toString()))).visit(CompactDocument.of(document).toDocument());
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+}
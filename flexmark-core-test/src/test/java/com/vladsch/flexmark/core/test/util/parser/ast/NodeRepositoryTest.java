@@ -0,0 +1,128 @@
+package com.vladsch.flexmark.core.test.util.parser.ast;
+
+import com.vladsch.flexmark.ast.Reference;
+import com.vladsch.flexmark.ast.util.ReferenceRepository;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.KeepType;
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NodeRepositoryTest {
+    static final String DEFINITIONS = "" +
+            "[shared]: /shared\n" +
+            "[Other Ref]: /other 'Other'\n" +
+            "[redefined]: /shared-redefined\n" +
+            "";
+
+    static final String MARKDOWN = "" +
+            "[shared], [other ref], [redefined] and [local]\n" +
+            "\n" +
+            "[redefined]: /local-redefined\n" +
+            "[local]: /local\n" +
+            "";
+
+    static ReferenceRepository frozenReferences(DataHolder options) {
+        ReferenceRepository references = Parser.REFERENCES.get(Parser.builder(options).build().parse(DEFINITIONS));
+        references.freeze();
+        return references;
+    }
+
+    static void assertSharedSameAsCombined(DataHolder options) {
+        ReferenceRepository shared = frozenReferences(options);
+        Map<String, Reference> sharedCopy = new HashMap<>(shared);
+
+        DataHolder sharedOptions = new MutableDataSet(options).set(Parser.REFERENCES, shared).toImmutable();
+        Parser parser = Parser.builder(sharedOptions).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(sharedOptions).build();
+
+        Parser combinedParser = Parser.builder(options).build();
+        String expected = HtmlRenderer.builder(options).build().render(combinedParser.parse(DEFINITIONS + "\n" + MARKDOWN));
+
+        Document document = parser.parse(MARKDOWN);
+        assertEquals(expected, renderer.render(document));
+
+        // document repository is layered over the shared one, which is not modified
+        ReferenceRepository references = Parser.REFERENCES.get(document);
+        assertNotSame(shared, references);
+        assertSame(shared, references.getSharedRepository());
+        assertEquals(sharedCopy, shared);
+        assertEquals(expected, renderer.render(parser.parse(MARKDOWN)));
+
+        Map<String, Reference> combined = Parser.REFERENCES.get(combinedParser.parse(DEFINITIONS + "\n" + MARKDOWN));
+        assertEquals(combined.size(), references.size());
+        assertEquals(combined.keySet(), references.keySet());
+        assertEquals(new HashSet<>(combined.keySet()), new HashSet<>(new ArrayList<>(references.keySet())));
+        for (Map.Entry<String, Reference> entry : references.entrySet()) {
+            assertEquals(combined.get(entry.getKey()).getUrl(), entry.getValue().getUrl());
+        }
+    }
+
+    @Test
+    public void test_keepFirst() {
+        assertSharedSameAsCombined(new MutableDataSet());
+    }
+
+    @Test
+    public void test_keepLast() {
+        assertSharedSameAsCombined(new MutableDataSet().set(Parser.REFERENCES_KEEP, KeepType.LAST));
+    }
+
+    @Test
+    public void test_frozen() {
+        ReferenceRepository shared = frozenReferences(new MutableDataSet());
+        assertTrue(shared.isFrozen());
+
+        try {
+            shared.putRawKey("new", new Reference(shared.get("shared").getChars(), null, null));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ignored) {
+        }
+
+        try {
+            shared.clear();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ignored) {
+        }
+        assertEquals(3, shared.size());
+    }
+
+    @Test
+    public void test_layeredValues() {
+        ReferenceRepository shared = frozenReferences(new MutableDataSet());
+        Document document = Parser.builder(new MutableDataSet().set(Parser.REFERENCES, shared)).build().parse("[local]: /local\n");
+        ReferenceRepository references = Parser.REFERENCES.get(document);
+
+        assertEquals(4, references.size());
+        assertEquals(4, references.values().size());
+        assertEquals("/local", references.values().get(3).getUrl().toString());
+        assertEquals("/other", references.getFromRaw("OTHER  REF").getUrl().toString());
+        assertTrue(references.containsKey("shared"));
+        assertFalse(references.isEmpty());
+    }
+
+    @Test
+    public void test_layeredOnFirstUse() {
+        ReferenceRepository shared = frozenReferences(new MutableDataSet());
+        Document document = new Document(new MutableDataSet().set(Parser.REFERENCES, shared).toImmutable(), BasedSequence.NULL);
+
+        // options value until the repository is used by the document
+        assertSame(shared, document.getAll().get(Parser.REFERENCES));
+
+        ReferenceRepository references = Parser.REFERENCES.get(document);
+        assertNotSame(shared, references);
+        assertSame(shared, references.getSharedRepository());
+        assertSame(references, document.getAll().get(Parser.REFERENCES));
+        assertSame(references, Parser.REFERENCES.get(document));
+    }
+}
@@ -4,6 +4,8 @@ import com.vladsch.flexmark.docx.converter.internal.CoreNodeDocxRenderer;
 import com.vladsch.flexmark.docx.converter.internal.DocxLinkResolver;
 import com.vladsch.flexmark.docx.converter.util.DocumentContentHandler;
 import com.vladsch.flexmark.docx.converter.util.DocxContextImpl;
+import com.vladsch.flexmark.docx.converter.util.DocxImageCache;
+import com.vladsch.flexmark.docx.converter.util.DocxTemplateCache;
 import com.vladsch.flexmark.docx.converter.util.XmlDocxSorter;
 import com.vladsch.flexmark.docx.converter.util.XmlFormatter;
 import com.vladsch.flexmark.ext.emoji.EmojiExtension;
@@ -17,6 +19,7 @@ import com.vladsch.flexmark.util.collection.TwoWayHashMap;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.data.MutableDataHolder;
+import com.vladsch.flexmark.util.data.NullableDataKey;
 import com.vladsch.flexmark.util.data.ScopedDataSet;
 import com.vladsch.flexmark.util.dependency.FlatDependencyHandler;
 import com.vladsch.flexmark.util.html.Attributes;
@@ -38,6 +41,8 @@ import org.jetbrains.annotations.Nullable;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
 /**
  * Renders a tree of nodes to docx4j API.
@@ -77,6 +82,23 @@ public class DocxRenderer implements IRender {
     public static final DataKey<Boolean> TOC_GENERATE = new DataKey<>("TOC_GENERATE", false);
     public static final DataKey<String> TOC_INSTRUCTION = new DataKey<>("TOC_INSTRUCTION", "TOC \\o \"1-3\" \\h \\z \\u ");
     public static final DataKey<Boolean> LOG_IMAGE_PROCESSING = new DataKey<>("LOG_IMAGE_PROCESSING", false);
+
+    /**
+     * Cache of loaded images used by all renderers, keyed by image URL, default keeps up to 32MB of image data.
+     * Cached images are not reloaded if the image at the URL changes, set to null to load images for every document
+     */
+    public static final NullableDataKey<DocxImageCache> IMAGE_CACHE = new NullableDataKey<>("IMAGE_CACHE", new DocxImageCache(32L * 1024 * 1024));
+
+    /**
+     * Maximum number of images loaded at the same time, images of the document are loaded before rendering.
+     * When 1 or less images are loaded as they are rendered
+     */
+    public static final DataKey<Integer> IMAGE_LOAD_THREADS = new DataKey<>("IMAGE_LOAD_THREADS", 4);
+
+    /**
+     * Executor on which images are loaded, default null to use {@link DocxImageCache#getSharedExecutor()} shared by all renderers
+     */
+    public static final NullableDataKey<Executor> IMAGE_LOAD_EXECUTOR = new NullableDataKey<>("IMAGE_LOAD_EXECUTOR");
     public static final DataKey<Boolean> NO_CHARACTER_STYLES = new DataKey<>("NO_CHARACTER_STYLES", false);
     public static final DataKey<String> CODE_HIGHLIGHT_SHADING = new DataKey<>("CODE_HIGHLIGHT_SHADING", "");
     public static final DataKey<Boolean> ERRORS_TO_STDERR = new DataKey<>("ERRORS_TO_STDERR", false);
@@ -129,6 +151,13 @@ public class DocxRenderer implements IRender {
 
     public static final DataKey<String> DEFAULT_TEMPLATE_RESOURCE = new DataKey<>("TIGHT_PARAGRAPH_STYLE", "/empty.xml");
 
+    /**
+     * CACHE_TEMPLATE default true, when true {@link #render(Node)} renders to a copy of the template loaded once for
+     * the same DEFAULT_TEMPLATE_RESOURCE, STYLES_XML and NUMBERING_XML instead of loading the template for every document
+     */
+    public static final DataKey<Boolean> CACHE_TEMPLATE = new DataKey<>("CACHE_TEMPLATE", true);
+    static final DocxTemplateCache TEMPLATE_CACHE = new DocxTemplateCache();
+
     // Now Used. These are numbering styles
     public static final DataKey<String> BULLET_LIST_STYLE = new DataKey<>("BULLET_LIST_STYLE", "BulletList");
     public static final DataKey<String> NUMBERED_LIST_STYLE = new DataKey<>("NUMBERED_LIST_STYLE", "NumberedList");
@@ -217,6 +246,28 @@ public class DocxRenderer implements IRender {
         return null;
     }
 
+    /**
+     * Get a copy of the template for the options, template is loaded and has default styles and numbering set once for
+     * the same DEFAULT_TEMPLATE_RESOURCE, STYLES_XML and NUMBERING_XML values
+     *
+     * @param options options
+     * @return copy of the cached template, null if template could not be loaded
+     */
+    public static WordprocessingMLPackage getCachedTemplate(DataHolder options) {
+        DocxTemplateCache.Snapshot snapshot = getCachedTemplateSnapshot(options);
+        return snapshot == null ? null : snapshot.toPackage();
+    }
+
+    static DocxTemplateCache.Snapshot getCachedTemplateSnapshot(DataHolder options) {
+        String resourcePath = DEFAULT_TEMPLATE_RESOURCE.get(options);
+        List<String> key = Arrays.asList(resourcePath, STYLES_XML.get(options), NUMBERING_XML.get(options));
+        return TEMPLATE_CACHE.getSnapshot(key, () -> {
+            WordprocessingMLPackage template = getDefaultTemplate(resourcePath);
+            if (template != null) setDefaultStyleAndNumbering(template, options);
+            return template;
+        });
+    }
+
     static void setDefaultStyleAndNumbering(WordprocessingMLPackage out, DataHolder options) {
         try {
             // (main doc part it if necessary)
@@ -293,9 +344,44 @@ public class DocxRenderer implements IRender {
      */
     @NotNull
     public String render(@NotNull Node document) {
-        String resourcePath = DEFAULT_TEMPLATE_RESOURCE.get(getOptions());
-        WordprocessingMLPackage mlPackage = getDefaultTemplate(resourcePath);
+        WordprocessingMLPackage mlPackage = CACHE_TEMPLATE.get(options) ? getCachedTemplate(options) : getDefaultTemplate(DEFAULT_TEMPLATE_RESOURCE.get(options));
         render(document, mlPackage);
+        return toXml(mlPackage);
+    }
+
+    /**
+     * Render documents, each to a copy of the same template
+     * <p>
+     * The template is loaded once for all documents, see {@link #getCachedTemplate(DataHolder)}. When CACHE_TEMPLATE is
+     * false the template is loaded for this call only and not kept in the cache.
+     *
+     * @param documents documents to render
+     * @param consumer  consumer of each document and the package it was rendered to
+     */
+    public void render(@NotNull Iterable<? extends Node> documents, @NotNull BiConsumer<? super Node, WordprocessingMLPackage> consumer) {
+        DocxTemplateCache.Snapshot snapshot;
+        if (CACHE_TEMPLATE.get(options)) {
+            snapshot = getCachedTemplateSnapshot(options);
+        } else {
+            WordprocessingMLPackage template = getDefaultTemplate(DEFAULT_TEMPLATE_RESOURCE.get(options));
+            snapshot = template == null ? null : DocxTemplateCache.snapshotOf(template);
+        }
+
+        for (Node document : documents) {
+            WordprocessingMLPackage mlPackage = snapshot == null ? null : snapshot.toPackage();
+            render(document, mlPackage);
+            consumer.accept(document, mlPackage);
+        }
+    }
+
+    /**
+     * Convert rendered package to flat XML string
+     *
+     * @param mlPackage package
+     * @return flat XML, document body only if RENDER_BODY_ONLY is set, empty string on error
+     */
+    @NotNull
+    public String toXml(@NotNull WordprocessingMLPackage mlPackage) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         try {
             mlPackage.save(outputStream, Docx4J.FLAG_SAVE_FLAT_XML);
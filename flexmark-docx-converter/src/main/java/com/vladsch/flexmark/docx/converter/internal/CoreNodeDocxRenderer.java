@@ -63,17 +63,19 @@ import org.docx4j.toc.TocException;
 import org.docx4j.toc.TocGenerator;
 import org.docx4j.wml.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.xml.bind.JAXBElement;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.math.BigInteger;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
 
 import static com.vladsch.flexmark.html.renderer.LinkStatus.UNKNOWN;
 import static com.vladsch.flexmark.util.html.Attribute.CLASS_ATTR;
@@ -109,6 +111,10 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
     protected final int tableLeftIndent;
     protected final String tableStyle;
     private int imageId;
+    private final DocxImageCache imageCache;
+    private final int imageLoadThreads;
+    private final @Nullable Executor imageLoadExecutor;
+    private Map<String, Future<DocxImageCache.ImageData>> loadedImages;
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
     private final HashMap<Node, BigInteger> footnoteIDs; // cannot re-use footnote ids, so this is dead code, left in for future if needed
     private TocBlockBase lastTocBlock;
@@ -159,6 +165,10 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
 
         // start at 100000, hoping to avoid conflicts with ids already in the document
         imageId = 100000;
+        imageCache = DocxRenderer.IMAGE_CACHE.get(options);
+        imageLoadThreads = DocxRenderer.IMAGE_LOAD_THREADS.get(options);
+        imageLoadExecutor = DocxRenderer.IMAGE_LOAD_EXECUTOR.get(options);
+        loadedImages = Collections.emptyMap();
     }
 
     @Override
@@ -174,6 +184,9 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
                 // get resolved styles
                 options = docx.getDocxRendererOptions();
                 headerIdGenerator.generateIds(document);
+                if (imageLoadThreads > 1) {
+                    loadImages(docx);
+                }
                 break;
 
             case DOCUMENT_TOP:
@@ -213,7 +226,7 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
 
     @Override
     public Set<Class<?>> getNodeClasses() {
-        return null;
+        return imageLoadThreads > 1 ? new HashSet<>(Arrays.asList(Image.class, ImageRef.class)) : null;
     }
 
     @Override
@@ -1530,9 +1543,12 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
     }
 
     public R newImage(DocxRendererContext docx, BufferedImage image, String filenameHint, Attributes attributes, int id1, int id2, double scale) {
+        return newImage(docx, ImageUtils.getImageBytes(image), image.getWidth(), image.getHeight(), filenameHint, attributes, id1, id2, scale);
+    }
+
+    public R newImage(DocxRendererContext docx, byte[] imageBytes, int imageWidth, int imageHeight, String filenameHint, Attributes attributes, int id1, int id2, double scale) {
         try {
             BinaryPartAbstractImage imagePart = null;
-            byte[] imageBytes = ImageUtils.getImageBytes(image);
             imagePart = BinaryPartAbstractImage.createImagePart(docx.getPackage(), docx.getContainerPart(), imageBytes);
             Inline inline = null;
             Anchor anchor = null;
@@ -1546,9 +1562,9 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
 
             // if only one dimension given calculate the other from ratio
             if (cy == -1 && cx != -1) {
-                cy = (long) (image.getHeight() * (cx / (image.getWidth() * 1.0)));
+                cy = (long) (imageHeight * (cx / (imageWidth * 1.0)));
             } else if (cx == -1 && cy != -1) {
-                cx = (long) (image.getWidth() * (cy / (image.getHeight() * 1.0)));
+                cx = (long) (imageWidth * (cy / (imageHeight * 1.0)));
             }
 
             // kludge: normally there is no max-width attribute but we can fake it
@@ -1783,35 +1799,93 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
         }
     }
 
-    private R renderImage(DocxRendererContext docx, String url, Attributes attributes, double scale) {
-        BufferedImage image = null;
-        int id1 = imageId++;
-        int id2 = imageId++;
-        String filenameHint = String.format(Locale.US, "Image%d", id1);
-        int cx;
+    private static boolean isLoadableImageUrl(String url) {
+        return url.startsWith("http:") || url.startsWith("https:") || url.startsWith("file:");
+    }
 
+    private String getImageResourceUrl(String url) {
         if (url.startsWith(DocxRenderer.EMOJI_RESOURCE_PREFIX)) {
             // we take it from resources
-            url = this.getClass().getResource("/emoji/" + url.substring(DocxRenderer.EMOJI_RESOURCE_PREFIX.length())).toString();
+            return this.getClass().getResource("/emoji/" + url.substring(DocxRenderer.EMOJI_RESOURCE_PREFIX.length())).toString();
+        }
+        return url;
+    }
+
+    /**
+     * Start loading images of the document so they are loaded in parallel instead of one at a time during rendering
+     * <p>
+     * Links cannot be resolved before rendering because resolved links are cached with the rendering node used
+     * to resolve them, image URLs are resolved here with the default link resolver. Images with URLs resolved
+     * differently during rendering are loaded when rendered.
+     *
+     * @param docx renderer context
+     */
+    private void loadImages(DocxRendererContext docx) {
+        DocxLinkResolver linkResolver = new DocxLinkResolver(docx);
+        LinkedHashSet<String> urls = new LinkedHashSet<>();
+
+        for (Node node : docx.nodesOfType(new Class<?>[] { Image.class, ImageRef.class })) {
+            String url = null;
+            if (node instanceof Image) {
+                url = ((Image) node).getUrl().unescape();
+            } else {
+                Reference reference = ((ImageRef) node).getReferenceNode(referenceRepository);
+                if (reference != null) url = reference.getUrl().unescape();
+            }
+
+            if (url == null || url.isEmpty()) continue;
+
+            url = linkResolver.resolveLink(node, docx, new ResolvedLink(LinkType.IMAGE, url)).getUrl();
+            if (options.percentEncodeUrls) url = Escaping.percentEncodeUrl(url);
+
+            if (node instanceof Image && !((Image) node).getUrlContent().isEmpty()) {
+                // same as render(Image)
+                url += Escaping.percentEncodeUrl(((Image) node).getUrlContent()).replace("+", "%2B").replace("%3D", "=").replace("%26", "&amp;");
+            }
+
+            url = getImageResourceUrl(url);
+            if (isLoadableImageUrl(url)) urls.add(url);
         }
 
-        if (url.startsWith("http:") || url.startsWith("https:") || url.startsWith("file:")) {
-            // hyperlinked image  or file
-            if (url.startsWith("file:")) {
-                // try to load from file, from URL fails on some images while file load succeeds
-                try {
-                    File imageFile = new File(new URI(url));
-                    image = ImageUtils.loadImageFromFile(imageFile);
-                } catch (URISyntaxException e) {
-                    e.printStackTrace();
+        if (!urls.isEmpty()) {
+            loadedImages = DocxImageCache.loadImages(imageCache, urls, imageLoadThreads, options.logImageProcessing, imageLoadExecutor);
+        }
+    }
+
+    private DocxImageCache.ImageData getImage(String url) {
+        Future<DocxImageCache.ImageData> loadedImage = loadedImages.get(url);
+        if (loadedImage != null) {
+            // load on this thread if loading was not started yet
+            if (loadedImage instanceof RunnableFuture) ((RunnableFuture<?>) loadedImage).run();
+
+            try {
+                return loadedImage.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                // load again on this thread so failure is reported by the renderer
+                if (options.logImageProcessing) {
+                    System.out.println("loadImages(" + url + ") failed: " + e.getCause());
                 }
-            } else {
-                image = ImageUtils.loadImageFromURL(url, options.logImageProcessing);
             }
+        }
 
-            if (image == null && options.logImageProcessing) {
-                System.out.println("loadImageFromURL(" + url + ") returned null");
-            }
+        return imageCache != null ? imageCache.getImage(url, options.logImageProcessing) : DocxImageCache.loadImage(url, options.logImageProcessing);
+    }
+
+    private R renderImage(DocxRendererContext docx, String url, Attributes attributes, double scale) {
+        DocxImageCache.ImageData image = null;
+        int id1 = imageId++;
+        int id2 = imageId++;
+        String filenameHint = String.format(Locale.US, "Image%d", id1);
+        int cx;
+
+        url = getImageResourceUrl(url);
+
+        if (isLoadableImageUrl(url)) {
+            // hyperlinked image or file
+            image = getImage(url);
         } else if (options.logImageProcessing) {
             System.out.println("renderImage of \"" + url + "\") skipped (not file:, http: or https:)");
         }
@@ -1823,7 +1897,7 @@ public class CoreNodeDocxRenderer implements PhasedNodeDocxRenderer {
                 attributes.replaceValue("width", String.valueOf(cx));
             }
 
-            return newImage(docx, image, filenameHint, attributes, id1, id2, scale);
+            return newImage(docx, image.getBytes(), image.getWidth(), image.getHeight(), filenameHint, attributes, id1, id2, scale);
         }
         return null;
     }
@@ -0,0 +1,253 @@
+package com.vladsch.flexmark.docx.converter.util;
+
+import com.vladsch.flexmark.util.ImageUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size bounded least recently used cache of loaded images, keyed by image URL
+ * <p>
+ * Images are kept encoded as they are added to the docx package so that an image used more than once,
+ * in the same or another document, is loaded and encoded once.
+ */
+public class DocxImageCache {
+    /**
+     * Loaded image, bytes are PNG encoded image data as given by {@link ImageUtils#getImageBytes(BufferedImage)}
+     */
+    public static class ImageData {
+        final @NotNull byte[] bytes;
+        final int width;
+        final int height;
+
+        public ImageData(@NotNull byte[] bytes, int width, int height) {
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+        }
+
+        public @NotNull byte[] getBytes() {
+            return bytes;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, ImageData> images;
+    private long bytes;
+    private int hits;
+    private int misses;
+
+    /**
+     * @param maxBytes maximum total size of cached image bytes, images larger than this are not cached
+     */
+    public DocxImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.images = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return images.size();
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+
+    public synchronized @Nullable ImageData get(@NotNull String url) {
+        ImageData imageData = images.get(url);
+        if (imageData == null) misses++;
+        else hits++;
+        return imageData;
+    }
+
+    public synchronized void put(@NotNull String url, @NotNull ImageData imageData) {
+        if (imageData.bytes.length > maxBytes) return;
+
+        ImageData previous = images.put(url, imageData);
+        if (previous != null) bytes -= previous.bytes.length;
+        bytes += imageData.bytes.length;
+
+        Iterator<ImageData> iterator = images.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().bytes.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Get image from cache or load it
+     *
+     * @param url                image url
+     * @param logImageProcessing true to log image load failures
+     * @return image data or null if image could not be loaded
+     */
+    public @Nullable ImageData getImage(@NotNull String url, boolean logImageProcessing) {
+        ImageData imageData = get(url);
+        if (imageData == null) {
+            imageData = loadImage(url, logImageProcessing);
+            if (imageData != null) put(url, imageData);
+        }
+        return imageData;
+    }
+
+    /**
+     * Load images, uncached images are loaded in parallel on the shared image loading executor
+     *
+     * @param imageCache         image cache to use, or null to load all images
+     * @param urls               image urls to load
+     * @param maxThreads         maximum number of images to load at the same time
+     * @param logImageProcessing true to log image load failures
+     * @return map of url to future image data, image data is null if image could not be loaded
+     */
+    public static @NotNull Map<String, Future<ImageData>> loadImages(@Nullable DocxImageCache imageCache, @NotNull Collection<String> urls, int maxThreads, boolean logImageProcessing) {
+        return loadImages(imageCache, urls, maxThreads, logImageProcessing, null);
+    }
+
+    /**
+     * Load images, uncached images are loaded in parallel
+     * <p>
+     * Returned futures for images which are not loaded yet are {@link RunnableFuture}s, running one on the calling thread loads
+     * the image if it was not started by the executor, otherwise it does nothing.
+     *
+     * @param imageCache         image cache to use, or null to load all images
+     * @param urls               image urls to load
+     * @param maxThreads         maximum number of images to load at the same time
+     * @param logImageProcessing true to log image load failures
+     * @param executor           executor on which to load images, null for {@link #getSharedExecutor()}
+     * @return map of url to future image data, image data is null if image could not be loaded
+     */
+    public static @NotNull Map<String, Future<ImageData>> loadImages(@Nullable DocxImageCache imageCache, @NotNull Collection<String> urls, int maxThreads, boolean logImageProcessing, @Nullable Executor executor) {
+        HashMap<String, Future<ImageData>> images = new HashMap<>();
+        ConcurrentLinkedQueue<FutureTask<ImageData>> tasks = new ConcurrentLinkedQueue<>();
+
+        for (String url : urls) {
+            if (images.containsKey(url)) continue;
+
+            ImageData imageData = imageCache == null ? null : imageCache.get(url);
+            if (imageData != null) {
+                images.put(url, CompletableFuture.completedFuture(imageData));
+            } else {
+                FutureTask<ImageData> task = new FutureTask<>(() -> imageCache == null ? loadImage(url, logImageProcessing) : imageCache.getImage(url, logImageProcessing));
+                images.put(url, task);
+                tasks.add(task);
+            }
+        }
+
+        int threads = Math.min(maxThreads, tasks.size());
+        if (threads > 1) {
+            // each worker loads images until none are left so no more than maxThreads images of the document load at the same time
+            Executor imageExecutor = executor == null ? getSharedExecutor() : executor;
+            Runnable worker = () -> {
+                FutureTask<ImageData> task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+            };
+
+            try {
+                for (int i = 0; i < threads; i++) {
+                    imageExecutor.execute(worker);
+                }
+            } catch (RejectedExecutionException ignored) {
+                // images not started by the executor are loaded when their future is run
+            }
+        } else {
+            tasks.forEach(FutureTask::run);
+        }
+        return images;
+    }
+
+    /**
+     * Executor used to load images when no executor is given, shared by all documents.
+     * <p>
+     * Created on first use with a fixed number of daemon threads, which are stopped when idle.
+     *
+     * @return shared image loading executor
+     */
+    public static @NotNull Executor getSharedExecutor() {
+        return SharedExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Load image from file:, http: or https: url
+     *
+     * @param url                image url
+     * @param logImageProcessing true to log image load failures
+     * @return image data or null if image could not be loaded
+     */
+    public static @Nullable ImageData loadImage(@NotNull String url, boolean logImageProcessing) {
+        BufferedImage image = null;
+
+        if (url.startsWith("file:")) {
+            // try to load from file, from URL fails on some images while file load succeeds
+            try {
+                File imageFile = new File(new URI(url));
+                image = ImageUtils.loadImageFromFile(imageFile);
+            } catch (URISyntaxException e) {
+                e.printStackTrace();
+            }
+        } else {
+            image = ImageUtils.loadImageFromURL(url, logImageProcessing);
+        }
+
+        if (image == null) {
+            if (logImageProcessing) {
+                System.out.println("loadImageFromURL(" + url + ") returned null");
+            }
+            return null;
+        }
+        return new ImageData(ImageUtils.getImageBytes(image), image.getWidth(), image.getHeight());
+    }
+
+    private static class SharedExecutorHolder {
+        static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ImageLoaderThreadFactory());
+
+        static {
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    static class ImageLoaderThreadFactory implements ThreadFactory {
+        static final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "docx-image-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.vladsch.flexmark.docx.converter.util;
+
+import org.docx4j.Docx4J;
+import org.docx4j.XmlUtils;
+import org.docx4j.openpackaging.Base;
+import org.docx4j.openpackaging.contenttype.ContentType;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.JaxbXmlPart;
+import org.docx4j.openpackaging.parts.Part;
+import org.docx4j.openpackaging.parts.PartName;
+import org.docx4j.openpackaging.parts.WordprocessingML.BinaryPart;
+import org.docx4j.openpackaging.parts.XmlPart;
+import org.docx4j.openpackaging.parts.relationships.RelationshipsPart;
+import org.docx4j.relationships.Relationship;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of loaded template packages, each request gets a copy of the cached template
+ * <p>
+ * Templates are kept as {@link Snapshot} of their saved parts and relationships. Snapshots are never modified so copies
+ * are made from them without locking. Unmarshalling the saved parts is faster than loading the template and parsing
+ * its styles and numbering for every rendered document.
+ */
+public class DocxTemplateCache {
+    private final ConcurrentHashMap<Object, Snapshot> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Get a copy of the cached template for the key, loading it if not cached
+     *
+     * @param key     key of the template, equal for templates with the same content
+     * @param factory template factory, called once per key
+     * @return copy of the template or null if factory returned null
+     */
+    public WordprocessingMLPackage getTemplate(@NotNull Object key, @NotNull Supplier<WordprocessingMLPackage> factory) {
+        Snapshot snapshot = getSnapshot(key, factory);
+        return snapshot == null ? null : snapshot.toPackage();
+    }
+
+    /**
+     * Get snapshot of cached template, use {@link Snapshot#toPackage()} to get a copy to render to
+     *
+     * @param key     key of the template, equal for templates with the same content
+     * @param factory template factory, called once per key
+     * @return snapshot of the template or null if factory returned null
+     */
+    public Snapshot getSnapshot(@NotNull Object key, @NotNull Supplier<WordprocessingMLPackage> factory) {
+        Snapshot snapshot = templates.get(key);
+        if (snapshot == null) {
+            WordprocessingMLPackage template = factory.get();
+            if (template == null) return null;
+
+            snapshot = snapshotOf(template);
+            Snapshot previous = templates.putIfAbsent(key, snapshot);
+            if (previous != null) snapshot = previous;
+        }
+        return snapshot;
+    }
+
+    public void clear() {
+        templates.clear();
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * Save package parts and relationships
+     * <p>
+     * JAXB and XML parts are saved as XML, binary parts as their data. Packages with other parts are saved as
+     * flat OPC XML and loaded for every copy.
+     *
+     * @param template package to save, must not be modified while it is saved
+     * @return snapshot of the package
+     */
+    public static Snapshot snapshotOf(@NotNull WordprocessingMLPackage template) {
+        try {
+            return new Snapshot(saveRelationships(template, new HashMap<>()), null);
+        } catch (UnsupportedOperationException | Docx4JException | JAXBException e) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                template.save(outputStream, Docx4J.FLAG_SAVE_FLAT_XML);
+            } catch (Docx4JException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return new Snapshot(Collections.emptyList(), outputStream.toByteArray());
+        }
+    }
+
+    /**
+     * Copy package parts and relationships
+     *
+     * @param template package to copy, must not be modified while it is copied
+     * @return copy of the package
+     */
+    public static WordprocessingMLPackage copyOf(@NotNull WordprocessingMLPackage template) {
+        return snapshotOf(template).toPackage();
+    }
+
+    /**
+     * Saved parts and relationships of a package, immutable once created
+     */
+    public static final class Snapshot {
+        private final List<SavedRelationship> relationships;
+        private final @Nullable byte[] flatXml;
+
+        Snapshot(List<SavedRelationship> relationships, @Nullable byte[] flatXml) {
+            this.relationships = relationships;
+            this.flatXml = flatXml;
+        }
+
+        /**
+         * @return new package with copies of saved parts and relationships
+         */
+        public WordprocessingMLPackage toPackage() {
+            try {
+                if (flatXml != null) {
+                    return WordprocessingMLPackage.load(new ByteArrayInputStream(flatXml));
+                }
+
+                WordprocessingMLPackage copy = new WordprocessingMLPackage();
+                loadRelationships(relationships, copy, new HashMap<>());
+                return copy;
+            } catch (Docx4JException | JAXBException | ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class SavedRelationship {
+        final String id;
+        final String type;
+        final String target;
+        final String targetMode;
+        final @Nullable SavedPart part;
+
+        SavedRelationship(Relationship relationship, @Nullable SavedPart part) {
+            this.id = relationship.getId();
+            this.type = relationship.getType();
+            this.target = relationship.getTarget();
+            this.targetMode = relationship.getTargetMode();
+            this.part = part;
+        }
+
+        Relationship toRelationship() {
+            Relationship copy = new org.docx4j.relationships.ObjectFactory().createRelationship();
+            copy.setId(id);
+            copy.setType(type);
+            copy.setTarget(target);
+            copy.setTargetMode(targetMode);
+            return copy;
+        }
+    }
+
+    private static class SavedPart {
+        final Class<? extends Part> partClass;
+        final String partName;
+        final String contentType;
+        final byte[] data;
+        final @Nullable JAXBContext jaxbContext;
+        final boolean jaxbElement;
+        final ArrayList<SavedRelationship> relationships = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        SavedPart(Part part) throws Docx4JException, JAXBException {
+            this.partClass = part.getClass();
+            this.partName = part.getPartName().getName();
+            this.contentType = part.getContentType();
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            if (part instanceof JaxbXmlPart) {
+                JaxbXmlPart<Object> jaxbPart = (JaxbXmlPart<Object>) part;
+                // marshalled directly, part marshalling drops mc:Ignorable namespaces it does not declare
+                this.jaxbContext = jaxbPart.getJAXBContext();
+                jaxbContext.createMarshaller().marshal(jaxbPart.getJaxbElement(), outputStream);
+                this.jaxbElement = jaxbPart.getJaxbElement() instanceof JAXBElement;
+                this.data = outputStream.toByteArray();
+            } else if (part instanceof XmlPart) {
+                XmlUtils.w3CDomNodeToOutputStream(((XmlPart) part).getDocument(), outputStream);
+                this.jaxbContext = null;
+                this.jaxbElement = false;
+                this.data = outputStream.toByteArray();
+            } else if (part instanceof BinaryPart) {
+                this.jaxbContext = null;
+                this.jaxbElement = false;
+                this.data = ((BinaryPart) part).getBytes();
+            } else {
+                throw new UnsupportedOperationException("Cannot copy part " + part.getClass().getName());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Part toPart() throws Docx4JException, JAXBException, ReflectiveOperationException {
+            Part copy = partClass.getConstructor(PartName.class).newInstance(new PartName(partName));
+            copy.setContentType(new ContentType(contentType));
+
+            if (jaxbContext != null) {
+                Object element = XmlUtils.unmarshal(new ByteArrayInputStream(data), jaxbContext);
+                ((JaxbXmlPart<Object>) copy).setJaxbElement(jaxbElement ? element : XmlUtils.unwrap(element));
+            } else if (copy instanceof XmlPart) {
+                ((XmlPart) copy).setDocument(new ByteArrayInputStream(data));
+            } else {
+                ((BinaryPart) copy).setBinaryData(data.clone());
+            }
+            return copy;
+        }
+    }
+
+    private static List<SavedRelationship> saveRelationships(Base source, HashMap<Part, SavedPart> savedParts) throws Docx4JException, JAXBException {
+        RelationshipsPart relationshipsPart = source.getRelationshipsPart(false);
+        if (relationshipsPart == null) return Collections.emptyList();
+
+        ArrayList<SavedRelationship> relationships = new ArrayList<>();
+        for (Relationship relationship : relationshipsPart.getRelationships().getRelationship()) {
+            Part part = "External".equals(relationship.getTargetMode()) ? null : relationshipsPart.getPart(relationship);
+
+            if (part == null) {
+                relationships.add(new SavedRelationship(relationship, null));
+            } else {
+                SavedPart savedPart = savedParts.get(part);
+                if (savedPart == null) {
+                    savedPart = new SavedPart(part);
+                    savedParts.put(part, savedPart);
+                    savedPart.relationships.addAll(saveRelationships(part, savedParts));
+                }
+                relationships.add(new SavedRelationship(relationship, savedPart));
+            }
+        }
+        return relationships;
+    }
+
+    private static void loadRelationships(List<SavedRelationship> relationships, Base copy, HashMap<SavedPart, Part> copiedParts) throws Docx4JException, JAXBException, ReflectiveOperationException {
+        for (SavedRelationship relationship : relationships) {
+            if (relationship.part == null || copiedParts.containsKey(relationship.part)) {
+                // external target or part already copied through another relationship
+                copy.getRelationshipsPart().addRelationship(relationship.toRelationship());
+            } else {
+                Part partCopy = relationship.part.toPart();
+                copiedParts.put(relationship.part, partCopy);
+                partCopy.setRelationshipType(relationship.type);
+                copy.addTargetPart(partCopy, RelationshipsPart.AddPartBehaviour.OVERWRITE_IF_NAME_EXISTS, relationship.id);
+                loadRelationships(relationship.part.relationships, partCopy, copiedParts);
+            }
+        }
+    }
+}
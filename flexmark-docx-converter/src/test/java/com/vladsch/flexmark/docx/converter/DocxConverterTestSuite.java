@@ -15,6 +15,8 @@ import org.junit.runners.Suite;
         ComboDocxConverterIssuesSpecTest.class,
         ComboDocxConverterAttributeSpecTest.class,
         ComboDocxConverterFormSpecTest.class,
+        DocxTemplateCacheTest.class,
+        DocxImageCacheTest.class,
         //ComboDocxUserSpecDisabled.class, // added to test suite so it runs locally but not  on the travis
 })
 public class DocxConverterTestSuite {
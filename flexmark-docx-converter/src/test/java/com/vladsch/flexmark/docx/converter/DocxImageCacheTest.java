@@ -0,0 +1,110 @@
+package com.vladsch.flexmark.docx.converter;
+
+import com.vladsch.flexmark.docx.converter.util.DocxImageCache;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DocxImageCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    String imagesMarkdown(int count) throws IOException {
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(10 + i, 20 + i, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(i, i, 0xff0000 + i);
+            File file = folder.newFile("image" + i + ".png");
+            ImageIO.write(image, "png", file);
+
+            String url = file.toURI().toString();
+            markdown.append("Image ").append(i).append(" ![image ").append(i).append("](").append(url).append(")\n\n");
+            markdown.append("Reference ![image][ref").append(i).append("] and again ![again](").append(url).append(")\n\n");
+            markdown.append("[ref").append(i).append("]: ").append(url).append("\n\n");
+        }
+        markdown.append("Missing ![missing](").append(new File(folder.getRoot(), "missing.png").toURI()).append(")\n");
+        return markdown.toString();
+    }
+
+    static String render(String markdown, MutableDataSet options) {
+        Node document = Parser.builder(options).build().parse(markdown);
+        return DocxRenderer.builder(options).build().render(document);
+    }
+
+    @Test
+    public void test_sameAsSequential() throws IOException {
+        String markdown = imagesMarkdown(6);
+        String expected = render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_LOAD_THREADS, 1).set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null));
+
+        assertTrue(expected.contains("image/png"));
+        assertEquals(expected, render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, new DocxImageCache(1024 * 1024))));
+        assertEquals(expected, render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_LOAD_THREADS, 8).set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null)));
+    }
+
+    @Test
+    public void test_cachedAcrossDocuments() throws IOException {
+        String markdown = imagesMarkdown(4);
+        DocxImageCache imageCache = new DocxImageCache(1024 * 1024);
+        MutableDataSet options = new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, imageCache);
+
+        String expected = render(markdown, options);
+        assertEquals(4, imageCache.size());
+        int hits = imageCache.getHits();
+
+        assertEquals(expected, render(markdown, options));
+        assertEquals(4, imageCache.size());
+        assertEquals(hits + 4, imageCache.getHits());
+    }
+
+    @Test
+    public void test_sizeBounded() throws IOException {
+        String markdown = imagesMarkdown(4);
+        DocxImageCache imageCache = new DocxImageCache(1024 * 1024);
+        render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, imageCache));
+
+        long maxBytes = imageCache.getBytes() / 2;
+        DocxImageCache boundedCache = new DocxImageCache(maxBytes);
+        String expected = render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null));
+
+        assertEquals(expected, render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, boundedCache)));
+        assertTrue(boundedCache.getBytes() <= maxBytes);
+        assertTrue(boundedCache.size() < 4);
+    }
+
+    @Test
+    public void test_executor() throws IOException {
+        String markdown = imagesMarkdown(6);
+        String expected = render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_LOAD_THREADS, 1).set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null));
+
+        AtomicInteger workers = new AtomicInteger();
+        Executor executor = command -> {
+            workers.incrementAndGet();
+            DocxImageCache.getSharedExecutor().execute(command);
+        };
+        assertEquals(expected, render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null).set(DocxRenderer.IMAGE_LOAD_EXECUTOR, executor)));
+        assertEquals(4, workers.get());
+
+        // images not loaded by the executor are loaded by the renderer
+        Executor idleExecutor = command -> {};
+        assertEquals(expected, render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null).set(DocxRenderer.IMAGE_LOAD_EXECUTOR, idleExecutor)));
+
+        Executor rejectingExecutor = command -> {
+            throw new RejectedExecutionException();
+        };
+        assertEquals(expected, render(markdown, new MutableDataSet().set(DocxRenderer.IMAGE_CACHE, (DocxImageCache) null).set(DocxRenderer.IMAGE_LOAD_EXECUTOR, rejectingExecutor)));
+    }
+}
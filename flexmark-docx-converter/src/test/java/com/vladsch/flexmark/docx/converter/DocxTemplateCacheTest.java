@@ -0,0 +1,113 @@
+package com.vladsch.flexmark.docx.converter;
+
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class DocxTemplateCacheTest {
+    static final String MARKDOWN = "" +
+            "# Heading\n" +
+            "\n" +
+            "Paragraph *emphasis* **strong** `code` [link](http://example.com)\n" +
+            "\n" +
+            "1. one\n" +
+            "2. two\n" +
+            "\n" +
+            "- bullet\n" +
+            "  1. nested\n" +
+            "\n" +
+            "5. restarted\n" +
+            "\n" +
+            "> quote\n" +
+            "";
+
+    @Test
+    public void test_sameAsLoadedTemplate() {
+        MutableDataSet options = new MutableDataSet();
+        DocxRenderer renderer = DocxRenderer.builder(options).build();
+        Node document = Parser.builder(options).build().parse(MARKDOWN);
+
+        WordprocessingMLPackage loaded = DocxRenderer.getDefaultTemplate(options);
+        renderer.render(document, loaded);
+
+        WordprocessingMLPackage cached = DocxRenderer.getCachedTemplate(options);
+        renderer.render(document, cached);
+
+        assertEquals(renderer.toXml(loaded), renderer.toXml(cached));
+    }
+
+    @Test
+    public void test_templateNotModified() {
+        MutableDataSet options = new MutableDataSet();
+        DocxRenderer renderer = DocxRenderer.builder(options).build();
+        Node document = Parser.builder(options).build().parse(MARKDOWN);
+
+        String expected = renderer.render(document);
+        assertEquals(expected, renderer.render(document));
+        assertEquals(expected, renderer.render(document));
+        assertNotSame(DocxRenderer.getCachedTemplate(options), DocxRenderer.getCachedTemplate(options));
+    }
+
+    @Test
+    public void test_templateKeyedByStyles() {
+        MutableDataSet options = new MutableDataSet();
+        MutableDataSet noCacheOptions = new MutableDataSet().set(DocxRenderer.CACHE_TEMPLATE, false);
+        Node document = Parser.builder(options).build().parse(MARKDOWN);
+
+        // template has styles so STYLES_XML is not used but it is part of the key
+        options.set(DocxRenderer.STYLES_XML, DocxRenderer.STYLES_XML.get(null) + " ");
+        int size = DocxRenderer.TEMPLATE_CACHE.size();
+        String cached = DocxRenderer.builder(options).build().render(document);
+        assertEquals(size + 1, DocxRenderer.TEMPLATE_CACHE.size());
+        assertEquals(DocxRenderer.builder(noCacheOptions).build().render(document), cached);
+    }
+
+    @Test
+    public void test_batch() {
+        MutableDataSet options = new MutableDataSet();
+        DocxRenderer renderer = DocxRenderer.builder(options).build();
+        Parser parser = Parser.builder(options).build();
+        List<Node> documents = Arrays.asList(parser.parse(MARKDOWN), parser.parse("text\n"), parser.parse(MARKDOWN));
+
+        List<String> expected = new ArrayList<>();
+        for (Node document : documents) {
+            expected.add(renderer.render(document));
+        }
+
+        List<String> actual = new ArrayList<>();
+        renderer.render(documents, (document, mlPackage) -> actual.add(renderer.toXml(mlPackage)));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void test_batchNotCached() {
+        MutableDataSet options = new MutableDataSet()
+                .set(DocxRenderer.CACHE_TEMPLATE, false)
+                .set(DocxRenderer.STYLES_XML, DocxRenderer.STYLES_XML.get(null) + "  ");
+        DocxRenderer renderer = DocxRenderer.builder(options).build();
+        Parser parser = Parser.builder(options).build();
+        List<Node> documents = Arrays.asList(parser.parse(MARKDOWN), parser.parse("text\n"));
+
+        List<String> expected = new ArrayList<>();
+        for (Node document : documents) {
+            expected.add(renderer.render(document));
+        }
+
+        int size = DocxRenderer.TEMPLATE_CACHE.size();
+        List<String> actual = new ArrayList<>();
+        renderer.render(documents, (document, mlPackage) -> actual.add(renderer.toXml(mlPackage)));
+
+        assertEquals(expected, actual);
+        assertEquals(size, DocxRenderer.TEMPLATE_CACHE.size());
+    }
+}
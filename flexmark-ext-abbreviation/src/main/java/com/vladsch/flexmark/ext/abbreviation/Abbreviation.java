@@ -11,6 +11,10 @@ import org.jetbrains.annotations.NotNull;
 public class Abbreviation extends Node implements DoNotDecorate, DoNotLinkDecorate, ReferencingNode<AbbreviationRepository, AbbreviationBlock> {
     protected final BasedSequence abbreviation;
 
+    public Abbreviation() {
+        this.abbreviation = BasedSequence.NULL;
+    }
+
     public Abbreviation(BasedSequence chars, BasedSequence abbreviation) {
         super(chars);
         this.abbreviation = abbreviation;
@@ -0,0 +1,247 @@
+package com.vladsch.flexmark.ext.abbreviation.internal;
+
+import com.vladsch.flexmark.util.sequence.Range;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick matcher for abbreviations in text
+ * <p>
+ * Finds the same matches as a regex alternation of all abbreviations sorted in reverse order, with \b before
+ * abbreviations which start and after abbreviations which end with a letter or digit: leftmost match first, longest
+ * abbreviation at the same position. Text is scanned once regardless of the number of abbreviations.
+ * <p>
+ * Matchers are immutable and shared, {@link #of(Collection)} returns the cached matcher for a set of abbreviations
+ * so documents with the same abbreviations do not build it again.
+ */
+public class AbbreviationMatcher {
+    static final int MAX_CACHED_MATCHERS = 16;
+    static final int ASCII_SIZE = 128;
+    static final byte START_BOUNDARY = 1;
+    static final byte END_BOUNDARY = 2;
+
+    // keyed by set of abbreviations, set equality does not depend on order so keys are not sorted
+    private static final LinkedHashMap<Set<String>, AbbreviationMatcher> ourMatchers = new LinkedHashMap<Set<String>, AbbreviationMatcher>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Set<String>, AbbreviationMatcher> eldest) {
+            return size() > MAX_CACHED_MATCHERS;
+        }
+    };
+
+    private final int[] rootTransitions;   // root transitions for ASCII characters, index of state or 0
+    private final char[][] transitionChars; // sorted transition characters of each state
+    private final int[][] transitionStates; // target states for transitionChars
+    private final int[] failStates;         // state of longest proper suffix in trie
+    private final int[] outputStates;       // this state if it ends an abbreviation, or next state on suffix chain which does, 0 if none
+    private final int[] depths;             // length of text matched by state
+    private final byte[] boundaries;        // word boundary flags for abbreviation ending at state
+
+    private AbbreviationMatcher(Collection<String> abbreviations) {
+        ArrayList<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        ArrayList<Byte> stateBoundaries = new ArrayList<>();
+        ArrayList<Integer> stateDepths = new ArrayList<>();
+        ArrayList<Boolean> stateOutputs = new ArrayList<>();
+
+        trie.add(new TreeMap<>());
+        stateBoundaries.add((byte) 0);
+        stateDepths.add(0);
+        stateOutputs.add(false);
+
+        for (String abbreviation : abbreviations) {
+            if (abbreviation.isEmpty()) continue;
+
+            int state = 0;
+            for (int i = 0; i < abbreviation.length(); i++) {
+                Integer next = trie.get(state).get(abbreviation.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    stateBoundaries.add((byte) 0);
+                    stateDepths.add(i + 1);
+                    stateOutputs.add(false);
+                    trie.get(state).put(abbreviation.charAt(i), next);
+                }
+                state = next;
+            }
+
+            byte flags = 0;
+            if (Character.isLetterOrDigit(abbreviation.charAt(0))) flags |= START_BOUNDARY;
+            if (Character.isLetterOrDigit(abbreviation.charAt(abbreviation.length() - 1))) flags |= END_BOUNDARY;
+            stateBoundaries.set(state, flags);
+            stateOutputs.set(state, true);
+        }
+
+        int iMax = trie.size();
+        rootTransitions = new int[ASCII_SIZE];
+        transitionChars = new char[iMax][];
+        transitionStates = new int[iMax][];
+        failStates = new int[iMax];
+        outputStates = new int[iMax];
+        depths = new int[iMax];
+        boundaries = new byte[iMax];
+
+        for (int i = 0; i < iMax; i++) {
+            TreeMap<Character, Integer> transitions = trie.get(i);
+            char[] chars = new char[transitions.size()];
+            int[] states = new int[transitions.size()];
+            int j = 0;
+            for (Map.Entry<Character, Integer> entry : transitions.entrySet()) {
+                chars[j] = entry.getKey();
+                states[j] = entry.getValue();
+                j++;
+            }
+            transitionChars[i] = chars;
+            transitionStates[i] = states;
+            depths[i] = stateDepths.get(i);
+            boundaries[i] = stateBoundaries.get(i);
+        }
+
+        for (Map.Entry<Character, Integer> entry : trie.get(0).entrySet()) {
+            if (entry.getKey() < ASCII_SIZE) rootTransitions[entry.getKey()] = entry.getValue();
+        }
+
+        // breadth first so fail states of shorter prefixes are computed first
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int state : transitionStates[0]) {
+            queue.add(state);
+            outputStates[state] = stateOutputs.get(state) ? state : 0;
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            char[] chars = transitionChars[state];
+            int[] states = transitionStates[state];
+
+            for (int j = 0; j < chars.length; j++) {
+                int next = states[j];
+                int fail = nextState(failStates[state], chars[j]);
+                failStates[next] = fail;
+                outputStates[next] = stateOutputs.get(next) ? next : outputStates[fail];
+                queue.add(next);
+            }
+        }
+    }
+
+    /**
+     * Get matcher for abbreviations
+     *
+     * @param abbreviations abbreviations to match, empty abbreviations are ignored. A set is used to look up the cache
+     *                      without copying, it is only copied when a new matcher is built.
+     * @return cached matcher for the same abbreviations or a new one
+     */
+    @NotNull
+    public static AbbreviationMatcher of(@NotNull Collection<String> abbreviations) {
+        Set<String> key = abbreviations instanceof Set ? (Set<String>) abbreviations : new HashSet<>(abbreviations);
+
+        synchronized (ourMatchers) {
+            AbbreviationMatcher matcher = ourMatchers.get(key);
+            if (matcher != null) return matcher;
+        }
+
+        // the caller's set can change, the cache keeps its own copy
+        if (key == abbreviations) key = new HashSet<>(abbreviations);
+
+        // build outside of lock, if another thread built it at the same time then either is used
+        AbbreviationMatcher matcher = new AbbreviationMatcher(key);
+        synchronized (ourMatchers) {
+            ourMatchers.put(key, matcher);
+        }
+        return matcher;
+    }
+
+    private int transition(int state, char c) {
+        if (state == 0 && c < ASCII_SIZE) return rootTransitions[c];
+
+        char[] chars = transitionChars[state];
+        int index = Arrays.binarySearch(chars, c);
+        return index < 0 ? -1 : transitionStates[state][index];
+    }
+
+    private int nextState(int state, char c) {
+        while (true) {
+            int next = transition(state, c);
+            if (next > 0) return next;
+            if (state == 0) return 0;
+            state = failStates[state];
+        }
+    }
+
+    /**
+     * Find next abbreviation in text
+     *
+     * @param text       text to search
+     * @param startIndex index from which to search
+     * @return range of abbreviation in text or null if none found
+     */
+    @Nullable
+    public Range find(@NotNull CharSequence text, int startIndex) {
+        int length = text.length();
+        int state = 0;
+        int matchStart = -1;
+        int matchEnd = -1;
+
+        for (int i = startIndex; i < length; i++) {
+            state = nextState(state, text.charAt(i));
+            int end = i + 1;
+
+            // no match which starts at or before current match can end after this
+            if (matchStart != -1 && end - depths[state] > matchStart) break;
+
+            // suffix chain gives longest abbreviation first, the first one with valid boundaries starts leftmost
+            for (int output = outputStates[state]; output != 0; output = outputStates[failStates[output]]) {
+                int start = end - depths[output];
+                byte flags = boundaries[output];
+
+                if ((flags & START_BOUNDARY) != 0 && !isWordBoundary(text, start)) continue;
+                if ((flags & END_BOUNDARY) != 0 && !isWordBoundary(text, end)) continue;
+
+                if (matchStart == -1 || start < matchStart || start == matchStart && end > matchEnd) {
+                    matchStart = start;
+                    matchEnd = end;
+                }
+                break;
+            }
+        }
+
+        return matchStart == -1 ? null : Range.of(matchStart, matchEnd);
+    }
+
+    /**
+     * Test for word boundary at index, same as \b in java.util.regex.Pattern without UNICODE_CHARACTER_CLASS
+     *
+     * @param text  text
+     * @param index index in text
+     * @return true if index is a word boundary
+     */
+    static boolean isWordBoundary(@NotNull CharSequence text, int index) {
+        boolean left = false;
+        boolean right = false;
+
+        if (index > 0) {
+            int c = Character.codePointBefore(text, index);
+            left = isWordChar(c) || Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index - 1);
+        }
+
+        if (index < text.length()) {
+            int c = Character.codePointAt(text, index);
+            right = isWordChar(c) || Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index);
+        }
+
+        return left != right;
+    }
+
+    private static boolean isWordChar(int c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private static boolean hasBaseCharacter(@NotNull CharSequence text, int index) {
+        for (int i = index; i >= 0; i--) {
+            int c = Character.codePointAt(text, i);
+            if (Character.isLetterOrDigit(c)) return true;
+            if (Character.getType(c) != Character.NON_SPACING_MARK) return false;
+        }
+        return false;
+    }
+}
@@ -3,7 +3,6 @@ package com.vladsch.flexmark.ext.abbreviation.internal;
 import com.vladsch.flexmark.ast.Text;
 import com.vladsch.flexmark.ast.TextBase;
 import com.vladsch.flexmark.ext.abbreviation.Abbreviation;
-import com.vladsch.flexmark.ext.abbreviation.AbbreviationBlock;
 import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
 import com.vladsch.flexmark.ext.autolink.internal.AutolinkNodePostProcessor;
 import com.vladsch.flexmark.parser.block.NodePostProcessor;
@@ -11,21 +10,22 @@ import com.vladsch.flexmark.parser.block.NodePostProcessorFactory;
 import com.vladsch.flexmark.util.ast.*;
 import com.vladsch.flexmark.util.html.Escaping;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.Range;
 import com.vladsch.flexmark.util.sequence.ReplacedTextMapper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class AbbreviationNodePostProcessor extends NodePostProcessor {
     //public static final String SINGLE_QUOTES = "'’‘";
     //public static final String DOUBLE_QUOTES = "\"“”";
     //private static final Pattern QUOTES = Pattern.compile("(?:[" + SINGLE_QUOTES + DOUBLE_QUOTES + "])");
 
-    private Pattern abbreviations = null;
-    private HashMap<String, BasedSequence> abbreviationMap = null;
+    private AbbreviationMatcher abbreviations = null;
+    private Map<String, BasedSequence> abbreviationMap = null;
 
     private AbbreviationNodePostProcessor(Document document) {
         computeAbbreviations(document);
@@ -35,31 +35,9 @@ public class AbbreviationNodePostProcessor extends NodePostProcessor {
         AbbreviationRepository abbrRepository = AbbreviationExtension.ABBREVIATIONS.get(document);
 
         if (!abbrRepository.isEmpty()) {
-            abbreviationMap = new HashMap<>();
-            StringBuilder sb = new StringBuilder();
-
-            // sort reverse alphabetical order so longer ones match first. for sdk7
-            ArrayList<String> abbreviations = new ArrayList<>(abbrRepository.keySet());
-            Collections.sort(abbreviations, Comparator.reverseOrder());
-
-            for (String abbr : abbreviations) {
-                AbbreviationBlock abbreviationBlock = abbrRepository.get(abbr);
-                // Issue #198, test for empty abbr
-                if (!abbr.isEmpty()) {
-                    BasedSequence abbreviation = abbreviationBlock.getAbbreviation();
-                    if (!abbreviation.isEmpty()) {
-                        abbreviationMap.put(abbr, abbreviation);
-
-                        if (sb.length() > 0) sb.append("|");
-
-                        if (Character.isLetterOrDigit(abbr.charAt(0))) sb.append("\\b");
-                        sb.append("\\Q").append(abbr).append("\\E");
-                        if (Character.isLetterOrDigit(abbr.charAt(abbr.length() - 1))) sb.append("\\b");
-                    }
-                }
-            }
-
-            if (sb.length() > 0) this.abbreviations = Pattern.compile(sb.toString());
+            // matcher is shared by documents with the same abbreviations
+            abbreviationMap = abbrRepository.getAbbreviations();
+            abbreviations = abbrRepository.getAbbreviationMatcher();
         }
     }
 
@@ -71,19 +49,21 @@ public class AbbreviationNodePostProcessor extends NodePostProcessor {
         ReplacedTextMapper textMapper = new ReplacedTextMapper(original);
         BasedSequence literal = Escaping.unescape(original, textMapper);
 
-        Matcher m = abbreviations.matcher(literal);
         int lastEscaped = 0;
         boolean wrapInTextBase = !(node.getParent() instanceof TextBase);
-        TextBase textBase = wrapInTextBase ? null : (TextBase) node.getParent();
+        // when already in a text base, nodes are inserted in place of this node, not appended to the end of the text base
+        TextBase textBase = null;
 
-        while (m.find()) {
-            //String found = m.group();
-            if (abbreviationMap.containsKey(m.group(0))) {
-                BasedSequence abbreviation = abbreviationMap.get(m.group(0));
+        Range range;
+        int index = 0;
 
-                BasedSequence toDecorateText = literal.subSequence(m.start(0), m.end(0));
-                int startOffset = textMapper.originalOffset(m.start(0));
-                int endOffset = textMapper.originalOffset(m.end(0));
+        while ((range = abbreviations.find(literal, index)) != null) {
+            index = range.getEnd();
+            BasedSequence abbreviation = abbreviationMap.get(literal.subSequence(range.getStart(), range.getEnd()).toString());
+
+            if (abbreviation != null) {
+                int startOffset = textMapper.originalOffset(range.getStart());
+                int endOffset = textMapper.originalOffset(range.getEnd());
 
                 if (wrapInTextBase) {
                     wrapInTextBase = false;
@@ -95,13 +75,21 @@ public class AbbreviationNodePostProcessor extends NodePostProcessor {
                 if (startOffset != lastEscaped) {
                     BasedSequence escapedChars = original.subSequence(lastEscaped, startOffset);
                     Node node1 = new Text(escapedChars);
-                    textBase.appendChild(node1);
+                    if (textBase != null) {
+                        textBase.appendChild(node1);
+                    } else {
+                        node.insertBefore(node1);
+                    }
                     state.nodeAdded(node1);
                 }
 
                 BasedSequence origToDecorateText = original.subSequence(startOffset, endOffset);
                 Abbreviation decorationNode = new Abbreviation(origToDecorateText, abbreviation);
-                textBase.appendChild(decorationNode);
+                if (textBase != null) {
+                    textBase.appendChild(decorationNode);
+                } else {
+                    node.insertBefore(decorationNode);
+                }
                 //Text undecoratedTextNode = new Text(origToDecorateText);
                 //decorationNode.appendChild(undecoratedTextNode);
                 //state.nodeAddedWithChildren(decorationNode);
@@ -115,7 +103,11 @@ public class AbbreviationNodePostProcessor extends NodePostProcessor {
             if (lastEscaped != original.length()) {
                 BasedSequence escapedChars = original.subSequence(lastEscaped, original.length());
                 Node node1 = new Text(escapedChars);
-                textBase.appendChild(node1);
+                if (textBase != null) {
+                    textBase.appendChild(node1);
+                } else {
+                    node.insertBefore(node1);
+                }
                 state.nodeAdded(node1);
             }
 
@@ -138,6 +130,11 @@ public class AbbreviationNodePostProcessor extends NodePostProcessor {
             addNodeWithExclusions(Text.class, DoNotDecorate.class, DoNotLinkDecorate.class);
         }
 
+        @Override
+        public boolean isNodeLocal() {
+            return true;
+        }
+
         @NotNull
         @Override
         public NodePostProcessor apply(@NotNull Document document) {
@@ -8,13 +8,19 @@ import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.ast.NodeRepository;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.DataKey;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @SuppressWarnings("WeakerAccess")
 public class AbbreviationRepository extends NodeRepository<AbbreviationBlock> {
+    private Map<String, BasedSequence> frozenAbbreviations;
+    private AbbreviationMatcher frozenMatcher;
 
     public AbbreviationRepository(DataHolder options) {
         super(AbbreviationExtension.ABBREVIATIONS_KEEP.get(options));
@@ -32,6 +38,56 @@ public class AbbreviationRepository extends NodeRepository<AbbreviationBlock> {
         return AbbreviationExtension.ABBREVIATIONS_KEEP;
     }
 
+    /**
+     * Get abbreviation expansions by abbreviation
+     * <p>
+     * Computed once for a frozen repository and used by repositories layered over it without their own abbreviations
+     *
+     * @return map of abbreviation to its expansion, without empty abbreviations or expansions
+     */
+    @NotNull
+    public Map<String, BasedSequence> getAbbreviations() {
+        if (frozenAbbreviations != null) return frozenAbbreviations;
+
+        NodeRepository<AbbreviationBlock> shared = getSharedRepository();
+        if (nodeMap.isEmpty() && shared instanceof AbbreviationRepository) return ((AbbreviationRepository) shared).getAbbreviations();
+
+        HashMap<String, BasedSequence> abbreviations = new HashMap<>();
+        for (Map.Entry<String, AbbreviationBlock> entry : entrySet()) {
+            String abbr = entry.getKey();
+            // Issue #198, test for empty abbr
+            if (!abbr.isEmpty()) {
+                BasedSequence abbreviation = entry.getValue().getAbbreviation();
+                if (!abbreviation.isEmpty()) {
+                    abbreviations.put(abbr, abbreviation);
+                }
+            }
+        }
+
+        if (isFrozen()) frozenAbbreviations = abbreviations;
+        return abbreviations;
+    }
+
+    /**
+     * Get matcher for abbreviations of this repository
+     *
+     * @return matcher or null if there are no abbreviations
+     */
+    @Nullable
+    public AbbreviationMatcher getAbbreviationMatcher() {
+        if (frozenMatcher != null) return frozenMatcher;
+
+        NodeRepository<AbbreviationBlock> shared = getSharedRepository();
+        if (nodeMap.isEmpty() && shared instanceof AbbreviationRepository) return ((AbbreviationRepository) shared).getAbbreviationMatcher();
+
+        Map<String, BasedSequence> abbreviations = getAbbreviations();
+        if (abbreviations.isEmpty()) return null;
+
+        AbbreviationMatcher matcher = AbbreviationMatcher.of(abbreviations.keySet());
+        if (isFrozen()) frozenMatcher = matcher;
+        return matcher;
+    }
+
     @NotNull
     @Override
     public Set<AbbreviationBlock> getReferencedElements(Node parent) {
@@ -0,0 +1,174 @@
+package com.vladsch.flexmark.ext.abbreviation;
+
+import com.vladsch.flexmark.ext.abbreviation.internal.AbbreviationMatcher;
+import com.vladsch.flexmark.ext.abbreviation.internal.AbbreviationRepository;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.Range;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class AbbreviationMatcherTest {
+    private static final DataHolder OPTIONS = new MutableDataSet()
+            .set(Parser.EXTENSIONS, Collections.singletonList(AbbreviationExtension.create()))
+            .toImmutable();
+
+    /**
+     * Pattern used for abbreviations before the matcher
+     */
+    static Pattern abbreviationsPattern(Collection<String> abbreviations) {
+        ArrayList<String> sorted = new ArrayList<>(abbreviations);
+        sorted.sort(Comparator.reverseOrder());
+
+        StringBuilder sb = new StringBuilder();
+        for (String abbr : sorted) {
+            if (sb.length() > 0) sb.append("|");
+
+            if (Character.isLetterOrDigit(abbr.charAt(0))) sb.append("\\b");
+            sb.append("\\Q").append(abbr).append("\\E");
+            if (Character.isLetterOrDigit(abbr.charAt(abbr.length() - 1))) sb.append("\\b");
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    static List<Range> patternMatches(Pattern pattern, String text) {
+        ArrayList<Range> ranges = new ArrayList<>();
+        Matcher m = pattern.matcher(text);
+        while (m.find()) {
+            ranges.add(Range.of(m.start(), m.end()));
+        }
+        return ranges;
+    }
+
+    static List<Range> matcherMatches(AbbreviationMatcher matcher, String text) {
+        ArrayList<Range> ranges = new ArrayList<>();
+        Range range;
+        int index = 0;
+        while ((range = matcher.find(text, index)) != null) {
+            ranges.add(range);
+            index = range.getEnd();
+        }
+        return ranges;
+    }
+
+    static void assertSameMatches(Collection<String> abbreviations, String text) {
+        Pattern pattern = abbreviationsPattern(abbreviations);
+        AbbreviationMatcher matcher = AbbreviationMatcher.of(abbreviations);
+        assertEquals(abbreviations + " in \"" + text + "\"", patternMatches(pattern, text), matcherMatches(matcher, text));
+    }
+
+    @Test
+    public void test_basic() {
+        List<String> abbreviations = Arrays.asList("HTML", "HTML5", "W3C", "C++", ".NET", "e.g.", "a", "ab", "abc", "bc", "T");
+
+        assertSameMatches(abbreviations, "HTML and HTML5 by W3C, not HTMLX or XHTML");
+        assertSameMatches(abbreviations, "C++ and .NET, e.g. C++11 and ASP.NET, e.g.x");
+        assertSameMatches(abbreviations, "abc ab a bc abcd xabc _a a_ a1 T-T T_T");
+        assertSameMatches(abbreviations, "é á ábc Tä HTMLé éHTML");
+        assertSameMatches(abbreviations, "");
+    }
+
+    @Test
+    public void test_random() {
+        Random random = new Random(1);
+        String alphabet = "abcAB1 _-.+é́";
+
+        for (int n = 0; n < 500; n++) {
+            HashSet<String> abbreviations = new HashSet<>();
+            int count = 1 + random.nextInt(8);
+            for (int i = 0; i < count; i++) {
+                abbreviations.add(randomText(random, alphabet, 1 + random.nextInt(4)));
+            }
+
+            for (int i = 0; i < 10; i++) {
+                assertSameMatches(abbreviations, randomText(random, alphabet, random.nextInt(40)));
+            }
+        }
+    }
+
+    static String randomText(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void test_cached() {
+        AbbreviationMatcher matcher = AbbreviationMatcher.of(Arrays.asList("ABC", "DEF"));
+        assertSame(matcher, AbbreviationMatcher.of(new LinkedHashSet<>(Arrays.asList("DEF", "ABC"))));
+    }
+
+    @Test
+    public void test_cachedSetCopied() {
+        HashSet<String> abbreviations = new HashSet<>(Arrays.asList("GHI", "JKL"));
+        AbbreviationMatcher matcher = AbbreviationMatcher.of(abbreviations);
+
+        // changing the set after the matcher is cached does not change the cached key
+        abbreviations.add("MNO");
+        assertNotSame(matcher, AbbreviationMatcher.of(abbreviations));
+        assertSame(matcher, AbbreviationMatcher.of(Arrays.asList("JKL", "GHI")));
+    }
+
+    @Test
+    public void test_glossary() {
+        StringBuilder markdown = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        StringBuilder expectedText = new StringBuilder();
+
+        for (int i = 0; i < 2000; i++) {
+            String abbr = "G" + Integer.toString(i, 36).toUpperCase();
+            markdown.append("*[").append(abbr).append("]: Glossary term ").append(i).append("\n");
+
+            if (i % 97 == 0) {
+                text.append(abbr).append(" and ").append(abbr).append("X, ");
+                expectedText.append("<abbr title=\"Glossary term ").append(i).append("\">").append(abbr).append("</abbr> and ").append(abbr).append("X, ");
+            }
+        }
+
+        markdown.append("\n").append(text).append("end\n");
+        expected.append("<p>").append(expectedText).append("end</p>\n");
+
+        Parser parser = Parser.builder(OPTIONS).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(OPTIONS).build();
+
+        assertEquals(expected.toString(), renderer.render(parser.parse(markdown.toString())));
+        assertEquals(expected.toString(), renderer.render(parser.parse(markdown.toString())));
+    }
+
+    @Test
+    public void test_sharedRepository() {
+        String definitions = "*[HTML]: Hyper Text Markup Language\n*[W3C]: World Wide Web Consortium\n";
+        String markdown = "HTML by W3C in a PDF\n";
+        String localMarkdown = markdown + "\n*[PDF]: Portable Document Format\n";
+
+        Parser parser = Parser.builder(OPTIONS).build();
+        AbbreviationRepository shared = AbbreviationExtension.ABBREVIATIONS.get(parser.parse(definitions));
+        shared.freeze();
+
+        DataHolder sharedOptions = new MutableDataSet(OPTIONS).set(AbbreviationExtension.ABBREVIATIONS, shared).toImmutable();
+        Parser sharedParser = Parser.builder(sharedOptions).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(OPTIONS).build();
+
+        assertEquals(renderer.render(parser.parse(definitions + "\n" + markdown)), HtmlRenderer.builder(sharedOptions).build().render(sharedParser.parse(markdown)));
+        assertEquals(renderer.render(parser.parse(definitions + "\n" + localMarkdown)), HtmlRenderer.builder(sharedOptions).build().render(sharedParser.parse(localMarkdown)));
+        assertEquals(2, shared.size());
+
+        // documents without their own abbreviations use the matcher of the shared repository
+        AbbreviationRepository abbreviations = AbbreviationExtension.ABBREVIATIONS.get(sharedParser.parse(markdown));
+        assertSame(shared, abbreviations.getSharedRepository());
+        assertSame(shared.getAbbreviationMatcher(), abbreviations.getAbbreviationMatcher());
+        assertSame(shared.getAbbreviations(), abbreviations.getAbbreviations());
+    }
+}
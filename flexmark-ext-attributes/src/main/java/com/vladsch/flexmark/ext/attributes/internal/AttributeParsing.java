@@ -1,6 +1,7 @@
 package com.vladsch.flexmark.ext.attributes.internal;
 
 import com.vladsch.flexmark.ast.util.Parsing;
+import com.vladsch.flexmark.util.data.DataHolder;
 
 import java.util.regex.Pattern;
 
@@ -11,18 +12,18 @@ class AttributeParsing {
     final Pattern ATTRIBUTES_TAG;
     final Pattern ATTRIBUTE;
 
-    public AttributeParsing(Parsing parsing) {
+    public AttributeParsing(Parsing parsing, DataHolder options) {
         this.myParsing = parsing;
         String unquotedValue = myParsing.UNQUOTEDVALUE;//.replace("]+","}{"); // exclude braces
-        this.ATTRIBUTE = Pattern.compile("\\s*([#.]" + unquotedValue + "|" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?");
+        this.ATTRIBUTE = Parsing.compile("\\s*([#.]" + unquotedValue + "|" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?");
 
-        if (USE_EMPTY_IMPLICIT_AS_SPAN_DELIMITER.get(parsing.options)) {
-            this.ATTRIBUTES_TAG = Pattern.compile(
+        if (USE_EMPTY_IMPLICIT_AS_SPAN_DELIMITER.get(options)) {
+            this.ATTRIBUTES_TAG = Parsing.compile(
                     "^\\{((?:[#.])|(?:" + "\\s*([#.]" + unquotedValue + "|" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?" + ")" +
                             "(?:" + "\\s+([#.]" + unquotedValue + "|" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?" + ")*" + "\\s*)\\}"
             );
         } else {
-            this.ATTRIBUTES_TAG = Pattern.compile(
+            this.ATTRIBUTES_TAG = Parsing.compile(
                     "^\\{((?:" + "\\s*([#.]" + unquotedValue + "|" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?" + ")" +
                             "(?:" + "\\s+([#.]" + unquotedValue + "|" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?" + ")*" + "\\s*)\\}"
             );
@@ -18,7 +18,7 @@ public class AttributesInlineParserExtension implements InlineParserExtension {
     private final AttributeParsing parsing;
 
     public AttributesInlineParserExtension(LightInlineParser inlineParser) {
-        this.parsing = new AttributeParsing(inlineParser.getParsing());
+        this.parsing = new AttributeParsing(inlineParser.getParsing(), inlineParser.getDocument());
     }
 
     @Override
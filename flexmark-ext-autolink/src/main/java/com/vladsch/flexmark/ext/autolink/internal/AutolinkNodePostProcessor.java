@@ -8,6 +8,7 @@ import com.vladsch.flexmark.parser.block.NodePostProcessorFactory;
 import com.vladsch.flexmark.util.ast.*;
 import com.vladsch.flexmark.util.html.Escaping;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.CharPredicate;
 import com.vladsch.flexmark.util.sequence.ReplacedTextMapper;
 import com.vladsch.flexmark.util.sequence.SegmentedSequence;
 import org.jetbrains.annotations.NotNull;
@@ -25,6 +26,7 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
 
     private final Pattern ignoredLinks;
     private final boolean intellijDummyIdentifier;
+    private final CharPredicate linkTriggers;
 
     private LinkExtractor linkExtractor = LinkExtractor.builder()
             .linkTypes(EnumSet.of(LinkType.URL, LinkType.WWW, LinkType.EMAIL))
@@ -34,6 +36,7 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
         String ignoreLinks = AutolinkExtension.IGNORE_LINKS.get(document);
         ignoredLinks = ignoreLinks.isEmpty() ? null : Pattern.compile(ignoreLinks);
         intellijDummyIdentifier = Parser.INTELLIJ_DUMMY_IDENTIFIER.get(document);
+        linkTriggers = CharPredicate.anyOf(intellijDummyIdentifier ? ":@&\\wW\u001f" : ":@&\\wW");
     }
 
     public boolean isIgnoredLinkPrefix(CharSequence url) {
@@ -71,10 +74,53 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
         }
     }
 
+    /**
+     * Test for characters which can start a link: ':' of URL, '@' of e-mail and www. of WWW links
+     * <p>
+     * '&amp;' and '\\' are included because entities and escapes are unescaped before links are extracted
+     *
+     * @param chars text
+     * @return true if text may contain a link
+     */
+    boolean hasLinkTrigger(@NotNull BasedSequence chars) {
+        int length = chars.length();
+        int i = 0;
+
+        while ((i = chars.indexOfAny(linkTriggers, i)) != -1) {
+            char c = chars.charAt(i);
+            if (c != 'w' && c != 'W') return true;
+
+            if (i + 3 < length && (chars.charAt(i + 1) == 'w' || chars.charAt(i + 1) == 'W') && (chars.charAt(i + 2) == 'w' || chars.charAt(i + 2) == 'W')) {
+                char next = chars.charAt(i + 3);
+                if (next == '.' || next == '\\' || next == '&') return true;
+            }
+            i++;
+        }
+        return false;
+    }
+
     @Override
     public void process(@NotNull NodeTracker state, @NotNull Node node) {
-        // TODO: figure our why optimization does not work after AutoLink inserted by inline parser
-        if (node.getAncestorOfType(DoNotDecorate.class, DoNotLinkDecorate.class) != null) return;
+        // skip text without links before any sequences are created, same nodes as combined below are tested
+        if (!hasLinkTrigger(node.getChars())) {
+            Node next = node.getNext();
+            if (!(next instanceof TypographicText) || !next.getChars().isContinuationOf(node.getChars())) return;
+
+            BasedSequence chars = node.getChars();
+            boolean found = false;
+
+            while (next instanceof TypographicText || next instanceof Text) {
+                if (!next.getChars().isContinuationOf(chars) || next.getChars().startsWith(" ") || chars.endsWith(" ")) break;
+                chars = next.getChars();
+                if (hasLinkTrigger(chars)) {
+                    found = true;
+                    break;
+                }
+                next = next.getNext();
+            }
+
+            if (!found) return;
+        }
 
         BasedSequence combined = node.getChars();
         BasedSequence original = combined;
@@ -147,7 +193,8 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
 
         int lastEscaped = 0;
         boolean wrapInTextBase = !(node.getParent() instanceof TextBase);
-        TextBase textBase = wrapInTextBase || !(node.getParent() instanceof TextBase) ? null : (TextBase) node.getParent();
+        // when already in a text base, nodes are inserted in place of this node, not appended to the end of the text base
+        TextBase textBase = null;
         boolean processedNode = false;
 
         for (LinkSpan link : linksList) {
@@ -253,9 +300,7 @@ public class AutolinkNodePostProcessor extends NodePostProcessor {
     public static class Factory extends NodePostProcessorFactory {
         public Factory() {
             super(false);
-            // TODO: figure our why optimization does not work after AutoLink inserted by inline parser
-            //addNodeWithExclusions(Text.class, DoNotDecorate.class, DoNotLinkDecorate.class);
-            addNodes(Text.class);
+            addNodeWithExclusions(Text.class, DoNotDecorate.class, DoNotLinkDecorate.class);
         }
 
         @NotNull
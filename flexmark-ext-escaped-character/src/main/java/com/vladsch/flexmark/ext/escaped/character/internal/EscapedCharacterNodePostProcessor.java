@@ -89,6 +89,11 @@ public class EscapedCharacterNodePostProcessor extends NodePostProcessor {
             addNodeWithExclusions(Text.class, DoNotDecorate.class);
         }
 
+        @Override
+        public boolean isNodeLocal() {
+            return true;
+        }
+
         @NotNull
         @Override
         public NodePostProcessor apply(@NotNull Document document) {
@@ -102,7 +102,7 @@ public class JekyllTagBlockParser extends AbstractBlockParser {
 
         BlockFactory(DataHolder options) {
             super(options);
-            this.parsing = new JekyllTagParsing(new Parsing(options));
+            this.parsing = new JekyllTagParsing(Parsing.of(options));
             listIncludesOnly = JekyllTagExtension.LIST_INCLUDES_ONLY.get(options);
         }
 
@@ -13,7 +13,7 @@ class JekyllTagParsing {
     public JekyllTagParsing(Parsing parsing) {
         this.myParsing = parsing;
         this.OPEN_MACROTAG = "\\{%\\s+(" + myParsing.TAGNAME + ")(?:\\s+.+)?\\s+%\\}";
-        this.MACRO_OPEN = Pattern.compile('^' + OPEN_MACROTAG + "\\s*$", Pattern.CASE_INSENSITIVE);
-        this.MACRO_TAG = Pattern.compile(OPEN_MACROTAG);
+        this.MACRO_OPEN = Parsing.compile('^' + OPEN_MACROTAG + "\\s*$", Pattern.CASE_INSENSITIVE);
+        this.MACRO_TAG = Parsing.compile(OPEN_MACROTAG);
     }
 }
@@ -13,6 +13,9 @@ public class TableCaption extends Node implements DelimitedNode {
     protected BasedSequence text = BasedSequence.NULL;
     protected BasedSequence closingMarker = BasedSequence.NULL;
 
+    public TableCaption() {
+    }
+
     public TableCaption(BasedSequence openingMarker, BasedSequence text, BasedSequence closingMarker) {
         this.openingMarker = openingMarker;
         this.text = text;
@@ -32,6 +32,9 @@ public class SimTocBlock extends TocBlockBase {
         return allSegments;
     }
 
+    public SimTocBlock() {
+    }
+
     public SimTocBlock(BasedSequence chars) {
         this(chars, null, null);
     }
@@ -31,6 +31,9 @@ public class TocBlock extends TocBlockBase {
         return allSegments;
     }
 
+    public TocBlock() {
+    }
+
     public TocBlock(BasedSequence chars) {
         this(chars, false);
     }
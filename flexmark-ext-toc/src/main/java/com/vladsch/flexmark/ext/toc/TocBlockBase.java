@@ -32,6 +32,9 @@ public abstract class TocBlockBase extends Block {
         return allSegments;
     }
 
+    public TocBlockBase() {
+    }
+
     public TocBlockBase(BasedSequence chars) {
         this(chars, false);
     }
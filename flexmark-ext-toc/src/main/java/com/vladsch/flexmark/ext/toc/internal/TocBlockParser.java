@@ -25,10 +25,10 @@ public class TocBlockParser extends AbstractBlockParser {
         public TocParsing(DataHolder options) {
             super(options);
             if (CASE_SENSITIVE_TOC_TAG.get(options)) {
-                this.TOC_BLOCK_START = Pattern.compile("^\\[TOC(?:\\s+([^\\]]+))?]\\s*$");
+                this.TOC_BLOCK_START = compile("^\\[TOC(?:\\s+([^\\]]+))?]\\s*$");
                 ;
             } else {
-                this.TOC_BLOCK_START = Pattern.compile("^\\[(?i:TOC)(?:\\s+([^\\]]+))?]\\s*$");
+                this.TOC_BLOCK_START = compile("^\\[(?i:TOC)(?:\\s+([^\\]]+))?]\\s*$");
             }
         }
     }
@@ -3,6 +3,9 @@ package com.vladsch.flexmark.ext.wikilink;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 
 public class WikiImage extends WikiNode {
+    public WikiImage() {
+    }
+
     public WikiImage(boolean linkIsFirst) {
         super(linkIsFirst);
     }
@@ -3,6 +3,9 @@ package com.vladsch.flexmark.ext.wikilink;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 
 public class WikiLink extends WikiNode {
+    public WikiLink() {
+    }
+
     public WikiLink(boolean linkIsFirst) {
         super(linkIsFirst);
     }
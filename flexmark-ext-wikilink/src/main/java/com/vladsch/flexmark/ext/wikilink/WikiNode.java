@@ -72,6 +72,10 @@ public class WikiNode extends Node implements DoNotDecorate {
         return linkIsFirst;
     }
 
+    public WikiNode() {
+        this(false);
+    }
+
     public WikiNode(boolean linkIsFirst) {
         this.linkIsFirst = linkIsFirst;
     }
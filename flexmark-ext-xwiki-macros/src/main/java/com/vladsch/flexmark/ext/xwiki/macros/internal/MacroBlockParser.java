@@ -192,7 +192,7 @@ public class MacroBlockParser extends AbstractBlockParser {
         BlockFactory(DataHolder options) {
             super(options);
             this.options = new MacroOptions(options);
-            this.parsing = new MacroParsing(new Parsing(options));
+            this.parsing = new MacroParsing(Parsing.of(options));
         }
 
         @Override
@@ -19,12 +19,12 @@ class MacroParsing {
         this.myParsing = parsing;
         this.OPEN_MACROTAG = "\\{\\{(" + myParsing.TAGNAME + ")" + myParsing.ATTRIBUTE + "*" + "\\s*/?\\}\\}";
         this.CLOSE_MACROTAG = "\\{\\{/(" + myParsing.TAGNAME + ")\\s*\\}\\}";
-        this.MACRO_OPEN = Pattern.compile('^' + OPEN_MACROTAG, Pattern.CASE_INSENSITIVE);
-        this.MACRO_CLOSE = Pattern.compile('^' + CLOSE_MACROTAG + "\\s*$", Pattern.CASE_INSENSITIVE);
-        this.MACRO_CLOSE_END = Pattern.compile(CLOSE_MACROTAG + "\\s*$", Pattern.CASE_INSENSITIVE);
-        this.MACRO_ATTRIBUTE = Pattern.compile("\\s*(" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?");
+        this.MACRO_OPEN = Parsing.compile('^' + OPEN_MACROTAG, Pattern.CASE_INSENSITIVE);
+        this.MACRO_CLOSE = Parsing.compile('^' + CLOSE_MACROTAG + "\\s*$", Pattern.CASE_INSENSITIVE);
+        this.MACRO_CLOSE_END = Parsing.compile(CLOSE_MACROTAG + "\\s*$", Pattern.CASE_INSENSITIVE);
+        this.MACRO_ATTRIBUTE = Parsing.compile("\\s*(" + myParsing.ATTRIBUTENAME + ")\\s*(?:=\\s*(" + myParsing.ATTRIBUTEVALUE + ")?" + ")?");
 
         this.MACROTAG = "(?:" + OPEN_MACROTAG + ")|(?:" + CLOSE_MACROTAG + ")";
-        this.MACRO_TAG = Pattern.compile(MACROTAG);
+        this.MACRO_TAG = Parsing.compile(MACROTAG);
     }
 }
@@ -17,6 +17,10 @@ public class YamlFrontMatterNode extends Node {
         return new BasedSequence[] { key };
     }
 
+    public YamlFrontMatterNode() {
+        this.key = BasedSequence.NULL;
+    }
+
     public YamlFrontMatterNode(BasedSequence key, List<BasedSequence> values) {
         this.key = key;
         //this.values = values;
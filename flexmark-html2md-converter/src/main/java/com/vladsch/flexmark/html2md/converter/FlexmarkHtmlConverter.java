@@ -30,6 +30,9 @@ import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -137,6 +140,12 @@ public class FlexmarkHtmlConverter {
      */
     public static final DataKey<Boolean> DUMP_HTML_TREE = new DataKey<>("DUMP_HTML_TREE", false);
 
+    /**
+     * minimum size of HTML text parsed at a time by {@link #convert(Reader, Appendable)}, HTML is parsed up to the next top level element
+     * after this size is reached
+     */
+    public static final DataKey<Integer> STREAM_CHUNK_SIZE = new DataKey<>("STREAM_CHUNK_SIZE", 16384);
+
     /**
      * If true then will ignore rows with th columns after rows with td columns have been
      * emitted to the table.
@@ -321,6 +330,34 @@ public class FlexmarkHtmlConverter {
         converter.flushTo(output, htmlConverterOptions.maxTrailingBlankLines);
     }
 
+    /**
+     * Convert HTML read from reader and append markdown to the appendable
+     * <p>
+     * HTML body is parsed and converted in chunks ending at a top level element, completed markdown lines are appended
+     * to output as each chunk is converted, so memory use does not depend on the size of the HTML.
+     * <p>
+     * NOTE: a body with all its content wrapped in a single element is converted as one chunk, memory use for it
+     * depends on the size of the HTML.
+     * <p>
+     * NOTE: jsoup parsing of malformed HTML which spans a chunk boundary may differ from parsing all of it.
+     *
+     * @param html   reader for html to convert to markdown
+     * @param output appendable to use for the output
+     * @throws IOException if thrown by reader or output
+     */
+    public void convert(Reader html, Appendable output) throws IOException {
+        Document document = Jsoup.parse("");
+        MainHtmlConverter converter = new MainHtmlConverter(options, new HtmlMarkdownWriter(htmlConverterOptions.formatFlags), document, null);
+
+        try {
+            converter.renderStream(new HtmlBodyChunkReader(html, STREAM_CHUNK_SIZE.get(options)), output);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        converter.flushTo(output, htmlConverterOptions.maxTrailingBlankLines);
+    }
+
     /**
      * Parse HTML with default options
      *
@@ -582,6 +619,8 @@ public class FlexmarkHtmlConverter {
         private HtmlLinkResolver[] myHtmlLinkResolvers;
         private HashMap<String, Reference> myReferenceUrlToReferenceMap;  // map of URL to reference node
         private HashSet<Reference> myExternalReferences;  // map of URL to reference node
+        private HtmlBodyChunkReader myChunkReader;
+        private Appendable myStreamOutput;
 
         @Override
         public HtmlConverterState getState() {
@@ -842,7 +881,11 @@ public class FlexmarkHtmlConverter {
                     // here we render multiple phases
                     if (this.phase == HtmlConverterPhase.DOCUMENT) {
                         // rendering starts here with rendering of the body element children
-                        processHtmlTree(subContext, document.body(), false, null);
+                        if (myChunkReader != null) {
+                            processHtmlStream(subContext);
+                        } else {
+                            processHtmlTree(subContext, document.body(), false, null);
+                        }
 
                         //HtmlNodeRendererHandler nodeRenderer = renderers.get(node.getClass());
                         //if (nodeRenderer != null) {
@@ -880,6 +923,119 @@ public class FlexmarkHtmlConverter {
             }
         }
 
+        void renderStream(HtmlBodyChunkReader chunkReader, Appendable output) {
+            myChunkReader = chunkReader;
+            myStreamOutput = output;
+            try {
+                renderNode(document, this);
+            } finally {
+                myChunkReader = null;
+                myStreamOutput = null;
+            }
+        }
+
+        /**
+         * Render body children as chunks are read, rendered nodes are removed from the body and completed lines
+         * are appended to stream output
+         * <p>
+         * The last element of a chunk and text preceding it are rendered with the next chunk so that following siblings are available
+         *
+         * @param context context
+         */
+        void processHtmlStream(HtmlNodeConverterSubContext context) {
+            Element body = document.body();
+
+            // NOTE: empty element child nodes list is replaced when first child is added, state needs the list used for children
+            TextNode textNode = new TextNode("");
+            body.appendChild(textNode);
+            textNode.remove();
+
+            context.pushState(body);
+            HtmlConverterState state = context.getState();
+
+            try {
+                String chunk;
+                while ((chunk = myChunkReader.nextChunk()) != null) {
+                    Element chunkBody = Jsoup.parseBodyFragment(chunk).body();
+
+                    if (DUMP_HTML_TREE.get(getOptions())) {
+                        LineFormattingAppendableImpl trace = new LineFormattingAppendableImpl(0);
+                        trace.setIndentPrefix("  ");
+                        dumpHtmlTree(trace, chunkBody);
+                        System.out.println(trace.toString(0));
+                    }
+
+                    for (Node node : new ArrayList<>(chunkBody.childNodes())) {
+                        body.appendChild(node);
+                    }
+
+                    // text between elements is rendered with the following element, otherwise it is pending in the markdown output
+                    int endIndex = body.childNodeSize();
+                    while (endIndex > state.myIndex && !(body.childNode(endIndex - 1) instanceof Element)) endIndex--;
+                    if (endIndex > state.myIndex) endIndex--;
+                    while (endIndex > state.myIndex && !(body.childNode(endIndex - 1) instanceof Element)) endIndex--;
+                    processHtmlStream(context, state, endIndex);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            processHtmlStream(context, state, body.childNodeSize());
+
+            if (state != context.getState()) {
+                throw new IllegalStateException("State not equal after process " + FlexmarkHtmlConverter.dumpState(context));
+            }
+
+            state.runPrePopActions();
+            context.popState(null);
+        }
+
+        private void processHtmlStream(HtmlNodeConverterSubContext context, HtmlConverterState state, int endIndex) {
+            Element body = document.body();
+            int startIndex = state.myIndex;
+
+            Node node;
+            while (state.myIndex < endIndex && (node = context.next()) != null) {
+                context.render(node);
+            }
+
+            if (state.myIndex > startIndex) {
+                // rendered nodes are replaced by last rendered element without children so previous sibling and first child tests are not affected
+                Node previous = null;
+                for (int i = 0; i < state.myIndex; i++) {
+                    Node child = body.childNode(i);
+                    if (child instanceof Element) {
+                        previous = ((Element) child).shallowClone();
+                    } else if (previous == null && !child.outerHtml().trim().isEmpty()) {
+                        previous = new TextNode("-");
+                    }
+                }
+
+                ArrayList<Node> remaining = new ArrayList<>(body.childNodes().subList(state.myIndex, body.childNodeSize()));
+                for (Node child : remaining) {
+                    child.remove();
+                }
+
+                body.empty();
+                state.myIndex = 0;
+
+                if (previous != null) {
+                    body.appendChild(previous);
+                    state.myIndex++;
+                }
+
+                for (Node child : remaining) {
+                    body.appendChild(child);
+                }
+
+                try {
+                    context.getMarkdown().appendCompletedTo(myStreamOutput);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
         @Override
         public void renderChildren(Node parent, boolean outputAttributes, Runnable prePopAction) {
             processHtmlTree(this, parent, outputAttributes, prePopAction);
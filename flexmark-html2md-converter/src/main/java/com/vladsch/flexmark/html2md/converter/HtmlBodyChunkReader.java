@@ -0,0 +1,251 @@
+package com.vladsch.flexmark.html2md.converter;
+
+import com.vladsch.flexmark.util.html.HtmlTagScanner;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads HTML body content in chunks which end before a top level tag
+ * <p>
+ * Tags are only tracked to find top level boundaries, chunks are parsed by jsoup. Doctype, html, head and body tags
+ * and the content of head element are not included in chunks. End tags of elements which are implicitly closed,
+ * like p and li, are inferred the same way HTML parsing does for common cases, elements left open only delay the
+ * next boundary.
+ * <p>
+ * Only top level tags end a chunk. A body whose content is wrapped in a single element, as is common for wiki and
+ * CMS exports, is read as one chunk so memory used for it is not bounded by chunk size.
+ */
+class HtmlBodyChunkReader {
+    static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area", "base", "br", "col", "embed", "hr", "img", "input", "keygen", "link", "meta", "param", "source", "track", "wbr"));
+    static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"));
+    static final Set<String> SKIPPED_TAGS = new HashSet<>(Arrays.asList("html", "body"));
+    static final Set<String> CLOSES_P = new HashSet<>(Arrays.asList("address", "article", "aside", "blockquote", "details", "dialog", "div", "dl", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hgroup", "hr", "main", "menu", "nav", "ol", "p", "pre", "section", "table", "ul"));
+
+    private final Reader reader;
+    private final int chunkSize;
+    private final char[] buffer;
+    private final StringBuilder pending;
+    private final ArrayList<String> openElements;
+    private int scanIndex;
+    private boolean atEnd;
+
+    /**
+     * @param reader    reader for HTML
+     * @param chunkSize minimum size of chunks, except for the last one
+     */
+    HtmlBodyChunkReader(Reader reader, int chunkSize) {
+        this.reader = reader;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.buffer = new char[8192];
+        this.pending = new StringBuilder();
+        this.openElements = new ArrayList<>();
+    }
+
+    /**
+     * Get next chunk of HTML
+     *
+     * @return next chunk or null if no more HTML
+     * @throws IOException if thrown by reader
+     */
+    @Nullable
+    String nextChunk() throws IOException {
+        while (true) {
+            int boundary = scan();
+            if (boundary > 0) {
+                String chunk = pending.substring(0, boundary);
+                pending.delete(0, boundary);
+                scanIndex -= boundary;
+                return chunk;
+            }
+
+            if (atEnd) {
+                if (pending.length() == 0) return null;
+                String chunk = pending.toString();
+                pending.setLength(0);
+                scanIndex = 0;
+                return chunk;
+            }
+
+            int read = reader.read(buffer);
+            if (read == -1) atEnd = true;
+            else pending.append(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Scan pending text for a top level boundary
+     *
+     * @return index of boundary, -1 if none found in available text
+     */
+    private int scan() {
+        int i = scanIndex;
+
+        while (i < pending.length()) {
+            if (pending.charAt(i) != '<') {
+                i++;
+                continue;
+            }
+
+            int tagEnd = HtmlTagScanner.scanTag(pending, i, !atEnd);
+            if (tagEnd == HtmlTagScanner.INCOMPLETE_TAG) {
+                if (!atEnd) break;
+                tagEnd = HtmlTagScanner.NOT_A_TAG;
+            }
+
+            if (tagEnd == HtmlTagScanner.NOT_A_TAG) {
+                // not a tag, it is text
+                i++;
+                continue;
+            }
+
+            char c = pending.charAt(i + 1);
+            if (c == '!' || c == '?') {
+                if (tagEnd - i > 9 && pending.substring(i + 2, i + 9).equalsIgnoreCase("doctype")) {
+                    pending.delete(i, tagEnd);
+                } else {
+                    i = tagEnd;
+                }
+                continue;
+            }
+
+            if (c == '/') {
+                String tagName = tagName(i + 2, tagEnd);
+                if (SKIPPED_TAGS.contains(tagName) || tagName.equals("head")) {
+                    pending.delete(i, tagEnd);
+                } else {
+                    int index = openElements.lastIndexOf(tagName);
+                    if (index != -1) removeOpenElements(index);
+                    i = tagEnd;
+                }
+                continue;
+            }
+
+            String tagName = tagName(i + 1, tagEnd);
+
+            if (SKIPPED_TAGS.contains(tagName)) {
+                pending.delete(i, tagEnd);
+                continue;
+            }
+
+            if (tagName.equals("head")) {
+                // head content is not part of the body
+                int end = closingTagEnd(tagName, tagEnd);
+                if (end == -1) {
+                    if (!atEnd) break;
+                    end = pending.length();
+                }
+                pending.delete(i, end);
+                continue;
+            }
+
+            closeImplied(tagName);
+
+            if (openElements.isEmpty() && i >= chunkSize) {
+                scanIndex = i;
+                return i;
+            }
+
+            boolean selfClosing = pending.charAt(tagEnd - 2) == '/';
+            if (selfClosing || VOID_ELEMENTS.contains(tagName)) {
+                i = tagEnd;
+            } else if (RAW_TEXT_ELEMENTS.contains(tagName)) {
+                int end = closingTagEnd(tagName, tagEnd);
+                if (end == -1) {
+                    if (!atEnd) break;
+                    end = pending.length();
+                }
+                i = end;
+            } else {
+                openElements.add(tagName);
+                i = tagEnd;
+            }
+        }
+
+        scanIndex = i;
+        return -1;
+    }
+
+    private void removeOpenElements(int index) {
+        while (openElements.size() > index) openElements.remove(openElements.size() - 1);
+    }
+
+    /**
+     * Close elements implicitly closed by start tag
+     *
+     * @param tagName start tag name
+     */
+    private void closeImplied(String tagName) {
+        if (openElements.isEmpty()) return;
+
+        if (CLOSES_P.contains(tagName)) {
+            if (openElements.get(openElements.size() - 1).equals("p")) removeOpenElements(openElements.size() - 1);
+        }
+
+        switch (tagName) {
+            case "li":
+                closeOpen(tagName, "ul", "ol");
+                break;
+            case "dt":
+            case "dd":
+                closeOpen("dt", "dl");
+                closeOpen("dd", "dl");
+                break;
+            case "tr":
+                closeOpen(tagName, "table");
+                break;
+            case "td":
+            case "th":
+                closeOpen("td", "tr", "table");
+                closeOpen("th", "tr", "table");
+                break;
+            case "option":
+                closeOpen(tagName, "select");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Close open element and its descendants if it is open below given scope elements
+     *
+     * @param tagName element to close
+     * @param scope   elements which contain tagName elements
+     */
+    private void closeOpen(String tagName, String... scope) {
+        for (int i = openElements.size(); i-- > 0; ) {
+            String openElement = openElements.get(i);
+            if (openElement.equals(tagName)) {
+                removeOpenElements(i);
+                return;
+            }
+            for (String scopeElement : scope) {
+                if (openElement.equals(scopeElement)) return;
+            }
+        }
+    }
+
+    private String tagName(int start, int end) {
+        return pending.substring(start, HtmlTagScanner.nameEnd(pending, start, end)).toLowerCase();
+    }
+
+    /**
+     * Find end of closing tag
+     *
+     * @param tagName tag name
+     * @param index   index from which to search
+     * @return index after end of closing tag or -1 if not found in available text
+     */
+    private int closingTagEnd(String tagName, int index) {
+        int start = HtmlTagScanner.indexOfClosingTag(pending, tagName, index);
+        if (start == -1) return -1;
+        int end = pending.indexOf(">", start + 2 + tagName.length());
+        return end == -1 ? -1 : end + 1;
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.runners.Suite;
         ComboAppHtmlAttributeConverterTest.class,
         ComboHtmlConverterIssueTest.class,
         ComboHtmlAttributeConverterIssueTest.class,
+        HtmlConverterStreamTest.class,
 })
 public class FlexmarkHtmlConverterTestSuite {
 }
@@ -0,0 +1,165 @@
+package com.vladsch.flexmark.html2md.converter;
+
+import com.vladsch.flexmark.test.util.spec.ResourceLocation;
+import com.vladsch.flexmark.test.util.spec.SpecExample;
+import com.vladsch.flexmark.test.util.spec.SpecReader;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HtmlConverterStreamTest {
+    /**
+     * Reader which returns a few characters at a time so that tags are split across reads
+     */
+    static class SlowReader extends Reader {
+        final StringReader reader;
+
+        SlowReader(String text) {
+            reader = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return reader.read(cbuf, off, Math.min(len, 7));
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+
+    static String convertStream(FlexmarkHtmlConverter converter, Reader html) throws IOException {
+        StringBuilder out = new StringBuilder();
+        converter.convert(html, out);
+        return out.toString();
+    }
+
+    static String convert(FlexmarkHtmlConverter converter, String html) {
+        StringBuilder out = new StringBuilder();
+        converter.convert(html, out);
+        return out.toString();
+    }
+
+    static void assertSpecExamples(String specResource) throws IOException {
+        FlexmarkHtmlConverter converter = FlexmarkHtmlConverter.builder(new MutableDataSet().set(FlexmarkHtmlConverter.STREAM_CHUNK_SIZE, 1)).build();
+        SpecReader specReader = SpecReader.createAndReadExamples(ResourceLocation.of(HtmlConverterStreamTest.class, specResource), true);
+
+        for (SpecExample example : specReader.getExamples()) {
+            String html = example.getHtml();
+            assertEquals(example.getFileUrlWithLineNumber(), convert(converter, html), convertStream(converter, new SlowReader(html)));
+        }
+    }
+
+    @Test
+    public void test_flexmarkSpec() throws IOException {
+        assertSpecExamples("/flexmark_html_converter_spec.md");
+    }
+
+    @Test
+    public void test_appSpec() throws IOException {
+        assertSpecExamples("/app_html_converter_spec.md");
+    }
+
+    @Test
+    public void test_issueSpec() throws IOException {
+        assertSpecExamples("/html_converter_issue_spec.md");
+    }
+
+    @Test
+    public void test_document() throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<title>Page <b>title</b></title>\n<style>p > b { color: red; }</style>\n</head>\n<body class=\"page\">\n");
+        for (int i = 0; i < 200; i++) {
+            html.append("<h2 id=\"section-").append(i).append("\">Section ").append(i).append("</h2>\n");
+            html.append("<p>Paragraph with <a href=\"http://example.com/").append(i).append("\">link</a>, <code>a &lt; b</code> and <em>emphasis</em>\n");
+            html.append("<p>Unclosed paragraph\n");
+            html.append("<ul><li>item<li>item with <b>bold</b><ul><li>nested</ul></ul>\n");
+            html.append("<table><tr><th>a<th>b<tr><td>1<td>2</table>\n");
+            html.append("<pre><code>code &lt;tag&gt;\n  indented\n</code></pre>\n");
+            html.append("<script>if (a < b) document.write('<p>')</script>\n");
+            html.append("<!-- comment <p> -->\n");
+            html.append("<blockquote><p>quote</p></blockquote><hr>\n");
+        }
+        html.append("</body>\n</html>\n");
+
+        FlexmarkHtmlConverter converter = FlexmarkHtmlConverter.builder(new MutableDataSet().set(FlexmarkHtmlConverter.STREAM_CHUNK_SIZE, 1000)).build();
+        String expected = convert(converter, html.toString());
+
+        assertEquals(expected, convertStream(converter, new SlowReader(html.toString())));
+        assertEquals(expected, convertStream(converter, new StringReader(html.toString())));
+
+        // most of the markdown is output before all HTML is read
+        StringBuilder out = new StringBuilder();
+        int[] outputAtEnd = { -1 };
+        Reader reader = new SlowReader(html.toString()) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int read = super.read(cbuf, off, len);
+                if (read == -1 && outputAtEnd[0] == -1) outputAtEnd[0] = out.length();
+                return read;
+            }
+        };
+
+        converter.convert(reader, out);
+        assertEquals(expected, out.toString());
+        assertTrue(outputAtEnd[0] > expected.length() * 9 / 10);
+    }
+
+    @Test
+    public void test_empty() throws IOException {
+        FlexmarkHtmlConverter converter = FlexmarkHtmlConverter.builder().build();
+        assertEquals(convert(converter, ""), convertStream(converter, new StringReader("")));
+        assertEquals(convert(converter, "<html><head></head><body></body></html>"), convertStream(converter, new StringReader("<html><head></head><body></body></html>")));
+    }
+
+    static String wrappedDocument() {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><body><div class=\"wiki-content\">\n");
+        for (int i = 0; i < 100; i++) {
+            html.append("<h2>Section ").append(i).append("</h2>\n");
+            html.append("<p>Paragraph with <a href=\"http://example.com/").append(i).append("\">link</a></p>\n");
+        }
+        html.append("</div></body></html>\n");
+        return html.toString();
+    }
+
+    @Test
+    public void test_singleWrapper() throws IOException {
+        // a body wrapped in a single element is converted as one chunk, same as all of the HTML
+        String html = wrappedDocument();
+        FlexmarkHtmlConverter converter = FlexmarkHtmlConverter.builder(new MutableDataSet().set(FlexmarkHtmlConverter.STREAM_CHUNK_SIZE, 100)).build();
+        assertEquals(convert(converter, html), convertStream(converter, new SlowReader(html)));
+    }
+
+    @Test
+    public void test_singleWrapperChunk() throws IOException {
+        String html = wrappedDocument();
+        HtmlBodyChunkReader chunkReader = new HtmlBodyChunkReader(new SlowReader(html), 100);
+
+        String chunk = chunkReader.nextChunk();
+        assertTrue(chunk.startsWith("<div class=\"wiki-content\">"));
+        assertTrue(chunk.contains("Section 99</h2>"));
+        assertTrue(chunk.trim().endsWith("</div>"));
+        assertNull(chunkReader.nextChunk());
+    }
+
+    @Test
+    public void test_unmatchedQuote() throws IOException {
+        // quote without a matching quote does not hide following tags
+        String html = "<div b'=' c>\ntext\n</div>\n<p>paragraph</p>\n<p>more</p>\n";
+        HtmlBodyChunkReader chunkReader = new HtmlBodyChunkReader(new SlowReader(html), 1);
+
+        assertEquals("<div b'=' c>\ntext\n</div>\n", chunkReader.nextChunk());
+        assertEquals("<p>paragraph</p>\n", chunkReader.nextChunk());
+        assertEquals("<p>more</p>\n", chunkReader.nextChunk());
+        assertNull(chunkReader.nextChunk());
+    }
+}
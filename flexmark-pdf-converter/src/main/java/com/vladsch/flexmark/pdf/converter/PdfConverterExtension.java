@@ -3,10 +3,15 @@ package com.vladsch.flexmark.pdf.converter;
 import com.openhtmltopdf.DOMBuilder;
 import com.openhtmltopdf.bidi.support.ICUBidiReorderer;
 import com.openhtmltopdf.bidi.support.ICUBidiSplitter;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
 import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
 import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.util.Utils;
+import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.data.NullableDataKey;
@@ -33,6 +38,12 @@ import java.io.OutputStream;
  * <p>
  * The parsed Markdown text is rendered to HTML then converted to PDF
  * </p>
+ * <p>
+ * To skip rendering to an HTML string and parsing it, pass the parsed document and renderer to
+ * {@link #exportToPdf(OutputStream, HtmlRenderer, Node, String, DataHolder)}
+ * or {@link #exportToPdf(String, HtmlRenderer, Node, String, DataHolder)}
+ * which render directly to the W3C DOM document used by the PDF renderer.
+ * </p>
  */
 public class PdfConverterExtension {
     public static final NullableDataKey<PdfRendererBuilder.TextDirection> DEFAULT_TEXT_DIRECTION = new NullableDataKey<>("DEFAULT_TEXT_DIRECTION");
@@ -40,7 +51,14 @@ public class PdfConverterExtension {
     public static final String DEFAULT_CSS_RESOURCE_PATH = "/default.css";
     public static final String DEFAULT_TOC_LIST_CLASS = "toc";
 
-    public static final DataKey<String> DEFAULT_CSS = new DataKey<>("DEFAULT_CSS", () -> Utils.getResourceAsString(PdfConverterExtension.class, DEFAULT_CSS_RESOURCE_PATH));
+    // NOTE: resource is loaded once, a value supplier would load it every time the key is not set in options
+    public static final DataKey<String> DEFAULT_CSS = new DataKey<>("DEFAULT_CSS", Utils.getResourceAsString(PdfConverterExtension.class, DEFAULT_CSS_RESOURCE_PATH));
+
+    /**
+     * Font metrics cache used for all exports, fonts used by a document are loaded and measured once instead of for every export,
+     * set to null to not cache font metrics
+     */
+    public static final NullableDataKey<FSCacheEx<String, FSCacheValue>> FONT_METRICS_CACHE = new NullableDataKey<>("FONT_METRICS_CACHE", new FSDefaultCacheStore());
 
     public static String embedCss(String html, String css) {
         if (css != null && !css.isEmpty()) {
@@ -97,18 +115,53 @@ public class PdfConverterExtension {
         exportToPdf(os, html, url, DEFAULT_TEXT_DIRECTION.get(options), PROTECTION_POLICY.get(options));
     }
 
+    public static void exportToPdf(String out, HtmlRenderer renderer, Node document, String url, DataHolder options) {
+        try {
+            OutputStream os = new FileOutputStream(out);
+            exportToPdf(os, renderer, document, url, options);
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void exportToPdf(OutputStream os, HtmlRenderer renderer, Node document, String url, DataHolder options) {
+        Document dom = toW3cDocument(renderer, document, DEFAULT_CSS.get(options));
+        exportToPdf(os, dom, url, DEFAULT_TEXT_DIRECTION.get(options), PROTECTION_POLICY.get(options), FONT_METRICS_CACHE.get(options));
+    }
+
+    /**
+     * Render document directly to W3C DOM document, without rendering to an HTML string and parsing it
+     *
+     * @param renderer html renderer
+     * @param document node to render
+     * @param css      css to add to the head of the document, null for none
+     * @return W3C DOM document with rendered HTML in the body
+     */
+    public static Document toW3cDocument(HtmlRenderer renderer, Node document, String css) {
+        W3cDomAppendable appendable = new W3cDomAppendable(css);
+        renderer.render(document, appendable);
+        return appendable.getDocument();
+    }
+
     public static void exportToPdf(OutputStream os, String html, String url, PdfRendererBuilder.TextDirection defaultTextDirection) {
         exportToPdf(os, html, url, defaultTextDirection, null);
     }
 
     public static void exportToPdf(OutputStream os, String html, String url, PdfRendererBuilder.TextDirection defaultTextDirection, ProtectionPolicy protectionPolicy) {
+        exportToPdf(os, toW3cDocument(html), url, defaultTextDirection, protectionPolicy, FONT_METRICS_CACHE.get(null));
+    }
+
+    private static void exportToPdf(OutputStream os, Document dom, String url, PdfRendererBuilder.TextDirection defaultTextDirection, ProtectionPolicy protectionPolicy, FSCacheEx<String, FSCacheValue> fontMetricsCache) {
         PdfBoxRenderer renderer = null;
         try {
             // There are more options on the builder than shown below.
             PdfRendererBuilder builder = new PdfRendererBuilder();
 
             handleTextDirection(defaultTextDirection, builder);
-            handleW3cDocument(html, url, builder);
+            builder.withW3cDocument(dom, url);
+            if (fontMetricsCache != null) {
+                builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+            }
 
             builder.toStream(os);
             renderer = builder.buildPdfRenderer();
@@ -134,12 +187,11 @@ public class PdfConverterExtension {
         }
     }
 
-    private static void handleW3cDocument(String html, String url, PdfRendererBuilder builder) {
+    private static Document toW3cDocument(String html) {
         org.jsoup.nodes.Document doc;
         doc = Jsoup.parse(html);
 
-        Document dom = DOMBuilder.jsoup2DOM(doc);
-        builder.withW3cDocument(dom, url);
+        return DOMBuilder.jsoup2DOM(doc);
     }
 
     private static void handleTextDirection(BaseRendererBuilder.TextDirection defaultTextDirection, PdfRendererBuilder builder) {
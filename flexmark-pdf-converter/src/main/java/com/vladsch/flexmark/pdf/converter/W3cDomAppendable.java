@@ -0,0 +1,274 @@
+package com.vladsch.flexmark.pdf.converter;
+
+import com.vladsch.flexmark.util.html.HtmlTagScanner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jsoup.parser.Parser;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Appendable which builds a W3C DOM document from HTML appended to it
+ * <p>
+ * Used as output of {@link com.vladsch.flexmark.html.HtmlRenderer} to get the document for openhtmltopdf
+ * without an intermediate HTML string and jsoup document. Nodes are created the same way as
+ * {@link com.openhtmltopdf.DOMBuilder#jsoup2DOM(org.jsoup.nodes.Document)} creates them.
+ * <p>
+ * HTML is added to the body element, html, head and body tags in appended HTML are ignored.
+ * Closing tags without an open element are ignored and elements still open at the end are closed.
+ * Unlike jsoup, no HTML5 tree construction rules are applied to malformed HTML.
+ */
+public class W3cDomAppendable implements Appendable {
+    static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"));
+    static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("script", "style"));
+    static final Set<String> IGNORED_ELEMENTS = new HashSet<>(Arrays.asList("html", "head", "body"));
+
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+
+    private final Document document;
+    private final ArrayList<Node> openElements;
+    private final StringBuilder pending;
+    private final ArrayList<String> attributes;
+    private final HtmlTagScanner.AttributeConsumer attributeConsumer = this::addAttribute;
+    private int textStart;
+    private int scanIndex;
+    private String rawTextElement;
+
+    /**
+     * @param css css text to add in a style element to the head, null or empty for none
+     */
+    public W3cDomAppendable(@Nullable String css) {
+        document = newDocument();
+        openElements = new ArrayList<>();
+        pending = new StringBuilder();
+        attributes = new ArrayList<>();
+
+        Element html = document.createElement("html");
+        Element head = document.createElement("head");
+        Element body = document.createElement("body");
+        document.appendChild(html);
+        html.appendChild(head);
+        html.appendChild(body);
+
+        if (css != null && !css.isEmpty()) {
+            Element style = document.createElement("style");
+            style.appendChild(document.createCDATASection("\n" + css + "\n"));
+            head.appendChild(style);
+        }
+
+        openElements.add(body);
+    }
+
+    static Document newDocument() {
+        try {
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Add remaining text and return the document
+     *
+     * @return document
+     */
+    @NotNull
+    public Document getDocument() {
+        process(true);
+        return document;
+    }
+
+    @Override
+    public W3cDomAppendable append(CharSequence csq) {
+        pending.append(csq);
+        process(false);
+        return this;
+    }
+
+    @Override
+    public W3cDomAppendable append(CharSequence csq, int start, int end) {
+        pending.append(csq, start, end);
+        process(false);
+        return this;
+    }
+
+    @Override
+    public W3cDomAppendable append(char c) {
+        pending.append(c);
+        if (c == '>' || c == '\n') process(false);
+        return this;
+    }
+
+    /**
+     * Convert complete tags and text to nodes, incomplete tag at end of pending text is kept for next append
+     *
+     * @param atEnd true if no more text will be appended
+     */
+    private void process(boolean atEnd) {
+        int length = pending.length();
+        int index = scanIndex;
+
+        while (index < length) {
+            if (rawTextElement != null) {
+                int end = HtmlTagScanner.indexOfClosingTag(pending, rawTextElement, index);
+                if (end == -1) {
+                    if (!atEnd) break;
+                    end = length;
+                }
+
+                if (end > textStart) {
+                    currentElement().appendChild(document.createCDATASection(pending.substring(textStart, end)));
+                }
+
+                rawTextElement = null;
+                index = end;
+                textStart = end;
+                continue;
+            }
+
+            if (pending.charAt(index) != '<') {
+                index++;
+                continue;
+            }
+
+            int tagEnd = HtmlTagScanner.scanTag(pending, index, !atEnd);
+            if (tagEnd == HtmlTagScanner.INCOMPLETE_TAG) {
+                // incomplete tag
+                if (!atEnd) break;
+                tagEnd = HtmlTagScanner.NOT_A_TAG;
+            }
+
+            if (tagEnd == HtmlTagScanner.NOT_A_TAG) {
+                // not a tag, it is text
+                index++;
+                continue;
+            }
+
+            addText(textStart, index);
+            addTag(index, tagEnd);
+            index = tagEnd;
+            textStart = tagEnd;
+        }
+
+        if (atEnd) {
+            addText(textStart, length);
+            textStart = length;
+            index = length;
+        }
+
+        scanIndex = index;
+
+        if (textStart > 0 && (textStart == pending.length() || textStart > 4096)) {
+            pending.delete(0, textStart);
+            scanIndex -= textStart;
+            textStart = 0;
+        }
+    }
+
+    private Node currentElement() {
+        return openElements.get(openElements.size() - 1);
+    }
+
+    private void addText(int start, int end) {
+        if (start < end) {
+            String text = pending.substring(start, end);
+            if (text.indexOf('&') != -1) text = Parser.unescapeEntities(text, false);
+
+            Node lastChild = currentElement().getLastChild();
+            if (lastChild instanceof Text && lastChild.getNodeType() == Node.TEXT_NODE) {
+                ((Text) lastChild).appendData(text);
+            } else {
+                currentElement().appendChild(document.createTextNode(text));
+            }
+        }
+    }
+
+    private void addTag(int start, int end) {
+        char c = pending.charAt(start + 1);
+        if (c == '!' || c == '?') {
+            // comments, declarations and processing instructions are not added, same as jsoup2DOM
+            return;
+        }
+
+        if (c == '/') {
+            int i = start + 2;
+            i = HtmlTagScanner.nameEnd(pending, i, end);
+            String tagName = pending.substring(start + 2, i).toLowerCase();
+            if (IGNORED_ELEMENTS.contains(tagName)) return;
+
+            for (int j = openElements.size(); j-- > 1; ) {
+                if (openElements.get(j).getNodeName().equals(tagName)) {
+                    while (openElements.size() > j) openElements.remove(openElements.size() - 1);
+                    break;
+                }
+            }
+            return;
+        }
+
+        int i = HtmlTagScanner.nameEnd(pending, start + 1, end);
+        String tagName = pending.substring(start + 1, i).toLowerCase();
+        boolean selfClosing = pending.charAt(end - 2) == '/';
+
+        if (IGNORED_ELEMENTS.contains(tagName)) return;
+
+        Element element;
+        try {
+            element = document.createElement(tagName);
+        } catch (DOMException e) {
+            addText(start, end);
+            return;
+        }
+
+        attributes.clear();
+        HtmlTagScanner.scanAttributes(pending, i, end - 1, false, attributeConsumer);
+        int iMax = attributes.size();
+        for (int j = 0; j < iMax; j += 2) {
+            String name = attributes.get(j);
+            String value = attributes.get(j + 1);
+            try {
+                element.setAttribute(name, value);
+                if (name.equals("id")) element.setIdAttribute(name, true);
+            } catch (DOMException ignored) {
+                // attribute names not allowed in XML are dropped
+            }
+        }
+
+        currentElement().appendChild(element);
+
+        if (!selfClosing && !VOID_ELEMENTS.contains(tagName)) {
+            openElements.add(element);
+            if (RAW_TEXT_ELEMENTS.contains(tagName)) rawTextElement = tagName;
+        }
+    }
+
+    private boolean hasAttribute(String name) {
+        int iMax = attributes.size();
+        for (int i = 0; i < iMax; i += 2) {
+            if (attributes.get(i).equals(name)) return true;
+        }
+        return false;
+    }
+
+    private void addAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        String name = pending.substring(nameStart, nameEnd).toLowerCase();
+        String value = pending.substring(valueStart, valueEnd);
+        if (value.indexOf('&') != -1) value = Parser.unescapeEntities(value, true);
+
+        if (!hasAttribute(name)) {
+            attributes.add(name);
+            attributes.add(value);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.vladsch.flexmark.pdf.converter;
+
+import com.openhtmltopdf.DOMBuilder;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.jsoup.Jsoup;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class W3cDomAppendableTest {
+    static final String MARKDOWN = "" +
+            "# Heading &amp; *emphasis*\n" +
+            "\n" +
+            "Paragraph with **strong**, `code <b>` and [link](http://example.com \"title & more\").\n" +
+            "Line with ![image](/img.png) and inline <span class=\"c\" data-x='a > b'>html</span> &copy; 1 < 2.\n" +
+            "\n" +
+            "> quote\n" +
+            "\n" +
+            "1. item\n" +
+            "2. item\n" +
+            "   - nested\n" +
+            "\n" +
+            "```java\n" +
+            "if (a < b && c > d) {}\n" +
+            "```\n" +
+            "\n" +
+            "<div id=\"block\">\n" +
+            "<p>html <em>block</em><br></p>\n" +
+            "<!-- comment -->\n" +
+            "</div>\n" +
+            "\n" +
+            "***\n" +
+            "";
+
+    static void appendNode(StringBuilder out, Node node, int level) {
+        // whitespace between elements differs from embedCss() wrapping and is not significant
+        if (node.getNodeType() == Node.TEXT_NODE && node.getNodeValue().trim().isEmpty()) return;
+
+        for (int i = 0; i < level; i++) out.append("  ");
+
+        if (node instanceof Element) {
+            out.append("<").append(node.getNodeName());
+            NamedNodeMap attributes = node.getAttributes();
+            TreeMap<String, String> sorted = new TreeMap<>();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                sorted.put(attributes.item(i).getNodeName(), attributes.item(i).getNodeValue());
+            }
+            sorted.forEach((name, value) -> out.append(" ").append(name).append("=\"").append(value).append("\""));
+            out.append(">\n");
+        } else {
+            out.append(node.getNodeName()).append(" \"").append(node.getNodeValue().replace("\n", "\\n")).append("\"\n");
+        }
+
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            appendNode(out, child, level + 1);
+        }
+    }
+
+    static String domText(org.w3c.dom.Document document) {
+        StringBuilder out = new StringBuilder();
+        appendNode(out, document.getDocumentElement(), 0);
+        return out.toString();
+    }
+
+    @Test
+    public void test_sameAsJsoup() {
+        MutableDataSet options = new MutableDataSet();
+        Parser parser = Parser.builder(options).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+        Document document = parser.parse(MARKDOWN);
+        String css = "p { color: red; }";
+
+        String html = PdfConverterExtension.embedCss(renderer.render(document), css);
+        String expected = domText(DOMBuilder.jsoup2DOM(Jsoup.parse(html)));
+
+        assertEquals(expected, domText(PdfConverterExtension.toW3cDocument(renderer, document, css)));
+    }
+
+    @Test
+    public void test_appendInPieces() {
+        MutableDataSet options = new MutableDataSet();
+        HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+        String html = renderer.render(Parser.builder(options).build().parse(MARKDOWN));
+
+        W3cDomAppendable whole = new W3cDomAppendable(null);
+        whole.append(html);
+
+        W3cDomAppendable pieces = new W3cDomAppendable(null);
+        for (int i = 0; i < html.length(); i += 3) {
+            pieces.append(html, i, Math.min(i + 3, html.length()));
+        }
+
+        assertEquals(domText(whole.getDocument()), domText(pieces.getDocument()));
+    }
+
+    @Test
+    public void test_malformed() {
+        W3cDomAppendable appendable = new W3cDomAppendable(null);
+        appendable.append("<body><p>a <b>bold</p> </i> text <a <1 <");
+
+        assertEquals("" +
+                "<html>\n" +
+                "  <head>\n" +
+                "  <body>\n" +
+                "    <p>\n" +
+                "      #text \"a \"\n" +
+                "      <b>\n" +
+                "        #text \"bold\"\n" +
+                "    #text \"  text <a <1 <\"\n" +
+                "", domText(appendable.getDocument()));
+    }
+
+    @Test
+    public void test_unmatchedQuote() {
+        W3cDomAppendable appendable = new W3cDomAppendable(null);
+        appendable.append("<div b'=' c>\ntext\n</div>\n");
+
+        assertEquals("" +
+                "<html>\n" +
+                "  <head>\n" +
+                "  <body>\n" +
+                "    <div c=\"\">\n" +
+                "      #text \"\\ntext\\n\"\n" +
+                "", domText(appendable.getDocument()));
+    }
+
+    @Test
+    public void test_unmatchedQuoteInHtmlBlock() {
+        MutableDataSet options = new MutableDataSet();
+        Document document = Parser.builder(options).build().parse("<div b'=' c>\ntext\n</div>\n\nparagraph\n");
+        org.w3c.dom.Document dom = PdfConverterExtension.toW3cDocument(HtmlRenderer.builder(options).build(), document, null);
+
+        assertEquals(1, dom.getElementsByTagName("div").getLength());
+        assertEquals(1, dom.getElementsByTagName("p").getLength());
+    }
+
+    @Test
+    public void test_exportToPdf() {
+        MutableDataSet options = new MutableDataSet();
+        Document document = Parser.builder(options).build().parse(MARKDOWN);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfConverterExtension.exportToPdf(os, HtmlRenderer.builder(options).build(), document, "", options);
+
+        assertTrue(new String(os.toByteArray(), 0, 5, StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+    }
+}
@@ -22,6 +22,9 @@ public class BlankLine extends Block {
         return this;
     }
 
+    public BlankLine() {
+    }
+
     public BlankLine(@NotNull BasedSequence chars) {
         super(chars);
         setCharsFromContent();
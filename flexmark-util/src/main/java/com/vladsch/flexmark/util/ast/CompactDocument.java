@@ -0,0 +1,725 @@
+package com.vladsch.flexmark.util.ast;
+
+import com.vladsch.flexmark.util.data.DataKeyBase;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.SubSequence;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static com.vladsch.flexmark.util.sequence.BasedSequence.EMPTY_LIST;
+
+/**
+ * Read only document stored in primitive arrays instead of node instances
+ * <p>
+ * Nodes are stored in document order with their class, source offsets and parent, child and sibling indices in
+ * int arrays. Node fields of primitive, sequence, node, list and int[] types are stored in a shared int array,
+ * sequences as offsets into the document base sequence and lists are materialized as {@link ArrayList}. Other field
+ * values are shared with the original nodes.
+ * <p>
+ * Nodes are materialized on demand with {@link #toDocument()} or {@link #toNode(int)} and can be visited with
+ * {@link NodeVisitor} or rendered like parsed nodes. Materialized nodes share field values which are not stored
+ * in arrays and are meant for read only processing.
+ * <p>
+ * Node repositories and document data maps or lists which hold nodes are rebuilt for materialized nodes, other
+ * document data is shared with the original document.
+ * <p>
+ * NOTE: all node classes in the document, except {@link Document}, must have a constructor without arguments.
+ */
+public class CompactDocument {
+    private static final int NO_INDEX = -1;
+    private static final int NO_FIELDS = -1;
+
+    private static final byte DATA_REPOSITORY = 0;
+    private static final byte DATA_MAP = 1;
+    private static final byte DATA_COLLECTION = 2;
+
+    private final @NotNull Class<?>[] classes;
+    private final @NotNull int[] nodeClass;
+    private final @NotNull int[] startOffset;      // start offset in base or -1 - index of chars in objects
+    private final @NotNull int[] endOffset;
+    private final @NotNull int[] parent;
+    private final @NotNull int[] lastChild;        // first child is next node when node has children
+    private final @NotNull int[] next;
+    private final @NotNull int[] prev;
+    private final @NotNull int[] fieldData;        // index of field values in data
+    private final @NotNull int[] data;
+    private final @NotNull Object[] objects;       // values not stored in data, index 0 is null
+    private final @Nullable SubSequence baseSequence;
+    private final @NotNull MutableDataSet options;
+    private final @NotNull DataKeyBase<?>[] dataKeys;
+    private final @NotNull byte[] dataKinds;
+    private final @NotNull int[] dataValues;
+
+    private CompactDocument(@NotNull Encoder encoder) {
+        int size = encoder.nodes.size();
+        nodeClass = new int[size];
+        startOffset = new int[size];
+        endOffset = new int[size];
+        parent = new int[size];
+        lastChild = new int[size];
+        next = new int[size];
+        prev = new int[size];
+        fieldData = new int[size];
+
+        HashMap<Class<?>, Integer> classIndices = new HashMap<>();
+        ArrayList<Class<?>> classList = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            Node node = encoder.nodes.get(i);
+            Class<?> clazz = node.getClass();
+            Integer classIndex = classIndices.get(clazz);
+            if (classIndex == null) {
+                if (i > 0 && CompactFieldCodec.NODE_CODECS.get(clazz).constructor == null) {
+                    throw new IllegalArgumentException("Node class " + clazz.getName() + " has no constructor without arguments");
+                }
+                classIndex = classList.size();
+                classIndices.put(clazz, classIndex);
+                classList.add(clazz);
+            }
+
+            nodeClass[i] = classIndex;
+            parent[i] = encoder.parents[i];
+            lastChild[i] = NO_INDEX;
+            next[i] = NO_INDEX;
+            prev[i] = NO_INDEX;
+
+            if (i > 0) {
+                int previous = lastChild[parent[i]];
+                if (previous != NO_INDEX) {
+                    next[previous] = i;
+                    prev[i] = previous;
+                }
+                lastChild[parent[i]] = i;
+            }
+
+            int dataStart = encoder.dataSize;
+            encoder.sequence(node.getChars());
+            startOffset[i] = encoder.data[dataStart];
+            endOffset[i] = encoder.data[dataStart + 1];
+            encoder.dataSize = dataStart;
+
+            CompactFieldCodec codec = CompactFieldCodec.NODE_CODECS.get(clazz);
+            fieldData[i] = codec.fields.length == 0 ? NO_FIELDS : dataStart;
+            encoder.fields(node, codec);
+        }
+
+        classes = classList.toArray(new Class<?>[0]);
+        dataKeys = encoder.dataKeys.toArray(new DataKeyBase<?>[0]);
+        dataKinds = new byte[dataKeys.length];
+        dataValues = new int[dataKeys.length];
+        for (int i = 0; i < dataKeys.length; i++) {
+            dataKinds[i] = encoder.dataKinds.get(i);
+            dataValues[i] = encoder.dataSize;
+            encoder.dataValue(dataKinds[i], encoder.dataValueList.get(i));
+        }
+
+        data = Arrays.copyOf(encoder.data, encoder.dataSize);
+        objects = encoder.objects.toArray();
+        baseSequence = encoder.baseSequence;
+        options = encoder.options;
+    }
+
+    /**
+     * Create compact copy of a document
+     *
+     * @param document document to copy, it is not modified
+     * @return compact document
+     * @throws IllegalArgumentException if a node class has no constructor without arguments
+     */
+    public static @NotNull CompactDocument of(@NotNull Document document) {
+        if (document.getClass() != Document.class) {
+            throw new IllegalArgumentException("Document class " + document.getClass().getName() + " is not supported");
+        }
+        return new CompactDocument(new Encoder(document));
+    }
+
+    /**
+     * @return number of nodes, including the document node at index 0
+     */
+    public int size() {
+        return nodeClass.length;
+    }
+
+    public @NotNull Class<?> getNodeClass(int index) {
+        return classes[nodeClass[index]];
+    }
+
+    public int getStartOffset(int index) {
+        int start = startOffset[index];
+        return start >= 0 ? start : ((BasedSequence) objects[-1 - start]).getStartOffset();
+    }
+
+    public int getEndOffset(int index) {
+        int start = startOffset[index];
+        return start >= 0 ? endOffset[index] : ((BasedSequence) objects[-1 - start]).getEndOffset();
+    }
+
+    public @NotNull BasedSequence getChars(int index) {
+        return sequence(startOffset[index], endOffset[index]);
+    }
+
+    /**
+     * @param index node index
+     * @return parent node index or -1 for the document node
+     */
+    public int getParent(int index) {
+        return parent[index];
+    }
+
+    public int getFirstChild(int index) {
+        return lastChild[index] == NO_INDEX ? NO_INDEX : index + 1;
+    }
+
+    public int getLastChild(int index) {
+        return lastChild[index];
+    }
+
+    public int getNext(int index) {
+        return next[index];
+    }
+
+    public int getPrevious(int index) {
+        return prev[index];
+    }
+
+    /**
+     * @param index node index
+     * @return index after the last descendant of the node
+     */
+    public int getSubtreeEnd(int index) {
+        int last = index;
+        while (lastChild[last] != NO_INDEX) {
+            last = lastChild[last];
+        }
+        return last + 1;
+    }
+
+    /**
+     * Materialize all nodes
+     *
+     * @return new document with all nodes
+     */
+    public @NotNull Document toDocument() {
+        Materializer materializer = new Materializer();
+        materializer.subtree(0);
+        materializer.finish();
+        return materializer.document;
+    }
+
+    /**
+     * Materialize a node with its descendants
+     * <p>
+     * Node is attached to a new document which only contains its ancestors, nodes referenced by materialized
+     * nodes and nodes in document repositories, all with their descendants.
+     *
+     * @param index node index
+     * @return materialized node
+     */
+    public @NotNull Node toNode(int index) {
+        Materializer materializer = new Materializer();
+        Node node = materializer.subtree(index);
+        materializer.finish();
+        return node;
+    }
+
+    @NotNull BasedSequence sequence(int start, int end) {
+        if (start < 0) return (BasedSequence) objects[-1 - start];
+        assert baseSequence != null;
+        return baseSequence.baseSubSequence(start, end);
+    }
+
+    static boolean hasNodes(@Nullable Object value) {
+        if (value instanceof Node) return true;
+
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                if (item instanceof Node) return true;
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (hasNodes(entry.getKey()) || hasNodes(entry.getValue())) return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Encoder {
+        final @NotNull ArrayList<Node> nodes = new ArrayList<>();
+        final @NotNull IdentityHashMap<Node, Integer> nodeIndices = new IdentityHashMap<>();
+        final @NotNull ArrayList<Object> objects = new ArrayList<>();
+        final @NotNull IdentityHashMap<Object, Integer> objectIndices = new IdentityHashMap<>();
+        final @Nullable SubSequence baseSequence;
+        final @NotNull MutableDataSet options;
+        final @NotNull ArrayList<DataKeyBase<?>> dataKeys = new ArrayList<>();
+        final @NotNull ArrayList<Byte> dataKinds = new ArrayList<>();
+        final @NotNull ArrayList<Object> dataValueList = new ArrayList<>();
+        @NotNull int[] parents = new int[256];
+        @NotNull int[] data = new int[256];
+        int dataSize;
+
+        Encoder(@NotNull Document document) {
+            // parent indices are those of traversal, a node's parent can be stale after it was moved with its siblings
+            Node node = document;
+            int parentIndex = NO_INDEX;
+            do {
+                int index = nodes.size();
+                nodeIndices.put(node, index);
+                nodes.add(node);
+                if (index == parents.length) {
+                    parents = Arrays.copyOf(parents, parents.length * 2);
+                }
+                parents[index] = parentIndex;
+
+                Node child = node.getFirstChild();
+                if (child != null) {
+                    parentIndex = index;
+                    node = child;
+                } else {
+                    int current = index;
+                    while (current != 0 && nodes.get(current).getNext() == null) {
+                        current = parents[current];
+                    }
+
+                    node = current == 0 ? null : nodes.get(current).getNext();
+                    parentIndex = parents[current];
+                }
+            } while (node != null);
+
+            BasedSequence chars = document.getChars();
+            baseSequence = chars instanceof SubSequence ? ((SubSequence) chars).getBaseSequence() : null;
+            objects.add(null);
+
+            options = new MutableDataSet(document);
+            for (Map.Entry<? extends DataKeyBase<?>, Object> entry : document.getAll().entrySet()) {
+                Object value = entry.getValue();
+                byte kind;
+
+                if (value instanceof NodeRepository) {
+                    if (((NodeRepository<?>) value).isFrozen()) continue;
+                    kind = DATA_REPOSITORY;
+                } else if (value instanceof Map && hasNodes(value)) {
+                    kind = DATA_MAP;
+                } else if (value instanceof Collection && hasNodes(value)) {
+                    kind = DATA_COLLECTION;
+                } else {
+                    continue;
+                }
+
+                dataKeys.add(entry.getKey());
+                dataKinds.add(kind);
+                dataValueList.add(value);
+            }
+
+            for (DataKeyBase<?> key : dataKeys) {
+                options.remove(key);
+            }
+        }
+
+        void add(int value) {
+            if (dataSize == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[dataSize++] = value;
+        }
+
+        int object(@Nullable Object value) {
+            if (value == null) return 0;
+
+            Integer index = objectIndices.get(value);
+            if (index == null) {
+                index = objects.size();
+                objectIndices.put(value, index);
+                objects.add(value);
+            }
+            return index;
+        }
+
+        /**
+         * @param value value
+         * @return node index, -1 for null or -2 - object index
+         */
+        int reference(@Nullable Object value) {
+            if (value == null) return NO_INDEX;
+            Integer index = value instanceof Node ? nodeIndices.get(value) : null;
+            return index != null ? index : -2 - object(value);
+        }
+
+        boolean isBaseRange(@NotNull BasedSequence sequence) {
+            if (sequence instanceof SubSequence) return sequence.getBaseSequence() == baseSequence;
+            if (sequence == BasedSequence.NULL || sequence.getBaseSequence().getBaseSequence() != baseSequence) return false;
+
+            // segmented sequence of a single range without out of base characters
+            int startOffset = sequence.getStartOffset();
+            int length = sequence.length();
+            if (sequence.getEndOffset() - startOffset != length) return false;
+
+            for (int i = 0; i < length; i++) {
+                if (sequence.getIndexOffset(i) != startOffset + i) return false;
+            }
+            return true;
+        }
+
+        void sequence(@Nullable BasedSequence sequence) {
+            if (baseSequence != null && sequence != null && isBaseRange(sequence)) {
+                add(sequence.getStartOffset());
+                add(sequence.getEndOffset());
+            } else {
+                add(-1 - object(sequence));
+                add(0);
+            }
+        }
+
+        void list(@Nullable Object value) {
+            if (value == null) {
+                add(-1);
+            } else if (value == EMPTY_LIST) {
+                add(-2);
+            } else if (!(value instanceof List)) {
+                add(-3 - object(value));
+            } else {
+                List<?> list = (List<?>) value;
+                boolean sequences = true;
+                for (Object item : list) {
+                    if (!(item instanceof BasedSequence)) {
+                        sequences = false;
+                        break;
+                    }
+                }
+
+                add(list.size());
+                add(sequences ? 1 : 0);
+                for (Object item : list) {
+                    if (sequences) sequence((BasedSequence) item);
+                    else add(reference(item));
+                }
+            }
+        }
+
+        void value(@Nullable Object value) {
+            if (value != null && value.getClass() == ArrayList.class) {
+                add(1);
+                list(value);
+            } else {
+                add(0);
+                add(reference(value));
+            }
+        }
+
+        void fields(@NotNull Object instance, @NotNull CompactFieldCodec codec) {
+            Field[] fields = codec.fields;
+            byte[] kinds = codec.kinds;
+
+            try {
+                for (int i = 0; i < fields.length; i++) {
+                    Field field = fields[i];
+
+                    switch (kinds[i]) {
+                        case CompactFieldCodec.INT:
+                            add(field.getInt(instance));
+                            break;
+                        case CompactFieldCodec.CHAR:
+                            add(field.getChar(instance));
+                            break;
+                        case CompactFieldCodec.BOOLEAN:
+                            add(field.getBoolean(instance) ? 1 : 0);
+                            break;
+                        case CompactFieldCodec.SHORT:
+                            add(field.getShort(instance));
+                            break;
+                        case CompactFieldCodec.BYTE:
+                            add(field.getByte(instance));
+                            break;
+                        case CompactFieldCodec.SEQUENCE:
+                            sequence((BasedSequence) field.get(instance));
+                            break;
+                        case CompactFieldCodec.NODE:
+                            add(reference(field.get(instance)));
+                            break;
+                        case CompactFieldCodec.LIST:
+                            list(field.get(instance));
+                            break;
+                        case CompactFieldCodec.INT_ARRAY: {
+                            int[] values = (int[]) field.get(instance);
+                            if (values == null) {
+                                add(-1);
+                            } else {
+                                add(values.length);
+                                for (int value : values) add(value);
+                            }
+                            break;
+                        }
+                        default:
+                            add(object(field.get(instance)));
+                            break;
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void dataValue(byte kind, @NotNull Object value) {
+            if (kind == DATA_REPOSITORY) {
+                NodeRepository<?> repository = (NodeRepository<?>) value;
+                add(object(repository.getClass()));
+                add(object(repository.sharedRepository));
+
+                add(repository.nodeList.size());
+                for (Object item : repository.nodeList) {
+                    add(reference(item));
+                }
+
+                add(repository.nodeMap.size());
+                for (Map.Entry<String, ?> entry : repository.nodeMap.entrySet()) {
+                    add(object(entry.getKey()));
+                    add(reference(entry.getValue()));
+                }
+
+                fields(repository, CompactFieldCodec.REPOSITORY_CODECS.get(repository.getClass()));
+            } else if (kind == DATA_MAP) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                add(object(map.getClass()));
+                add(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    value(entry.getKey());
+                    value(entry.getValue());
+                }
+            } else {
+                Collection<?> collection = (Collection<?>) value;
+                add(object(collection.getClass()));
+                add(collection.size());
+                for (Object item : collection) {
+                    value(item);
+                }
+            }
+        }
+    }
+
+    private class Materializer {
+        final @NotNull Document document;
+        final @NotNull Node[] nodes = new Node[nodeClass.length];
+        final @NotNull IdentityHashMap<Node, Integer> nodeIndices = new IdentityHashMap<>();
+        final @NotNull BitSet subtrees = new BitSet();
+        @NotNull int[] pending = new int[16];
+        int pendingSize;
+        int dataIndex;
+
+        Materializer() {
+            document = new Document(options, getChars(0));
+            nodes[0] = document;
+            nodeIndices.put(document, 0);
+            push(0);
+        }
+
+        void push(int index) {
+            if (pendingSize == pending.length) {
+                pending = Arrays.copyOf(pending, pending.length * 2);
+            }
+            pending[pendingSize++] = index;
+        }
+
+        @NotNull Node node(int index) {
+            Node node = nodes[index];
+            if (node != null) return node;
+
+            // materialize missing ancestors from the top down, document node is always materialized
+            int depth = 0;
+            for (int i = parent[index]; nodes[i] == null; i = parent[i]) {
+                depth++;
+            }
+
+            int[] ancestors = new int[depth];
+            for (int i = parent[index]; nodes[i] == null; i = parent[i]) {
+                ancestors[--depth] = i;
+            }
+
+            for (int ancestor : ancestors) {
+                create(ancestor);
+            }
+            return create(index);
+        }
+
+        @NotNull Node create(int index) {
+            Node node = (Node) CompactFieldCodec.NODE_CODECS.get(classes[nodeClass[index]]).newInstance();
+            node.setChars(getChars(index));
+
+            Node parentNode = nodes[parent[index]];
+            assert parentNode != null;
+            Node sibling = parentNode.getLastChild();
+
+            if (sibling == null || nodeIndices.get(sibling) < index) {
+                parentNode.appendChild(node);
+            } else {
+                while (sibling.getPrevious() != null && nodeIndices.get(sibling.getPrevious()) > index) {
+                    sibling = sibling.getPrevious();
+                }
+                sibling.insertBefore(node);
+            }
+
+            nodes[index] = node;
+            nodeIndices.put(node, index);
+            push(index);
+            return node;
+        }
+
+        @NotNull Node subtree(int index) {
+            Node node = node(index);
+            if (!subtrees.get(index)) {
+                int end = getSubtreeEnd(index);
+                subtrees.set(index, end);
+                for (int i = index + 1; i < end; i++) {
+                    if (nodes[i] == null) create(i);
+                }
+            }
+            return node;
+        }
+
+        void finish() {
+            decodePending();
+            for (int i = 0; i < dataKeys.length; i++) {
+                dataIndex = dataValues[i];
+                dataValue(dataKeys[i], dataKinds[i]);
+                decodePending();
+            }
+        }
+
+        void decodePending() {
+            while (pendingSize > 0) {
+                int index = pending[--pendingSize];
+                if (fieldData[index] == NO_FIELDS) continue;
+
+                dataIndex = fieldData[index];
+                fields(nodes[index], CompactFieldCodec.NODE_CODECS.get(classes[nodeClass[index]]));
+            }
+        }
+
+        int next() {
+            return data[dataIndex++];
+        }
+
+        @Nullable Object reference(int code) {
+            if (code == NO_INDEX) return null;
+            return code >= 0 ? subtree(code) : objects[-2 - code];
+        }
+
+        @Nullable BasedSequence sequenceData() {
+            int start = next();
+            int end = next();
+            return sequence(start, end);
+        }
+
+        @Nullable Object list() {
+            int size = next();
+            if (size == -1) return null;
+            if (size == -2) return EMPTY_LIST;
+            if (size < 0) return objects[-3 - size];
+
+            boolean sequences = next() == 1;
+            ArrayList<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (sequences) list.add(sequenceData());
+                else list.add(reference(next()));
+            }
+            return list;
+        }
+
+        @Nullable Object value() {
+            return next() == 1 ? list() : reference(next());
+        }
+
+        void fields(@NotNull Object instance, @NotNull CompactFieldCodec codec) {
+            Field[] fields = codec.fields;
+            byte[] kinds = codec.kinds;
+
+            try {
+                for (int i = 0; i < fields.length; i++) {
+                    Field field = fields[i];
+
+                    switch (kinds[i]) {
+                        case CompactFieldCodec.INT:
+                            field.setInt(instance, next());
+                            break;
+                        case CompactFieldCodec.CHAR:
+                            field.setChar(instance, (char) next());
+                            break;
+                        case CompactFieldCodec.BOOLEAN:
+                            field.setBoolean(instance, next() != 0);
+                            break;
+                        case CompactFieldCodec.SHORT:
+                            field.setShort(instance, (short) next());
+                            break;
+                        case CompactFieldCodec.BYTE:
+                            field.setByte(instance, (byte) next());
+                            break;
+                        case CompactFieldCodec.SEQUENCE:
+                            field.set(instance, sequenceData());
+                            break;
+                        case CompactFieldCodec.NODE:
+                            field.set(instance, reference(next()));
+                            break;
+                        case CompactFieldCodec.LIST:
+                            field.set(instance, list());
+                            break;
+                        case CompactFieldCodec.INT_ARRAY: {
+                            int length = next();
+                            int[] values = length == -1 ? null : Arrays.copyOfRange(data, dataIndex, dataIndex + length);
+                            if (length > 0) dataIndex += length;
+                            field.set(instance, values);
+                            break;
+                        }
+                        default:
+                            field.set(instance, objects[next()]);
+                            break;
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void dataValue(@NotNull DataKeyBase<?> key, byte kind) {
+            Class<?> valueClass = (Class<?>) objects[next()];
+            Object value = key.get(document);
+
+            if (value == null || value.getClass() != valueClass) {
+                throw new IllegalStateException("Data key " + key.getName() + " did not create a new " + valueClass.getName());
+            }
+
+            if (kind == DATA_REPOSITORY) {
+                NodeRepository<Object> repository = (NodeRepository<Object>) value;
+                repository.sharedRepository = (NodeRepository<Object>) objects[next()];
+
+                int size = next();
+                for (int i = 0; i < size; i++) {
+                    repository.nodeList.add(reference(next()));
+                }
+
+                size = next();
+                for (int i = 0; i < size; i++) {
+                    String nodeKey = (String) objects[next()];
+                    repository.nodeMap.put(nodeKey, reference(next()));
+                }
+
+                fields(repository, CompactFieldCodec.REPOSITORY_CODECS.get(valueClass));
+            } else if (kind == DATA_MAP) {
+                Map<Object, Object> map = (Map<Object, Object>) value;
+                int size = next();
+                for (int i = 0; i < size; i++) {
+                    Object mapKey = value();
+                    map.put(mapKey, value());
+                }
+            } else {
+                Collection<Object> collection = (Collection<Object>) value;
+                int size = next();
+                for (int i = 0; i < size; i++) {
+                    collection.add(value());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.vladsch.flexmark.util.ast;
+
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+/**
+ * Instance fields of a node or node repository class, classified by how {@link CompactDocument} stores their values
+ */
+final class CompactFieldCodec {
+    static final byte INT = 0;
+    static final byte CHAR = 1;
+    static final byte BOOLEAN = 2;
+    static final byte SHORT = 3;
+    static final byte BYTE = 4;
+    static final byte SEQUENCE = 5;
+    static final byte NODE = 6;
+    static final byte LIST = 7;
+    static final byte INT_ARRAY = 8;
+    static final byte OBJECT = 9;
+
+    static final ClassValue<CompactFieldCodec> NODE_CODECS = new ClassValue<CompactFieldCodec>() {
+        @Override
+        protected CompactFieldCodec computeValue(Class<?> type) {
+            return new CompactFieldCodec(type, Node.class, Document.class);
+        }
+    };
+
+    static final ClassValue<CompactFieldCodec> REPOSITORY_CODECS = new ClassValue<CompactFieldCodec>() {
+        @Override
+        protected CompactFieldCodec computeValue(Class<?> type) {
+            return new CompactFieldCodec(type, NodeRepository.class, null);
+        }
+    };
+
+    final @NotNull Class<?> type;
+    final @NotNull Field[] fields;
+    final @NotNull byte[] kinds;
+    final @Nullable Constructor<?> constructor;
+
+    /**
+     * @param type      class whose fields are coded
+     * @param stopClass super class whose fields and those of its super classes are not coded
+     * @param skipClass class whose declared fields are not coded, or null
+     */
+    private CompactFieldCodec(@NotNull Class<?> type, @NotNull Class<?> stopClass, @Nullable Class<?> skipClass) {
+        this.type = type;
+        ArrayList<Field> fieldList = new ArrayList<>();
+
+        for (Class<?> clazz = type; clazz != null && clazz != stopClass; clazz = clazz.getSuperclass()) {
+            if (clazz == skipClass) continue;
+
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+                field.setAccessible(true);
+                fieldList.add(field);
+            }
+        }
+
+        fields = fieldList.toArray(new Field[0]);
+        kinds = new byte[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            kinds[i] = kindOf(fields[i].getType());
+        }
+
+        Constructor<?> noArgs;
+        try {
+            noArgs = type.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+        } catch (NoSuchMethodException ignored) {
+            noArgs = null;
+        }
+        constructor = noArgs;
+    }
+
+    private static byte kindOf(@NotNull Class<?> type) {
+        if (type == int.class) return INT;
+        if (type == char.class) return CHAR;
+        if (type == boolean.class) return BOOLEAN;
+        if (type == short.class) return SHORT;
+        if (type == byte.class) return BYTE;
+        if (type == int[].class) return INT_ARRAY;
+        if (BasedSequence.class.isAssignableFrom(type)) return SEQUENCE;
+        if (Node.class.isAssignableFrom(type)) return NODE;
+        if (type != Object.class && type.isAssignableFrom(ArrayList.class)) return LIST;
+        return OBJECT;
+    }
+
+    @NotNull Object newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException("Class " + type.getName() + " has no constructor without arguments");
+        }
+
+        try {
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import static com.vladsch.flexmark.util.sequence.BasedSequence.EMPTY_LIST;
 
 public class Document extends Block implements MutableDataHolder {
     private final MutableDataSet dataSet;
+    private @Nullable Object concurrentAccessLock;   // set only while document data is accessed by more than one thread
 
     @Override
     public @NotNull BasedSequence[] getSegments() {
@@ -57,7 +58,47 @@ public class Document extends Block implements MutableDataHolder {
 
     @Override
     @Nullable
-    public Object getOrCompute(@NotNull DataKeyBase<?> key, @NotNull DataValueFactory<?> factory) {return dataSet.getOrCompute(key, factory);}
+    public Object getOrCompute(@NotNull DataKeyBase<?> key, @NotNull DataValueFactory<?> factory) {
+        Object lock = concurrentAccessLock;
+        if (lock == null) return getOrLayer(key, factory);
+
+        synchronized (lock) {
+            Object value = getOrLayer(key, factory);
+            if (value instanceof NodeRepository) ((NodeRepository<?>) value).setReadOnly(true);
+            return value;
+        }
+    }
+
+    private @Nullable Object getOrLayer(@NotNull DataKeyBase<?> key, @NotNull DataValueFactory<?> factory) {
+        Object value = dataSet.getOrCompute(key, factory);
+        if (value instanceof NodeRepository && ((NodeRepository<?>) value).isFrozen()) {
+            // frozen repositories of the options are layered when first used, documents do not layer ones they do not use
+            value = NodeRepository.layerFrozenRepository(dataSet, key);
+        }
+        return value;
+    }
+
+    /**
+     * Set while document data is accessed by more than one thread, for example by parallel inline parsing.
+     * <p>
+     * While set, values computed on first access are computed under a lock and node repositories in document data are read only.
+     * Sequential access does not lock.
+     * <p>
+     * NOTE: set and cleared by the thread which hands the document to other threads, before they start and after they complete.
+     *
+     * @param concurrentAccess true to allow access from more than one thread, false when access is sequential again
+     */
+    public void setConcurrentAccess(boolean concurrentAccess) {
+        for (Object value : dataSet.getAll().values()) {
+            // frozen repositories are shared with other documents and are not modified
+            if (value instanceof NodeRepository && !((NodeRepository<?>) value).isFrozen()) ((NodeRepository<?>) value).setReadOnly(concurrentAccess);
+        }
+        concurrentAccessLock = concurrentAccess ? new Object() : null;
+    }
+
+    public boolean isConcurrentAccess() {
+        return concurrentAccessLock != null;
+    }
 
     @Override
     @NotNull
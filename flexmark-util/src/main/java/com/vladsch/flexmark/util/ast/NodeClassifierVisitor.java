@@ -34,6 +34,38 @@ public class NodeClassifierVisitor extends NodeVisitorBase implements NodeTracke
         return classifyingNodeTracker;
     }
 
+    /**
+     * Classify children of a node starting at the given child, children before it and their descendants are not tracked
+     *
+     * @param node       node whose children are classified
+     * @param firstChild first child to classify
+     * @return node tracker
+     */
+    public @NotNull ClassifyingNodeTracker classify(@NotNull Node node, @NotNull Node firstChild) {
+        // no double dipping
+        assert !isClassificationDone;
+        assert firstChild.getParent() == node;
+
+        if (node.getFirstChild() == firstChild) {
+            visit(node);
+        } else {
+            if (!(node instanceof Document)) classifyingNodeTracker.nodeAdded(node);
+
+            pushNodeAncestry();
+            updateNodeAncestry(node, nodeAncestryBitSet);
+            Node child = firstChild;
+            while (child != null) {
+                Node next = child.getNext();
+                visit(child);
+                child = next;
+            }
+            popNodeAncestry();
+        }
+
+        isClassificationDone = true;
+        return classifyingNodeTracker;
+    }
+
     @Override
     public void visit(@NotNull Node node) {
         visitChildren(node);
@@ -149,7 +181,10 @@ public class NodeClassifierVisitor extends NodeVisitorBase implements NodeTracke
             }
             popNodeAncestry();
         } else {
+            // exclusions of a node without children must not be seen by its following siblings
+            pushNodeAncestry();
             updateNodeAncestry(parent, nodeAncestryBitSet);
+            popNodeAncestry();
         }
     }
 }
@@ -0,0 +1,94 @@
+package com.vladsch.flexmark.util.ast;
+
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.SegmentedSequence;
+import com.vladsch.flexmark.util.sequence.builder.SequenceBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves characters of nodes to another base sequence at the same offsets
+ * <p>
+ * Used when nodes of one document are reused in a document for edited text, whose characters at the node offsets
+ * are the same. Node chars, sequence fields and lists of sequences are rebased, out of base characters of
+ * segmented sequences are kept.
+ */
+public class NodeRebaser {
+    private final @NotNull BasedSequence baseSequence;
+
+    /**
+     * @param base sequence of the new base, characters at the offsets of rebased nodes must be the same as in their current base
+     */
+    public NodeRebaser(@NotNull BasedSequence base) {
+        this.baseSequence = base.getBaseSequence();
+    }
+
+    /**
+     * Rebase the node and all its descendants
+     *
+     * @param node node to rebase
+     */
+    public void rebase(@NotNull Node node) {
+        rebaseNode(node);
+        for (Node descendant : node.getDescendants()) {
+            rebaseNode(descendant);
+        }
+    }
+
+    /**
+     * @param sequence sequence to rebase
+     * @return sequence with the same characters and offsets in the new base
+     */
+    public @Nullable BasedSequence rebase(@Nullable BasedSequence sequence) {
+        if (sequence == null || sequence == BasedSequence.NULL || sequence.getBase() == baseSequence.getBase()) return sequence;
+
+        if (sequence.isEmpty()) {
+            return baseSequence.subSequence(sequence.getStartOffset(), sequence.getStartOffset());
+        }
+
+        SequenceBuilder builder = SequenceBuilder.emptyBuilder(baseSequence);
+        sequence.addSegments(builder.getSegmentBuilder());
+        return SegmentedSequence.create(builder);
+    }
+
+    private void rebaseNode(@NotNull Node node) {
+        node.setChars(rebase(node.getChars()));
+        if (node instanceof Document) return;
+
+        CompactFieldCodec codec = CompactFieldCodec.NODE_CODECS.get(node.getClass());
+        Field[] fields = codec.fields;
+        byte[] kinds = codec.kinds;
+
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (kinds[i] == CompactFieldCodec.SEQUENCE) {
+                    fields[i].set(node, rebase((BasedSequence) fields[i].get(node)));
+                } else if (kinds[i] == CompactFieldCodec.LIST) {
+                    Object value = fields[i].get(node);
+                    if (value instanceof List && !((List<?>) value).isEmpty() && isSequenceList((List<?>) value)) {
+                        // lists can be immutable or shared, a new list is set instead of replacing items
+                        List<?> list = (List<?>) value;
+                        ArrayList<BasedSequence> rebased = new ArrayList<>(list.size());
+                        for (Object item : list) {
+                            rebased.add(rebase((BasedSequence) item));
+                        }
+                        fields[i].set(node, rebased);
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isSequenceList(@NotNull List<?> list) {
+        for (Object item : list) {
+            if (!(item instanceof BasedSequence)) return false;
+        }
+        return true;
+    }
+}
@@ -1,16 +1,33 @@
 package com.vladsch.flexmark.util.ast;
 
 import com.vladsch.flexmark.util.data.DataKey;
+import com.vladsch.flexmark.util.data.DataKeyBase;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.data.SharedDataValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Consumer;
 
-public abstract class NodeRepository<T> implements Map<String, T> {
+/**
+ * Repository of nodes by key
+ * <p>
+ * A repository can be frozen with {@link #freeze()} and set in parser options to share its definitions with all
+ * documents. Each document gets its own repository layered over the frozen one: lookups fall through to the frozen
+ * repository, definitions added by the document go into its own layer and the frozen repository is not copied.
+ * <p>
+ * NOTE: nodes in a frozen repository are shared by all documents, repositories which modify their nodes during
+ * processing, like footnotes, should not be shared.
+ */
+public abstract class NodeRepository<T> implements Map<String, T>, SharedDataValue {
     protected final ArrayList<T> nodeList = new ArrayList<>();
     protected final Map<String, T> nodeMap = new HashMap<>();
     protected final KeepType keepType;
+    @Nullable NodeRepository<T> sharedRepository;      // frozen repository with definitions not in this layer
+    private boolean frozen;
+    private boolean readOnly;
+    private @Nullable LayeredMap layeredMap;
 
     public abstract @NotNull DataKey<? extends NodeRepository<T>> getDataKey();
     public abstract @NotNull DataKey<KeepType> getKeepDataKey();
@@ -32,12 +49,82 @@ public abstract class NodeRepository<T> implements Map<String, T> {
         this.keepType = keepType == null ? KeepType.LOCKED : keepType;
     }
 
+    /**
+     * Make this repository immutable so it can be shared by documents
+     * <p>
+     * Documents created with options containing a frozen repository get a new repository layered over it when they first use it.
+     *
+     * @return this repository
+     */
+    public @NotNull NodeRepository<T> freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return frozen repository this repository is layered over, or null
+     */
+    public @Nullable NodeRepository<T> getSharedRepository() {
+        return sharedRepository;
+    }
+
+    /**
+     * @return true if frozen, documents use a repository layered over it
+     */
+    @Override
+    public boolean isShared() {
+        return frozen;
+    }
+
+    /**
+     * Replace a frozen repository in document data with a new repository layered over it
+     *
+     * @param document document data
+     * @param key      key of the frozen repository
+     * @return new repository layered over the frozen one
+     */
+    static @NotNull NodeRepository<?> layerFrozenRepository(@NotNull MutableDataSet document, @NotNull DataKeyBase<?> key) {
+        NodeRepository<?> shared = (NodeRepository<?>) key.get(document);
+        document.remove(key);
+        NodeRepository<?> layer = (NodeRepository<?>) key.get(document);
+        layerOver(layer, shared);
+        return layer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void layerOver(@NotNull NodeRepository<T> layer, @NotNull NodeRepository<?> shared) {
+        layer.sharedRepository = (NodeRepository<T>) shared;
+    }
+
+    /**
+     * Make repository read only while it is accessed by more than one thread, unlike {@link #freeze()} it can be made modifiable again
+     *
+     * @param readOnly true to make read only
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    protected void checkModifiable() {
+        if (frozen) throw new IllegalStateException("Not allowed to modify frozen repository");
+        if (readOnly) throw new IllegalStateException("Not allowed to modify read only repository");
+        if (keepType == KeepType.LOCKED) throw new IllegalStateException("Not allowed to modify LOCKED repository");
+    }
+
     public @NotNull String normalizeKey(@NotNull CharSequence key) {
         return key.toString();
     }
 
     public @Nullable T getFromRaw(@NotNull CharSequence rawKey) {
-        return nodeMap.get(normalizeKey(rawKey));
+        return get(normalizeKey(rawKey));
     }
 
     public @Nullable T putRawKey(@NotNull CharSequence key, @NotNull T t) {
@@ -45,13 +132,17 @@ public abstract class NodeRepository<T> implements Map<String, T> {
     }
 
     public @NotNull Collection<T> getValues() {
-        return nodeMap.values();
+        return sharedRepository == null ? nodeMap.values() : getLayeredMap().values();
     }
 
     public static <T> boolean transferReferences(@NotNull NodeRepository<T> destination, @NotNull NodeRepository<T> included, boolean onlyIfUndefined, @Nullable Map<String, String> referenceIdMap) {
         // copy references but only if they are not defined in the original document
         boolean transferred = false;
-        for (Map.Entry<String, T> entry : included.entrySet()) {
+
+        // definitions of a shared repository are already available to the destination
+        Set<Entry<String, T>> entries = included.sharedRepository != null && included.sharedRepository == destination.sharedRepository ? included.nodeMap.entrySet() : included.entrySet();
+
+        for (Map.Entry<String, T> entry : entries) {
             String key = entry.getKey();
 
             // map as requested
@@ -67,11 +158,13 @@ public abstract class NodeRepository<T> implements Map<String, T> {
 
     @Override
     public @Nullable T put(@NotNull String s, @NotNull T t) {
+        if (frozen) throw new IllegalStateException("Not allowed to modify frozen repository");
+        if (readOnly) throw new IllegalStateException("Not allowed to modify read only repository");
         nodeList.add(t);
 
         if (keepType == KeepType.LOCKED) throw new IllegalStateException("Not allowed to modify LOCKED repository");
         if (keepType != KeepType.LAST) {
-            T another = nodeMap.get(s);
+            T another = get(s);
             if (another != null) {
                 if (keepType == KeepType.FAIL) throw new IllegalStateException("Duplicate key " + s);
                 return another;
@@ -82,7 +175,7 @@ public abstract class NodeRepository<T> implements Map<String, T> {
 
     @Override
     public void putAll(@NotNull Map<? extends String, ? extends T> map) {
-        if (keepType == KeepType.LOCKED) throw new IllegalStateException("Not allowed to modify LOCKED repository");
+        checkModifiable();
         if (keepType != KeepType.LAST) {
             for (String key : map.keySet()) {
                 nodeMap.put(key, map.get(key));
@@ -92,49 +185,147 @@ public abstract class NodeRepository<T> implements Map<String, T> {
         }
     }
 
+    /**
+     * Remove key from this repository, definitions of the shared repository are not removed
+     */
     @Override
     public @Nullable T remove(@NotNull Object o) {
-        if (keepType == KeepType.LOCKED) throw new IllegalStateException("Not allowed to modify LOCKED repository");
+        checkModifiable();
         return nodeMap.remove(o);
     }
 
+    /**
+     * Remove all keys from this repository, definitions of the shared repository are not removed
+     */
     @Override
     public void clear() {
-        if (keepType == KeepType.LOCKED) throw new IllegalStateException("Not allowed to modify LOCKED repository");
+        checkModifiable();
         nodeMap.clear();
     }
 
     @Override
-    public int size() {return nodeMap.size();}
+    public int size() {return sharedRepository == null ? nodeMap.size() : getLayeredMap().size();}
 
     @Override
-    public boolean isEmpty() {return nodeMap.isEmpty();}
+    public boolean isEmpty() {return nodeMap.isEmpty() && (sharedRepository == null || sharedRepository.isEmpty());}
 
     @Override
-    public boolean containsKey(@NotNull Object o) {return nodeMap.containsKey(o);}
+    public boolean containsKey(@NotNull Object o) {return nodeMap.containsKey(o) || sharedRepository != null && sharedRepository.containsKey(o);}
 
     @Override
-    public boolean containsValue(Object o) {return nodeMap.containsValue(o);}
+    public boolean containsValue(Object o) {return nodeMap.containsValue(o) || sharedRepository != null && getLayeredMap().containsValue(o);}
 
     @Override
-    public @Nullable T get(@NotNull Object o) {return nodeMap.get(o);}
+    public @Nullable T get(@NotNull Object o) {
+        T value = nodeMap.get(o);
+        return value != null || sharedRepository == null ? value : sharedRepository.get(o);
+    }
 
     @NotNull
     @Override
-    public Set<String> keySet() {return nodeMap.keySet();}
+    public Set<String> keySet() {return sharedRepository == null ? nodeMap.keySet() : getLayeredMap().keySet();}
 
     @NotNull
     @Override
-    public List<T> values() {return nodeList;}
+    public List<T> values() {
+        if (sharedRepository == null) return nodeList;
+
+        List<T> sharedValues = sharedRepository.values();
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                int sharedSize = sharedValues.size();
+                return index < sharedSize ? sharedValues.get(index) : nodeList.get(index - sharedSize);
+            }
+
+            @Override
+            public int size() {
+                return sharedValues.size() + nodeList.size();
+            }
+        };
+    }
 
     @NotNull
     @Override
-    public Set<Entry<String, T>> entrySet() {return nodeMap.entrySet();}
+    public Set<Entry<String, T>> entrySet() {return sharedRepository == null ? nodeMap.entrySet() : getLayeredMap().entrySet();}
 
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
     @Override
-    public boolean equals(Object o) { return nodeMap.equals(o); }
+    public boolean equals(Object o) { return sharedRepository == null ? nodeMap.equals(o) : getLayeredMap().equals(o); }
 
     @Override
-    public int hashCode() {return nodeMap.hashCode();}
+    public int hashCode() {return sharedRepository == null ? nodeMap.hashCode() : getLayeredMap().hashCode();}
+
+    private @NotNull LayeredMap getLayeredMap() {
+        if (layeredMap == null) layeredMap = new LayeredMap();
+        return layeredMap;
+    }
+
+    /**
+     * Read only view of this repository's definitions followed by shared definitions it does not override
+     */
+    private class LayeredMap extends AbstractMap<String, T> {
+        private final Set<Entry<String, T>> entrySet = new AbstractSet<Entry<String, T>>() {
+            @NotNull
+            @Override
+            public Iterator<Entry<String, T>> iterator() {
+                assert sharedRepository != null;
+                Iterator<Entry<String, T>> ownEntries = nodeMap.entrySet().iterator();
+                Iterator<Entry<String, T>> sharedEntries = sharedRepository.entrySet().iterator();
+
+                return new Iterator<Entry<String, T>>() {
+                    Entry<String, T> next = advance();
+
+                    private Entry<String, T> advance() {
+                        if (ownEntries.hasNext()) return new SimpleImmutableEntry<>(ownEntries.next());
+
+                        while (sharedEntries.hasNext()) {
+                            Entry<String, T> entry = sharedEntries.next();
+                            if (!nodeMap.containsKey(entry.getKey())) return new SimpleImmutableEntry<>(entry);
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Entry<String, T> next() {
+                        if (next == null) throw new NoSuchElementException();
+                        Entry<String, T> entry = next;
+                        next = advance();
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                assert sharedRepository != null;
+                int size = sharedRepository.size();
+                for (String key : nodeMap.keySet()) {
+                    if (!sharedRepository.containsKey(key)) size++;
+                }
+                return size;
+            }
+        };
+
+        @NotNull
+        @Override
+        public Set<Entry<String, T>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return NodeRepository.this.containsKey(key);
+        }
+
+        @Override
+        public T get(Object key) {
+            return NodeRepository.this.get(key);
+        }
+    }
 }
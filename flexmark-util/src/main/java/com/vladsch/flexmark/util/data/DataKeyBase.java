@@ -3,10 +3,16 @@ package com.vladsch.flexmark.util.data;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public abstract class DataKeyBase<T> implements MutableDataValueSetter<T> {
+    private static final AtomicInteger ourKeyCount = new AtomicInteger();
+
+    private final int index;
     private final @NotNull String name;
     private final @NotNull DataValueFactory<T> factory;
     private final T defaultValue;
+    private final @NotNull DataValueFactory<T> defaultValueFactory;   // created once, not on every get()
 
     /**
      * Creates a NullableDataKey with a computed default value and a provided default value when data holder is null.
@@ -18,9 +24,11 @@ public abstract class DataKeyBase<T> implements MutableDataValueSetter<T> {
      * @param factory      data value factory for creating a new default value for the key for a non-null data holder
      */
     public DataKeyBase(@NotNull String name, T defaultValue, @NotNull DataValueFactory<T> factory) {
+        this.index = ourKeyCount.getAndIncrement();
         this.name = name;
         this.defaultValue = defaultValue;
         this.factory = factory;
+        this.defaultValueFactory = this::getDefaultValue;
     }
 
     /**
@@ -40,6 +48,24 @@ public abstract class DataKeyBase<T> implements MutableDataValueSetter<T> {
         this(name, defaultValue, options -> defaultValue);
     }
 
+    /**
+     * Dense index of the key, unique for every key instance and assigned in order of construction
+     * <p>
+     * Used by {@link FrozenDataSet} to store values in an array indexed by key.
+     *
+     * @return index of the key
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return number of keys constructed so far, all key indices are less than this value
+     */
+    public static int getKeyCount() {
+        return ourKeyCount.get();
+    }
+
     @NotNull
     public String getName() {
         return name;
@@ -60,7 +86,7 @@ public abstract class DataKeyBase<T> implements MutableDataValueSetter<T> {
 
     public T get(@Nullable DataHolder holder) {
         //noinspection unchecked
-        return holder == null ? defaultValue : (T) holder.getOrCompute(this, this::getDefaultValue);
+        return holder == null ? defaultValue : (T) holder.getOrCompute(this, defaultValueFactory);
     }
 
     /**
@@ -9,7 +9,7 @@ public class DataSet implements DataHolder {
     protected final HashMap<DataKeyBase<?>, Object> dataSet;
 
     public DataSet() {
-        this(null);
+        this((DataHolder) null);
     }
 
     public DataSet(@Nullable DataHolder other) {
@@ -17,6 +17,15 @@ public class DataSet implements DataHolder {
         else dataSet = new HashMap<>(other.getAll());
     }
 
+    /**
+     * Share the values of a frozen data set instead of copying them, only for subclasses which never modify dataSet
+     *
+     * @param other frozen data set
+     */
+    DataSet(@NotNull FrozenDataSet other) {
+        dataSet = other.dataSet;
+    }
+
     /**
      * aggregate actions of two data sets, actions not applied
      *
@@ -108,10 +117,13 @@ public class DataSet implements DataHolder {
         return new MutableDataSet(this);
     }
 
+    /**
+     * @return frozen snapshot of this data set, see {@link FrozenDataSet}
+     */
     @NotNull
     @Override
     public DataSet toImmutable() {
-        return this;
+        return FrozenDataSet.of(this);
     }
 
     @Override
@@ -0,0 +1,105 @@
+package com.vladsch.flexmark.util.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of a data holder with values stored in an array indexed by {@link DataKeyBase#getIndex()}
+ * <p>
+ * Values of scoped data holders are flattened when the snapshot is taken. Immutable default values of keys which
+ * are not contained in the set, like strings, boxed primitives and enums, are computed once and kept for subsequent
+ * requests, since the set cannot change the computed value will always be the same. Other default values are
+ * computed on every request so each caller gets its own instance.
+ * <p>
+ * Safe for use by multiple threads, a default value may be computed more than once if requested concurrently.
+ */
+public class FrozenDataSet extends DataSet {
+    private static final Object ABSENT = new Object();
+    private static final Object NULL_VALUE = new Object();
+
+    private final Object[] values;
+    private final ConcurrentHashMap<DataKeyBase<?>, Object> defaultValues;
+    private final Map<? extends DataKeyBase<?>, Object> allView;
+
+    public FrozenDataSet(@Nullable DataHolder other) {
+        super(other);
+
+        int maxIndex = -1;
+        for (DataKeyBase<?> key : dataSet.keySet()) {
+            maxIndex = Math.max(maxIndex, key.getIndex());
+        }
+
+        Object[] values = new Object[maxIndex + 1];
+        Arrays.fill(values, ABSENT);
+        for (Map.Entry<DataKeyBase<?>, Object> entry : dataSet.entrySet()) {
+            values[entry.getKey().getIndex()] = entry.getValue();
+        }
+
+        this.values = values;
+        this.defaultValues = new ConcurrentHashMap<>();
+        this.allView = Collections.unmodifiableMap(dataSet);
+    }
+
+    /**
+     * Get a frozen snapshot of the data holder
+     *
+     * @param other data holder
+     * @return other if it is already a frozen data set, otherwise a new frozen data set with values of other
+     */
+    @NotNull
+    public static FrozenDataSet of(@Nullable DataHolder other) {
+        return other instanceof FrozenDataSet ? (FrozenDataSet) other : new FrozenDataSet(other);
+    }
+
+    @Override
+    public @NotNull Map<? extends DataKeyBase<?>, Object> getAll() {
+        return allView;
+    }
+
+    @Override
+    public @NotNull Collection<? extends DataKeyBase<?>> getKeys() {
+        return allView.keySet();
+    }
+
+    @Override
+    public boolean contains(@NotNull DataKeyBase<?> key) {
+        int index = key.getIndex();
+        return index < values.length && values[index] != ABSENT;
+    }
+
+    @Override
+    public @Nullable Object getOrCompute(@NotNull DataKeyBase<?> key, @NotNull DataValueFactory<?> factory) {
+        int index = key.getIndex();
+
+        if (index < values.length) {
+            Object value = values[index];
+            if (value != ABSENT) return value;
+        }
+
+        Object value = defaultValues.get(key);
+        if (value == null) {
+            value = factory.apply(this);
+            if (isImmutable(value)) defaultValues.put(key, value == null ? NULL_VALUE : value);
+            return value;
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private static boolean isImmutable(@Nullable Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Character || value instanceof Double || value instanceof Float
+                || value instanceof Short || value instanceof Byte || value instanceof Enum || value instanceof Class;
+    }
+
+    @NotNull
+    @Override
+    public FrozenDataSet toImmutable() {
+        return this;
+    }
+}
@@ -87,7 +87,7 @@ public class MutableDataSet extends DataSet implements MutableDataHolder {
     @NotNull
     @Override
     public DataSet toImmutable() {
-        return new DataSet(this);
+        return new FrozenDataSet(this);
     }
 
     @Override
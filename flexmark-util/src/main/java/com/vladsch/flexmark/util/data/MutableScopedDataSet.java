@@ -30,7 +30,7 @@ public class MutableScopedDataSet extends MutableDataSet {
         if (parent != null) {
             HashMap<DataKeyBase<?>, Object> all = new HashMap<>(super.getAll());
             for (DataKeyBase<?> key : parent.getKeys()) {
-                if (!contains(key)) {
+                if (!super.contains(key)) {
                     all.put(key, key.get(parent));
                 }
             }
@@ -46,7 +46,7 @@ public class MutableScopedDataSet extends MutableDataSet {
         if (parent != null) {
             ArrayList<DataKeyBase<?>> all = new ArrayList<>(super.getKeys());
             for (DataKeyBase<?> key : parent.getKeys()) {
-                if (!contains(key)) {
+                if (!super.contains(key)) {
                     all.add(key);
                 }
             }
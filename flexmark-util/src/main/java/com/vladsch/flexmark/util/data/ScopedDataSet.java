@@ -21,6 +21,22 @@ public class ScopedDataSet extends DataSet {
         this.parent = parent;
     }
 
+    private ScopedDataSet(DataHolder parent, @NotNull FrozenDataSet other) {
+        super(other);
+        this.parent = parent;
+    }
+
+    /**
+     * Scoped data set which shares the values of a frozen data set instead of copying them
+     *
+     * @param parent parent data holder
+     * @param other  frozen data set
+     * @return scoped data set
+     */
+    public static @NotNull ScopedDataSet of(DataHolder parent, @NotNull FrozenDataSet other) {
+        return new ScopedDataSet(parent, other);
+    }
+
     public DataHolder getParent() {
         return parent;
     }
@@ -32,7 +48,7 @@ public class ScopedDataSet extends DataSet {
             HashMap<DataKeyBase<?>, Object> all = new HashMap<>(super.getAll());
 
             for (DataKeyBase<?> key : parent.getKeys()) {
-                if (!contains(key)) {
+                if (!super.contains(key)) {
                     all.put(key, key.get(parent));
                 }
             }
@@ -50,7 +66,7 @@ public class ScopedDataSet extends DataSet {
             ArrayList<DataKeyBase<?>> all = new ArrayList<>(super.getKeys());
 
             for (DataKeyBase<?> key : parent.getKeys()) {
-                if (!contains(key)) {
+                if (!super.contains(key)) {
                     all.add(key);
                 }
             }
@@ -68,8 +84,12 @@ public class ScopedDataSet extends DataSet {
 
     @Override
     public @Nullable Object getOrCompute(@NotNull DataKeyBase<?> key, @NotNull DataValueFactory<?> factory) {
-        if (parent == null || super.contains(key) || !parent.contains(key)) {
+        if (parent == null || !parent.contains(key)) {
             return super.getOrCompute(key, factory);
+        } else if (super.contains(key)) {
+            Object value = super.getOrCompute(key, factory);
+            // parent value of a shared value is its own, for example a document repository layered over a frozen one of the options
+            return value instanceof SharedDataValue && ((SharedDataValue) value).isShared() ? parent.getOrCompute(key, factory) : value;
         } else {
             return parent.getOrCompute(key, factory);
         }
@@ -0,0 +1,14 @@
+package com.vladsch.flexmark.util.data;
+
+/**
+ * Data value which can be shared by all data holders created from options which contain it, like a frozen node repository
+ * <p>
+ * Data holders which own modifiable values, like a document, replace a shared value with a value of their own
+ * on first access. {@link ScopedDataSet} prefers the value of its parent to its own shared value.
+ */
+public interface SharedDataValue {
+    /**
+     * @return true if the value is shared and data holders which own their values use their own value instead
+     */
+    boolean isShared();
+}
@@ -78,6 +78,7 @@ public abstract class MarkdownWriterBase<M extends MarkdownWriterBase<M, N, C>,
     @NotNull @Override public M append(@NotNull CharSequence csq, int start, int end)                                                                           { appendable.append(csq, start, end); return (M)this; }
     @NotNull @Override public M append(@NotNull LineAppendable lineAppendable, int startLine, int endLine)                                            { appendable.append(lineAppendable, startLine, endLine); return (M)this; }
     @NotNull @Override public M appendTo(@NotNull Appendable out, int maxBlankLines, CharSequence prefix, int startLine, int endLine) throws IOException        { appendable.appendTo(out, maxBlankLines, prefix, startLine, endLine); return (M)this; }
+    @NotNull @Override public M appendCompletedTo(@NotNull Appendable out) throws IOException                                                                   { appendable.appendCompletedTo(out); return (M)this; }
     @NotNull @Override public M blankLine()                                                                                                                     { appendable.blankLine(); return (M)this; }
     @NotNull @Override public M blankLine(int count)                                                                                                            { appendable.blankLine(count); return (M)this; }
     @NotNull @Override public M blankLineIf(boolean predicate)                                                                                                  { appendable.blankLineIf(predicate); return (M)this; }
@@ -4,6 +4,7 @@ import com.vladsch.flexmark.util.sequence.BasedSequence;
 import com.vladsch.flexmark.util.sequence.CharPredicate;
 import com.vladsch.flexmark.util.sequence.PrefixedSubSequence;
 import com.vladsch.flexmark.util.sequence.ReplacedTextMapper;
+import com.vladsch.flexmark.util.sequence.SequenceUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -196,8 +197,12 @@ public class Escaping {
         }
     };
     public static final @NotNull CharPredicate AMP_BACKSLASH_SET = CharPredicate.anyOf('\\', '&');
+    private static final @NotNull CharPredicate XML_SPECIAL_SET = CharPredicate.anyOf('&', '<', '>', '"');
 
     public static String escapeHtml(@NotNull CharSequence s, boolean preserveEntities) {
+        // most text has nothing to escape, do not create a matcher for it
+        if (SequenceUtils.indexOfAny(s, XML_SPECIAL_SET) == -1) return String.valueOf(s);
+
         Pattern p = preserveEntities ? XML_SPECIAL_OR_ENTITY : XML_SPECIAL_RE;
         return replaceAll(p, s, UNSAFE_CHAR_REPLACER);
     }
@@ -216,7 +221,7 @@ public class Escaping {
      */
     @NotNull
     public static String unescapeString(@NotNull CharSequence s) {
-        if (BACKSLASH_OR_AMP.matcher(s).find()) {
+        if (SequenceUtils.indexOfAny(s, AMP_BACKSLASH_SET) != -1) {
             return replaceAll(ENTITY_OR_ESCAPED_CHAR, s, UNESCAPE_REPLACER);
         } else {
             return String.valueOf(s);
@@ -347,8 +352,13 @@ public class Escaping {
      */
     @NotNull
     public static String normalizeEOL(@NotNull CharSequence s, boolean endWithEOL) {
-        StringBuilder sb = new StringBuilder(s.length());
         int iMax = s.length();
+        if (SequenceUtils.indexOf(s, '\r') == -1) {
+            // nothing to convert
+            return !endWithEOL || iMax > 0 && s.charAt(iMax - 1) == '\n' ? String.valueOf(s) : s + "\n";
+        }
+
+        StringBuilder sb = new StringBuilder(iMax);
         boolean hadCR = false;
         boolean hadEOL = false;
 
@@ -15,7 +15,7 @@ import java.util.Stack;
 
 @SuppressWarnings("unchecked")
 public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase<T>> implements HtmlFormattingAppendable {
-    final private LineAppendable appendable;
+    final private LineFormattingAppendableImpl appendable;
 
     private @Nullable Attributes currentAttributes;
     private boolean indentOnFirstEol = false;
@@ -40,6 +40,19 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
         this.appendable.setIndentPrefix(RepeatedSequence.repeatOf(" ", indentSize).toString());
     }
 
+    /**
+     * Remove all accumulated text and open tags so the instance can be reused for new content,
+     * options, indent prefix and tag line suppression settings are kept
+     */
+    public void reset() {
+        appendable.reset();
+        currentAttributes = null;
+        indentOnFirstEol = false;
+        lineOnChildText = false;
+        withAttributes = false;
+        openTags.clear();
+    }
+
     public boolean isSuppressOpenTagLine() {
         return suppressOpenTagLine;
     }
@@ -446,6 +459,7 @@ public class HtmlFormattingAppendableBase<T extends HtmlFormattingAppendableBase
     @NotNull @Override public T append(@NotNull CharSequence csq, int start, int end)                                                                           { appendable.append(csq, start, end); return (T)this; }
     @NotNull @Override public T append(@NotNull LineAppendable lines, int startLine, int endLine)                                                     { appendable.append(lines, startLine, endLine);  return (T)this; }
     @NotNull @Override public T appendTo(@NotNull Appendable out, int maxBlankLines, CharSequence prefix, int startLine, int endLine) throws IOException        { appendable.appendTo(out, maxBlankLines, prefix, startLine, endLine); return (T)this; }
+    @NotNull @Override public T appendCompletedTo(@NotNull Appendable out) throws IOException                                                                   { appendable.appendCompletedTo(out); return (T)this; }
     @NotNull @Override public T blankLine()                                                                                                                     { appendable.blankLine(); return (T)this; }
     @NotNull @Override public T blankLine(int count)                                                                                                            { appendable.blankLine(count); return (T)this; }
     @NotNull @Override public T blankLineIf(boolean predicate)                                                                                                  { appendable.blankLineIf(predicate); return (T)this; }
@@ -0,0 +1,189 @@
+package com.vladsch.flexmark.util.html;
+
+import com.vladsch.flexmark.util.sequence.SequenceUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scanning of HTML tags in text which is appended or read in pieces
+ * <p>
+ * Finding the end of a tag and its attributes use the same attribute scanning so quotes are paired the same way.
+ * Quotes only delimit attribute values. A quoted value ends at the matching quote before the end of the tag, a quote
+ * without a matching quote starts an unquoted value once no more text can be added.
+ */
+public class HtmlTagScanner {
+    /**
+     * result of {@link #scanTag(CharSequence, int, boolean)} for text which is not a tag
+     */
+    public static final int NOT_A_TAG = -1;
+
+    /**
+     * result of {@link #scanTag(CharSequence, int, boolean)} when the end of text is reached before the end of tag
+     */
+    public static final int INCOMPLETE_TAG = -2;
+
+    public interface AttributeConsumer {
+        /**
+         * @param nameStart  start of attribute name
+         * @param nameEnd    end of attribute name
+         * @param valueStart start of value, without quotes
+         * @param valueEnd   end of value, without quotes, same as valueStart for attributes without value
+         */
+        void accept(int nameStart, int nameEnd, int valueStart, int valueEnd);
+    }
+
+    private HtmlTagScanner() {
+    }
+
+    public static boolean isNameStart(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    public static boolean isNameChar(char c) {
+        return isNameStart(c) || c >= '0' && c <= '9' || c == '-' || c == '_' || c == ':' || c == '.';
+    }
+
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * @param html  html text
+     * @param start start of name
+     * @param end   index where scanning stops
+     * @return index after tag name characters
+     */
+    public static int nameEnd(@NotNull CharSequence html, int start, int end) {
+        int i = start;
+        while (i < end && isNameChar(html.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * Find end of tag starting at index
+     *
+     * @param html    html text
+     * @param index   index of &lt;
+     * @param partial true if more text may be added to html
+     * @return index after end of tag, {@link #NOT_A_TAG} or {@link #INCOMPLETE_TAG}
+     */
+    public static int scanTag(@NotNull CharSequence html, int index, boolean partial) {
+        int length = html.length();
+        int i = index + 1;
+        if (i >= length) return INCOMPLETE_TAG;
+
+        char c = html.charAt(i);
+        if (c == '!') {
+            if (index + 4 > length) return INCOMPLETE_TAG;
+            if (html.charAt(i + 1) == '-' && html.charAt(i + 2) == '-') {
+                int end = SequenceUtils.indexOf(html, "-->", i + 3);
+                return end == -1 ? INCOMPLETE_TAG : end + 3;
+            }
+            int end = SequenceUtils.indexOf(html, '>', i);
+            return end == -1 ? INCOMPLETE_TAG : end + 1;
+        } else if (c == '?') {
+            int end = SequenceUtils.indexOf(html, '>', i);
+            return end == -1 ? INCOMPLETE_TAG : end + 1;
+        } else if (c == '/') {
+            i++;
+            if (i >= length) return INCOMPLETE_TAG;
+            if (!isNameStart(html.charAt(i))) return NOT_A_TAG;
+            int end = SequenceUtils.indexOf(html, '>', i);
+            return end == -1 ? INCOMPLETE_TAG : end + 1;
+        } else if (!isNameStart(c)) {
+            return NOT_A_TAG;
+        }
+
+        int end = scanAttributes(html, nameEnd(html, i, length), length, partial, null);
+        return end == -1 ? INCOMPLETE_TAG : end + 1;
+    }
+
+    /**
+     * Scan attributes of a start tag
+     *
+     * @param html     html text
+     * @param start    index after tag name
+     * @param end      index where scanning stops, closing &gt; of the tag when getting attributes of a complete tag
+     * @param partial  true if text may be added after end, then a quote without a matching quote is an incomplete tag
+     * @param consumer consumer of attribute name and value ranges, or null
+     * @return index of closing &gt; of the tag, -1 if not found before end or tag is incomplete
+     */
+    public static int scanAttributes(@NotNull CharSequence html, int start, int end, boolean partial, @Nullable AttributeConsumer consumer) {
+        int i = start;
+
+        while (i < end) {
+            char c = html.charAt(i);
+            if (c == '>') return i;
+
+            if (isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+
+            int nameStart = i;
+            while (i < end && !isWhitespace(c = html.charAt(i)) && c != '=' && c != '/' && c != '>') i++;
+            int nameEnd = i;
+
+            while (i < end && isWhitespace(html.charAt(i))) i++;
+
+            int valueStart = i;
+            int valueEnd = i;
+            if (i < end && html.charAt(i) == '=') {
+                i++;
+                while (i < end && isWhitespace(html.charAt(i))) i++;
+
+                boolean quoted = false;
+                if (i < end && ((c = html.charAt(i)) == '"' || c == '\'')) {
+                    int closing = SequenceUtils.indexOf(html, c, i + 1, end);
+                    if (closing != -1) {
+                        quoted = true;
+                        valueStart = i + 1;
+                        valueEnd = closing;
+                        i = closing + 1;
+                    } else if (partial) {
+                        return -1;
+                    }
+                }
+
+                if (!quoted) {
+                    valueStart = i;
+                    while (i < end && !isWhitespace(c = html.charAt(i)) && c != '>') i++;
+                    valueEnd = i;
+                }
+            }
+
+            if (consumer != null && nameEnd > nameStart) {
+                consumer.accept(nameStart, nameEnd, valueStart, valueEnd);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find closing tag, tag name is compared ignoring case
+     *
+     * @param html    html text
+     * @param tagName tag name
+     * @param index   index from which to search
+     * @return index of &lt; of closing tag or -1 if not found
+     */
+    public static int indexOfClosingTag(@NotNull CharSequence html, @NotNull String tagName, int index) {
+        int length = html.length();
+        int nameLength = tagName.length();
+        while ((index = SequenceUtils.indexOf(html, "</", index)) != -1) {
+            if (index + 2 + nameLength <= length && matchesIgnoreCase(html, index + 2, tagName)) {
+                return index;
+            }
+            index += 2;
+        }
+        return -1;
+    }
+
+    private static boolean matchesIgnoreCase(@NotNull CharSequence html, int index, @NotNull String name) {
+        int iMax = name.length();
+        for (int i = 0; i < iMax; i++) {
+            if (Character.toLowerCase(html.charAt(index + i)) != Character.toLowerCase(name.charAt(i))) return false;
+        }
+        return true;
+    }
+}
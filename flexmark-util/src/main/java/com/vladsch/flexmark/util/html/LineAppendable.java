@@ -419,6 +419,24 @@ public interface LineAppendable extends Appendable {
      */
     @NotNull LineAppendable appendTo(@NotNull Appendable out, int maxBlankLines, @Nullable CharSequence prefix, int startLine, int endLine) throws IOException;
 
+    /**
+     * append completed lines to appendable and remove them from this appendable
+     * <p>
+     * Only done when there is no pending text and no pre-formatted text is open. The last non-blank line and
+     * any trailing blank lines are kept so that a final {@link #appendTo(Appendable, int)} gives the same
+     * result as if no lines were flushed.
+     * <p>
+     * NOTE: line indices are relative to the first line not yet flushed, offsets are not affected
+     *
+     * @param out appendable to output the completed lines
+     * @return this
+     * @throws IOException if thrown by appendable
+     */
+    @NotNull
+    default LineAppendable appendCompletedTo(@NotNull Appendable out) throws IOException {
+        return this;
+    }
+
     /**
      * Add a new line, if there was any unterminated text appended
      *
@@ -98,6 +98,36 @@ public class LineAppendableImpl implements LineAppendable {
         indentsOnFirstEol = new ArrayList<>();
     }
 
+    /**
+     * Remove all accumulated text and restore the state after construction, keeping options and indent prefix
+     * <p>
+     * Allows the appendable and its buffers to be reused for new content.
+     *
+     * @throws IllegalStateException if constructed with a sequence builder, its accumulated segments cannot be removed
+     */
+    public void reset() {
+        if (builder != null) throw new IllegalStateException("reset() is not supported with a sequence builder");
+
+        preFormattedNesting = 0;
+        preFormattedFirstLine = -1;
+        preFormattedFirstLineOffset = 0;
+        preFormattedLastLine = -1;
+        preFormattedLastLineOffset = 0;
+        appendable.setLength(0);
+        lines.clear();
+        prefixes.clear();
+        textLength = 0;
+        prefixLength = 0;
+        prefix = BasedSequence.EMPTY;
+        prefixAfterEol = BasedSequence.EMPTY;
+        prefixStack.clear();
+        indentPrefixStack.clear();
+        lineStart = 0;
+        allWhitespace = true;
+        lastWasWhitespace = false;
+        lineOnFirstText = 0;
+        indentsOnFirstEol.clear();
+    }
     @NotNull
     @Override
     public BitFieldSet<Options> getOptionSet() {
@@ -803,6 +833,51 @@ public class LineAppendableImpl implements LineAppendable {
         return this;
     }
 
+    @NotNull
+    @Override
+    public LineAppendable appendCompletedTo(@NotNull Appendable out) throws IOException {
+        // builder sequences and pending text refer to accumulated text which cannot be released
+        if (builder != null || passThrough || preFormattedNesting > 0 || lineStart < appendable.length() || lineOnFirstText > 0 || !indentsOnFirstEol.isEmpty()) return this;
+
+        // keep last non-blank line and trailing blank lines so blank line and max blank lines processing is not affected
+        int flushLines = lastNonBlankLine() - 1;
+        if (flushLines <= 0) return this;
+
+        for (int i = 0; i < flushLines; i++) {
+            CharSequence linePrefix = prefixes.get(i);
+            if (linePrefix.length() != 0) out.append(linePrefix);
+            out.append(lines.get(i));
+            out.append(EOL);
+        }
+
+        // retained lines are sub-sequences of appendable, need to copy them before it is reset
+        int iMax = lines.size();
+        String[] retained = new String[iMax - flushLines];
+        for (int i = flushLines; i < iMax; i++) {
+            retained[i - flushLines] = lines.get(i).toString();
+        }
+
+        int removedLength = appendable.length();
+        appendable.setLength(0);
+        lines.clear();
+        prefixes.subList(0, flushLines).clear();
+
+        for (String line : retained) {
+            int startOffset = appendable.length();
+            appendable.append(line).append(EOL);
+            lines.add(Range.of(startOffset, startOffset + line.length()).basedSubSequence(appendable));
+        }
+
+        lineStart = appendable.length();
+        removedLength -= lineStart;
+
+        preFormattedFirstLine = preFormattedFirstLine >= flushLines ? preFormattedFirstLine - flushLines : -1;
+        preFormattedFirstLineOffset -= removedLength;
+        preFormattedLastLine = preFormattedLastLine >= flushLines ? preFormattedLastLine - flushLines : -1;
+        preFormattedLastLineOffset -= removedLength;
+        return this;
+    }
+
     @NotNull
     @Override
     public LineAppendable line() {
@@ -56,6 +56,8 @@ public final class BasedOptionsSequence implements CharSequence, BasedOptionsHol
     @Override
     public char charAt(int index) {return chars.charAt(index);}
 
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {SequenceUtils.getChars(chars, srcBegin, srcEnd, dst, dstBegin);}
+
     @Override
     public CharSequence subSequence(int start, int end) {return chars.subSequence(start, end);}
 
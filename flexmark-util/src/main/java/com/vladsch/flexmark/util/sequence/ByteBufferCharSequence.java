@@ -0,0 +1,296 @@
+package com.vladsch.flexmark.util.sequence;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A CharSequence of characters encoded in a ByteBuffer, decoded on access without copying the bytes
+ * <p>
+ * Used as the base of a {@link BasedSequence} for memory mapped files. Single byte encodings and UTF-8 content without
+ * multi-byte characters map every char directly to a byte. Other UTF-8 content is split into chunks at character boundaries,
+ * chunks containing only ASCII are accessed directly and the rest are decoded when accessed and cached,
+ * keeping only a few decoded chunks at a time. Malformed input is replaced by U+FFFD, same as decoding by a Reader.
+ * <p>
+ * Other charsets are decoded to a String since their characters cannot be located without decoding all preceding bytes.
+ * <p>
+ * hashCode() is the same as String.hashCode() for equal content and is computed once, equals() is identity.
+ * <p>
+ * NOTE: bytes of the buffer must not be modified while the sequence is in use.
+ */
+public final class ByteBufferCharSequence implements CharSequence {
+    final static int CHUNK_BYTES = 64 * 1024;
+    final static int DECODED_CACHE_SIZE = 4;
+
+    private final @NotNull ByteBufferChars chars;
+    private final int startIndex;
+    private final int endIndex;
+    private int hash;
+
+    private ByteBufferCharSequence(@NotNull ByteBufferChars chars, int startIndex, int endIndex) {
+        this.chars = chars;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+    }
+
+    /**
+     * Map the whole file of the channel and return its characters
+     * <p>
+     * The channel can be closed after this call, the mapping remains valid until the returned sequence is garbage collected.
+     *
+     * @param channel file channel to map
+     * @param charset charset of the file
+     * @return characters of the file
+     * @throws IOException if mapping fails or the file is larger than 2GB
+     */
+    public static @NotNull CharSequence map(@NotNull FileChannel channel, @NotNull Charset charset) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File of " + size + " bytes is too large to map, maximum size is " + Integer.MAX_VALUE + " bytes");
+        }
+
+        return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset);
+    }
+
+    /**
+     * Characters of bytes from position to limit of the buffer
+     *
+     * @param bytes   buffer, its position and limit are not modified
+     * @param charset charset of the bytes
+     * @return characters of the buffer
+     */
+    public static @NotNull CharSequence of(@NotNull ByteBuffer bytes, @NotNull Charset charset) {
+        return of(bytes, charset, CHUNK_BYTES);
+    }
+
+    static @NotNull CharSequence of(@NotNull ByteBuffer bytes, @NotNull Charset charset, int chunkBytes) {
+        ByteBuffer buffer = bytes.slice();
+
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1)) {
+            ByteBufferChars chars = new ByteBufferChars(buffer, charset, chunkBytes);
+            return new ByteBufferCharSequence(chars, 0, chars.length);
+        } else {
+            return charset.decode(buffer).toString();
+        }
+    }
+
+    @Override
+    public int length() {
+        return endIndex - startIndex;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= endIndex - startIndex) {
+            throw new StringIndexOutOfBoundsException("String index: " + index + " out of range: 0, " + length());
+        }
+        return chars.charAt(startIndex + index);
+    }
+
+    @NotNull
+    @Override
+    public CharSequence subSequence(int startIndex, int endIndex) {
+        SequenceUtils.validateStartEnd(startIndex, endIndex, length());
+        return new ByteBufferCharSequence(chars, this.startIndex + startIndex, this.startIndex + endIndex);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && endIndex > startIndex) {
+            for (int i = startIndex; i < endIndex; i++) {
+                h = 31 * h + chars.charAt(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        char[] result = new char[endIndex - startIndex];
+        for (int i = startIndex; i < endIndex; i++) {
+            result[i - startIndex] = chars.charAt(i);
+        }
+        return new String(result);
+    }
+
+    /**
+     * Characters of the whole buffer shared by all sub-sequences
+     */
+    private static final class ByteBufferChars {
+        final @NotNull ByteBuffer bytes;
+        final @NotNull Charset charset;
+        final int length;
+        final boolean isDirect;         // every char is one byte
+        final boolean isLatin1;         // bytes >= 0x80 are chars, otherwise replacement char
+
+        // chunk table, only used when not direct
+        final int[] charStarts;         // char index of chunk start, extra entry for end
+        final int[] byteStarts;         // byte index of chunk start, extra entry for end
+        final boolean[] isAsciiChunk;
+        final DecodedChunk[] decodedChunks = new DecodedChunk[DECODED_CACHE_SIZE];
+        int nextDecoded;
+        int lastChunk;
+
+        ByteBufferChars(@NotNull ByteBuffer bytes, @NotNull Charset charset, int chunkBytes) {
+            this.bytes = bytes;
+            this.charset = charset;
+            this.isLatin1 = charset.equals(StandardCharsets.ISO_8859_1);
+
+            int byteLength = bytes.limit();
+
+            if (!charset.equals(StandardCharsets.UTF_8)) {
+                isDirect = true;
+                length = byteLength;
+                charStarts = null;
+                byteStarts = null;
+                isAsciiChunk = null;
+                return;
+            }
+
+            // chunks only grow to include continuation bytes so there are never more than this
+            int chunkCount = (byteLength + chunkBytes - 1) / chunkBytes;
+            int[] charStarts = new int[chunkCount + 1];
+            int[] byteStarts = new int[chunkCount + 1];
+            boolean[] isAsciiChunk = new boolean[chunkCount];
+            boolean allAscii = true;
+            int chunks = 0;
+            int byteStart = 0;
+            int charStart = 0;
+            CharsetDecoder decoder = null;
+            CharBuffer charBuffer = null;
+
+            while (byteStart < byteLength) {
+                int byteEnd = Math.min(byteStart + chunkBytes, byteLength);
+
+                // do not split multi-byte characters
+                while (byteEnd < byteLength && (bytes.get(byteEnd) & 0xC0) == 0x80 && byteEnd - byteStart < chunkBytes + 3) {
+                    byteEnd++;
+                }
+
+                boolean isAscii = true;
+                for (int i = byteStart; i < byteEnd; i++) {
+                    if (bytes.get(i) < 0) {
+                        isAscii = false;
+                        break;
+                    }
+                }
+
+                int charCount;
+                if (isAscii) {
+                    charCount = byteEnd - byteStart;
+                } else {
+                    allAscii = false;
+                    if (decoder == null) {
+                        decoder = newDecoder(charset);
+                        charBuffer = CharBuffer.allocate(chunkBytes + 3);
+                    }
+                    charBuffer.clear();
+                    decode(decoder, bytes, byteStart, byteEnd, charBuffer);
+                    charCount = charBuffer.position();
+                }
+
+                charStarts[chunks] = charStart;
+                byteStarts[chunks] = byteStart;
+                isAsciiChunk[chunks] = isAscii;
+                chunks++;
+                charStart += charCount;
+                byteStart = byteEnd;
+            }
+
+            charStarts[chunks] = charStart;
+            byteStarts[chunks] = byteStart;
+
+            length = charStart;
+            isDirect = allAscii;
+
+            if (allAscii) {
+                this.charStarts = null;
+                this.byteStarts = null;
+                this.isAsciiChunk = null;
+            } else {
+                this.charStarts = chunks + 1 == charStarts.length ? charStarts : Arrays.copyOf(charStarts, chunks + 1);
+                this.byteStarts = chunks + 1 == byteStarts.length ? byteStarts : Arrays.copyOf(byteStarts, chunks + 1);
+                this.isAsciiChunk = chunks == isAsciiChunk.length ? isAsciiChunk : Arrays.copyOf(isAsciiChunk, chunks);
+            }
+        }
+
+        char charAt(int index) {
+            if (isDirect) {
+                byte b = bytes.get(index);
+                return b >= 0 ? (char) b : isLatin1 ? (char) (b & 0xFF) : '\uFFFD';
+            }
+
+            int chunk = lastChunk;
+            if (index < charStarts[chunk] || index >= charStarts[chunk + 1]) {
+                chunk = findChunk(index);
+                lastChunk = chunk;
+            }
+
+            int offset = index - charStarts[chunk];
+            if (isAsciiChunk[chunk]) {
+                return (char) bytes.get(byteStarts[chunk] + offset);
+            }
+
+            return getDecodedChunk(chunk)[offset];
+        }
+
+        private int findChunk(int index) {
+            // chunks are never empty so chunk starts are unique
+            int chunk = Arrays.binarySearch(charStarts, index);
+            return chunk < 0 ? -chunk - 2 : chunk;
+        }
+
+        private char[] getDecodedChunk(int chunk) {
+            DecodedChunk[] cache = decodedChunks;
+            for (DecodedChunk decoded : cache) {
+                if (decoded != null && decoded.chunk == chunk) return decoded.chars;
+            }
+
+            int charCount = charStarts[chunk + 1] - charStarts[chunk];
+            CharBuffer charBuffer = CharBuffer.allocate(charCount);
+            decode(newDecoder(charset), bytes, byteStarts[chunk], byteStarts[chunk + 1], charBuffer);
+
+            // decoded chunks are immutable so a race only results in decoding the same chunk again
+            DecodedChunk decoded = new DecodedChunk(chunk, charBuffer.array());
+            int next = nextDecoded;
+            cache[next] = decoded;
+            nextDecoded = (next + 1) % cache.length;
+            return decoded.chars;
+        }
+
+        private static CharsetDecoder newDecoder(Charset charset) {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        private static void decode(CharsetDecoder decoder, ByteBuffer bytes, int byteStart, int byteEnd, CharBuffer out) {
+            ByteBuffer in = bytes.duplicate();
+            in.limit(byteEnd).position(byteStart);
+            decoder.reset();
+            decoder.decode(in, out, true);
+            decoder.flush(out);
+        }
+    }
+
+    private static final class DecodedChunk {
+        final int chunk;
+        final char[] chars;
+
+        DecodedChunk(int chunk, char[] chars) {
+            this.chunk = chunk;
+            this.chars = chars;
+        }
+    }
+}
@@ -108,6 +108,14 @@ public final class CharSubSequence extends BasedSequenceImpl {
         return c == SequenceUtils.NUL ? SequenceUtils.ENC_NUL : c;
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        SequenceUtils.validateStartEnd(srcBegin, srcEnd, length());
+
+        System.arraycopy(baseChars, startOffset + srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        SequenceUtils.encodeNul(dst, dstBegin, dstBegin + srcEnd - srcBegin);
+    }
+
     @NotNull
     @Override
     public CharSubSequence subSequence(int startIndex, int endIndex) {
@@ -57,6 +57,19 @@ public interface IRichSequence<T extends IRichSequence<T>> extends CharSequence,
      */
     char safeCharAt(int index);
 
+    /**
+     * Copy characters of this sequence to a char array, same as {@link String#getChars(int, int, char[], int)}
+     * <p>
+     * Implementations copy contiguous runs of their underlying characters in bulk. Scanning methods use it to
+     * test characters in a window instead of calling {@link #charAt(int)} for each one.
+     *
+     * @param srcBegin index of first character to copy
+     * @param srcEnd   index after last character to copy
+     * @param dst      destination array
+     * @param dstBegin index in dst for first character
+     */
+    void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin);
+
     /**
      * Get a portion of this sequence
      * <p>
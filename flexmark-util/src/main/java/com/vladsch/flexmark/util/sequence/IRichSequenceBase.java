@@ -225,6 +225,18 @@ public abstract class IRichSequenceBase<T extends IRichSequence<T>> implements I
         return index < 0 || index >= length() ? SequenceUtils.NUL : charAt(index);
     }
 
+    /**
+     * Copy characters using charAt(), implementations with contiguous underlying characters should override
+     */
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        SequenceUtils.validateStartEnd(srcBegin, srcEnd, length());
+
+        for (int i = srcBegin; i < srcEnd; i++) {
+            dst[dstBegin++] = charAt(i);
+        }
+    }
+
     // @formatter:off
     @Override final public int indexOf(@NotNull CharSequence s)                                             { return SequenceUtils.indexOf(this, s); }
     @Override final public int indexOf(@NotNull CharSequence s, int fromIndex)                              { return SequenceUtils.indexOf(this, s, fromIndex); }
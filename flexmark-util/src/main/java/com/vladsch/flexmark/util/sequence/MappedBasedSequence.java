@@ -32,6 +32,15 @@ final public class MappedBasedSequence extends BasedSequenceImpl implements Mapp
         return mapper.map(baseSeq.charAt(index));
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        baseSeq.getChars(srcBegin, srcEnd, dst, dstBegin);
+
+        for (int i = dstBegin, iMax = dstBegin + srcEnd - srcBegin; i < iMax; i++) {
+            dst[i] = mapper.map(dst[i]);
+        }
+    }
+
     @NotNull
     @Override
     public BasedSequence getCharSequence() {
@@ -37,6 +37,15 @@ public class MappedRichSequence extends IRichSequenceBase<RichSequence> implemen
         return mapper.map(base.charAt(index));
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        base.getChars(srcBegin, srcEnd, dst, dstBegin);
+
+        for (int i = dstBegin, iMax = dstBegin + srcEnd - srcBegin; i < iMax; i++) {
+            dst[i] = mapper.map(dst[i]);
+        }
+    }
+
     public RichSequence getBaseSequence() {
         return base;
     }
@@ -118,6 +118,23 @@ public final class PrefixedSubSequence extends BasedSequenceImpl implements Repl
         }
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        SequenceUtils.validateStartEnd(srcBegin, srcEnd, length());
+
+        int prefixLength = prefix.length();
+        if (srcBegin < prefixLength) {
+            int prefixEnd = Math.min(srcEnd, prefixLength);
+            SequenceUtils.getChars(prefix, srcBegin, prefixEnd, dst, dstBegin);
+            dstBegin += prefixEnd - srcBegin;
+            srcBegin = prefixEnd;
+        }
+
+        if (srcBegin < srcEnd) {
+            base.getChars(srcBegin - prefixLength, srcEnd - prefixLength, dst, dstBegin);
+        }
+    }
+
     @NotNull
     @Override
     public BasedSequence subSequence(int startIndex, int endIndex) {
@@ -56,6 +56,29 @@ public final class SegmentedSequenceFull extends SegmentedSequence {
         }
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        SequenceUtils.validateStartEnd(srcBegin, srcEnd, length());
+
+        int i = srcBegin;
+        while (i < srcEnd) {
+            int offset = baseOffsets[baseStartOffset + i];
+
+            if (offset < 0) {
+                dst[dstBegin++] = (char) (-offset - 1);
+                i++;
+            } else {
+                // copy run of consecutive base offsets at once
+                int end = i + 1;
+                while (end < srcEnd && baseOffsets[baseStartOffset + end] == offset + end - i) end++;
+
+                baseSeq.getChars(offset, offset + end - i, dst, dstBegin);
+                dstBegin += end - i;
+                i = end;
+            }
+        }
+    }
+
     @NotNull
     @Override
     public BasedSequence subSequence(int startIndex, int endIndex) {
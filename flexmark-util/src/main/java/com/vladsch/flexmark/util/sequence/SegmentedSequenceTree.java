@@ -111,6 +111,36 @@ public final class SegmentedSequenceTree extends SegmentedSequence {
         return getCache(index).charAt(index);
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        SequenceUtils.validateStartEnd(srcBegin, srcEnd, length());
+        if (srcBegin == srcEnd) return;
+
+        // segment indices are offset by startIndex of this sequence
+        int index = srcBegin + startIndex;
+        int endIndex = srcEnd + startIndex;
+        Segment segment = getCache(srcBegin).segment;
+
+        while (true) {
+            int segmentEnd = Math.min(segment.getEndIndex(), endIndex);
+
+            if (segment.isBase()) {
+                int offset = segment.getStartOffset() + index - segment.getStartIndex();
+                baseSeq.getChars(offset, offset + segmentEnd - index, dst, dstBegin);
+                dstBegin += segmentEnd - index;
+            } else {
+                for (int i = index; i < segmentEnd; i++) {
+                    dst[dstBegin++] = segment.charAt(i);
+                }
+            }
+
+            index = segmentEnd;
+            if (index >= endIndex) break;
+
+            segment = segmentTree.getSegment(segment.getPos() + 1, baseSeq);
+        }
+    }
+
     @NotNull
     @Override
     public BasedSequence subSequence(int startIndex, int endIndex) {
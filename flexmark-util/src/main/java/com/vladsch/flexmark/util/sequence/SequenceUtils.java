@@ -165,6 +165,48 @@ public interface SequenceUtils {
     static int lastIndexOfNot(@NotNull CharSequence thizz,  char c, int fromIndex)                                           { return lastIndexOfNot(thizz, c, 0, fromIndex); }
     // @formatter:on
 
+    /**
+     * Copy characters of a char sequence to a char array, same as {@link String#getChars(int, int, char[], int)}
+     * <p>
+     * Strings, string builders and rich sequences are copied in bulk, other sequences with charAt()
+     *
+     * @param chars    char sequence
+     * @param srcBegin index of first character to copy
+     * @param srcEnd   index after last character to copy
+     * @param dst      destination array
+     * @param dstBegin index in dst for first character
+     */
+    static void getChars(@NotNull CharSequence chars, int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        if (chars instanceof String) {
+            ((String) chars).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if (chars instanceof IRichSequence<?>) {
+            ((IRichSequence<?>) chars).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if (chars instanceof StringBuilder) {
+            ((StringBuilder) chars).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if (chars instanceof BasedOptionsSequence) {
+            ((BasedOptionsSequence) chars).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else {
+            validateStartEnd(srcBegin, srcEnd, chars.length());
+
+            for (int i = srcBegin; i < srcEnd; i++) {
+                dst[dstBegin++] = chars.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Replace '\0' by '\uFFFD' in part of char array, same as charAt() of based and rich sequences does
+     *
+     * @param chars      char array
+     * @param startIndex start index in array
+     * @param endIndex   end index in array
+     */
+    static void encodeNul(@NotNull char[] chars, int startIndex, int endIndex) {
+        for (int i = startIndex; i < endIndex; i++) {
+            if (chars[i] == NUL) chars[i] = ENC_NUL;
+        }
+    }
+
     static int indexOf(@NotNull CharSequence thizz, char c, int fromIndex, int endIndex) {
         fromIndex = Math.max(fromIndex, 0);
         endIndex = Math.min(thizz.length(), endIndex);
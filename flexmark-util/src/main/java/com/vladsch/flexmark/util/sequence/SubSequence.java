@@ -108,6 +108,14 @@ public final class SubSequence extends BasedSequenceImpl {
         return c == SequenceUtils.NUL ? SequenceUtils.ENC_NUL : c;
     }
 
+    @Override
+    public void getChars(int srcBegin, int srcEnd, @NotNull char[] dst, int dstBegin) {
+        SequenceUtils.validateStartEnd(srcBegin, srcEnd, length());
+
+        SequenceUtils.getChars(baseSeq, startOffset + srcBegin, startOffset + srcEnd, dst, dstBegin);
+        SequenceUtils.encodeNul(dst, dstBegin, dstBegin + srcEnd - srcBegin);
+    }
+
     @NotNull
     @Override
     public SubSequence subSequence(int startIndex, int endIndex) {
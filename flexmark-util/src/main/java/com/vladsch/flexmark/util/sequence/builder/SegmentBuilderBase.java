@@ -39,7 +39,7 @@ public class SegmentBuilderBase<S extends SegmentBuilderBase<S>> implements ISeg
 
         int prevSize = prev.length / 2;
         if (prevSize <= size) {
-            int nextSize = Math.max(MIN_PART_CAPACITY, Math.max(prevSize + prevSize >> 1, size));
+            int nextSize = Math.max(MIN_PART_CAPACITY, Math.max(prevSize + (prevSize >> 1), size));
             return Arrays.copyOf(prev, nextSize * 2);
         }
         return prev;
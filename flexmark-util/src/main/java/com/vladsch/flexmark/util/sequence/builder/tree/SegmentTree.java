@@ -91,6 +91,7 @@ public class SegmentTree {
                 }
                 // can skip next one too
                 startPos = hint.pos + 2;
+                if (startPos >= endPos) return null; /* beyond last segment */
             } else {
                 // see if previous contains index
                 if (hint.pos == startPos) return null;
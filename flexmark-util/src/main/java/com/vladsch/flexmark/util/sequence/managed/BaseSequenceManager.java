@@ -5,19 +5,78 @@ import com.vladsch.flexmark.util.sequence.SubSequence;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 public class BaseSequenceManager {
-    // NOTE: baseMap will keep reference to BaseSequenceEntry as long as the underlying base object is in use
-    //   baseSet relies on baseMap to keep references alive for used BasedSequence and its BaseSequenceEntry for quick fail/pass on equals
-    final private @NotNull WeakHashMap<Object, WeakReference<BasedSequence>> baseMap = new WeakHashMap<>();
-    final private @NotNull WeakHashMap<BasedSequence, BaseSequenceEntry> baseSet = new WeakHashMap<>();
+    // NOTE: entries are indexed by content hash of the base object, each bucket is locked only while it is searched or modified
+    //   so threads looking up different content do not contend. Entries hold weak references to the base sequence and are
+    //   removed when the base sequence is released, keeping BaseSequenceEntry alive for as long as its base sequence is in use
+    //   entries are also indexed by identity hash of the base object so requests for the same object do not compute content hash
+    final private @NotNull ConcurrentHashMap<Integer, BaseBucket> baseBuckets = new ConcurrentHashMap<>();
+    final private @NotNull ConcurrentHashMap<Integer, BaseBucket> identityBuckets = new ConcurrentHashMap<>();
+    final private @NotNull ReferenceQueue<BasedSequence> releasedQueue = new ReferenceQueue<>();
+    final private boolean bypassSharing;
+
+    final private @NotNull LongAdder mapHits = new LongAdder();
+    final private @NotNull LongAdder setHits = new LongAdder();
+    final private @NotNull LongAdder misses = new LongAdder();
+    final private @NotNull LongAdder scans = new LongAdder();
 
     public BaseSequenceManager() {
+        this(false);
+    }
+
+    /**
+     * @param bypassSharing when true then base sequences are not shared, each request creates a new base using the factory,
+     *                      useful for one-shot processing where the same base is never requested twice
+     */
+    public BaseSequenceManager(boolean bypassSharing) {
+        this.bypassSharing = bypassSharing;
+    }
+
+    public boolean isBypassSharing() {
+        return bypassSharing;
+    }
+
+    /**
+     * @return number of requests satisfied by an existing base for the same object
+     */
+    public long getMapHitCount() {
+        return mapHits.sum();
+    }
+
+    /**
+     * @return number of requests satisfied by an existing base with equal content
+     */
+    public long getSetHitCount() {
+        return setHits.sum();
+    }
+
+    /**
+     * @return number of requests which created a new base
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
 
+    /**
+     * @return number of content equality tests done while searching for an equivalent base
+     */
+    public long getScanCount() {
+        return scans.sum();
+    }
+
+    public void resetCounts() {
+        mapHits.reset();
+        setHits.reset();
+        misses.reset();
+        scans.reset();
     }
 
     /**
@@ -36,48 +95,161 @@ public class BaseSequenceManager {
      */
     @NotNull
     public <T> BasedSequence getBaseSequence(@NotNull T object, @Nullable int[] callTypes, @NotNull Function<T, BasedSequence> factory) {
-        WeakReference<BasedSequence> baseEntry;
-        BasedSequence baseSeq;
-
-        int callType = 0;
+        if (bypassSharing) {
+            misses.increment();
+            if (callTypes != null) callTypes[0] = 20;
+            return factory.apply(object);
+        }
 
-        synchronized (baseMap) {
-            baseEntry = baseMap.get(object);
+        removeReleasedEntries();
 
-            if (baseEntry != null) {
-                baseSeq = baseEntry.get();
-                if (baseSeq != null) {
-                    if (callTypes != null) callTypes[0] = callType;
-                    return baseSeq;
+        int identityHash = System.identityHashCode(object);
+        BaseBucket identityBucket = identityBuckets.get(identityHash);
+        if (identityBucket != null) {
+            synchronized (identityBucket) {
+                int iMax = identityBucket.entries.size();
+                for (int i = 0; i < iMax; i++) {
+                    BasedSequence baseSeq = identityBucket.entries.get(i).get();
+                    if (baseSeq != null && (baseSeq == object || baseSeq.getBase() == object)) {
+                        mapHits.increment();
+                        if (callTypes != null) callTypes[0] = 0;
+                        return baseSeq;
+                    }
                 }
-
-                baseMap.remove(object);
             }
+        }
+
+        int hash = contentHash(object);
 
-            // see if we can find one in the set that matches
-            callType = 10;
-            int[] equalsCall = { 0 };
-            for (Map.Entry<BasedSequence, BaseSequenceEntry> entry : baseSet.entrySet()) {
-                if (entry != null) {
-                    if (entry.getValue().testEquals(entry.getKey(), object, equalsCall)) {
+        while (true) {
+            BaseBucket bucket = baseBuckets.computeIfAbsent(hash, BaseBucket::new);
+
+            synchronized (bucket) {
+                // bucket was emptied and removed after it was obtained, get a new one
+                if (bucket.isRemoved) continue;
+
+                // see if we can find one in the bucket that matches, same object added since identity lookup is matched by testEquals
+                int iMax = bucket.entries.size();
+                int callType = 10;
+                int[] equalsCall = { 0 };
+                for (int i = 0; i < iMax; i++) {
+                    BaseEntryReference entryRef = bucket.entries.get(i);
+                    BasedSequence baseSeq = entryRef.get();
+                    if (baseSeq != null) {
+                        scans.increment();
+                        boolean isEqual = entryRef.entry.testEquals(baseSeq, object, equalsCall);
                         callType = Math.max(callType, 10 + equalsCall[0]);
-                        if (callTypes != null) callTypes[0] = callType;
-                        return entry.getKey();
+
+                        if (isEqual) {
+                            setHits.increment();
+                            if (callTypes != null) callTypes[0] = callType;
+                            return baseSeq;
+                        }
                     }
-                    callType = Math.max(callType, 10 + equalsCall[0]);
                 }
+
+                BasedSequence newBaseSeq = factory.apply(object);
+                assert newBaseSeq == newBaseSeq.getBaseSequence();
+                assert newBaseSeq.getBase() == object;
+
+                // preserve entry search max call type
+                callType += 10;
+                misses.increment();
+                if (callTypes != null) callTypes[0] = callType;
+                BaseEntryReference entryRef = new BaseEntryReference(newBaseSeq, releasedQueue, bucket);
+                bucket.entries.add(entryRef);
+                addIdentityEntry(identityHash, entryRef);
+                return newBaseSeq;
             }
+        }
+    }
+
+    private void addIdentityEntry(int identityHash, @NotNull BaseEntryReference entryRef) {
+        while (true) {
+            BaseBucket identityBucket = identityBuckets.computeIfAbsent(identityHash, BaseBucket::new);
+
+            synchronized (identityBucket) {
+                if (identityBucket.isRemoved) continue;
+
+                identityBucket.entries.add(entryRef);
+                entryRef.identityBucket = identityBucket;
+                return;
+            }
+        }
+    }
+
+    private static void removeEntry(@NotNull ConcurrentHashMap<Integer, BaseBucket> buckets, @Nullable BaseBucket bucket, @NotNull Reference<? extends BasedSequence> released) {
+        if (bucket == null) return;
+
+        synchronized (bucket) {
+            bucket.entries.remove(released);
+
+            if (bucket.entries.isEmpty()) {
+                bucket.isRemoved = true;
+                buckets.remove(bucket.hash, bucket);
+            }
+        }
+    }
+
+    private void removeReleasedEntries() {
+        Reference<? extends BasedSequence> released;
+
+        while ((released = releasedQueue.poll()) != null) {
+            BaseEntryReference entryRef = (BaseEntryReference) released;
+            removeEntry(baseBuckets, entryRef.bucket, released);
+
+            // identity bucket is set while content bucket is locked
+            BaseBucket identityBucket;
+            synchronized (entryRef.bucket) {
+                identityBucket = entryRef.identityBucket;
+            }
+            removeEntry(identityBuckets, identityBucket, released);
+        }
+    }
+
+    /**
+     * Hash of the object's content, same as hashCode() of String and BasedSequence with equal content
+     * <p>
+     * NOTE: String and BasedSequence cache their hash, other char sequences are hashed on every call so it is only computed when
+     *   the object is not found by identity
+     *
+     * @param object object for the base sequence
+     * @return content hash for char sequences, identity hash for other objects
+     */
+    static int contentHash(@NotNull Object object) {
+        if (object instanceof String || object instanceof BasedSequence) {
+            return object.hashCode();
+        } else if (object instanceof CharSequence) {
+            CharSequence chars = (CharSequence) object;
+            int h = 0;
+            int iMax = chars.length();
+            for (int i = 0; i < iMax; i++) {
+                h = 31 * h + chars.charAt(i);
+            }
+            return h;
+        } else {
+            return System.identityHashCode(object);
+        }
+    }
+
+    private static class BaseBucket {
+        final int hash;
+        final @NotNull ArrayList<BaseEntryReference> entries = new ArrayList<>(1);
+        boolean isRemoved;
+
+        BaseBucket(int hash) {
+            this.hash = hash;
+        }
+    }
 
-            BasedSequence newBaseSeq = factory.apply(object);
-            assert newBaseSeq == newBaseSeq.getBaseSequence();
-            assert newBaseSeq.getBase() == object;
+    private static class BaseEntryReference extends WeakReference<BasedSequence> {
+        final @NotNull BaseSequenceEntry entry = new BaseSequenceEntry();
+        final @NotNull BaseBucket bucket;
+        @Nullable BaseBucket identityBucket;
 
-            // preserve entry search max call type
-            callType += 10;
-            if (callTypes != null) callTypes[0] = callType;
-            baseMap.put(object, new WeakReference<>(newBaseSeq));
-            baseSet.put(newBaseSeq, new BaseSequenceEntry());
-            return newBaseSeq;
+        BaseEntryReference(@NotNull BasedSequence baseSeq, @NotNull ReferenceQueue<BasedSequence> queue, @NotNull BaseBucket bucket) {
+            super(baseSeq, queue);
+            this.bucket = bucket;
         }
     }
 }
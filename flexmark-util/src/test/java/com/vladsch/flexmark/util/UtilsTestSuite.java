@@ -2,8 +2,11 @@ package com.vladsch.flexmark.util;
 
 import com.vladsch.flexmark.util.ast.DocumentTest;
 import com.vladsch.flexmark.util.collection.*;
+import com.vladsch.flexmark.util.data.FrozenDataSetTest;
 import com.vladsch.flexmark.util.format.MarkdownParagraphTest;
 import com.vladsch.flexmark.util.html.HtmlFormattingAppendableBaseTest;
+import com.vladsch.flexmark.util.html.EscapingTest;
+import com.vladsch.flexmark.util.html.HtmlTagScannerTest;
 import com.vladsch.flexmark.util.html.LineFormattingAppendableImplTest;
 import com.vladsch.flexmark.util.html.ui.HtmlBuilderTest;
 import com.vladsch.flexmark.util.html.ui.HtmlHelpersTest;
@@ -28,6 +31,7 @@ import org.junit.runners.Suite;
         SequenceBuilderTest.class,
         BasedSequenceFullImplTest.class,
         BasedSequenceTreeImplTest.class,
+        BasedSequenceGetCharsTest.class,
         BaseSequenceEntryTest.class,
         BaseSequenceManagerTest.class,
         MarkdownParagraphTest.class,
@@ -52,10 +56,14 @@ import org.junit.runners.Suite;
         HtmlBuilderTest.class,
         HtmlFormattingAppendableBaseTest.class,
         HtmlHelpersTest.class,
+        HtmlTagScannerTest.class,
+        EscapingTest.class,
         LineFormattingAppendableImplTest.class,
 //        LineAppendableImplTest.class,
         PrefixedSubSequenceTest.class,
         RepeatedSequenceTest.class,
+        ByteBufferCharSequenceTest.class,
+        FrozenDataSetTest.class,
         CharPredicateTest.class,
 })
 public class UtilsTestSuite {
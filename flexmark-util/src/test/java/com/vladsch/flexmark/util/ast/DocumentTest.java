@@ -1,10 +1,16 @@
 package com.vladsch.flexmark.util.ast;
 
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
 
 public class DocumentTest {
 
@@ -76,4 +82,54 @@ public class DocumentTest {
         assertEquals(2, document.getLineNumber(8));
         assertEquals(2, document.getLineNumber(10));
     }
+
+    @Test
+    public void testConcurrentAccess() {
+        DataKey<NodeRepository<Node>> repositoryKey = new DataKey<>("REPOSITORY", new TestRepository(), TestRepository::new);
+        DataKey<NodeRepository<Node>> computedKey = new DataKey<>("COMPUTED", new TestRepository(), TestRepository::new);
+        Document document = new Document(new MutableDataSet(), BasedSequence.of("Hello"));
+        NodeRepository<Node> repository = repositoryKey.get(document);
+
+        document.setConcurrentAccess(true);
+        assertTrue(document.isConcurrentAccess());
+        assertTrue(repository.isReadOnly());
+        assertTrue(computedKey.get(document).isReadOnly());
+        try {
+            repository.put("key", document);
+            fail("read only repository modified");
+        } catch (IllegalStateException ignored) {
+        }
+
+        document.setConcurrentAccess(false);
+        assertFalse(document.isConcurrentAccess());
+        assertFalse(repository.isReadOnly());
+        assertFalse(computedKey.get(document).isReadOnly());
+        repository.put("key", document);
+        assertSame(document, repository.get("key"));
+    }
+
+    static class TestRepository extends NodeRepository<Node> {
+        TestRepository() {
+            super(KeepType.FIRST);
+        }
+
+        TestRepository(DataHolder options) {
+            this();
+        }
+
+        @Override
+        public @NotNull DataKey<? extends NodeRepository<Node>> getDataKey() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull DataKey<KeepType> getKeepDataKey() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull Set<Node> getReferencedElements(Node parent) {
+            return new HashSet<>();
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package com.vladsch.flexmark.util.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FrozenDataSetTest {
+    final static DataKey<Integer> INT_KEY = new DataKey<>("INT_KEY", 1);
+    final static DataKey<String> STRING_KEY = new DataKey<>("STRING_KEY", "default");
+    final static NullableDataKey<String> NULLABLE_KEY = new NullableDataKey<>("NULLABLE_KEY");
+    final static DataKey<Integer> DEPENDENT_KEY = new DataKey<>("DEPENDENT_KEY", 0, options -> INT_KEY.get(options) * 10);
+
+    @Test
+    public void test_keyIndex() {
+        assertNotEquals(INT_KEY.getIndex(), STRING_KEY.getIndex());
+        assertTrue(DEPENDENT_KEY.getIndex() < DataKeyBase.getKeyCount());
+        assertTrue(new DataKey<>("NEW_KEY", 0).getIndex() >= DEPENDENT_KEY.getIndex());
+    }
+
+    @Test
+    public void test_values() {
+        DataHolder options = new MutableDataSet()
+                .set(INT_KEY, 5)
+                .set(NULLABLE_KEY, null)
+                .toImmutable();
+
+        assertTrue(options instanceof FrozenDataSet);
+        assertSame(options, options.toImmutable());
+
+        assertTrue(options.contains(INT_KEY));
+        assertTrue(options.contains(NULLABLE_KEY));
+        assertFalse(options.contains(STRING_KEY));
+
+        assertEquals(5, (int) INT_KEY.get(options));
+        assertNull(NULLABLE_KEY.get(options));
+        assertEquals("default", STRING_KEY.get(options));
+        assertEquals(50, (int) DEPENDENT_KEY.get(options));
+        assertEquals(2, options.getAll().size());
+        assertEquals(2, options.getKeys().size());
+        assertEquals(new DataSet(options), options);
+    }
+
+    @Test
+    public void test_memoizedDefault() {
+        AtomicInteger computed = new AtomicInteger();
+        DataKey<Integer> countingKey = new DataKey<>("COUNTING_KEY", 0, options -> computed.incrementAndGet());
+
+        DataHolder options = new FrozenDataSet(new MutableDataSet());
+        assertEquals(1, (int) countingKey.get(options));
+        assertEquals(1, (int) countingKey.get(options));
+        assertEquals(1, computed.get());
+
+        // plain data set computes the default on every request
+        DataSet dataSet = new DataSet();
+        countingKey.get(dataSet);
+        countingKey.get(dataSet);
+        assertEquals(3, computed.get());
+    }
+
+    @Test
+    public void test_mutableDefaultNotShared() {
+        DataKey<ArrayList<String>> listKey = new DataKey<>("LIST_KEY", new ArrayList<>(), options -> new ArrayList<>());
+
+        DataHolder options = new FrozenDataSet(new MutableDataSet());
+        ArrayList<String> list = listKey.get(options);
+        list.add("item");
+        assertNotSame(list, listKey.get(options));
+        assertTrue(listKey.get(options).isEmpty());
+    }
+
+    @Test
+    public void test_keyAfterFreeze() {
+        DataHolder options = new MutableDataSet().set(INT_KEY, 2).toImmutable();
+        DataKey<Integer> laterKey = new DataKey<>("LATER_KEY", 0, holder -> INT_KEY.get(holder) + 1);
+        assertFalse(options.contains(laterKey));
+        assertEquals(3, (int) laterKey.get(options));
+    }
+
+    @Test
+    public void test_flattenScoped() {
+        DataHolder parent = new MutableDataSet().set(INT_KEY, 3).set(STRING_KEY, "parent");
+        ScopedDataSet scoped = new ScopedDataSet(parent, new MutableDataSet().set(STRING_KEY, "child"));
+
+        DataHolder options = scoped.toImmutable();
+        assertTrue(options instanceof FrozenDataSet);
+        assertEquals(3, (int) INT_KEY.get(options));
+        assertEquals("child", STRING_KEY.get(options));
+        assertEquals(30, (int) DEPENDENT_KEY.get(options));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_unmodifiable() {
+        DataHolder options = new MutableDataSet().set(INT_KEY, 5).toImmutable();
+        options.getKeys().clear();
+    }
+
+    @Test
+    public void test_toMutable() {
+        DataHolder options = new MutableDataSet().set(INT_KEY, 5).toImmutable();
+        MutableDataHolder mutable = options.toMutable().set(STRING_KEY, "changed");
+
+        assertEquals("changed", STRING_KEY.get(mutable));
+        assertEquals(5, (int) INT_KEY.get(mutable));
+        assertEquals("default", STRING_KEY.get(options));
+    }
+}
@@ -0,0 +1,38 @@
+package com.vladsch.flexmark.util.html;
+
+import com.vladsch.flexmark.util.sequence.BasedSequence;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class EscapingTest {
+    @Test
+    public void test_escapeHtml() {
+        String text = "plain text";
+        assertSame(text, Escaping.escapeHtml(text, false));
+        assertEquals("plain text", Escaping.escapeHtml(BasedSequence.of(text), false));
+        assertEquals("a &amp; b &lt;c&gt; &quot;d&quot;", Escaping.escapeHtml("a & b <c> \"d\"", false));
+        assertEquals("&amp;amp; &amp;", Escaping.escapeHtml("&amp; &", false));
+        assertEquals("&amp; &amp;", Escaping.escapeHtml("&amp; &", true));
+    }
+
+    @Test
+    public void test_unescapeString() {
+        String text = "plain text";
+        assertSame(text, Escaping.unescapeString(text));
+        assertEquals("a * b & c", Escaping.unescapeString("a \\* b &amp; c"));
+    }
+
+    @Test
+    public void test_normalizeEOL() {
+        String text = "line 1\nline 2\n";
+        assertSame(text, Escaping.normalizeEOL(text));
+        assertSame(text, Escaping.normalizeEndWithEOL(text));
+        assertEquals("line 1\nline 2", Escaping.normalizeEOL("line 1\nline 2"));
+        assertEquals("line 1\nline 2\n", Escaping.normalizeEndWithEOL("line 1\nline 2"));
+        assertEquals("\n", Escaping.normalizeEndWithEOL(""));
+        assertEquals("line 1\nline 2\n", Escaping.normalizeEOL("line 1\r\nline 2\r\n"));
+        assertEquals("line 1\nline 2\n", Escaping.normalizeEndWithEOL("line 1\rline 2"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.vladsch.flexmark.util.html;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class HtmlTagScannerTest {
+    static String attributes(String html, int start, int end) {
+        ArrayList<String> list = new ArrayList<>();
+        HtmlTagScanner.scanAttributes(html, start, end, false, (nameStart, nameEnd, valueStart, valueEnd) -> list.add(html.substring(nameStart, nameEnd) + "=" + html.substring(valueStart, valueEnd)));
+        return String.join(",", list);
+    }
+
+    @Test
+    public void test_scanTag() {
+        assertEquals(5, HtmlTagScanner.scanTag("<div>text", 0, true));
+        assertEquals(16, HtmlTagScanner.scanTag("<a href=\"a>b\" c>", 0, true));
+        assertEquals(6, HtmlTagScanner.scanTag("</div>", 0, true));
+        assertEquals(14, HtmlTagScanner.scanTag("<!-- a > b -->", 0, true));
+        assertEquals(HtmlTagScanner.NOT_A_TAG, HtmlTagScanner.scanTag("< div>", 0, true));
+        assertEquals(HtmlTagScanner.NOT_A_TAG, HtmlTagScanner.scanTag("</ div>", 0, true));
+        assertEquals(HtmlTagScanner.INCOMPLETE_TAG, HtmlTagScanner.scanTag("<div", 0, true));
+        assertEquals(HtmlTagScanner.INCOMPLETE_TAG, HtmlTagScanner.scanTag("<!-- a >", 0, true));
+    }
+
+    @Test
+    public void test_unmatchedQuote() {
+        // more text may complete the quoted value
+        assertEquals(HtmlTagScanner.INCOMPLETE_TAG, HtmlTagScanner.scanTag("<div b'=' c>\ntext\n</div>\n", 0, true));
+
+        // at end of text the quote starts an unquoted value
+        assertEquals(12, HtmlTagScanner.scanTag("<div b'=' c>\ntext\n</div>\n", 0, false));
+        assertEquals(12, HtmlTagScanner.scanTag("<div b=\"a c>\ntext\n</div>\n", 0, false));
+    }
+
+    @Test
+    public void test_scanAttributes() {
+        String html = "<div a=\"1\" b='2 3' c=4 d e = 5 f=\"x>";
+        assertEquals("a=1,b=2 3,c=4,d=,e=5,f=\"x", attributes(html, 4, html.length() - 1));
+
+        html = "<div b'=' c>";
+        assertEquals("b'=',c=", attributes(html, 4, html.length() - 1));
+    }
+
+    @Test
+    public void test_indexOfClosingTag() {
+        String html = "<script>a </b> </SCRIPT>";
+        assertEquals(15, HtmlTagScanner.indexOfClosingTag(html, "script", 8));
+        assertEquals(-1, HtmlTagScanner.indexOfClosingTag(html, "style", 8));
+        assertEquals(-1, HtmlTagScanner.indexOfClosingTag("</scr", "script", 0));
+    }
+}
@@ -0,0 +1,137 @@
+package com.vladsch.flexmark.util.sequence;
+
+import com.vladsch.flexmark.util.mappers.ChangeCase;
+import com.vladsch.flexmark.util.sequence.builder.SequenceBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BasedSequenceGetCharsTest {
+    static final CharPredicate[] PREDICATES = {
+            CharPredicate.WHITESPACE,
+            CharPredicate.SPACE_TAB.negate(),
+            CharPredicate.anyOf("aZ\uFFFD"),
+            CharPredicate.anyOf("#"),
+    };
+
+    static String randomText(Random random, int length) {
+        String alphabet = "abcxyzAZ   \t\n\0#";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Characters of sequence using charAt()
+     */
+    static String charAtString(@NotNull CharSequence chars) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < chars.length(); i++) {
+            sb.append(chars.charAt(i));
+        }
+        return sb.toString();
+    }
+
+    static BasedSequence segmented(@NotNull String text, int options) {
+        BasedSequence base = BasedSequence.of(BasedOptionsSequence.of(text, options));
+        SequenceBuilder builder = base.getBuilder();
+
+        for (int i = 0; i < base.length(); i += 50) {
+            builder.append(base.subSequence(i, Math.min(i + 40, base.length())));
+            builder.append("<inserted\0>");
+        }
+        return builder.toSequence();
+    }
+
+    static List<IRichSequence<?>> sequences(@NotNull String text) {
+        ArrayList<IRichSequence<?>> sequences = new ArrayList<>();
+
+        sequences.add(BasedSequence.of(text));
+        sequences.add(BasedSequence.of(new StringBuilder(text)));
+        sequences.add(CharSubSequence.of(text));
+        sequences.add(RichSequence.of(text));
+        sequences.add(RichSequence.of(text).toMapped(ChangeCase.toUpperCase));
+        sequences.add(BasedSequence.of(text).toMapped(ChangeCase.toUpperCase));
+        sequences.add(PrefixedSubSequence.prefixOf("prefix\0 ", BasedSequence.of(text).subSequence(5)));
+        sequences.add(segmented(text, BasedSequence.F_FULL_SEGMENTED_SEQUENCES));
+        sequences.add(segmented(text, BasedSequence.F_TREE_SEGMENTED_SEQUENCES));
+
+        int iMax = sequences.size();
+        for (int i = 0; i < iMax; i++) {
+            IRichSequence<?> sequence = sequences.get(i);
+            sequences.add(sequence.subSequence(3, sequence.length() - 7));
+        }
+        return sequences;
+    }
+
+    @Test
+    public void test_getChars() {
+        Random random = new Random(1);
+        String text = randomText(random, 700);
+
+        for (IRichSequence<?> sequence : sequences(text)) {
+            String expected = charAtString(sequence);
+            int length = sequence.length();
+
+            char[] chars = new char[length];
+            sequence.getChars(0, length, chars, 0);
+            assertEquals(sequence.getClass().getSimpleName(), expected, String.valueOf(chars));
+
+            for (int n = 0; n < 200; n++) {
+                int start = random.nextInt(length + 1);
+                int end = start + random.nextInt(length - start + 1);
+                char[] range = new char[end - start + 3];
+                Arrays.fill(range, '-');
+                sequence.getChars(start, end, range, 2);
+
+                char[] expectedRange = new char[end - start + 3];
+                Arrays.fill(expectedRange, '-');
+                expected.getChars(start, end, expectedRange, 2);
+                assertArrayEquals(sequence.getClass().getSimpleName() + " [" + start + ", " + end + ")", expectedRange, range);
+            }
+        }
+    }
+
+    @Test
+    public void test_scanning() {
+        Random random = new Random(2);
+        String text = randomText(random, 700);
+
+        for (IRichSequence<?> sequence : sequences(text)) {
+            // scanning a String uses charAt()
+            String chars = charAtString(sequence);
+            int length = sequence.length();
+            String message = sequence.getClass().getSimpleName();
+
+            for (int n = 0; n < 200; n++) {
+                int start = random.nextInt(length + 20) - 10;
+                int end = start + random.nextInt(length + 20);
+                char c = chars.isEmpty() ? 'a' : chars.charAt(random.nextInt(chars.length()));
+                CharPredicate predicate = PREDICATES[random.nextInt(PREDICATES.length)];
+                String range = message + " '" + c + "' [" + start + ", " + end + ")";
+
+                assertEquals(range, SequenceUtils.indexOf(chars, c, start, end), sequence.indexOf(c, start, end));
+                assertEquals(range, SequenceUtils.indexOfNot(chars, c, start, end), sequence.indexOfNot(c, start, end));
+                assertEquals(range, SequenceUtils.indexOfAny(chars, predicate, start, end), sequence.indexOfAny(predicate, start, end));
+                assertEquals(range, SequenceUtils.lastIndexOf(chars, c, start, end), sequence.lastIndexOf(c, start, end));
+                assertEquals(range, SequenceUtils.lastIndexOfNot(chars, c, start, end), sequence.lastIndexOfNot(c, start, end));
+                assertEquals(range, SequenceUtils.lastIndexOfAny(chars, predicate, start, end), sequence.lastIndexOfAny(predicate, start, end));
+                assertEquals(range, SequenceUtils.countOfAny(chars, predicate, start, end), sequence.countOfAny(predicate, start, end));
+                assertEquals(range, SequenceUtils.countLeading(chars, predicate, start, end), sequence.countLeading(predicate, start, end));
+                assertEquals(range, SequenceUtils.countTrailing(chars, predicate, start, end), sequence.countTrailing(predicate, start, end));
+            }
+
+            assertEquals(message, SequenceUtils.trimRange(chars), sequence.trimRange());
+            assertEquals(message, SequenceUtils.indexOf(chars, "\n#"), sequence.indexOf("\n#"));
+        }
+    }
+}
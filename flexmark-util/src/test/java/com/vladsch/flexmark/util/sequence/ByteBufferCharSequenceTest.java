@@ -0,0 +1,115 @@
+package com.vladsch.flexmark.util.sequence;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ByteBufferCharSequenceTest {
+    static void assertChars(String expected, CharSequence actual) {
+        assertEquals(expected.length(), actual.length());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals("index " + i, expected.charAt(i), actual.charAt(i));
+        }
+        assertEquals(expected, actual.toString());
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    static CharSequence of(String text, Charset charset, int chunkBytes) {
+        return ByteBufferCharSequence.of(ByteBuffer.wrap(text.getBytes(charset)), charset, chunkBytes);
+    }
+
+    @Test
+    public void test_ascii() {
+        String text = "# Heading\n\nparagraph *text*\n";
+        CharSequence chars = ByteBufferCharSequence.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        assertChars(text, chars);
+        assertChars(text.substring(2, 9), chars.subSequence(2, 9));
+        assertChars(text.substring(11, 20), chars.subSequence(11, 26).subSequence(0, 9));
+    }
+
+    @Test
+    public void test_empty() {
+        CharSequence chars = of("", StandardCharsets.UTF_8, 8);
+        assertChars("", chars);
+    }
+
+    @Test
+    public void test_utf8Chunks() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(i % 7 == 0 ? "ascii only line\n" : "äöü – ∑ 😀 line " + i + "\n");
+        }
+        String text = sb.toString();
+
+        // chunk sizes smaller than, between and larger than multi-byte characters
+        for (int chunkBytes : new int[] { 1, 2, 3, 5, 16, 64, 1000, 100000 }) {
+            CharSequence chars = of(text, StandardCharsets.UTF_8, chunkBytes);
+            assertChars(text, chars);
+
+            // random access across chunks
+            for (int i = text.length() - 1; i >= 0; i -= 37) {
+                assertEquals(text.charAt(i), chars.charAt(i));
+            }
+
+            assertChars(text.substring(17, 501), chars.subSequence(17, 501));
+        }
+    }
+
+    @Test
+    public void test_utf8AsciiChunks() {
+        String text = "plain ascii text to fill several chunks\näöü at the end";
+        CharSequence chars = of(text, StandardCharsets.UTF_8, 8);
+        assertChars(text, chars);
+    }
+
+    @Test
+    public void test_malformed() {
+        byte[] bytes = { 'a', (byte) 0xC3, 'b', (byte) 0xE2, (byte) 0x88, 'c', (byte) 0xFF };
+        String expected = new String(bytes, StandardCharsets.UTF_8);
+
+        for (int chunkBytes : new int[] { 1, 2, 4, 100 }) {
+            CharSequence chars = ByteBufferCharSequence.of(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8, chunkBytes);
+            assertChars(expected, chars);
+        }
+    }
+
+    @Test
+    public void test_singleByteCharsets() {
+        byte[] bytes = { 'a', (byte) 0xE4, 'b' };
+        assertChars("aäb", ByteBufferCharSequence.of(ByteBuffer.wrap(bytes), StandardCharsets.ISO_8859_1));
+        assertChars("a�b", ByteBufferCharSequence.of(ByteBuffer.wrap(bytes), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void test_otherCharset() {
+        String text = "äöü – text";
+        CharSequence chars = of(text, StandardCharsets.UTF_16LE, 8);
+        assertSame(String.class, chars.getClass());
+        assertEquals(text, chars);
+    }
+
+    @Test
+    public void test_bufferPosition() {
+        ByteBuffer buffer = ByteBuffer.wrap("skip:text".getBytes(StandardCharsets.UTF_8));
+        buffer.position(5);
+        CharSequence chars = ByteBufferCharSequence.of(buffer, StandardCharsets.UTF_8);
+        assertChars("text", chars);
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    public void test_basedSequence() {
+        String text = "äöü\n😀 text\n";
+        BasedSequence sequence = BasedSequence.of(of(text, StandardCharsets.UTF_8, 4));
+        assertEquals(text, sequence.toString());
+        assertEquals(text.hashCode(), sequence.hashCode());
+        assertEquals(BasedSequence.of(text), sequence);
+        assertEquals("text", sequence.subSequence(7, 11).toString());
+        assertEquals(7, sequence.subSequence(7, 11).getStartOffset());
+    }
+}
@@ -2,6 +2,7 @@ package com.vladsch.flexmark.util.sequence.builder.tree;
 
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 import com.vladsch.flexmark.util.sequence.SegmentedSequenceFull;
+import com.vladsch.flexmark.util.sequence.SegmentedSequenceTree;
 import com.vladsch.flexmark.util.sequence.builder.BasedSegmentBuilder;
 import com.vladsch.flexmark.util.sequence.builder.PlainSegmentBuilder;
 import org.jetbrains.annotations.NotNull;
@@ -285,6 +286,28 @@ public class SegmentTreeTest {
         assertCharAt(sequence, segments, segTree);
     }
 
+    @Test
+    public void test_findSegmentHintBeyondEnd() {
+        String input = "0123456789";
+        BasedSequence sequence = BasedSequence.of(input);
+        PlainSegmentBuilder segments = PlainSegmentBuilder.emptyBuilder(F_INCLUDE_ANCHORS | F_TRACK_FIRST256);
+
+        segments.append(2, 5);
+        segments.append(6, 9);
+
+        SegmentTree segTree = SegmentTree.build(segments.getSegments(), segments.getText());
+        Segment hint = segTree.findSegment(0, sequence, null);
+        assert hint != null;
+
+        // index at end of last segment, past the segment after the hint
+        assertEquals(null, segTree.findSegment(6, sequence, hint));
+
+        // cached segment of sequence is used as hint
+        BasedSequence segmented = SegmentedSequenceTree.create(sequence, segments);
+        assertEquals('2', segmented.charAt(0));
+        assertEquals("", segmented.getEmptySuffix().toString());
+    }
+
     // ************************************************************************
     // NOTE: Segment building directly from SegmentTree data
     // ************************************************************************
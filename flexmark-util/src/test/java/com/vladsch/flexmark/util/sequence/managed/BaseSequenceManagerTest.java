@@ -104,4 +104,120 @@ public class BaseSequenceManagerTest {
         sequence1 = manager.getBaseSequence("0123456789", callType, seq -> BasedSequence.of(seq));
         assertTrue(callType[0] <= 21);
     }
+
+    @Test
+    public void test_Counts() {
+        BaseSequenceManager manager = new BaseSequenceManager();
+        int[] callType = { 0 };
+
+        String input = "0123456789";
+        BasedSequence sequence1 = manager.getBaseSequence(input, callType, seq -> BasedSequence.of(seq));
+        assertEquals(1, manager.getMissCount());
+
+        BasedSequence sequence2 = manager.getBaseSequence(input, callType, seq -> BasedSequence.of(seq));
+        assertEquals(0, callType[0]);
+        assertEquals(1, manager.getMapHitCount());
+
+        BasedSequence sequence3 = manager.getBaseSequence(new String(input.toCharArray()), callType, seq -> BasedSequence.of(seq));
+        assertTrue(callType[0] >= 10 && callType[0] < 20);
+        assertEquals(1, manager.getSetHitCount());
+        assertEquals(1, manager.getScanCount());
+
+        assertSame(sequence1, sequence2);
+        assertSame(sequence1, sequence3);
+
+        manager.resetCounts();
+        assertEquals(0, manager.getMissCount());
+        assertEquals(0, manager.getMapHitCount());
+        assertEquals(0, manager.getSetHitCount());
+        assertEquals(0, manager.getScanCount());
+    }
+
+    @Test
+    public void test_IdentityLookup() {
+        BaseSequenceManager manager = new BaseSequenceManager();
+        int[] callType = { 0 };
+        int[] charAtCount = { 0 };
+        String input = "0123456789";
+        CharSequence chars = new CharSequence() {
+            @Override
+            public int length() {
+                return input.length();
+            }
+
+            @Override
+            public char charAt(int index) {
+                charAtCount[0]++;
+                return input.charAt(index);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return input.subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return input;
+            }
+        };
+
+        BasedSequence sequence1 = manager.getBaseSequence(chars, callType, seq -> BasedSequence.of(seq));
+        assertEquals(1, manager.getMissCount());
+
+        // same object is found without hashing its content
+        charAtCount[0] = 0;
+        BasedSequence sequence2 = manager.getBaseSequence(chars, callType, seq -> BasedSequence.of(seq));
+        assertEquals(0, callType[0]);
+        assertEquals(0, charAtCount[0]);
+        assertEquals(1, manager.getMapHitCount());
+        assertSame(sequence1, sequence2);
+        assertEquals(0, manager.getScanCount());
+    }
+
+    @Test
+    public void test_BypassSharing() {
+        BaseSequenceManager manager = new BaseSequenceManager(true);
+        int[] callType = { 0 };
+
+        String input = "0123456789";
+        BasedSequence sequence1 = manager.getBaseSequence(input, callType, seq -> BasedSequence.of(seq));
+        assertEquals(20, callType[0]);
+        BasedSequence sequence2 = manager.getBaseSequence(input, callType, seq -> BasedSequence.of(seq));
+        assertEquals(20, callType[0]);
+
+        assertNotSame(sequence1, sequence2);
+        assertEquals(2, manager.getMissCount());
+    }
+
+    @Test
+    public void test_Concurrent() throws InterruptedException {
+        BaseSequenceManager manager = new BaseSequenceManager();
+        int threadCount = 8;
+        int inputCount = 100;
+        BasedSequence[][] results = new BasedSequence[threadCount][inputCount];
+        Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++) {
+            BasedSequence[] threadResults = results[t];
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < inputCount; i++) {
+                    // new instance each time so equivalent bases are found by content
+                    threadResults[i] = manager.getBaseSequence(new String(("input " + i).toCharArray()), null, seq -> BasedSequence.of(seq));
+                }
+            });
+        }
+
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        for (int t = 1; t < threadCount; t++) {
+            for (int i = 0; i < inputCount; i++) {
+                assertSame(results[0][i], results[t][i]);
+            }
+        }
+
+        assertEquals(inputCount, manager.getMissCount());
+        assertEquals((threadCount - 1) * inputCount, manager.getSetHitCount());
+    }
 }
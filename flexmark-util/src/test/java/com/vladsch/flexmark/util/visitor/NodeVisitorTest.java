@@ -1,13 +1,37 @@
 package com.vladsch.flexmark.util.visitor;
 
 import com.vladsch.flexmark.util.ast.*;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
 import org.junit.Test;
 
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
 public class NodeVisitorTest {
     @Test
     public void test_basic() {
     }
 
+    @Test
+    public void test_dispatch() {
+        ArrayList<String> visited = new ArrayList<>();
+        NodeVisitor visitor = new NodeVisitor(
+                new VisitHandler<>(BlankLine.class, node -> visited.add("BlankLine"))
+        );
+
+        Document document = new Document(null, BasedSequence.NULL);
+        document.appendChild(new BlankLine(BasedSequence.NULL));
+        visitor.visit(document);
+
+        assertEquals("[BlankLine]", visited.toString());
+
+        // handler added after first use is found
+        visitor.addHandler(new VisitHandler<>(Document.class, node -> visited.add("Document")));
+        visitor.visit(document);
+        assertEquals("[BlankLine, Document]", visited.toString());
+    }
+
     public interface BlockVisitor {
         void visit(Block node);
         void visit(ContentNode node);
@@ -69,6 +69,9 @@ public class Reference extends LinkNodeBase implements ReferenceNode<ReferenceRe
         delimitedSegmentSpanChars(out, titleOpeningMarker, title, titleClosingMarker, "title");
     }
 
+    public Reference() {
+    }
+
     public Reference(BasedSequence label, BasedSequence url, BasedSequence title) {
         super(BasedSequence.NULL);
 
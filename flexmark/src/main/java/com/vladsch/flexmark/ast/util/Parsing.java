@@ -2,9 +2,13 @@ package com.vladsch.flexmark.ast.util;
 
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.util.format.TableFormatOptions;
 import com.vladsch.flexmark.util.html.Escaping;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import static com.vladsch.flexmark.parser.Parser.*;
@@ -93,6 +97,107 @@ public class Parsing {
     public final String REG_CHAR_PARENS;
     public final String REG_CHAR_SP_PARENS;
 
+    // NOTE: compiled patterns do not depend on options other than the ones used for the key, so instances with the same values
+    //  share patterns, subclasses and wrappers add their own patterns using compile() so these are shared too.
+    //  Caches are bounded because keys include user pattern options, patterns past the limit are compiled and not kept.
+    private static final int MAX_SHARED_PARSING = 64;
+    private static final int MAX_SHARED_PATTERNS = 2048;
+    private static final ConcurrentHashMap<List<Object>, Parsing> ourSharedParsing = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Pattern> ourPatterns = new ConcurrentHashMap<>();
+
+    /**
+     * Get the shared instance for options, instances are shared by all options with the same values
+     * of keys which affect parsing patterns
+     * <p>
+     * Use instead of {@link #Parsing(DataHolder)} when only patterns are needed, no instance is created for every call.
+     *
+     * @param options options
+     * @return shared instance, its {@link #options} contain only keys which affect parsing patterns
+     */
+    public static Parsing of(DataHolder options) {
+        boolean intellijDummyIdentifier = Parser.INTELLIJ_DUMMY_IDENTIFIER.get(options);
+        boolean htmlForTranslator = Parser.HTML_FOR_TRANSLATOR.get(options);
+        String translationHtmlInlineTagPattern = Parser.TRANSLATION_HTML_INLINE_TAG_PATTERN.get(options);
+        String translationAutolinkTagPattern = Parser.TRANSLATION_AUTOLINK_TAG_PATTERN.get(options);
+        boolean spaceInLinkUrls = Parser.SPACE_IN_LINK_URLS.get(options);
+        boolean parseJekyllMacrosInUrls = Parser.PARSE_JEKYLL_MACROS_IN_URLS.get(options);
+        String listsItemPrefixChars = Parser.LISTS_ITEM_PREFIX_CHARS.get(options);
+        boolean listsItemMarkerSpace = Parser.LISTS_ITEM_MARKER_SPACE.get(options);
+        boolean listsOrderedItemDotOnly = Parser.LISTS_ORDERED_ITEM_DOT_ONLY.get(options);
+        int codeBlockIndent = Parser.CODE_BLOCK_INDENT.get(options);
+
+        List<Object> key = Arrays.asList(intellijDummyIdentifier, htmlForTranslator, translationHtmlInlineTagPattern, translationAutolinkTagPattern,
+                spaceInLinkUrls, parseJekyllMacrosInUrls, listsItemPrefixChars, listsItemMarkerSpace, listsOrderedItemDotOnly, codeBlockIndent);
+
+        Parsing parsing = ourSharedParsing.get(key);
+        if (parsing == null) {
+            // do not keep references to passed options, which can be a document
+            DataHolder parsingOptions = new MutableDataSet()
+                    .set(Parser.INTELLIJ_DUMMY_IDENTIFIER, intellijDummyIdentifier)
+                    .set(Parser.HTML_FOR_TRANSLATOR, htmlForTranslator)
+                    .set(Parser.TRANSLATION_HTML_INLINE_TAG_PATTERN, translationHtmlInlineTagPattern)
+                    .set(Parser.TRANSLATION_AUTOLINK_TAG_PATTERN, translationAutolinkTagPattern)
+                    .set(Parser.SPACE_IN_LINK_URLS, spaceInLinkUrls)
+                    .set(Parser.PARSE_JEKYLL_MACROS_IN_URLS, parseJekyllMacrosInUrls)
+                    .set(Parser.LISTS_ITEM_PREFIX_CHARS, listsItemPrefixChars)
+                    .set(Parser.LISTS_ITEM_MARKER_SPACE, listsItemMarkerSpace)
+                    .set(Parser.LISTS_ORDERED_ITEM_DOT_ONLY, listsOrderedItemDotOnly)
+                    .set(Parser.CODE_BLOCK_INDENT, codeBlockIndent)
+                    .toImmutable();
+
+            parsing = new Parsing(parsingOptions);
+            if (ourSharedParsing.size() < MAX_SHARED_PARSING) {
+                Parsing previous = ourSharedParsing.putIfAbsent(key, parsing);
+                if (previous != null) parsing = previous;
+            }
+        }
+        return parsing;
+    }
+
+    /**
+     * Compile a regular expression or get the pattern compiled for it before
+     * <p>
+     * Patterns are kept for the life of the class, use only for expressions created from options and constants.
+     * Expressions built from document content should be compiled with {@link Pattern#compile(String)}.
+     *
+     * @param regex regular expression
+     * @return compiled pattern
+     */
+    public static Pattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Compile a regular expression or get the pattern compiled for it before
+     * <p>
+     * Patterns are kept for the life of the class, use only for expressions created from options and constants.
+     * Expressions built from document content should be compiled with {@link Pattern#compile(String, int)}.
+     * Once the cache is full, new expressions are compiled on every call.
+     *
+     * @param regex regular expression
+     * @param flags match flags
+     * @return compiled pattern
+     */
+    public static Pattern compile(String regex, int flags) {
+        String key = flags + ":" + regex;
+        Pattern pattern = ourPatterns.get(key);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex, flags);
+            if (ourPatterns.size() < MAX_SHARED_PATTERNS) {
+                Pattern previous = ourPatterns.putIfAbsent(key, pattern);
+                if (previous != null) pattern = previous;
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Create parsing for options, compiled patterns are shared with other instances
+     * <p>
+     * Use {@link #of(DataHolder)} unless {@link #options} of the instance must be the passed options.
+     *
+     * @param options options for this instance
+     */
     public Parsing(DataHolder options) {
         this.options = options;
         this.intellijDummyIdentifier = Parser.INTELLIJ_DUMMY_IDENTIFIER.get(options);
@@ -105,19 +210,18 @@ public class Parsing {
         this.EXCLUDED_0_TO_SPACE = EXCLUDED_0_TO_SPACE();
 
         this.ESCAPED_CHAR = "\\\\" + Escaping.ESCAPABLE;
-        this.LINK_LABEL = Pattern
-                .compile("^\\[(?:[^\\\\\\[\\]]|" + ESCAPED_CHAR + "|\\\\){0,999}\\]");
+        this.LINK_LABEL = compile("^\\[(?:[^\\\\\\[\\]]|" + ESCAPED_CHAR + "|\\\\){0,999}\\]");
 
         this.LINK_DESTINATION_ANGLES = Parser.SPACE_IN_LINK_URLS.get(options)
-                ? Pattern.compile("^(?:[<](?:[^<> \\t\\n\\\\\\x00]" + '|' + ESCAPED_CHAR + '|' + "\\\\| (?![\"']))*[>])")
-                : Pattern.compile("^(?:[<](?:[^<> \\t\\n\\\\\\x00]" + '|' + ESCAPED_CHAR + '|' + "\\\\)*[>])");
+                ? compile("^(?:[<](?:[^<> \\t\\n\\\\\\x00]" + '|' + ESCAPED_CHAR + '|' + "\\\\| (?![\"']))*[>])")
+                : compile("^(?:[<](?:[^<> \\t\\n\\\\\\x00]" + '|' + ESCAPED_CHAR + '|' + "\\\\)*[>])");
 
         //this.LINK_DESTINATION_ANGLES = Parser.SPACE_IN_LINK_URLS.getFrom(options)
-        //        ? Pattern.compile("^(?:[<](?:" +
+        //        ? compile("^(?:[<](?:" +
         //        "(?:[^<> \\t\\n\\\\\\x00]" + '|' + ESCAPED_CHAR + '|' + "\\\\| (?![\"]))" +
         //        (htmlForTranslator ? "|(?:_\\d+_)" : "") +
         //        ")*[>])")
-        //        : Pattern.compile("^(?:[<](?:" +
+        //        : compile("^(?:[<](?:" +
         //        "(?:[^<> \\t\\n\\\\\\x00]" + '|' + ESCAPED_CHAR + '|' + "\\\\)" +
         //        (htmlForTranslator ? "|(?:_\\d+_)" : "") +
         //        ")*[>])");
@@ -127,7 +231,7 @@ public class Parsing {
                 "'(" + ESCAPED_CHAR + "|[^'\\x00])*'" +
                 '|' +
                 "\\((" + ESCAPED_CHAR + "|[^)\\x00])*\\))";
-        this.LINK_TITLE = Pattern.compile("^" + LINK_TITLE_STRING);
+        this.LINK_TITLE = compile("^" + LINK_TITLE_STRING);
         this.REG_CHAR = "[^\\\\()" + EXCLUDED_0_TO_SPACE + "]";
         this.REG_CHAR_PARENS = "[^\\\\" + EXCLUDED_0_TO_SPACE + "]";
         this.REG_CHAR_SP = "[^\\\\()" + EXCLUDED_0_TO_SPACE + "]| (?![\"'])";
@@ -137,15 +241,15 @@ public class Parsing {
         this.IN_MATCHED_PARENS_NOSP = "\\((" + REG_CHAR + '|' + ESCAPED_CHAR + ")*\\)";
         this.IN_MATCHED_PARENS_W_SP = "\\((" + REG_CHAR_SP + '|' + ESCAPED_CHAR + ")*\\)";
         this.IN_BRACES_W_SP = "\\{\\{(?:[^{}\\\\" + EXCLUDED_0_TO_SPACE + "]| |\t)*\\}\\}";
-        this.LINK_DESTINATION = Pattern.compile(
+        this.LINK_DESTINATION = compile(
                 "^(?:" + (Parser.PARSE_JEKYLL_MACROS_IN_URLS.get(options) ? IN_BRACES_W_SP + "|" : "") +
                         (Parser.SPACE_IN_LINK_URLS.get(options) ? "(?:" + REG_CHAR_SP + ")|" : REG_CHAR + "|") +
                         ESCAPED_CHAR + "|\\\\|" + (Parser.SPACE_IN_LINK_URLS.get(options) ? IN_PARENS_W_SP : IN_PARENS_NOSP) + ")*");
-        this.LINK_DESTINATION_MATCHED_PARENS = Pattern.compile(
+        this.LINK_DESTINATION_MATCHED_PARENS = compile(
                 "^(?:" + (Parser.PARSE_JEKYLL_MACROS_IN_URLS.get(options) ? IN_BRACES_W_SP + "|" : "")
                         + (Parser.SPACE_IN_LINK_URLS.get(options) ? "(?:" + REG_CHAR_SP + ")|" : REG_CHAR + "|") +
                         ESCAPED_CHAR + "|\\\\|\\(|\\))*");
-        this.LINK_DESTINATION_MATCHED_PARENS_NOSP = Pattern.compile(
+        this.LINK_DESTINATION_MATCHED_PARENS_NOSP = compile(
                 "^(?:" + (Parser.PARSE_JEKYLL_MACROS_IN_URLS.get(options) ? IN_BRACES_W_SP + "|" : "")
                         + (false ? "(?:" + REG_CHAR_SP + ")|" : REG_CHAR + "|") +
                         ESCAPED_CHAR + "|\\\\|\\(|\\))*");
@@ -155,54 +259,54 @@ public class Parsing {
         this.CDATA = "<!\\[CDATA\\[[\\s\\S]*?\\]\\]>";
         this.ENTITY = "&(?:#x[a-f0-9" + ADDITIONAL_CHARS + "]{1,8}|#[0-9]{1,8}|[a-z" + ADDITIONAL_CHARS + "][a-z0-9" + ADDITIONAL_CHARS + "]{1,31});";
 
-        this.ENTITY_HERE = Pattern.compile('^' + ENTITY, Pattern.CASE_INSENSITIVE);
+        this.ENTITY_HERE = compile('^' + ENTITY, Pattern.CASE_INSENSITIVE);
         this.ASCII_PUNCTUATION = "'!\"#\\$%&\\*\\+,\\-\\./:;=\\?@\\\\\\^_`\\|~";
         this.ASCII_OPEN_PUNCTUATION = "\\(<\\[\\{";
         this.ASCII_CLOSE_PUNCTUATION = "\\)>\\]\\}";
-        this.PUNCTUATION = Pattern.compile(
+        this.PUNCTUATION = compile(
                 "^[" + ASCII_PUNCTUATION + ASCII_OPEN_PUNCTUATION + ASCII_CLOSE_PUNCTUATION + "\\p{Pc}\\p{Pd}\\p{Pe}\\p{Pf}\\p{Pi}\\p{Po}\\p{Ps}]");
-        this.PUNCTUATION_OPEN = Pattern.compile(
+        this.PUNCTUATION_OPEN = compile(
                 "^[" + ASCII_PUNCTUATION + ASCII_OPEN_PUNCTUATION + "]|[\\p{Pc}\\p{Pd}\\p{Pe}\\p{Pf}\\p{Pi}\\p{Po}\\p{Ps}]&&[^" + ASCII_CLOSE_PUNCTUATION + "]");
-        this.PUNCTUATION_CLOSE = Pattern.compile(
+        this.PUNCTUATION_CLOSE = compile(
                 "^[" + ASCII_PUNCTUATION + ASCII_CLOSE_PUNCTUATION + "]|[\\p{Pc}\\p{Pd}\\p{Pe}\\p{Pf}\\p{Pi}\\p{Po}\\p{Ps}]&&[^" + ASCII_OPEN_PUNCTUATION + "]");
-        this.PUNCTUATION_ONLY = Pattern.compile(
+        this.PUNCTUATION_ONLY = compile(
                 "^[" + ASCII_PUNCTUATION + "\\p{Pc}\\p{Pd}\\p{Pe}\\p{Pf}\\p{Pi}\\p{Po}\\p{Ps}]&&[^" + ASCII_OPEN_PUNCTUATION + ASCII_CLOSE_PUNCTUATION + "]");
-        this.PUNCTUATION_OPEN_ONLY = Pattern.compile(
+        this.PUNCTUATION_OPEN_ONLY = compile(
                 "^[" + ASCII_OPEN_PUNCTUATION + "]");
-        this.PUNCTUATION_CLOSE_ONLY = Pattern.compile(
+        this.PUNCTUATION_CLOSE_ONLY = compile(
                 "^[" + ASCII_CLOSE_PUNCTUATION + "]");
 
-        //this.HTML_COMMENT = Pattern.compile(HTMLCOMMENT);
-        this.ESCAPABLE = Pattern.compile('^' + Escaping.ESCAPABLE);
-        this.TICKS = Pattern.compile("`+");
-        this.TICKS_HERE = Pattern.compile("^`+");
-        this.EMAIL_AUTOLINK = Pattern.compile(
+        //this.HTML_COMMENT = compile(HTMLCOMMENT);
+        this.ESCAPABLE = compile('^' + Escaping.ESCAPABLE);
+        this.TICKS = compile("`+");
+        this.TICKS_HERE = compile("^`+");
+        this.EMAIL_AUTOLINK = compile(
                 "^<(" +
                         "(?:[a-zA-Z0-9" + ADDITIONAL_CHARS + ".!#$%&'*+/=?^_`{|}~-]+@[a-zA-Z0-9" + ADDITIONAL_CHARS + "](?:[a-zA-Z0-9" + ADDITIONAL_CHARS + "-]{0,61}[a-zA-Z0-9" + ADDITIONAL_CHARS + "])?(?:\\.[a-zA-Z0-9" + ADDITIONAL_CHARS + "](?:[a-zA-Z0-9" + ADDITIONAL_CHARS + "-]{0,61}[a-zA-Z0-9" + ADDITIONAL_CHARS + "])?)*)" +
                         (htmlForTranslator ? "|(?:" + translationAutolinkTagPattern + ")" : "") +
                         ")>");
 
-        this.AUTOLINK = Pattern.compile(
+        this.AUTOLINK = compile(
                 "^<(" +
                         "(?:[a-zA-Z][a-zA-Z0-9" + ADDITIONAL_CHARS + ".+-]{1,31}:[^<>" + EXCLUDED_0_TO_SPACE + "]*)" +
                         (htmlForTranslator ? "|(?:" + translationAutolinkTagPattern + ")" : "") +
                         ")>");
 
-        this.WWW_AUTOLINK = Pattern.compile(
+        this.WWW_AUTOLINK = compile(
                 "^<(" +
                         "(?:w" + ADDITIONAL_CHARS + "?){3,3}\\.[^<>" + EXCLUDED_0_TO_SPACE + "]*" +
                         (htmlForTranslator ? "|(?:" + translationAutolinkTagPattern + ")" : "") +
                         ")>");
 
-        this.SPNL = Pattern.compile("^(?:[ \t])*(?:" + EOL + "(?:[ \t])*)?");
-        this.SPNL_URL = Pattern.compile("^(?:[ \t])*" + EOL);
-        this.SPNI = Pattern.compile("^ {0,3}");
-        this.SP = Pattern.compile("^(?:[ \t])*");
-        this.REST_OF_LINE = Pattern.compile("^.*" + EOL);
-        this.UNICODE_WHITESPACE_CHAR = Pattern.compile("^[\\p{Zs}\t\r\n\f]");
-        this.WHITESPACE = Pattern.compile("\\s+");
-        this.FINAL_SPACE = Pattern.compile(" *$");
-        this.LINE_END = Pattern.compile("^[ \t]*(?:" + EOL + "|$)");
+        this.SPNL = compile("^(?:[ \t])*(?:" + EOL + "(?:[ \t])*)?");
+        this.SPNL_URL = compile("^(?:[ \t])*" + EOL);
+        this.SPNI = compile("^ {0,3}");
+        this.SP = compile("^(?:[ \t])*");
+        this.REST_OF_LINE = compile("^.*" + EOL);
+        this.UNICODE_WHITESPACE_CHAR = compile("^[\\p{Zs}\t\r\n\f]");
+        this.WHITESPACE = compile("\\s+");
+        this.FINAL_SPACE = compile(" *$");
+        this.LINE_END = compile("^[ \t]*(?:" + EOL + "|$)");
         this.TAGNAME = "[A-Za-z" + ADDITIONAL_CHARS + "][A-Za-z0-9" + ADDITIONAL_CHARS + "-]*";
         this.ATTRIBUTENAME = "[a-zA-Z" + ADDITIONAL_CHARS + "_:][a-zA-Z0-9" + ADDITIONAL_CHARS + ":._-]*";
         this.UNQUOTEDVALUE = "[^\"'=<>{}`" + EXCLUDED_0_TO_SPACE + "]+";
@@ -218,20 +322,20 @@ public class Parsing {
         this.HTMLTAG = "(?:" + OPENTAG + "|" + CLOSETAG + "|" + HTMLCOMMENT
                 + "|" + PROCESSINGINSTRUCTION + "|" + DECLARATION + "|" + CDATA +
                 (htmlForTranslator ? "|<(?:" + translationHtmlInlineTagPattern + ")>|</(?:" + translationHtmlInlineTagPattern + ")>" : "") + ")";
-        this.HTML_TAG = Pattern.compile('^' + HTMLTAG, Pattern.CASE_INSENSITIVE);
+        this.HTML_TAG = compile('^' + HTMLTAG, Pattern.CASE_INSENSITIVE);
 
         final String itemPrefixChars = LISTS_ITEM_PREFIX_CHARS.get(options);
         if (LISTS_ITEM_MARKER_SPACE.get(options)) {
             if (LISTS_ORDERED_ITEM_DOT_ONLY.get(options)) {
-                this.LIST_ITEM_MARKER = Pattern.compile("^([\\Q" + itemPrefixChars + "\\E])(?=[ \t])|^(\\d{1,9})([.])(?=[ \t])");
+                this.LIST_ITEM_MARKER = compile("^([\\Q" + itemPrefixChars + "\\E])(?=[ \t])|^(\\d{1,9})([.])(?=[ \t])");
             } else {
-                this.LIST_ITEM_MARKER = Pattern.compile("^([\\Q" + itemPrefixChars + "\\E])(?=[ \t])|^(\\d{1,9})([.)])(?=[ \t])");
+                this.LIST_ITEM_MARKER = compile("^([\\Q" + itemPrefixChars + "\\E])(?=[ \t])|^(\\d{1,9})([.)])(?=[ \t])");
             }
         } else {
             if (LISTS_ORDERED_ITEM_DOT_ONLY.get(options)) {
-                this.LIST_ITEM_MARKER = Pattern.compile("^([\\Q" + itemPrefixChars + "\\E])(?= |\t|$)|^(\\d{1,9})([.])(?= |\t|$)");
+                this.LIST_ITEM_MARKER = compile("^([\\Q" + itemPrefixChars + "\\E])(?= |\t|$)|^(\\d{1,9})([.])(?= |\t|$)");
             } else {
-                this.LIST_ITEM_MARKER = Pattern.compile("^([\\Q" + itemPrefixChars + "\\E])(?= |\t|$)|^(\\d{1,9})([.)])(?= |\t|$)");
+                this.LIST_ITEM_MARKER = compile("^([\\Q" + itemPrefixChars + "\\E])(?= |\t|$)|^(\\d{1,9})([.)])(?= |\t|$)");
             }
         }
 
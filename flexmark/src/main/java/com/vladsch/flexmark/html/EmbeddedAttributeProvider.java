@@ -10,7 +10,7 @@ import org.jetbrains.annotations.NotNull;
 /**
  * Provider which will provide attributes stored in the node's first {@link EmbeddedNodeAttributes} of the node's children
  */
-public class EmbeddedAttributeProvider implements AttributeProvider {
+public class EmbeddedAttributeProvider implements AttributeProvider, Reusable {
 
     public static final IndependentAttributeProviderFactory Factory = new IndependentAttributeProviderFactory() {
         @NotNull
@@ -23,6 +23,11 @@ public class EmbeddedAttributeProvider implements AttributeProvider {
     EmbeddedAttributeProvider() {
     }
 
+    @Override
+    public boolean reset(@NotNull LinkResolverContext context) {
+        return true;
+    }
+
     @Override
     public void setAttributes(@NotNull Node node, @NotNull AttributablePart part, @NotNull Attributes attributes) {
         if (part == AttributablePart.NODE) {
@@ -3,6 +3,8 @@ package com.vladsch.flexmark.html;
 import com.vladsch.flexmark.ast.HtmlBlock;
 import com.vladsch.flexmark.ast.HtmlInline;
 import com.vladsch.flexmark.html.renderer.*;
+import com.vladsch.flexmark.parser.InstrumentationListener;
+import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.Pair;
 import com.vladsch.flexmark.util.SharedDataKeys;
 import com.vladsch.flexmark.util.ast.Document;
@@ -21,7 +23,10 @@ import com.vladsch.flexmark.util.sequence.TagRange;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 
 /**
  * Renders a tree of nodes to HTML.
@@ -87,11 +92,38 @@ public class HtmlRenderer implements IRender {
     public static final DataKey<Boolean> NO_P_TAGS_USE_BR = new DataKey<>("NO_P_TAGS_USE_BR", false);
     public static final DataKey<Boolean> EMBEDDED_ATTRIBUTE_PROVIDER = new DataKey<>("EMBEDDED_ATTRIBUTE_PROVIDER", true);
 
+    /**
+     * When true, {@link #render(Node, Appendable)} appends completed top level blocks of the document to the output
+     * as soon as they are rendered instead of accumulating the whole document before output.
+     * <p>
+     * An {@link IOException} thrown by the output stops rendering and is thrown by render as {@link UncheckedIOException}.
+     * <p>
+     * NOTE: renderers which modify already rendered lines of previous top level blocks cannot be used in this mode
+     */
+    public static final DataKey<Boolean> STREAM_TOP_LEVEL_BLOCKS = new DataKey<>("STREAM_TOP_LEVEL_BLOCKS", false);
+
+    /**
+     * Maximum number of rendering contexts kept for reuse by {@link #render(Node, Appendable)}, 0 to create a new context for every render.
+     * <p>
+     * A pooled context keeps its HTML writer buffers and link resolution maps. Node renderers, link resolvers, attribute
+     * providers and the html id generator are kept if they implement {@link Reusable} and accept the reset for the next document,
+     * all others are created by their factories for every render, same as without pooling. Handlers of a node renderer created
+     * again replace handlers of the previous instance in the kept handler table, unless it is a {@link PhasedNodeRenderer} or
+     * its handlers are for different node types, then the handler table is built again.
+     * <p>
+     * NOTE: a pooled context and its reusable components can hold on to the last document they rendered until they are reused
+     */
+    public static final DataKey<Integer> RENDER_CONTEXT_POOL_SIZE = new DataKey<>("RENDER_CONTEXT_POOL_SIZE", 0);
+
     /**
      * output control for FormattingAppendable, see {@link LineAppendable#setOptions(int)}
      */
     public static final DataKey<Integer> FORMAT_FLAGS = SharedDataKeys.RENDERER_FORMAT_FLAGS;
     public static final DataKey<Integer> MAX_TRAILING_BLANK_LINES = SharedDataKeys.RENDERER_MAX_TRAILING_BLANK_LINES;
+    /**
+     * Listener for node rendering and document timings, same key as {@link Parser#INSTRUMENTATION} so it can also be set in document options
+     */
+    public static final NullableDataKey<InstrumentationListener> INSTRUMENTATION = Parser.INSTRUMENTATION;
 
     // Use LineFormattingAppendable values instead,
     // NOTE: ALLOW_LEADING_WHITESPACE is now inverted and named F_TRIM_LEADING_WHITESPACE
@@ -121,12 +153,21 @@ public class HtmlRenderer implements IRender {
     final List<LinkResolverFactory> linkResolverFactories;
     final HeaderIdGeneratorFactory htmlIdGeneratorFactory;
     final HtmlRendererOptions htmlOptions;
-    final DataHolder options;
+    final FrozenDataSet options;
+    private final @Nullable ArrayBlockingQueue<MainNodeRenderer> renderContextPool;
+
+    // node type to handler slot shared by all renders of this renderer, replaced by a copy when a new node type is added
+    private volatile @NotNull Map<Class<?>, Integer> nodeTypeSlots = Collections.emptyMap();
+
+    private static final RenderingPhase[] RENDERING_PHASES = RenderingPhase.values();
 
     HtmlRenderer(@NotNull Builder builder) {
-        this.options = builder.toImmutable();
+        this.options = FrozenDataSet.of(builder.toImmutable());
         this.htmlOptions = new HtmlRendererOptions(this.options);
 
+        int poolSize = RENDER_CONTEXT_POOL_SIZE.get(this.options);
+        this.renderContextPool = poolSize > 0 ? new ArrayBlockingQueue<>(poolSize) : null;
+
         this.htmlIdGeneratorFactory = builder.htmlIdGeneratorFactory;
 
         // resolve renderer dependencies
@@ -188,10 +229,7 @@ public class HtmlRenderer implements IRender {
      * @param output   appendable to use for the output
      */
     public void render(@NotNull Node document, @NotNull Appendable output) {
-        MainNodeRenderer renderer = new MainNodeRenderer(options, new HtmlWriter(htmlOptions.indentSize, htmlOptions.formatFlags, !htmlOptions.htmlBlockOpenTagEol, !htmlOptions.htmlBlockCloseTagEol), document.getDocument());
-        renderer.render(document);
-        renderer.flushTo(output, htmlOptions.maxTrailingBlankLines);
-        renderer.dispose();
+        render(document, output, htmlOptions.maxTrailingBlankLines);
     }
 
     /**
@@ -201,10 +239,31 @@ public class HtmlRenderer implements IRender {
      * @param output appendable to use for the output
      */
     public void render(@NotNull Node node, @NotNull Appendable output, int maxTrailingBlankLines) {
-        MainNodeRenderer renderer = new MainNodeRenderer(options, new HtmlWriter(htmlOptions.indentSize, htmlOptions.formatFlags, !htmlOptions.htmlBlockOpenTagEol, !htmlOptions.htmlBlockCloseTagEol), node.getDocument());
+        MainNodeRenderer renderer = renderContextPool == null ? null : renderContextPool.poll();
+        if (renderer == null) {
+            renderer = new MainNodeRenderer(options, new HtmlWriter(htmlOptions.indentSize, htmlOptions.formatFlags, !htmlOptions.htmlBlockOpenTagEol, !htmlOptions.htmlBlockCloseTagEol), node.getDocument());
+        } else {
+            renderer.reuse(node.getDocument());
+        }
+        if (htmlOptions.streamTopLevelBlocks) renderer.streamOutput = output;
+
+        InstrumentationListener instrumentation = renderer.instrumentation;
+        long startNanos = instrumentation == null ? 0 : System.nanoTime();
+        long startAllocatedBytes = instrumentation == null ? 0 : InstrumentationListener.getThreadAllocatedBytes();
+
         renderer.render(node);
         renderer.flushTo(output, maxTrailingBlankLines);
-        renderer.dispose();
+
+        if (instrumentation != null) {
+            long nanos = System.nanoTime() - startNanos;
+            long allocatedBytes = InstrumentationListener.getThreadAllocatedBytes();
+            instrumentation.documentRendered(node, nanos, InstrumentationListener.getNodeCount(node), allocatedBytes < 0 || startAllocatedBytes < 0 ? -1 : allocatedBytes - startAllocatedBytes);
+        }
+
+        renderer.streamOutput = null;
+        if (renderContextPool == null || !renderContextPool.offer(renderer)) {
+            renderer.dispose();
+        }
     }
 
     /**
@@ -220,6 +279,29 @@ public class HtmlRenderer implements IRender {
         return sb.toString();
     }
 
+    /**
+     * Get slot of node type in handler tables
+     *
+     * @param nodeType node type
+     * @return index of node type handler in render handler table
+     */
+    int getNodeTypeSlot(@NotNull Class<?> nodeType) {
+        Integer slot = nodeTypeSlots.get(nodeType);
+        if (slot != null) return slot;
+
+        synchronized (this) {
+            Map<Class<?>, Integer> slots = nodeTypeSlots;
+            slot = slots.get(nodeType);
+            if (slot == null) {
+                HashMap<Class<?>, Integer> newSlots = new HashMap<>(slots);
+                slot = newSlots.size();
+                newSlots.put(nodeType, slot);
+                nodeTypeSlots = newSlots;
+            }
+            return slot;
+        }
+    }
+
     static public boolean isCompatibleRendererType(@NotNull MutableDataHolder options, @NotNull String supportedRendererType) {
         String rendererType = HtmlRenderer.TYPE.get(options);
         return isCompatibleRendererType(options, rendererType, supportedRendererType);
@@ -521,7 +603,12 @@ public class HtmlRenderer implements IRender {
 
     private class MainNodeRenderer extends NodeRendererSubContext implements NodeRendererContext, Disposable {
         private Document document;
-        private Map<Class<?>, NodeRenderingHandlerWrapper> renderers;
+        private NodeRenderer[] nodeRenderers;
+        // handlers and their wrappers by node renderer index, kept while the node renderer is kept by a pooled context
+        private NodeRenderingHandler<?>[][] nodeRenderingHandlers;
+        private NodeRenderingHandlerWrapper[][] nodeRenderingWrappers;
+        private Map<Class<?>, Integer> nodeTypeSlots;
+        private NodeRenderingHandlerWrapper[] renderers;
         private List<PhasedNodeRenderer> phasedRenderers;
         private LinkResolver[] myLinkResolvers;
         private Set<RenderingPhase> renderingPhases;
@@ -530,10 +617,18 @@ public class HtmlRenderer implements IRender {
         private HtmlIdGenerator htmlIdGenerator;
         private HashMap<LinkType, HashMap<String, ResolvedLink>> resolvedLinkMap = new HashMap<>();
         private AttributeProvider[] attributeProviders;
+        private Appendable streamOutput;
+        private @Nullable InstrumentationListener instrumentation;
 
         @Override
         public void dispose() {
             document = null;
+            streamOutput = null;
+            instrumentation = null;
+            nodeRenderers = null;
+            nodeRenderingHandlers = null;
+            nodeRenderingWrappers = null;
+            nodeTypeSlots = null;
             renderers = null;
             phasedRenderers = null;
 
@@ -555,30 +650,170 @@ public class HtmlRenderer implements IRender {
             attributeProviders = null;
         }
 
-        MainNodeRenderer(DataHolder options, HtmlWriter htmlWriter, Document document) {
+        MainNodeRenderer(FrozenDataSet options, HtmlWriter htmlWriter, Document document) {
             super(htmlWriter);
-            this.options = new ScopedDataSet(document, options);
+            this.options = ScopedDataSet.of(document, options);
             this.document = document;
-            this.renderers = new HashMap<>(32);
-            this.renderingPhases = new HashSet<>(RenderingPhase.values().length);
+            this.instrumentation = INSTRUMENTATION.get(this.options);
+            this.nodeRenderers = new NodeRenderer[nodeRendererFactories.size()];
+            this.nodeRenderingHandlers = new NodeRenderingHandler<?>[nodeRenderers.length][];
+            this.nodeRenderingWrappers = new NodeRenderingHandlerWrapper[nodeRenderers.length][];
+            this.renderers = new NodeRenderingHandlerWrapper[HtmlRenderer.this.nodeTypeSlots.size()];
+            this.renderingPhases = EnumSet.noneOf(RenderingPhase.class);
             this.phasedRenderers = new ArrayList<>(nodeRendererFactories.size());
             this.myLinkResolvers = new LinkResolver[linkResolverFactories.size()];
             this.doNotRenderLinksNesting = htmlOptions.doNotRenderLinksInDocument ? 0 : 1;
-            this.htmlIdGenerator = htmlIdGeneratorFactory != null ? htmlIdGeneratorFactory.create(this)
-                    : (!(htmlOptions.renderHeaderId || htmlOptions.generateHeaderIds) ? HtmlIdGenerator.NULL : new HeaderIdGenerator.Factory().create(this));
+            this.htmlIdGenerator = createHtmlIdGenerator();
 
             htmlWriter.setContext(this);
 
             for (int i = nodeRendererFactories.size() - 1; i >= 0; i--) {
-                NodeRendererFactory nodeRendererFactory = nodeRendererFactories.get(i);
-                NodeRenderer nodeRenderer = nodeRendererFactory.apply(this.getOptions());
-                Set<NodeRenderingHandler<?>> renderingHandlers = nodeRenderer.getNodeRenderingHandlers();
-
-                assert (renderingHandlers != null);
-                for (NodeRenderingHandler<?> nodeType : renderingHandlers) {
-                    // Overwrite existing renderer
-                    NodeRenderingHandlerWrapper handlerWrapper = new NodeRenderingHandlerWrapper(nodeType, renderers.get(nodeType.getNodeType()));
-                    renderers.put(nodeType.getNodeType(), handlerWrapper);
+                setNodeRenderer(i, nodeRendererFactories.get(i).apply(this.getOptions()));
+            }
+            initRenderingHandlers();
+
+            for (int i = 0; i < linkResolverFactories.size(); i++) {
+                myLinkResolvers[i] = linkResolverFactories.get(i).apply(this);
+            }
+
+            this.attributeProviders = new AttributeProvider[attributeProviderFactories.size()];
+            for (int i = 0; i < attributeProviderFactories.size(); i++) {
+                attributeProviders[i] = attributeProviderFactories.get(i).apply(this);
+            }
+        }
+
+        /**
+         * Prepare a pooled context for rendering another document, keeping reusable components and buffers
+         *
+         * @param document document to render next
+         */
+        void reuse(Document document) {
+            this.options = ScopedDataSet.of(document, HtmlRenderer.this.options);
+            this.document = document;
+            this.instrumentation = INSTRUMENTATION.get(this.options);
+            this.doNotRenderLinksNesting = htmlOptions.doNotRenderLinksInDocument ? 0 : 1;
+            this.renderingNode = null;
+            this.renderingHandlerWrapper = null;
+            this.phase = null;
+
+            htmlWriter.reset();
+            for (HashMap<String, ResolvedLink> resolvedLinks : resolvedLinkMap.values()) {
+                resolvedLinks.clear();
+            }
+
+            if (!isReset(htmlIdGenerator)) {
+                if (htmlIdGenerator instanceof Disposable) ((Disposable) htmlIdGenerator).dispose();
+                htmlIdGenerator = createHtmlIdGenerator();
+            }
+
+            boolean renderersChanged = false;
+            for (int i = nodeRenderers.length - 1; i >= 0; i--) {
+                if (!isReset(nodeRenderers[i])) {
+                    NodeRenderer nodeRenderer = nodeRendererFactories.get(i).apply(this.getOptions());
+                    if (!replaceNodeRenderer(i, nodeRenderer)) {
+                        setNodeRenderer(i, nodeRenderer);
+                        renderersChanged = true;
+                    }
+                }
+            }
+
+            // handlers are bound to node renderer instances, only handlers of new instances are wrapped again
+            if (renderersChanged) initRenderingHandlers();
+
+            for (int i = 0; i < myLinkResolvers.length; i++) {
+                if (!isReset(myLinkResolvers[i])) {
+                    if (myLinkResolvers[i] instanceof Disposable) ((Disposable) myLinkResolvers[i]).dispose();
+                    myLinkResolvers[i] = linkResolverFactories.get(i).apply(this);
+                }
+            }
+
+            for (int i = 0; i < attributeProviders.length; i++) {
+                if (!isReset(attributeProviders[i])) {
+                    if (attributeProviders[i] instanceof Disposable) ((Disposable) attributeProviders[i]).dispose();
+                    attributeProviders[i] = attributeProviderFactories.get(i).apply(this);
+                }
+            }
+        }
+
+        private boolean isReset(Object component) {
+            return component instanceof Reusable && ((Reusable) component).reset(this);
+        }
+
+        private HtmlIdGenerator createHtmlIdGenerator() {
+            return htmlIdGeneratorFactory != null ? htmlIdGeneratorFactory.create(this)
+                    : (!(htmlOptions.renderHeaderId || htmlOptions.generateHeaderIds) ? HtmlIdGenerator.NULL : new HeaderIdGenerator.Factory().create(this));
+        }
+
+        private void setNodeRenderer(int index, NodeRenderer nodeRenderer) {
+            Set<NodeRenderingHandler<?>> renderingHandlers = nodeRenderer.getNodeRenderingHandlers();
+            assert (renderingHandlers != null);
+
+            nodeRenderers[index] = nodeRenderer;
+            nodeRenderingHandlers[index] = renderingHandlers.toArray(new NodeRenderingHandler<?>[0]);
+            nodeRenderingWrappers[index] = new NodeRenderingHandlerWrapper[nodeRenderingHandlers[index].length];
+        }
+
+        /**
+         * Replace a node renderer with a new instance of the same class, its handlers replace the ones in kept wrappers
+         * so the handler table does not need to be built again
+         *
+         * @param index        index of node renderer
+         * @param nodeRenderer new node renderer
+         * @return true if replaced, false if handlers of the new instance are for other node types or it is a phased renderer
+         */
+        private boolean replaceNodeRenderer(int index, NodeRenderer nodeRenderer) {
+            if (nodeRenderer.getClass() != nodeRenderers[index].getClass() || nodeRenderer instanceof PhasedNodeRenderer) return false;
+
+            Set<NodeRenderingHandler<?>> renderingHandlers = nodeRenderer.getNodeRenderingHandlers();
+            assert (renderingHandlers != null);
+
+            NodeRenderingHandler<?>[] handlers = nodeRenderingHandlers[index];
+            if (renderingHandlers.size() != handlers.length) return false;
+
+            // handler sets are not ordered by node type, match handlers by their node type
+            NodeRenderingHandler<?>[] replacements = new NodeRenderingHandler<?>[handlers.length];
+            for (NodeRenderingHandler<?> renderingHandler : renderingHandlers) {
+                int j = -1;
+                for (int k = 0; k < handlers.length; k++) {
+                    if (handlers[k].getNodeType() == renderingHandler.getNodeType()) {
+                        j = k;
+                        break;
+                    }
+                }
+                if (j == -1 || replacements[j] != null) return false;
+                replacements[j] = renderingHandler;
+            }
+
+            NodeRenderingHandlerWrapper[] wrappers = nodeRenderingWrappers[index];
+            for (int j = 0; j < replacements.length; j++) {
+                wrappers[j].myRenderingHandler = replacements[j];
+            }
+
+            nodeRenderers[index] = nodeRenderer;
+            nodeRenderingHandlers[index] = replacements;
+            return true;
+        }
+
+        private void initRenderingHandlers() {
+            Arrays.fill(renderers, null);
+            renderingPhases.clear();
+            phasedRenderers.clear();
+
+            for (int i = nodeRenderers.length - 1; i >= 0; i--) {
+                NodeRenderer nodeRenderer = nodeRenderers[i];
+                NodeRenderingHandler<?>[] renderingHandlers = nodeRenderingHandlers[i];
+                NodeRenderingHandlerWrapper[] wrappers = nodeRenderingWrappers[i];
+
+                for (int j = 0; j < renderingHandlers.length; j++) {
+                    // Overwrite existing renderer, wrapper of a kept node renderer is reused if it wraps the same handlers
+                    int slot = getNodeTypeSlot(renderingHandlers[j].getNodeType());
+                    if (slot >= renderers.length) renderers = Arrays.copyOf(renderers, slot + 1);
+                    NodeRenderingHandlerWrapper wrapper = wrappers[j];
+                    if (wrapper == null || wrapper.myPreviousRenderingHandler != renderers[slot]) {
+                        wrapper = new NodeRenderingHandlerWrapper(renderingHandlers[j], renderers[slot]);
+                        wrappers[j] = wrapper;
+                    }
+                    renderers[slot] = wrapper;
                 }
 
                 if (nodeRenderer instanceof PhasedNodeRenderer) {
@@ -590,14 +825,8 @@ public class HtmlRenderer implements IRender {
                 }
             }
 
-            for (int i = 0; i < linkResolverFactories.size(); i++) {
-                myLinkResolvers[i] = linkResolverFactories.get(i).apply(this);
-            }
-
-            this.attributeProviders = new AttributeProvider[attributeProviderFactories.size()];
-            for (int i = 0; i < attributeProviderFactories.size(); i++) {
-                attributeProviders[i] = attributeProviderFactories.get(i).apply(this);
-            }
+            // all node types with handlers in this render are in the current table
+            this.nodeTypeSlots = HtmlRenderer.this.nodeTypeSlots;
         }
 
         @NotNull
@@ -761,6 +990,21 @@ public class HtmlRenderer implements IRender {
             return new SubNodeRenderer(this, htmlWriter, true);
         }
 
+        private @Nullable NodeRenderingHandlerWrapper getRenderingHandler(@NotNull Class<?> nodeType) {
+            Integer slot = nodeTypeSlots.get(nodeType);
+            return slot == null || slot >= renderers.length ? null : renderers[slot];
+        }
+
+        private void renderWithHandler(@NotNull NodeRenderingHandlerWrapper nodeRenderer, @NotNull Node node, @NotNull NodeRendererSubContext subContext) {
+            if (instrumentation == null) {
+                nodeRenderer.myRenderingHandler.render(node, subContext, subContext.htmlWriter);
+            } else {
+                long start = System.nanoTime();
+                nodeRenderer.myRenderingHandler.render(node, subContext, subContext.htmlWriter);
+                instrumentation.activity(InstrumentationListener.Activity.NODE_RENDERING, node.getClass(), System.nanoTime() - start);
+            }
+        }
+
         void renderNode(Node node, NodeRendererSubContext subContext) {
             if (node instanceof Document) {
                 // here we render multiple phases
@@ -768,7 +1012,7 @@ public class HtmlRenderer implements IRender {
                 int documentDoNotRenderLinksNesting = getHtmlOptions().doNotRenderLinksInDocument ? 1 : 0;
                 this.htmlIdGenerator.generateIds(document);
 
-                for (RenderingPhase phase : RenderingPhase.values()) {
+                for (RenderingPhase phase : RENDERING_PHASES) {
                     if (phase != RenderingPhase.BODY && !renderingPhases.contains(phase)) { continue; }
                     this.phase = phase;
                     // here we render multiple phases
@@ -785,14 +1029,14 @@ public class HtmlRenderer implements IRender {
                     }
 
                     if (getRenderingPhase() == RenderingPhase.BODY) {
-                        NodeRenderingHandlerWrapper nodeRenderer = renderers.get(node.getClass());
+                        NodeRenderingHandlerWrapper nodeRenderer = getRenderingHandler(node.getClass());
                         if (nodeRenderer != null) {
                             subContext.doNotRenderLinksNesting = documentDoNotRenderLinksNesting;
                             NodeRenderingHandlerWrapper prevWrapper = subContext.renderingHandlerWrapper;
                             try {
                                 subContext.renderingNode = node;
                                 subContext.renderingHandlerWrapper = nodeRenderer;
-                                nodeRenderer.myRenderingHandler.render(node, subContext, subContext.htmlWriter);
+                                renderWithHandler(nodeRenderer, node, subContext);
                             } finally {
                                 subContext.renderingHandlerWrapper = prevWrapper;
                                 subContext.renderingNode = null;
@@ -802,7 +1046,7 @@ public class HtmlRenderer implements IRender {
                     }
                 }
             } else {
-                NodeRenderingHandlerWrapper nodeRenderer = renderers.get(node.getClass());
+                NodeRenderingHandlerWrapper nodeRenderer = getRenderingHandler(node.getClass());
                 if (nodeRenderer != null) {
                     Node oldNode = this.renderingNode;
                     int oldDoNotRenderLinksNesting = subContext.doNotRenderLinksNesting;
@@ -810,7 +1054,12 @@ public class HtmlRenderer implements IRender {
                     try {
                         subContext.renderingNode = node;
                         subContext.renderingHandlerWrapper = nodeRenderer;
-                        nodeRenderer.myRenderingHandler.render(node, subContext, subContext.htmlWriter);
+                        // NOTE: rendering recursion depth is limited by stack size, do not add a frame when not instrumented
+                        if (instrumentation == null) {
+                            nodeRenderer.myRenderingHandler.render(node, subContext, subContext.htmlWriter);
+                        } else {
+                            renderWithHandler(nodeRenderer, node, subContext);
+                        }
                     } finally {
                         subContext.renderingNode = oldNode;
                         subContext.doNotRenderLinksNesting = oldDoNotRenderLinksNesting;
@@ -826,14 +1075,26 @@ public class HtmlRenderer implements IRender {
 
         @SuppressWarnings("WeakerAccess")
         protected void renderChildrenNode(Node parent, NodeRendererSubContext subContext) {
+            boolean streamBlocks = streamOutput != null && parent instanceof Document && subContext == this && phase == RenderingPhase.BODY;
+
             Node node = parent.getFirstChild();
             while (node != null) {
                 Node next = node.getNext();
                 renderNode(node, subContext);
+                if (streamBlocks) streamCompletedLines();
                 node = next;
             }
         }
 
+        private void streamCompletedLines() {
+            try {
+                htmlWriter.appendCompletedTo(streamOutput);
+            } catch (IOException e) {
+                // output failed, rest of document is not rendered
+                throw new UncheckedIOException(e);
+            }
+        }
+
         @SuppressWarnings("WeakerAccess")
         private class SubNodeRenderer extends NodeRendererSubContext implements NodeRendererContext {
             private final MainNodeRenderer myMainNodeRenderer;
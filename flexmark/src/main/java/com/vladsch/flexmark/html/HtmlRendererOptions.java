@@ -45,6 +45,7 @@ public class HtmlRendererOptions {
     //public final boolean wrapTightItemParagraphInSpan;
     public final @NotNull String autolinkWwwPrefix;
     public final @Nullable Pattern suppressedLinks;
+    public final boolean streamTopLevelBlocks;
 
     public HtmlRendererOptions(DataHolder options) {
         softBreak = HtmlRenderer.SOFT_BREAK.get(options);
@@ -82,6 +83,7 @@ public class HtmlRendererOptions {
         noPTagsUseBr = HtmlRenderer.NO_P_TAGS_USE_BR.get(options);
         inlineCodeSpliceClass = HtmlRenderer.INLINE_CODE_SPLICE_CLASS.get(options);
         autolinkWwwPrefix = HtmlRenderer.AUTOLINK_WWW_PREFIX.get(options);
+        streamTopLevelBlocks = HtmlRenderer.STREAM_TOP_LEVEL_BLOCKS.get(options);
 
         String ignoreLinks = HtmlRenderer.SUPPRESSED_LINKS.get(options);
         suppressedLinks = ignoreLinks.isEmpty() ? null : Pattern.compile(ignoreLinks);
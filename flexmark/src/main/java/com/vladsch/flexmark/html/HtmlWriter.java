@@ -32,6 +32,12 @@ public class HtmlWriter extends HtmlFormattingAppendableBase<HtmlWriter> {
         setSuppressCloseTagLine(suppressCloseTagLine);
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        useAttributes = null;
+    }
+
     void setContext(@NotNull NodeRendererContext context) {
         this.context = context;
     }
@@ -0,0 +1,294 @@
+package com.vladsch.flexmark.html;
+
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Parse and render a batch of markdown documents to HTML using multiple threads
+ * <p>
+ * Parser and HtmlRenderer are shared by all threads. At most maxPending documents are queued or being
+ * processed at a time, sources are only taken from the iterator when a slot is available. Results are passed
+ * to the consumer on the calling thread, in source order if preserveOrder is true, otherwise in completion order.
+ * <p>
+ * If the consumer throws or the calling thread is interrupted, documents still pending are cancelled.
+ */
+public class MarkdownBatchProcessor {
+    final private @NotNull Parser parser;
+    final private @NotNull HtmlRenderer renderer;
+    final private @Nullable Executor executor;
+    final private int maxPending;
+    final private boolean preserveOrder;
+
+    MarkdownBatchProcessor(@NotNull Builder builder) {
+        this.parser = builder.parser;
+        this.renderer = builder.renderer;
+        this.executor = builder.executor;
+        this.maxPending = builder.maxPending > 0 ? builder.maxPending : 2 * Runtime.getRuntime().availableProcessors();
+        this.preserveOrder = builder.preserveOrder;
+    }
+
+    public static @NotNull Builder builder(@NotNull Parser parser, @NotNull HtmlRenderer renderer) {
+        return new Builder(parser, renderer);
+    }
+
+    public @NotNull Parser getParser() {
+        return parser;
+    }
+
+    public @NotNull HtmlRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Process all sources
+     *
+     * @param sources  markdown sources
+     * @param consumer consumer of results, called on the calling thread
+     * @return statistics for the batch
+     * @throws InterruptedException if interrupted while waiting for results
+     */
+    public @NotNull BatchStatistics process(@NotNull Iterable<? extends CharSequence> sources, @NotNull Consumer<BatchResult> consumer) throws InterruptedException {
+        return process(sources.iterator(), consumer);
+    }
+
+    /**
+     * Process all sources
+     *
+     * @param sources  markdown sources, only advanced when there is room for another pending document
+     * @param consumer consumer of results, called on the calling thread
+     * @return statistics for the batch
+     * @throws InterruptedException if interrupted while waiting for results
+     */
+    public @NotNull BatchStatistics process(@NotNull Iterator<? extends CharSequence> sources, @NotNull Consumer<BatchResult> consumer) throws InterruptedException {
+        Executor useExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        CompletionService<BatchResult> completionService = new ExecutorCompletionService<>(useExecutor);
+        ArrayDeque<Future<BatchResult>> pending = new ArrayDeque<>(maxPending);
+        BatchStatistics statistics = new BatchStatistics();
+
+        long start = System.nanoTime();
+        int index = 0;
+
+        try {
+            while (true) {
+                while (pending.size() < maxPending && sources.hasNext()) {
+                    CharSequence source = sources.next();
+                    int sourceIndex = index++;
+                    Callable<BatchResult> task = () -> processSource(sourceIndex, source);
+
+                    if (preserveOrder) {
+                        // completion service would keep all completed results queued since they are not taken from it
+                        FutureTask<BatchResult> futureTask = new FutureTask<>(task);
+                        useExecutor.execute(futureTask);
+                        pending.add(futureTask);
+                    } else {
+                        pending.add(completionService.submit(task));
+                    }
+                }
+
+                if (pending.isEmpty()) break;
+
+                Future<BatchResult> future;
+                if (preserveOrder) {
+                    future = pending.removeFirst();
+                } else {
+                    future = completionService.take();
+                    pending.remove(future);
+                }
+
+                BatchResult result = getResult(future);
+                statistics.add(result);
+                consumer.accept(result);
+            }
+        } finally {
+            // only left when consumer threw or waiting was interrupted
+            for (Future<BatchResult> future : pending) {
+                future.cancel(true);
+            }
+        }
+
+        statistics.elapsedNanos = System.nanoTime() - start;
+        return statistics;
+    }
+
+    private static BatchResult getResult(Future<BatchResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // processSource captures exceptions in the result
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private BatchResult processSource(int index, CharSequence source) {
+        long parseStart = System.nanoTime();
+        long renderStart = parseStart;
+        try {
+            Document document = parser.parse(source.toString());
+            renderStart = System.nanoTime();
+
+            String html = renderer.render(document);
+
+            return new BatchResult(index, source, html, null, renderStart - parseStart, System.nanoTime() - renderStart);
+        } catch (Throwable t) {
+            long end = System.nanoTime();
+            return new BatchResult(index, source, null, t, renderStart - parseStart, end - renderStart);
+        }
+    }
+
+    public static class BatchResult {
+        final private int index;
+        final private @NotNull CharSequence source;
+        final private @Nullable String html;
+        final private @Nullable Throwable error;
+        final private long parseNanos;
+        final private long renderNanos;
+
+        BatchResult(int index, @NotNull CharSequence source, @Nullable String html, @Nullable Throwable error, long parseNanos, long renderNanos) {
+            this.index = index;
+            this.source = source;
+            this.html = html;
+            this.error = error;
+            this.parseNanos = parseNanos;
+            this.renderNanos = renderNanos;
+        }
+
+        /**
+         * @return index of the source in the batch
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public @NotNull CharSequence getSource() {
+            return source;
+        }
+
+        /**
+         * @return rendered HTML or null if parsing or rendering threw an exception
+         */
+        public @Nullable String getHtml() {
+            return html;
+        }
+
+        public @Nullable Throwable getError() {
+            return error;
+        }
+
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        public long getRenderNanos() {
+            return renderNanos;
+        }
+    }
+
+    public static class BatchStatistics {
+        private int documentCount;
+        private int errorCount;
+        private long characterCount;
+        private long parseNanos;
+        private long renderNanos;
+        long elapsedNanos;
+
+        void add(BatchResult result) {
+            documentCount++;
+            if (result.error != null) errorCount++;
+            characterCount += result.source.length();
+            parseNanos += result.parseNanos;
+            renderNanos += result.renderNanos;
+        }
+
+        public int getDocumentCount() {
+            return documentCount;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public long getCharacterCount() {
+            return characterCount;
+        }
+
+        /**
+         * @return total parse time of all documents, summed across threads
+         */
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        /**
+         * @return total render time of all documents, summed across threads
+         */
+        public long getRenderNanos() {
+            return renderNanos;
+        }
+
+        /**
+         * @return wall clock time of the batch
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getDocumentsPerSecond() {
+            return elapsedNanos == 0 ? 0 : documentCount * 1e9 / elapsedNanos;
+        }
+
+        public double getCharactersPerSecond() {
+            return elapsedNanos == 0 ? 0 : characterCount * 1e9 / elapsedNanos;
+        }
+    }
+
+    public static class Builder {
+        final @NotNull Parser parser;
+        final @NotNull HtmlRenderer renderer;
+        @Nullable Executor executor;
+        int maxPending;
+        boolean preserveOrder = true;
+
+        Builder(@NotNull Parser parser, @NotNull HtmlRenderer renderer) {
+            this.parser = parser;
+            this.renderer = renderer;
+        }
+
+        /**
+         * @param executor executor to use for processing, null to use {@link ForkJoinPool#commonPool()}
+         * @return this
+         */
+        public @NotNull Builder executor(@Nullable Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param maxPending maximum number of documents queued or being processed, 0 for twice the number of processors
+         * @return this
+         */
+        public @NotNull Builder maxPending(int maxPending) {
+            this.maxPending = maxPending;
+            return this;
+        }
+
+        /**
+         * @param preserveOrder true to pass results to consumer in source order, false for completion order
+         * @return this
+         */
+        public @NotNull Builder preserveOrder(boolean preserveOrder) {
+            this.preserveOrder = preserveOrder;
+            return this;
+        }
+
+        public @NotNull MarkdownBatchProcessor build() {
+            return new MarkdownBatchProcessor(this);
+        }
+    }
+}
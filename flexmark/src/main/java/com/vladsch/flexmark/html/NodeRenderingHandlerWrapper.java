@@ -5,7 +5,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 class NodeRenderingHandlerWrapper {
-    public final @NotNull NodeRenderingHandler<?> myRenderingHandler;
+    public @NotNull NodeRenderingHandler<?> myRenderingHandler;
     public final @Nullable NodeRenderingHandlerWrapper myPreviousRenderingHandler;
 
     public NodeRenderingHandlerWrapper(@NotNull NodeRenderingHandler<?> renderingHandler, @Nullable NodeRenderingHandlerWrapper previousRenderingHandler) {
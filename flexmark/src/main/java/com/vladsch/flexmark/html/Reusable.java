@@ -0,0 +1,22 @@
+package com.vladsch.flexmark.html;
+
+import com.vladsch.flexmark.html.renderer.LinkResolverContext;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implemented by node renderers, link resolvers, attribute providers and html id generators which can be
+ * kept by a pooled rendering context and used for another document, see {@link HtmlRenderer#RENDER_CONTEXT_POOL_SIZE}
+ * <p>
+ * Instances which do not implement this interface are created by their factory for every document.
+ */
+public interface Reusable {
+    /**
+     * Reset all state kept for the previously rendered document and update values taken from options
+     * <p>
+     * Called before rendering the next document, the context has the document and options of the next document.
+     *
+     * @param context rendering context for the next document
+     * @return true if the instance was reset and can be used for the next document, false to have its factory create a new instance
+     */
+    boolean reset(@NotNull LinkResolverContext context);
+}
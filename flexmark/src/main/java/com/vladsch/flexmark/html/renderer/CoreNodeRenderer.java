@@ -7,6 +7,7 @@ import com.vladsch.flexmark.ast.util.TextCollectingVisitor;
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.html.HtmlRendererOptions;
 import com.vladsch.flexmark.html.HtmlWriter;
+import com.vladsch.flexmark.html.Reusable;
 import com.vladsch.flexmark.parser.ListOptions;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.Document;
@@ -34,19 +35,19 @@ import static com.vladsch.flexmark.html.renderer.LinkStatus.UNKNOWN;
  * The node renderer that renders all the core nodes (comes last in the order of node renderers).
  */
 @SuppressWarnings({ "WeakerAccess", "OverlyCoupledClass" })
-public class CoreNodeRenderer implements NodeRenderer {
+public class CoreNodeRenderer implements NodeRenderer, Reusable {
     public static final AttributablePart LOOSE_LIST_ITEM = new AttributablePart("LOOSE_LIST_ITEM");
     public static final AttributablePart TIGHT_LIST_ITEM = new AttributablePart("TIGHT_LIST_ITEM");
     public static final AttributablePart PARAGRAPH_LINE = new AttributablePart("PARAGRAPH_LINE");
     public static final AttributablePart CODE_CONTENT = new AttributablePart("FENCED_CODE_CONTENT");
 
-    private final ListOptions listOptions;
-    private final boolean obfuscateEmail;
-    private final boolean obfuscateEmailRandom;
-    private final ReferenceRepository referenceRepository;
-    private final boolean recheckUndefinedReferences;
-    private final boolean codeContentBlock;
-    private final boolean codeSoftLineBreaks;
+    private ListOptions listOptions;
+    private boolean obfuscateEmail;
+    private boolean obfuscateEmailRandom;
+    private ReferenceRepository referenceRepository;
+    private boolean recheckUndefinedReferences;
+    private boolean codeContentBlock;
+    private boolean codeSoftLineBreaks;
 
     private List<Range> myLines;
     private List<Integer> myEOLs;
@@ -54,6 +55,10 @@ public class CoreNodeRenderer implements NodeRenderer {
     private int nextLineStartOffset;
 
     public CoreNodeRenderer(DataHolder options) {
+        setOptions(options);
+    }
+
+    private void setOptions(DataHolder options) {
         referenceRepository = Parser.REFERENCES.get(options);
         recheckUndefinedReferences = HtmlRenderer.RECHECK_UNDEFINED_REFERENCES.get(options);
         listOptions = ListOptions.get(options);
@@ -67,6 +72,12 @@ public class CoreNodeRenderer implements NodeRenderer {
         nextLineStartOffset = 0;
     }
 
+    @Override
+    public boolean reset(@NotNull LinkResolverContext context) {
+        setOptions(context.getOptions());
+        return true;
+    }
+
     @SuppressWarnings("OverlyCoupledMethod")
     @Override
     public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
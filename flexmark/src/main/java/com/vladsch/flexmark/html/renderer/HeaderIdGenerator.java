@@ -4,6 +4,7 @@ import com.vladsch.flexmark.ast.AnchorRefTarget;
 import com.vladsch.flexmark.ast.util.AnchorRefTargetBlockVisitor;
 import com.vladsch.flexmark.html.Disposable;
 import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.Reusable;
 import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.ast.Node;
 import org.jetbrains.annotations.NotNull;
@@ -11,7 +12,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 
-public class HeaderIdGenerator implements HtmlIdGenerator, Disposable {
+public class HeaderIdGenerator implements HtmlIdGenerator, Disposable, Reusable {
     HashMap<String, Integer> headerBaseIds = new HashMap<>();
     boolean resolveDupes;
     String toDashChars;
@@ -24,6 +25,14 @@ public class HeaderIdGenerator implements HtmlIdGenerator, Disposable {
         headerBaseIds = null;
     }
 
+    @Override
+    public boolean reset(@NotNull LinkResolverContext context) {
+        // options are read by generateIds()
+        if (headerBaseIds == null) return false;
+        headerBaseIds.clear();
+        return true;
+    }
+
     @Override
     public void generateIds(Document document) {
         resolveDupes = HtmlRenderer.HEADER_ID_GENERATOR_RESOLVE_DUPES.get(document);
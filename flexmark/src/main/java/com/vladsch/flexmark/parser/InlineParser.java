@@ -23,6 +23,13 @@ public interface InlineParser extends LightInlineParser {
     void initializeDocument(@NotNull Document document);
     void finalizeDocument(@NotNull Document document);
 
+    /**
+     * Set deadline of guarded parsing, called before {@link #initializeDocument(Document)}
+     *
+     * @param parseDeadline System.nanoTime() after which guarded parsing of the document stops parsing markdown elements, 0 if there is no time limit
+     */
+    default void setParseDeadline(long parseDeadline) {}
+
     /**
      * @param input the content to parse as inline
      * @param node  the node to append resulting nodes to (as children)
@@ -1,6 +1,7 @@
 package com.vladsch.flexmark.parser;
 
 import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.DataKey;
 
 public class InlineParserOptions {
     public final boolean matchLookaheadFirst;
@@ -15,6 +16,11 @@ public class InlineParserOptions {
     public final boolean intellijDummyIdentifier;
     public final boolean parseJekyllMacrosInUrls;
     public final boolean useHardcodedLinkAddressParser;
+    public final boolean useHardcodedInlineScanners;
+    public final boolean htmlForTranslator;
+    public final int maxDelimiterRuns;
+    public final int maxBrackets;
+    public final int maxInlineNodes;
 
     public InlineParserOptions(DataHolder options) {
         matchLookaheadFirst = Parser.MATCH_NESTED_LINK_REFS_FIRST.get(options);
@@ -26,8 +32,20 @@ public class InlineParserOptions {
         intellijDummyIdentifier = Parser.INTELLIJ_DUMMY_IDENTIFIER.get(options);
         parseJekyllMacrosInUrls = Parser.PARSE_JEKYLL_MACROS_IN_URLS.get(options);
         useHardcodedLinkAddressParser = Parser.USE_HARDCODED_LINK_ADDRESS_PARSER.get(options);
+        useHardcodedInlineScanners = Parser.USE_HARDCODED_INLINE_SCANNERS.get(options);
+        htmlForTranslator = Parser.HTML_FOR_TRANSLATOR.get(options);
         codeSoftLineBreaks = Parser.CODE_SOFT_LINE_BREAKS.get(options);
         inlineDelimiterDirectionalPunctuations = Parser.INLINE_DELIMITER_DIRECTIONAL_PUNCTUATIONS.get(options);
         linksAllowMatchedParentheses = Parser.LINKS_ALLOW_MATCHED_PARENTHESES.get(options);
+
+        boolean guardedParsing = Parser.GUARDED_PARSING.get(options);
+        maxDelimiterRuns = guardLimit(guardedParsing, Parser.MAX_DELIMITER_RUNS, options);
+        maxBrackets = guardLimit(guardedParsing, Parser.MAX_BRACKETS, options);
+        maxInlineNodes = guardLimit(guardedParsing, Parser.MAX_INLINE_NODES, options);
+    }
+
+    private static int guardLimit(boolean guardedParsing, DataKey<Integer> key, DataHolder options) {
+        int limit = guardedParsing ? key.get(options) : 0;
+        return limit > 0 ? limit : Integer.MAX_VALUE;
     }
 }
@@ -0,0 +1,239 @@
+package com.vladsch.flexmark.parser;
+
+import com.vladsch.flexmark.parser.block.ParserPhase;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe instrumentation listener which keeps a histogram for every reported value
+ * <p>
+ * Histogram names:
+ * <ul>
+ *     <li>{@code phase:<ParserPhase>} time in nanoseconds spent in parser phase</li>
+ *     <li>{@code <Activity>:<source class name>} time in nanoseconds spent in extension point call of the source</li>
+ *     <li>{@code parse.nanos}, {@code parse.nodes}, {@code parse.allocatedBytes} per parsed document</li>
+ *     <li>{@code render.nanos}, {@code render.nodes}, {@code render.allocatedBytes} per rendered document</li>
+ * </ul>
+ * Use one aggregator for parser and renderer options to have all values in one place.
+ * <p>
+ * Phase and activity histograms are looked up by phase and by activity and source class, names are only built the first time.
+ */
+public class InstrumentationAggregator implements InstrumentationListener {
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ParserPhase, Histogram> phaseHistograms = new ConcurrentHashMap<>();
+    private final EnumMap<Activity, ConcurrentHashMap<Class<?>, Histogram>> activityHistograms = new EnumMap<>(Activity.class);
+
+    public InstrumentationAggregator() {
+        for (Activity activity : Activity.values()) {
+            activityHistograms.put(activity, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void phaseFinished(@NotNull Document document, @NotNull ParserPhase phase, long nanos) {
+        phaseHistograms.computeIfAbsent(phase, key -> getOrCreate("phase:" + key.name())).add(nanos);
+    }
+
+    @Override
+    public void activity(@NotNull Activity activity, @NotNull Object source, long nanos) {
+        Class<?> sourceClass = source instanceof Class<?> ? (Class<?>) source : source.getClass();
+        activityHistograms.get(activity).computeIfAbsent(sourceClass, key -> getOrCreate(activity.name() + ":" + key.getName())).add(nanos);
+    }
+
+    @Override
+    public void documentParsed(@NotNull Document document, long nanos, int nodeCount, long allocatedBytes) {
+        add("parse.nanos", nanos);
+        add("parse.nodes", nodeCount);
+        if (allocatedBytes >= 0) add("parse.allocatedBytes", allocatedBytes);
+    }
+
+    @Override
+    public void documentRendered(@NotNull Node node, long nanos, int nodeCount, long allocatedBytes) {
+        add("render.nanos", nanos);
+        add("render.nodes", nodeCount);
+        if (allocatedBytes >= 0) add("render.allocatedBytes", allocatedBytes);
+    }
+
+    /**
+     * Add value to histogram
+     *
+     * @param name  histogram name
+     * @param value value to add
+     */
+    public void add(@NotNull String name, long value) {
+        getOrCreate(name).add(value);
+    }
+
+    private @NotNull Histogram getOrCreate(@NotNull String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public @Nullable Histogram getHistogram(@NotNull String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * @return copies of all histograms sorted by name
+     */
+    public @NotNull Map<String, Histogram> getHistograms() {
+        TreeMap<String, Histogram> result = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().copy());
+        }
+        return result;
+    }
+
+    public void clear() {
+        phaseHistograms.clear();
+        for (ConcurrentHashMap<Class<?>, Histogram> sourceHistograms : activityHistograms.values()) {
+            sourceHistograms.clear();
+        }
+        histograms.clear();
+    }
+
+    /**
+     * Export all histograms as text, one line per histogram with count, total, mean, 50th, 90th, 99th percentile and max value
+     *
+     * @param out appendable to which to export
+     * @throws IOException if thrown by appendable
+     */
+    public void export(@NotNull Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "%-80s %10s %16s %14s %14s %14s %14s %14s%n", "name", "count", "total", "mean", "p50", "p90", "p99", "max"));
+
+        for (Map.Entry<String, Histogram> entry : getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.append(String.format(Locale.US, "%-80s %10d %16d %14d %14d %14d %14d %14d%n", entry.getKey(), histogram.getCount(), histogram.getTotal(), histogram.getMean(),
+                    histogram.getPercentile(50), histogram.getPercentile(90), histogram.getPercentile(99), histogram.getMax()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        try {
+            export(out);
+        } catch (IOException ignored) {
+        }
+        return out.toString();
+    }
+
+    /**
+     * Histogram of non-negative values with 4 buckets per power of 2, percentiles are within 25% of actual values
+     * <p>
+     * Adding values does not lock, values read while values are being added may not include all of the concurrently added values.
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 256;
+
+        private final AtomicLongArray buckets;
+        private final LongAdder count;
+        private final LongAdder total;
+        private final LongAccumulator min;
+        private final LongAccumulator max;
+
+        public Histogram() {
+            buckets = new AtomicLongArray(BUCKETS);
+            count = new LongAdder();
+            total = new LongAdder();
+            min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+            max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        }
+
+        private Histogram(@NotNull Histogram other) {
+            this();
+            for (int i = 0; i < BUCKETS; i++) {
+                long value = other.buckets.get(i);
+                buckets.set(i, value);
+                count.add(value);
+            }
+            total.add(other.total.sum());
+            min.accumulate(other.min.get());
+            max.accumulate(other.max.get());
+        }
+
+        public void add(long value) {
+            buckets.incrementAndGet(getBucket(Math.max(0, value)));
+            count.increment();
+            total.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
+        }
+
+        public @NotNull Histogram copy() {
+            return new Histogram(this);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotal() {
+            return total.sum();
+        }
+
+        public long getMin() {
+            return count.sum() == 0 ? 0 : min.get();
+        }
+
+        public long getMax() {
+            return count.sum() == 0 ? 0 : max.get();
+        }
+
+        public long getMean() {
+            long count = this.count.sum();
+            return count == 0 ? 0 : total.sum() / count;
+        }
+
+        /**
+         * @param percentile percentile, 0 to 100
+         * @return upper bound of the bucket containing the percentile value, limited to max value
+         */
+        public long getPercentile(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                count += counts[i];
+            }
+            if (count == 0) return 0;
+
+            long min = this.min.get();
+            long max = this.max.get();
+            long target = Math.max(1, (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                sum += counts[i];
+                if (sum >= target) {
+                    return Math.max(min, Math.min(max, getBucketUpperBound(i)));
+                }
+            }
+            return max;
+        }
+
+        static int getBucket(long value) {
+            if (value < 4) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - 2)) & 3;
+            return (exponent - 1) * 4 + subBucket;
+        }
+
+        static long getBucketUpperBound(int bucket) {
+            if (bucket < 4) return bucket;
+            int exponent = bucket / 4 + 1;
+            long lowerBound = (long) (4 + bucket % 4) << (exponent - 2);
+            return lowerBound + (1L << (exponent - 2)) - 1;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.vladsch.flexmark.parser;
+
+import com.vladsch.flexmark.parser.block.ParserPhase;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener for parse and render timings, set with {@link Parser#INSTRUMENTATION} and {@link com.vladsch.flexmark.html.HtmlRenderer#INSTRUMENTATION}
+ * <p>
+ * When no listener is set, parser and renderer do not take any timings. Listener methods are called on the thread doing the
+ * parsing or rendering, a listener shared by parsers or renderers used concurrently must be thread-safe.
+ * <p>
+ * Times are in nanoseconds and include time spent in nested calls, for example rendering a node includes the time to render its
+ * children and an inline parser extension includes time to parse nested inline elements.
+ * <p>
+ * See {@link InstrumentationAggregator} for a listener which collects histograms of all reported values.
+ */
+public interface InstrumentationListener {
+    enum Activity {
+        /**
+         * {@link com.vladsch.flexmark.parser.block.BlockParserFactory#tryStart}, source is the block parser factory
+         */
+        BLOCK_START,
+        /**
+         * {@link com.vladsch.flexmark.parser.block.ParagraphPreProcessor#preProcessBlock}, source is the paragraph pre-processor factory
+         */
+        PARAGRAPH_PRE_PROCESSOR,
+        /**
+         * {@link com.vladsch.flexmark.parser.block.BlockPreProcessor#preProcess}, source is the block pre-processor factory
+         */
+        BLOCK_PRE_PROCESSOR,
+        /**
+         * {@link InlineParserExtension#parse}, source is the inline parser extension
+         */
+        INLINE_PARSER_EXTENSION,
+        /**
+         * {@link PostProcessor#process} or {@link PostProcessor#processDocument}, source is the post processor factory
+         */
+        POST_PROCESSOR,
+        /**
+         * {@link com.vladsch.flexmark.html.renderer.NodeRenderingHandler} call, source is the node class
+         */
+        NODE_RENDERING,
+    }
+
+    /**
+     * Parser started a phase
+     * <p>
+     * Every started phase is finished before the next one starts. {@link ParserPhase#DONE} is not started, the document is
+     * reported by {@link #documentParsed} after the last phase finished.
+     *
+     * @param document document being parsed
+     * @param phase    phase which started
+     */
+    default void phaseStarted(@NotNull Document document, @NotNull ParserPhase phase) {}
+
+    /**
+     * Parser finished a phase
+     *
+     * @param document document being parsed
+     * @param phase    phase which finished
+     * @param nanos    time spent in the phase
+     */
+    default void phaseFinished(@NotNull Document document, @NotNull ParserPhase phase, long nanos) {}
+
+    /**
+     * Extension point call finished
+     *
+     * @param activity type of extension point
+     * @param source   factory, extension or node class responsible for the time, see {@link Activity}
+     * @param nanos    time spent in the call
+     */
+    default void activity(@NotNull Activity activity, @NotNull Object source, long nanos) {}
+
+    /**
+     * Document was parsed, including post processing
+     *
+     * @param document       parsed document
+     * @param nanos          total parse time
+     * @param nodeCount      number of nodes in the document, including the document node
+     * @param allocatedBytes bytes allocated by the parsing thread or -1 if the JVM does not provide allocation counts
+     */
+    default void documentParsed(@NotNull Document document, long nanos, int nodeCount, long allocatedBytes) {}
+
+    /**
+     * Node was rendered
+     *
+     * @param node           rendered node, usually a document
+     * @param nanos          total render time
+     * @param nodeCount      number of nodes in the rendered tree, including the rendered node
+     * @param allocatedBytes bytes allocated by the rendering thread or -1 if the JVM does not provide allocation counts
+     */
+    default void documentRendered(@NotNull Node node, long nanos, int nodeCount, long allocatedBytes) {}
+
+    /**
+     * @return bytes allocated by the current thread so far or -1 if the JVM does not provide allocation counts
+     */
+    static long getThreadAllocatedBytes() {
+        return ThreadAllocatedBytes.get();
+    }
+
+    /**
+     * @param node root node
+     * @return number of nodes in the tree, including the root node
+     */
+    static int getNodeCount(@NotNull Node node) {
+        int count = 1;
+        for (Node ignored : node.getDescendants()) {
+            count++;
+        }
+        return count;
+    }
+}
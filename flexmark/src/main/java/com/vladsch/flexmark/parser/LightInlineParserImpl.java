@@ -12,7 +12,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,7 +27,7 @@ public class LightInlineParserImpl implements LightInlineParser {
 
     public LightInlineParserImpl(DataHolder dataOptions) {
         this.options = new InlineParserOptions(dataOptions);
-        this.myParsing = new Parsing(dataOptions);
+        this.myParsing = Parsing.of(dataOptions);
     }
 
     @NotNull
@@ -162,9 +161,9 @@ public class LightInlineParserImpl implements LightInlineParser {
         matcher.region(index, input.length());
         boolean m = matcher.find();
         if (m) {
+            // NOTE: toMatchResult() copies the whole input to a String, making matching quadratic in input length
             index = matcher.end();
-            MatchResult result = matcher.toMatchResult();
-            return input.subSequence(result.start(), result.end());
+            return input.subSequence(matcher.start(), matcher.end());
         } else {
             return null;
         }
@@ -186,13 +185,12 @@ public class LightInlineParserImpl implements LightInlineParser {
         boolean m = matcher.find();
         if (m) {
             index = matcher.end();
-            MatchResult result = matcher.toMatchResult();
             int iMax = matcher.groupCount() + 1;
             BasedSequence[] results = new BasedSequence[iMax];
-            results[0] = input.subSequence(result.start(), result.end());
+            results[0] = input.subSequence(matcher.start(), matcher.end());
             for (int i = 1; i < iMax; i++) {
-                if (matcher.group(i) != null) {
-                    results[i] = input.subSequence(result.start(i), result.end(i));
+                if (matcher.start(i) != -1) {
+                    results[i] = input.subSequence(matcher.start(i), matcher.end(i));
                 } else {
                     results[i] = null;
                 }
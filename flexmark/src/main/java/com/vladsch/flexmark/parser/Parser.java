@@ -1,5 +1,6 @@
 package com.vladsch.flexmark.parser;
 
+import com.vladsch.flexmark.ast.*;
 import com.vladsch.flexmark.ast.util.ReferenceRepository;
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.block.BlockPreProcessorFactory;
@@ -17,14 +18,23 @@ import com.vladsch.flexmark.util.builder.Extension;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.data.MutableDataHolder;
+import com.vladsch.flexmark.util.data.NullableDataKey;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
+import com.vladsch.flexmark.util.sequence.ByteBufferCharSequence;
 import com.vladsch.flexmark.util.sequence.CharSubSequence;
+import com.vladsch.flexmark.util.sequence.managed.BaseSequenceManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * Parses input text to a tree of nodes.
@@ -45,6 +55,41 @@ public class Parser implements IParse {
 
     public static final DataKey<Boolean> TRACK_DOCUMENT_LINES = new DataKey<>("TRACK_DOCUMENT_LINES", false);
 
+    /**
+     * Parse inlines of blocks in parallel using {@link #PARALLEL_INLINE_PARSING_EXECUTOR}, each worker with its own inline parser.
+     * <p>
+     * Node repositories in document data are read only while inlines are parsed in parallel.
+     * <p>
+     * NOTE: only use with extensions whose inline parsing does not modify document level data, for example jekyll tag extension adds tags to a document list.
+     */
+    public static final DataKey<Boolean> PARALLEL_INLINE_PARSING = new DataKey<>("PARALLEL_INLINE_PARSING", false);
+    /**
+     * Minimum number of blocks with inline content per worker for parallel inline parsing, documents with fewer blocks are parsed sequentially
+     */
+    public static final DataKey<Integer> PARALLEL_INLINE_PARSING_MIN_BLOCKS = new DataKey<>("PARALLEL_INLINE_PARSING_MIN_BLOCKS", 64);
+    /**
+     * Manager of base sequences used by {@link #parse(String)}, documents parsed from equal strings share one base sequence.
+     * Default null to create a new base sequence for every document.
+     */
+    public static final NullableDataKey<BaseSequenceManager> BASE_SEQUENCE_MANAGER = new NullableDataKey<>("BASE_SEQUENCE_MANAGER");
+    /**
+     * Executor for parallel inline parsing, default null to use {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * <p>
+     * Number of workers is limited to parallelism of a ForkJoinPool or maximum pool size of a ThreadPoolExecutor, plus the parsing thread.
+     */
+    public static final NullableDataKey<Executor> PARALLEL_INLINE_PARSING_EXECUTOR = new NullableDataKey<>("PARALLEL_INLINE_PARSING_EXECUTOR");
+    /**
+     * Apply node post processors of a dependency stage to each node in one pass over the tracked nodes, instead of a pass for each post processor.
+     * <p>
+     * Only consecutive post processors of a stage whose {@link PostProcessorFactory#isNodeLocal()} is true are fused, others get a
+     * pass each, so results are the same as with separate passes.
+     */
+    public static final DataKey<Boolean> FUSED_POST_PROCESSING = new DataKey<>("FUSED_POST_PROCESSING", false);
+    /**
+     * Listener for parser phase, extension point and document timings, null for no instrumentation. See {@link InstrumentationListener}
+     */
+    public static final NullableDataKey<InstrumentationListener> INSTRUMENTATION = new NullableDataKey<>("INSTRUMENTATION");
+
     public static final DataKey<Boolean> BLOCK_QUOTE_PARSER = new DataKey<>("BLOCK_QUOTE_PARSER", true);
     public static final DataKey<Boolean> BLOCK_QUOTE_EXTEND_TO_BLANK_LINE = new DataKey<>("BLOCK_QUOTE_EXTEND_TO_BLANK_LINE", false);
     public static final DataKey<Boolean> BLOCK_QUOTE_IGNORE_BLANK_LINE = new DataKey<>("BLOCK_QUOTE_IGNORE_BLANK_LINE", false);
@@ -94,6 +139,50 @@ public class Parser implements IParse {
     public static final DataKey<Boolean> BLANK_LINES_IN_AST = SharedDataKeys.BLANK_LINES_IN_AST;
     public static final DataKey<Boolean> USE_HARDCODED_LINK_ADDRESS_PARSER = new DataKey<>("USE_HARDCODED_LINK_ADDRESS_PARSER", true);
 
+    /**
+     * USE_HARDCODED_INLINE_SCANNERS default true, when true link labels, link titles, autolinks, inline HTML and entities are
+     * matched by hand rolled scanners which take linear time, instead of regex patterns of {@link com.vladsch.flexmark.ast.util.Parsing}
+     */
+    public static final DataKey<Boolean> USE_HARDCODED_INLINE_SCANNERS = new DataKey<>("USE_HARDCODED_INLINE_SCANNERS", true);
+
+    /**
+     * GUARDED_PARSING default false, when true parsing of untrusted input is bounded by the MAX_ limits and PARSE_TIME_LIMIT below.
+     * Input beyond a limit is parsed as literal text instead of markdown elements, limits do not apply when false.
+     */
+    public static final DataKey<Boolean> GUARDED_PARSING = new DataKey<>("GUARDED_PARSING", false);
+
+    /**
+     * MAX_BLOCK_NESTING default 64, maximum depth of nested block quotes, list items and other container blocks for guarded parsing.
+     * Block markers beyond this depth are added to the text of a paragraph.
+     */
+    public static final DataKey<Integer> MAX_BLOCK_NESTING = new DataKey<>("MAX_BLOCK_NESTING", 64);
+
+    /**
+     * MAX_DELIMITER_RUNS default 1000, maximum number of emphasis delimiter runs in a block added to the delimiter stack for guarded parsing.
+     * Delimiters after the limit are literal text.
+     */
+    public static final DataKey<Integer> MAX_DELIMITER_RUNS = new DataKey<>("MAX_DELIMITER_RUNS", 1000);
+
+    /**
+     * MAX_BRACKETS default 1000, maximum number of link and image openers in a block for guarded parsing.
+     * Openers after the limit are literal text so the number of close brackets which look back for an opener and scan ahead
+     * for link destinations or reference labels is bounded.
+     */
+    public static final DataKey<Integer> MAX_BRACKETS = new DataKey<>("MAX_BRACKETS", 1000);
+
+    /**
+     * MAX_INLINE_NODES default 50000, maximum number of inline elements parsed in a block for guarded parsing.
+     * The rest of the block is added as literal text.
+     */
+    public static final DataKey<Integer> MAX_INLINE_NODES = new DataKey<>("MAX_INLINE_NODES", 50000);
+
+    /**
+     * PARSE_TIME_LIMIT default 0, when greater than 0 maximum time in milliseconds to parse a document for guarded parsing.
+     * After it has passed no new blocks are started and the text of remaining blocks is not parsed for inline elements,
+     * so the result depends on the speed of the machine.
+     */
+    public static final DataKey<Integer> PARSE_TIME_LIMIT = new DataKey<>("PARSE_TIME_LIMIT", 0);
+
     /**
      * STRONG_WRAPS_EMPHASIS default false, when true makes parsing CommonMark Spec 0.27 compliant
      */
@@ -282,6 +371,47 @@ public class Parser implements IParse {
 
     // separate setting for CODE_BLOCK_INDENT
     public static final DataKey<Integer> CODE_BLOCK_INDENT = new DataKey<>("CODE_BLOCK_INDENT", LISTS_ITEM_INDENT);
+
+    static final int WARM_UP_ITERATIONS = 200;
+    static final String WARM_UP_SAMPLE = "" +
+            "# Heading\n" +
+            "\n" +
+            "Setext Heading\n" +
+            "--------------\n" +
+            "\n" +
+            "Paragraph with *emphasis*, **strong emphasis**, `code`, [link](http://example.com \"title\"), [reference][ref],\n" +
+            "![image](image.png), <http://example.com>, <user@example.com>, &amp; entity, \\* escape and <span>inline html</span>.  \n" +
+            "Hard break above.\n" +
+            "\n" +
+            "> Block quote\n" +
+            "> > nested\n" +
+            "\n" +
+            "* bullet item\n" +
+            "  * nested item\n" +
+            "+ loose item\n" +
+            "\n" +
+            "+ second loose item\n" +
+            "\n" +
+            "1. ordered item\n" +
+            "2) ordered item\n" +
+            "\n" +
+            "```java\n" +
+            "fenced code\n" +
+            "```\n" +
+            "\n" +
+            "    indented code\n" +
+            "\n" +
+            "<div>\n" +
+            "html block\n" +
+            "</div>\n" +
+            "\n" +
+            "<!-- comment -->\n" +
+            "\n" +
+            "***\n" +
+            "\n" +
+            "[ref]: http://example.com/ref 'Title'\n" +
+            "";
+
     private final List<CustomBlockParserFactory> blockParserFactories;
     private final Map<Character, DelimiterProcessor> delimiterProcessors;
     private final BitSet delimiterCharacters;
@@ -293,6 +423,7 @@ public class Parser implements IParse {
     private final List<InlineParserExtensionFactory> inlineParserExtensionFactories;
     private final InlineParserFactory inlineParserFactory;
     private final DataHolder options;
+    private final @Nullable BaseSequenceManager baseSequenceManager;
 
     Parser(Builder builder) {
         this.options = builder.toImmutable();
@@ -306,6 +437,7 @@ public class Parser implements IParse {
         this.specialCharacters = InlineParserImpl.calculateSpecialCharacters(this.options, delimiterCharacters);
         this.postProcessorDependencies = PostProcessorManager.calculatePostProcessors(this.options, builder.postProcessorFactories);
         this.inlineParserExtensionFactories = builder.inlineParserExtensionFactories;
+        this.baseSequenceManager = BASE_SEQUENCE_MANAGER.get(this.options);
     }
 
     /**
@@ -321,6 +453,15 @@ public class Parser implements IParse {
         return new Builder(options);
     }
 
+    private @NotNull InlineParser createInlineParser() {
+        return inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories);
+    }
+
+    private @NotNull DocumentParser createDocumentParser() {
+        return new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
+                blockPreProcessorDependencies, createInlineParser(), PARALLEL_INLINE_PARSING.get(options) ? this::createInlineParser : null);
+    }
+
     /**
      * Parse the specified input text into a tree of nodes.
      * <p>
@@ -330,10 +471,9 @@ public class Parser implements IParse {
      * @return the root node
      */
     public @NotNull Document parse(@NotNull BasedSequence input) {
-        DocumentParser documentParser = new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
-                blockPreProcessorDependencies, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
+        DocumentParser documentParser = createDocumentParser();
         Document document = documentParser.parse(input);
-        return postProcess(document);
+        return postProcess(documentParser, document);
     }
 
     /**
@@ -345,10 +485,10 @@ public class Parser implements IParse {
      * @return the root node
      */
     public @NotNull Document parse(@NotNull String input) {
-        DocumentParser documentParser = new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
-                blockPreProcessorDependencies, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
-        Document document = documentParser.parse(BasedSequence.of(input));
-        return postProcess(document);
+        DocumentParser documentParser = createDocumentParser();
+        BasedSequence chars = baseSequenceManager == null ? BasedSequence.of(input) : baseSequenceManager.getBaseSequence(input, null, BasedSequence::of);
+        Document document = documentParser.parse(chars);
+        return postProcess(documentParser, document);
     }
 
     /**
@@ -361,14 +501,222 @@ public class Parser implements IParse {
      * @throws IOException when reading throws an exception
      */
     public @NotNull Document parseReader(@NotNull Reader input) throws IOException {
-        DocumentParser documentParser = new DocumentParser(options, blockParserFactories, paragraphPreProcessorFactories,
-                blockPreProcessorDependencies, inlineParserFactory.inlineParser(options, specialCharacters, delimiterCharacters, delimiterProcessors, linkRefProcessors, inlineParserExtensionFactories));
+        DocumentParser documentParser = createDocumentParser();
         Document document = documentParser.parse(input);
-        return postProcess(document);
+        return postProcess(documentParser, document);
+    }
+
+    /**
+     * Parse the specified UTF-8 file into a tree of nodes.
+     * <p>
+     * The file is memory mapped and used as the base of the document characters without copying,
+     * see {@link #parse(FileChannel, Charset)}.
+     *
+     * @param path path of the file to parse
+     * @return the root node
+     * @throws IOException when the file cannot be opened or mapped
+     */
+    public @NotNull Document parse(@NotNull Path path) throws IOException {
+        return parse(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse the specified file into a tree of nodes.
+     * <p>
+     * The file is memory mapped and used as the base of the document characters without copying,
+     * see {@link #parse(FileChannel, Charset)}.
+     *
+     * @param path    path of the file to parse
+     * @param charset charset of the file
+     * @return the root node
+     * @throws IOException when the file cannot be opened or mapped
+     */
+    public @NotNull Document parse(@NotNull Path path, @NotNull Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(channel, charset);
+        }
+    }
+
+    /**
+     * Parse the file of the specified channel into a tree of nodes. The caller is responsible for closing the channel.
+     * <p>
+     * The file is memory mapped and its characters are decoded on access, without copying for UTF-8, US-ASCII and ISO-8859-1,
+     * see {@link ByteBufferCharSequence}. The mapping is kept by the document's characters until they are garbage collected,
+     * the file should not be modified or truncated while the document is in use.
+     * <p>
+     * Note that this method is thread-safe (a new parser state is used for each invocation).
+     *
+     * @param channel file channel to parse
+     * @param charset charset of the file
+     * @return the root node
+     * @throws IOException when the file cannot be mapped or is larger than 2GB
+     */
+    public @NotNull Document parse(@NotNull FileChannel channel, @NotNull Charset charset) throws IOException {
+        CharSequence chars = ByteBufferCharSequence.map(channel, charset);
+        DocumentParser documentParser = createDocumentParser();
+        Document document = documentParser.parse(BasedSequence.of(chars));
+        return postProcess(documentParser, document);
+    }
+
+    /**
+     * Parse a sample document with common markdown elements to load classes, create shared parsing patterns
+     * and exercise parsing code paths before the first document is parsed
+     * <p>
+     * Intended to be called once after the parser is built, for example on service start up, to reduce latency of first requests.
+     * Instrumentation listeners set in the parser options see the sample documents.
+     *
+     * @return this
+     */
+    public @NotNull Parser warmUp() {
+        return warmUp(WARM_UP_ITERATIONS);
+    }
+
+    /**
+     * Parse a sample document with common markdown elements to load classes, create shared parsing patterns
+     * and exercise parsing code paths before the first document is parsed
+     *
+     * @param iterations number of times to parse the sample document
+     * @return this
+     * @see #warmUp()
+     */
+    public @NotNull Parser warmUp(int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            parse(WARM_UP_SAMPLE);
+        }
+        return this;
+    }
+
+    /**
+     * Re-parse a previously parsed document after an edit, reusing top level blocks which precede the edit.
+     * <p>
+     * The edit replaces text from editStart to editEnd of the previous document's characters with newText.
+     * Parsing resumes at the start of the last top level block which begins at or before the line containing
+     * editStart and is preceded by a blank line. All top level blocks before it are moved from previous to the
+     * resulting document without being parsed again. Text after the resume point is always parsed since its offsets change.
+     * <p>
+     * Reused nodes are moved to the base sequence of the edited text at the same offsets, since text before the edit
+     * is unchanged, and are not post processed again. References defined in reused nodes are transferred to the resulting document.
+     * <p>
+     * A full parse is done when parsed text in either version contains reference definitions, when previous
+     * contains extension reference nodes whose state is updated during parsing or post processing,
+     * when a document post processor is used or {@link #TRACK_DOCUMENT_LINES} is enabled.
+     * <p>
+     * NOTE: previous document should not be used after this call since its reused nodes are moved to the result
+     *
+     * @param previous  document previously returned by this parser
+     * @param editStart start offset of replaced text in previous document characters
+     * @param editEnd   end offset of replaced text in previous document characters
+     * @param newText   replacement text
+     * @return document for the edited text
+     */
+    public @NotNull Document reparse(@NotNull Document previous, int editStart, int editEnd, @NotNull CharSequence newText) {
+        BasedSequence previousChars = previous.getChars();
+        if (editStart < 0 || editStart > editEnd || editEnd > previousChars.length()) {
+            throw new IllegalArgumentException("Edit range [" + editStart + ", " + editEnd + ") is outside of document text length " + previousChars.length());
+        }
+
+        StringBuilder sb = new StringBuilder(previousChars.length() - (editEnd - editStart) + newText.length());
+        sb.append(previousChars, 0, editStart).append(newText).append(previousChars, editEnd, previousChars.length());
+        String input = sb.toString();
+
+        Node restartNode = getReparseStartNode(previous, editStart);
+        if (restartNode == null) {
+            return parse(input);
+        }
+
+        int startIndex = previousChars.startOfLine(restartNode.getStartOffset());
+        DocumentParser documentParser = createDocumentParser();
+
+        Document document = documentParser.parse(input, startIndex, newDocument -> {
+            if (previous.contains(REFERENCES)) {
+                transferReferences(REFERENCES.get(newDocument), REFERENCES.get(previous), false);
+            }
+        });
+
+        for (Node node : document.getDescendants()) {
+            if (node instanceof ReferenceNode) {
+                // new reference definitions can change inline parsing of reused nodes
+                return parse(input);
+            }
+        }
+
+        // reused nodes are moved to the new base, their text is the same since it precedes the edit
+        NodeRebaser rebaser = new NodeRebaser(document.getChars());
+        Node firstChild = document.getFirstChild();
+        Node node = restartNode.getPrevious();
+        while (node != null) {
+            Node previousNode = node.getPrevious();
+            rebaser.rebase(node);
+            document.prependChild(node);
+            node = previousNode;
+        }
+
+        // reused nodes were post processed with the previous document
+        if (firstChild != null) {
+            documentParser.postProcessStarted();
+            document = PostProcessorManager.processDocument(document, postProcessorDependencies, firstChild);
+        }
+        documentParser.documentParsed(document);
+        return document;
+    }
+
+    /**
+     * Get first top level node of the previous document which needs to be parsed after an edit
+     *
+     * @param previous  previous document
+     * @param editStart start offset of the edit
+     * @return first top level node to be parsed or null if a full parse is needed
+     */
+    private @Nullable Node getReparseStartNode(@NotNull Document previous, int editStart) {
+        BasedSequence previousChars = previous.getChars();
+        if (previousChars.getStartOffset() != 0 || TRACK_DOCUMENT_LINES.get(options) || postProcessorDependencies.isWithGlobalScope()) {
+            return null;
+        }
+
+        // parsing can resume at a top level block preceded by a blank line and a closed leaf block, the parser state is the
+        // same as at the start of the document. The following block must also precede the edit, because an edit can change
+        // how a preceding block is parsed. For example, by turning it into a definition list term.
+        int editLineStart = previousChars.startOfLine(editStart);
+        Node restartNode = null;
+        Node candidate = null;
+        int lastEndOffset = 0;
+
+        for (Node child : previous.getChildren()) {
+            int childLineStart = previousChars.startOfLine(child.getStartOffset());
+            if (childLineStart > editLineStart || childLineStart < lastEndOffset) break;
+
+            if (candidate != null) restartNode = candidate;
+
+            Node prevChild = child.getPrevious();
+            candidate = prevChild != null && isReparseBoundary(prevChild)
+                    && previousChars.subSequence(previousChars.startOfLine(childLineStart - 1), childLineStart).isBlank() ? child : null;
+
+            lastEndOffset = child.getEndOffset();
+        }
+
+        if (restartNode == null) return null;
+
+        int startIndex = previousChars.startOfLine(restartNode.getStartOffset());
+        for (Node node : previous.getDescendants()) {
+            if (node instanceof ReferenceNode) {
+                // only core references can be transferred, others have state modified by their references
+                if (!(node instanceof Reference) || node.getStartOffset() >= startIndex) return null;
+            }
+        }
+        return restartNode;
+    }
+
+    private static boolean isReparseBoundary(@NotNull Node node) {
+        // leaf blocks which are closed by a blank line and cannot be continued after one
+        return node instanceof Paragraph || node instanceof Heading || node instanceof ThematicBreak
+                || node instanceof FencedCodeBlock || node instanceof IndentedCodeBlock || node instanceof HtmlBlock
+                || node instanceof Reference || node instanceof BlankLine;
     }
 
-    private Document postProcess(Document document) {
+    private Document postProcess(DocumentParser documentParser, Document document) {
+        documentParser.postProcessStarted();
         document = PostProcessorManager.processDocument(document, postProcessorDependencies);
+        documentParser.documentParsed(document);
         return document;
     }
 
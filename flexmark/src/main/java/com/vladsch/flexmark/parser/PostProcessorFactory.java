@@ -18,6 +18,16 @@ public interface PostProcessorFactory extends Function<Document, PostProcessor>,
      */
     @Nullable Map<Class<?>, Set<Class<?>>> getNodeTypes();
 
+    /**
+     * Node local post processors only look at and change the node they are given and nodes they add in its place,
+     * never its siblings or other nodes of the document. See {@link Parser#FUSED_POST_PROCESSING}
+     *
+     * @return true if node local, only when the post processor is known not to access other nodes
+     */
+    default boolean isNodeLocal() {
+        return false;
+    }
+
     /**
      * @param document for which to create the post processor
      * @return post processor for the document
@@ -0,0 +1,47 @@
+package com.vladsch.flexmark.parser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Allocated bytes of the current thread from HotSpot thread bean, without a compile time dependency on com.sun.management
+ */
+class ThreadAllocatedBytes {
+    private static final ThreadMXBean THREAD_BEAN;
+    private static final Method GET_ALLOCATED_BYTES;
+
+    static {
+        ThreadMXBean threadBean = null;
+        Method getAllocatedBytes = null;
+        try {
+            threadBean = ManagementFactory.getThreadMXBean();
+            Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (beanClass.isInstance(threadBean)) {
+                getAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+                if (((Number) getAllocatedBytes.invoke(threadBean, Thread.currentThread().getId())).longValue() < 0) {
+                    // allocation measurement is disabled
+                    getAllocatedBytes = null;
+                }
+            }
+        } catch (Throwable ignored) {
+            getAllocatedBytes = null;
+        }
+
+        THREAD_BEAN = threadBean;
+        GET_ALLOCATED_BYTES = getAllocatedBytes;
+    }
+
+    private ThreadAllocatedBytes() {
+    }
+
+    static long get() {
+        if (GET_ALLOCATED_BYTES == null) return -1;
+
+        try {
+            return ((Number) GET_ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId())).longValue();
+        } catch (Throwable ignored) {
+            return -1;
+        }
+    }
+}
@@ -12,5 +12,6 @@ public enum ParserPhase {
     PRE_PROCESS_PARAGRAPHS,
     PRE_PROCESS_BLOCKS,
     PARSE_INLINES,
+    POST_PROCESS,
     DONE,
 }
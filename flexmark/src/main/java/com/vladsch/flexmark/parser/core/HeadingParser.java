@@ -29,11 +29,11 @@ public class HeadingParser extends AbstractBlockParser {
         public HeadingParsing(DataHolder options) {
             super(options);
 
-            ATX_HEADING = Parser.HEADING_NO_ATX_SPACE.get(options) ? Pattern.compile("^#{1,6}(?:[ \t]*|$)") : Parser.HEADING_NO_EMPTY_HEADING_WITHOUT_SPACE.get(options) ? Pattern.compile("^#{1,6}(?:[ \t]*(?=[^ \t#])|[ \t]+$)") : Pattern.compile("^#{1,6}(?:[ \t]+|$)");
-            ATX_TRAILING = Parser.HEADING_NO_ATX_SPACE.get(options) ? Pattern.compile("[ \t]*#+[ \t]*$") : Pattern.compile("(^| |\t)[ \t]*#+[ \t]*$");
+            ATX_HEADING = Parser.HEADING_NO_ATX_SPACE.get(options) ? compile("^#{1,6}(?:[ \t]*|$)") : Parser.HEADING_NO_EMPTY_HEADING_WITHOUT_SPACE.get(options) ? compile("^#{1,6}(?:[ \t]*(?=[^ \t#])|[ \t]+$)") : compile("^#{1,6}(?:[ \t]+|$)");
+            ATX_TRAILING = Parser.HEADING_NO_ATX_SPACE.get(options) ? compile("[ \t]*#+[ \t]*$") : compile("(^| |\t)[ \t]*#+[ \t]*$");
 
             int minLength = Parser.HEADING_SETEXT_MARKER_LENGTH.get(options);
-            SETEXT_HEADING = minLength <= 1 ? Pattern.compile("^(?:=+|-+)[ \t]*$") : Pattern.compile("^(?:={" + minLength + ",}|-{" + minLength + ",})[ \t]*$");
+            SETEXT_HEADING = minLength <= 1 ? compile("^(?:=+|-+)[ \t]*$") : compile("^(?:={" + minLength + ",}|-{" + minLength + ",})[ \t]*$");
         }
     }
 
@@ -140,7 +140,6 @@ public class HeadingParser extends AbstractBlockParser {
 
             BasedSequence line = state.getLine();
             int nextNonSpace = state.getNextNonSpaceIndex();
-            BasedSequence paragraph = matchedBlockParser.getParagraphContent();
             Matcher matcher;
             BasedSequence trySequence = line.subSequence(nextNonSpace, line.length());
             matcher = myParsing.ATX_HEADING.matcher(trySequence);
@@ -176,6 +175,8 @@ public class HeadingParser extends AbstractBlockParser {
                         .atIndex(line.length());
             } else {
                 if ((matcher = myParsing.SETEXT_HEADING.matcher(trySequence)).find()) {
+                    // NOTE: paragraph content is only needed for setext lines, getting it for every line is quadratic in paragraph length
+                    BasedSequence paragraph = matchedBlockParser.getParagraphContent();
                     if (paragraph != null) {
                         // setext heading line
                         int level = matcher.group(0).charAt(0) == '=' ? 1 : 2;
@@ -56,31 +56,31 @@ public class HtmlBlockParser extends AbstractBlockParser {
             this.BLOCK_PATTERNS = new Pattern[][] {
                     { null, null }, // not used (no type 0)
                     {
-                            Pattern.compile("^<(?:script|pre|style)(?:\\s|>|$)", Pattern.CASE_INSENSITIVE),
-                            Pattern.compile("</(?:script|pre|style)>", Pattern.CASE_INSENSITIVE)
+                            Parsing.compile("^<(?:script|pre|style)(?:\\s|>|$)", Pattern.CASE_INSENSITIVE),
+                            Parsing.compile("</(?:script|pre|style)>", Pattern.CASE_INSENSITIVE)
                     },
                     {
-                            Pattern.compile("^" + HTML_COMMENT_OPEN),
-                            Pattern.compile(HTML_COMMENT_CLOSE)
+                            Parsing.compile("^" + HTML_COMMENT_OPEN),
+                            Parsing.compile(HTML_COMMENT_CLOSE)
                     },
                     {
-                            Pattern.compile("^<[?]"),
-                            Pattern.compile("\\?>")
+                            Parsing.compile("^<[?]"),
+                            Parsing.compile("\\?>")
                     },
                     {
-                            Pattern.compile("^<![A-Z]"),
-                            Pattern.compile(">")
+                            Parsing.compile("^<![A-Z]"),
+                            Parsing.compile(">")
                     },
                     {
-                            Pattern.compile("^<!\\[CDATA\\["),
-                            Pattern.compile("\\]\\]>")
+                            Parsing.compile("^<!\\[CDATA\\["),
+                            Parsing.compile("\\]\\]>")
                     },
                     {
-                            Pattern.compile("^</?(?:" + blockTags + ")(?:\\s|[/]?[>]|$)", Pattern.CASE_INSENSITIVE),
+                            Parsing.compile("^</?(?:" + blockTags + ")(?:\\s|[/]?[>]|$)", Pattern.CASE_INSENSITIVE),
                             null // terminated by blank line
                     },
                     {
-                            Pattern.compile("^(?:" + parsing.OPENTAG + '|' + parsing.CLOSETAG + ")\\s*$", Pattern.CASE_INSENSITIVE),
+                            Parsing.compile("^(?:" + parsing.OPENTAG + '|' + parsing.CLOSETAG + ")\\s*$", Pattern.CASE_INSENSITIVE),
                             null // terminated by blank line
                     }
             };
@@ -12,12 +12,9 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 public class ThematicBreakParser extends AbstractBlockParser {
 
-    private static Pattern PATTERN = Pattern.compile("^(?:(?:\\*[ \t]*){3,}|(?:_[ \t]*){3,}|(?:-[ \t]*){3,})[ \t]*$");
-
     private final ThematicBreak block = new ThematicBreak();
 
     public ThematicBreakParser(BasedSequence line) {
@@ -40,6 +37,30 @@ public class ThematicBreakParser extends AbstractBlockParser {
         return BlockContinue.none();
     }
 
+    /**
+     * Test for thematic break, same as {@code ^(?:(?:\*[ \t]*){3,}|(?:_[ \t]*){3,}|(?:-[ \t]*){3,})[ \t]*$}
+     * <p>
+     * The pattern recursed for every repetition and overflowed the stack on long lines of break characters.
+     *
+     * @param input text starting at first non-blank character
+     * @return true if thematic break
+     */
+    public static boolean isThematicBreak(@NotNull CharSequence input) {
+        int iMax = input.length();
+        if (iMax < 3) return false;
+
+        char marker = input.charAt(0);
+        if (marker != '*' && marker != '_' && marker != '-') return false;
+
+        int count = 0;
+        for (int i = 0; i < iMax; i++) {
+            char c = input.charAt(i);
+            if (c == marker) count++;
+            else if (c != ' ' && c != '\t') return false;
+        }
+        return count >= 3;
+    }
+
     public static class Factory implements CustomBlockParserFactory {
         @Nullable
         @Override
@@ -96,7 +117,7 @@ public class ThematicBreakParser extends AbstractBlockParser {
             }
             BasedSequence line = state.getLine();
             final BasedSequence input = line.subSequence(state.getNextNonSpaceIndex(), line.length());
-            if (PATTERN.matcher(input).matches()) {
+            if (isThematicBreak(input)) {
                 return BlockStart.of(new ThematicBreakParser(line.subSequence(state.getIndex()))).atIndex(line.length());
             } else {
                 return BlockStart.none();
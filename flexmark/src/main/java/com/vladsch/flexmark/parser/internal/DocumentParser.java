@@ -5,6 +5,7 @@ import com.vladsch.flexmark.ast.util.ClassifyingBlockTracker;
 import com.vladsch.flexmark.ast.util.Parsing;
 import com.vladsch.flexmark.parser.InlineParser;
 import com.vladsch.flexmark.parser.InlineParserFactory;
+import com.vladsch.flexmark.parser.InstrumentationListener;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.parser.block.*;
 import com.vladsch.flexmark.parser.core.*;
@@ -19,20 +20,32 @@ import com.vladsch.flexmark.util.dependency.ResolvedDependencies;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 import com.vladsch.flexmark.util.sequence.PrefixedSubSequence;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.vladsch.flexmark.parser.Parser.BLANK_LINES_IN_AST;
+import static com.vladsch.flexmark.parser.Parser.PARALLEL_INLINE_PARSING_EXECUTOR;
+import static com.vladsch.flexmark.parser.Parser.PARALLEL_INLINE_PARSING_MIN_BLOCKS;
 import static com.vladsch.flexmark.parser.Parser.TRACK_DOCUMENT_LINES;
 
 public class DocumentParser implements ParserState {
 
     public static final InlineParserFactory INLINE_PARSER_FACTORY = CommonmarkInlineParser::new;
 
+    private static final int LINE_BREAK_WINDOW_LENGTH = 4096;
+
     private static final HashMap<CustomBlockParserFactory, DataKey<Boolean>> CORE_FACTORIES_DATA_KEYS = new HashMap<>();
     static {
         CORE_FACTORIES_DATA_KEYS.put(new BlockQuoteParser.Factory(), Parser.BLOCK_QUOTE_PARSER);
@@ -103,6 +116,13 @@ public class DocumentParser implements ParserState {
      */
     private boolean columnIsInTab;
 
+    /**
+     * window of input characters copied in bulk for finding line breaks, and its start/end offsets in the input
+     */
+    private char[] lineBreakWindow;
+    private int lineBreakWindowStart = 0;
+    private int lineBreakWindowEnd = 0;
+
     private int nextNonSpace = 0;
     private int nextNonSpaceColumn = 0;
     private int indent = 0;
@@ -114,6 +134,11 @@ public class DocumentParser implements ParserState {
     private final ParagraphPreProcessorDependencies paragraphPreProcessorDependencies;
     private final BlockPreProcessorDependencies blockPreProcessorDependencies;
     private final InlineParser inlineParser;
+    private final @Nullable Supplier<InlineParser> inlineParserSupplier;
+    private @Nullable InlineParser[] workerInlineParsers;   // worker inline parsers in order of their blocks, finalized after inlineParser
+    private final int parallelInlineMinBlocks;
+    private final @NotNull Executor parallelInlineExecutor;
+    private final int parallelInlineWorkers;
     private final DocumentBlockParser documentBlockParser;
     private final boolean blankLinesInAst;
     private final boolean trackDocumentLines;
@@ -175,6 +200,13 @@ public class DocumentParser implements ParserState {
     private Map<Node, Boolean> lastLineBlank = new HashMap<>();
     private final DataHolder options;
     private ParserPhase currentPhase = ParserPhase.NONE;
+    private final @Nullable InstrumentationListener instrumentation;
+    private final int maxBlockNesting;
+    private final int parseTimeLimit;
+    private long parseDeadline;
+    private long phaseStartNanos;
+    private long parseStartNanos;
+    private long parseStartAllocatedBytes;
 
     @Override
     public ParserPhase getParserPhase() {
@@ -321,6 +353,20 @@ public class DocumentParser implements ParserState {
             ParagraphPreProcessorDependencies paragraphPreProcessorDependencies,
             BlockPreProcessorDependencies blockPreProcessorDependencies,
             InlineParser inlineParser
+    ) {
+        this(options, customBlockParserFactories, paragraphPreProcessorDependencies, blockPreProcessorDependencies, inlineParser, null);
+    }
+
+    /**
+     * @param inlineParserSupplier supplier of additional inline parsers for parallel inline parsing, null for sequential inline parsing
+     */
+    public DocumentParser(
+            DataHolder options,
+            List<CustomBlockParserFactory> customBlockParserFactories,
+            ParagraphPreProcessorDependencies paragraphPreProcessorDependencies,
+            BlockPreProcessorDependencies blockPreProcessorDependencies,
+            InlineParser inlineParser,
+            @Nullable Supplier<InlineParser> inlineParserSupplier
     ) {
         this.options = options;
         this.myParsing = inlineParser.getParsing();
@@ -334,12 +380,22 @@ public class DocumentParser implements ParserState {
         this.paragraphPreProcessorDependencies = paragraphPreProcessorDependencies;
         this.blockPreProcessorDependencies = blockPreProcessorDependencies;
         this.inlineParser = inlineParser;
+        this.inlineParserSupplier = inlineParserSupplier;
+        this.parallelInlineMinBlocks = PARALLEL_INLINE_PARSING_MIN_BLOCKS.get(options);
+        Executor executor = PARALLEL_INLINE_PARSING_EXECUTOR.get(options);
+        this.parallelInlineExecutor = executor == null ? ForkJoinPool.commonPool() : executor;
+        this.parallelInlineWorkers = getParallelism(this.parallelInlineExecutor) + 1;
+        this.instrumentation = Parser.INSTRUMENTATION.get(options);
 
         this.documentBlockParser = new DocumentBlockParser();
         activateBlockParser(this.documentBlockParser);
         this.currentPhase = ParserPhase.STARTING;
         this.blankLinesInAst = BLANK_LINES_IN_AST.get(options);
         this.trackDocumentLines = TRACK_DOCUMENT_LINES.get(options);
+
+        boolean guardedParsing = Parser.GUARDED_PARSING.get(options);
+        this.maxBlockNesting = guardedParsing ? Parser.MAX_BLOCK_NESTING.get(options) : 0;
+        this.parseTimeLimit = guardedParsing ? Parser.PARSE_TIME_LIMIT.get(options) : 0;
     }
 
     @Override
@@ -428,19 +484,59 @@ public class DocumentParser implements ParserState {
      * @return Document node of the resulting AST
      */
     public Document parse(CharSequence source) {
+        return parse(source, 0, null);
+    }
+
+    /**
+     * Parse source starting at the given line start offset, text before it is not parsed.
+     * <p>
+     * Used for incremental re-parsing where the nodes for text before startIndex are provided by the caller.
+     * Resulting document has the full source as its characters but only contains nodes for text from startIndex.
+     *
+     * @param source              source sequence to parse
+     * @param startIndex          offset of the first line to parse, must be the start of a line
+     * @param documentInitializer consumer invoked with the new document before any text is parsed, or null
+     * @return Document node of the resulting AST
+     */
+    public Document parse(CharSequence source, int startIndex, @Nullable Consumer<Document> documentInitializer) {
+        if (instrumentation != null) {
+            parseStartNanos = System.nanoTime();
+            parseStartAllocatedBytes = InstrumentationListener.getThreadAllocatedBytes();
+        }
+
         BasedSequence input = BasedSequence.of(source);
+        lineBreakWindow = new char[Math.min(input.length(), LINE_BREAK_WINDOW_LENGTH)];
+        lineBreakWindowStart = 0;
+        lineBreakWindowEnd = 0;
+
         int lineStart = 0;
         int lineBreak;
         int lineEOL;
         int lineEnd;
         lineNumber = 0;
 
+        // skip lines before start index, only need to count them
+        while (lineStart < startIndex && (lineBreak = findLineBreak(input, lineStart)) != -1) {
+            if (lineBreak + 1 < input.length() && input.charAt(lineBreak) == '\r' && input.charAt(lineBreak + 1) == '\n') {
+                lineStart = lineBreak + 2;
+            } else {
+                lineStart = lineBreak + 1;
+            }
+            lineNumber++;
+        }
+
         documentBlockParser.initializeDocument(options, input);
+        if (documentInitializer != null) documentInitializer.accept(documentBlockParser.getBlock());
+
+        if (parseTimeLimit > 0) {
+            parseDeadline = System.nanoTime() + parseTimeLimit * 1000000L;
+        }
+        inlineParser.setParseDeadline(parseDeadline);
         inlineParser.initializeDocument(documentBlockParser.getBlock());
 
-        currentPhase = ParserPhase.PARSE_BLOCKS;
+        setParserPhase(ParserPhase.PARSE_BLOCKS);
 
-        while ((lineBreak = Parsing.findLineBreak(input, lineStart)) != -1) {
+        while ((lineBreak = findLineBreak(input, lineStart)) != -1) {
             BasedSequence line = input.subSequence(lineStart, lineBreak);
             lineEOL = lineBreak;
             if (lineBreak + 1 < input.length() && input.charAt(lineBreak) == '\r' && input.charAt(lineBreak + 1) == '\n') {
@@ -470,6 +566,32 @@ public class DocumentParser implements ParserState {
         return finalizeAndProcess();
     }
 
+    /**
+     * Find next line break in the input, scanning characters of the line break window
+     *
+     * @param input      input sequence
+     * @param startIndex index from which to search
+     * @return index of next '\n' or '\r' or -1 if none
+     */
+    private int findLineBreak(BasedSequence input, int startIndex) {
+        int length = input.length();
+        int i = startIndex;
+
+        while (i < length) {
+            if (i < lineBreakWindowStart || i >= lineBreakWindowEnd) {
+                lineBreakWindowStart = i;
+                lineBreakWindowEnd = Math.min(length, i + lineBreakWindow.length);
+                input.getChars(lineBreakWindowStart, lineBreakWindowEnd, lineBreakWindow, 0);
+            }
+
+            for (; i < lineBreakWindowEnd; i++) {
+                char c = lineBreakWindow[i - lineBreakWindowStart];
+                if (c == '\n' || c == '\r') return i;
+            }
+        }
+        return -1;
+    }
+
     public Document parse(Reader input) throws IOException {
         BufferedReader bufferedReader;
         if (input instanceof BufferedReader) {
@@ -676,6 +798,7 @@ public class DocumentParser implements ParserState {
         // adding children to the last matched container:
         boolean tryBlockStarts = blockParser.isInterruptible() || blockParser.isContainer();
         BlockParser lastPrefixClaimer = null;
+        int blockDepth = matches - 1;
 
         while (tryBlockStarts) {
             boolean wasBlank = blank;
@@ -689,7 +812,10 @@ public class DocumentParser implements ParserState {
                 break;
             }
 
-            BlockStartImpl blockStart = findBlockStart(blockParser);
+            // guarded parsing, treat block markers as text
+            boolean isGuarded = maxBlockNesting > 0 && blockDepth >= maxBlockNesting || parseTimeLimit > 0 && System.nanoTime() - parseDeadline > 0;
+
+            BlockStartImpl blockStart = isGuarded ? null : findBlockStart(blockParser);
             if (blockStart == null) {
                 if (!(blockParser.isRawText() && blockParser.isInterruptible())) setNewIndex(nextNonSpace);
                 break;
@@ -713,6 +839,7 @@ public class DocumentParser implements ParserState {
             for (BlockParser newBlockParser : blockStart.getBlockParsers()) {
                 blockParser = addChild(newBlockParser);
                 tryBlockStarts = newBlockParser.isContainer();
+                blockDepth = activeBlockParsers.size() - 1;
             }
         }
 
@@ -851,7 +978,14 @@ public class DocumentParser implements ParserState {
         MatchedBlockParser matchedBlockParser = new MatchedBlockParserImpl(blockParser);
         for (BlockParserFactory blockParserFactory : blockParserFactories) {
             if (blockParser.canInterruptBy(blockParserFactory)) {
-                BlockStart result = blockParserFactory.tryStart(this, matchedBlockParser);
+                BlockStart result;
+                if (instrumentation == null) {
+                    result = blockParserFactory.tryStart(this, matchedBlockParser);
+                } else {
+                    long start = System.nanoTime();
+                    result = blockParserFactory.tryStart(this, matchedBlockParser);
+                    instrumentation.activity(InstrumentationListener.Activity.BLOCK_START, blockParserFactory, System.nanoTime() - start);
+                }
                 if (result instanceof BlockStartImpl) {
                     return (BlockStartImpl) result;
                 }
@@ -901,15 +1035,107 @@ public class DocumentParser implements ParserState {
         }
     }
 
+    /**
+     * Block parser classes which override {@link BlockParser#parseInlines(InlineParser)}, others have no inline content
+     */
+    private static final ClassValue<Boolean> PARSES_INLINES = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("parseInlines", InlineParser.class).getDeclaringClass() != AbstractBlockParser.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+
+    /**
+     * @param executor executor for parallel inline parsing
+     * @return number of threads the executor can run in parallel
+     */
+    private static int getParallelism(@NotNull Executor executor) {
+        if (executor instanceof ForkJoinPool) return ((ForkJoinPool) executor).getParallelism();
+        if (executor instanceof ThreadPoolExecutor) return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
     /**
      * Walk through a block & children recursively, parsing string content into inline content where appropriate.
      */
     private void processInlines() {
+        if (inlineParserSupplier != null) {
+            // only blocks with inline content are distributed to workers
+            ArrayList<BlockParser> blockParsers = new ArrayList<>();
+            for (BlockParser blockParser : blockTracker.allBlockParsers()) {
+                if (PARSES_INLINES.get(blockParser.getClass())) blockParsers.add(blockParser);
+            }
+
+            int workers = Math.min(parallelInlineWorkers, blockParsers.size() / Math.max(1, parallelInlineMinBlocks));
+            if (workers > 1) {
+                processInlinesParallel(blockParsers, workers);
+                return;
+            }
+        }
+
         for (BlockParser blockParser : blockTracker.allBlockParsers()) {
             blockParser.parseInlines(inlineParser);
         }
     }
 
+    private void processInlinesParallel(List<BlockParser> blockParsers, int workers) {
+        assert inlineParserSupplier != null;
+
+        // worker inline parsers are initialized on this thread so document data they use is computed before parallel parsing
+        Document document = documentBlockParser.getBlock();
+        InlineParser[] inlineParsers = new InlineParser[workers];
+        inlineParsers[0] = inlineParser;
+        for (int i = 1; i < workers; i++) {
+            inlineParsers[i] = inlineParserSupplier.get();
+            inlineParsers[i].setParseDeadline(parseDeadline);
+            inlineParsers[i].initializeDocument(document);
+        }
+
+        // each worker gets a contiguous range of blocks, first range is parsed on this thread
+        document.setConcurrentAccess(true);
+        try {
+            int iMax = blockParsers.size();
+            ArrayList<CompletableFuture<Void>> tasks = new ArrayList<>(workers - 1);
+            for (int i = 1; i < workers; i++) {
+                List<BlockParser> workerBlockParsers = blockParsers.subList(i * iMax / workers, (i + 1) * iMax / workers);
+                InlineParser workerInlineParser = inlineParsers[i];
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    for (BlockParser blockParser : workerBlockParsers) {
+                        blockParser.parseInlines(workerInlineParser);
+                    }
+                }, parallelInlineExecutor));
+            }
+
+            RuntimeException exception = null;
+            try {
+                for (BlockParser blockParser : blockParsers.subList(0, iMax / workers)) {
+                    blockParser.parseInlines(inlineParser);
+                }
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+
+            // all workers complete before document is accessed sequentially again
+            for (CompletableFuture<Void> task : tasks) {
+                try {
+                    task.join();
+                } catch (CompletionException e) {
+                    if (exception == null) exception = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+
+            if (exception != null) throw exception;
+        } finally {
+            document.setConcurrentAccess(false);
+        }
+
+        workerInlineParsers = Arrays.copyOfRange(inlineParsers, 1, workers);
+    }
+
     @Override
     public boolean endsWithBlankLine(Node block) {
         while (block != null) {
@@ -1047,7 +1273,14 @@ public class DocumentParser implements ParserState {
             for (ParagraphPreProcessorFactory factory : stage.dependents) {
                 ParagraphPreProcessor processor = processorMap.getItem(factory);
 
-                int pos = processor.preProcessBlock(block, this);
+                int pos;
+                if (instrumentation == null) {
+                    pos = processor.preProcessBlock(block, this);
+                } else {
+                    long start = System.nanoTime();
+                    pos = processor.preProcessBlock(block, this);
+                    instrumentation.activity(InstrumentationListener.Activity.PARAGRAPH_PRE_PROCESSOR, factory, System.nanoTime() - start);
+                }
 
                 if (pos > 0) {
                     hadChanges = true;
@@ -1124,7 +1357,13 @@ public class DocumentParser implements ParserState {
                     BlockPreProcessor blockPreProcessor = factory.apply(this);
 
                     for (Block block : blockList) {
-                        blockPreProcessor.preProcess(this, block);
+                        if (instrumentation == null) {
+                            blockPreProcessor.preProcess(this, block);
+                        } else {
+                            long start = System.nanoTime();
+                            blockPreProcessor.preProcess(this, block);
+                            instrumentation.activity(InstrumentationListener.Activity.BLOCK_PRE_PROCESSOR, factory, System.nanoTime() - start);
+                        }
                     }
                 }
             }
@@ -1141,14 +1380,14 @@ public class DocumentParser implements ParserState {
         //}
 
         // need to run block pre-processors at this point, before inline processing
-        currentPhase = ParserPhase.PRE_PROCESS_PARAGRAPHS;
+        setParserPhase(ParserPhase.PRE_PROCESS_PARAGRAPHS);
         this.preProcessParagraphs();
 
         //if (LOG.isDebugEnabled()) {
         //    LOG.debug("Paragraphs PreProcessed\n" + new AstCollectingVisitor().collectAndGetAstText(documentBlockParser.getBlock()));
         //}
 
-        currentPhase = ParserPhase.PRE_PROCESS_BLOCKS;
+        setParserPhase(ParserPhase.PRE_PROCESS_BLOCKS);
         this.preProcessBlocks();
 
         //if (LOG.isDebugEnabled()) {
@@ -1156,17 +1395,61 @@ public class DocumentParser implements ParserState {
         //}
 
         // can naw run inline processing
-        currentPhase = ParserPhase.PARSE_INLINES;
+        setParserPhase(ParserPhase.PARSE_INLINES);
         this.processInlines();
 
         //if (LOG.isDebugEnabled()) {
         //    LOG.debug("Inline Processed\n" + new AstCollectingVisitor().collectAndGetAstText(documentBlockParser.getBlock()));
         //}
 
-        currentPhase = ParserPhase.DONE;
         Document document = this.documentBlockParser.getBlock();
+
+        // inline parsers are finalized in document order of their blocks, the first blocks are parsed by inlineParser
         inlineParser.finalizeDocument(document);
+        if (workerInlineParsers != null) {
+            for (InlineParser workerInlineParser : workerInlineParsers) {
+                workerInlineParser.finalizeDocument(document);
+            }
+        }
 
         return document;
     }
+
+    private void setParserPhase(ParserPhase phase) {
+        if (instrumentation != null) {
+            long now = System.nanoTime();
+            Document document = documentBlockParser.getBlock();
+            if (currentPhase != ParserPhase.NONE && currentPhase != ParserPhase.STARTING && currentPhase != ParserPhase.DONE) {
+                instrumentation.phaseFinished(document, currentPhase, now - phaseStartNanos);
+            }
+            if (phase != ParserPhase.DONE) {
+                instrumentation.phaseStarted(document, phase);
+                phaseStartNanos = System.nanoTime();
+            }
+        }
+        currentPhase = phase;
+    }
+
+    /**
+     * Start post processing phase. Called by parser before post processing of the document.
+     */
+    public void postProcessStarted() {
+        setParserPhase(ParserPhase.POST_PROCESS);
+    }
+
+    /**
+     * Finish the last phase and report parsed document to instrumentation listener, if one is set. Called by parser after post
+     * processing of the document.
+     *
+     * @param document parsed document
+     */
+    public void documentParsed(@NotNull Document document) {
+        setParserPhase(ParserPhase.DONE);
+
+        if (instrumentation != null) {
+            long nanos = System.nanoTime() - parseStartNanos;
+            long allocatedBytes = InstrumentationListener.getThreadAllocatedBytes();
+            instrumentation.documentParsed(document, nanos, InstrumentationListener.getNodeCount(document), allocatedBytes < 0 || parseStartAllocatedBytes < 0 ? -1 : allocatedBytes - parseStartAllocatedBytes);
+        }
+    }
 }
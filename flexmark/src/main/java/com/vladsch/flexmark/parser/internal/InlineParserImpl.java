@@ -35,6 +35,8 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
     protected Map<Character, List<InlineParserExtension>> inlineParserExtensions = null;
     protected List<InlineParserExtensionFactory> inlineParserExtensionFactories = null;
     protected LinkDestinationParser linkDestinationParser = null;
+    protected InlineScanner inlineScanner = null;
+    protected InlineScanner htmlScanner = null;
 
     // used to temporarily override handling of special characters by custom ParagraphPreProcessors
     protected BitSet specialCharacters;
@@ -58,6 +60,28 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
      */
     private Bracket lastBracket;
 
+    /**
+     * Counts of parsed elements of the current block for guarded parsing limits
+     */
+    protected int inlineNodes;
+    protected int delimiterRuns;
+    protected int brackets;
+
+    /**
+     * System.nanoTime() after which guarded parsing stops, 0 if there is no time limit
+     */
+    protected long parseDeadline;
+
+    /**
+     * Start of the last backtick run of each length in ticksScannedInput after ticksScannedFrom, -1 if none,
+     * used to find backtick openers without closers without scanning the rest of the input for each
+     */
+    protected int[] lastTicksRun = null;
+    protected int ticksScannedFrom;
+    protected BasedSequence ticksScannedInput = null;
+
+    private final @Nullable InstrumentationListener instrumentation;
+
     public InlineParserImpl(
             DataHolder options,
             BitSet specialCharacters,
@@ -73,10 +97,22 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         this.originalSpecialCharacters = specialCharacters;
         this.specialCharacters = specialCharacters;
         this.inlineParserExtensionFactories = !inlineParserExtensionFactories.isEmpty() ? inlineParserExtensionFactories : null;
+        this.instrumentation = Parser.INSTRUMENTATION.get(options);
 
         if (this.options.useHardcodedLinkAddressParser) {
             this.linkDestinationParser = new LinkDestinationParser(this.options.spaceInLinkUrls, this.options.parseJekyllMacrosInUrls, this.options.intellijDummyIdentifier);
         }
+
+        if (this.options.useHardcodedInlineScanners) {
+            this.inlineScanner = new InlineScanner(this.options.intellijDummyIdentifier);
+            // translation tag patterns can only be matched by regex
+            this.htmlScanner = this.options.htmlForTranslator ? null : this.inlineScanner;
+        }
+    }
+
+    @Override
+    public void setParseDeadline(long parseDeadline) {
+        this.parseDeadline = parseDeadline;
     }
 
     @Override
@@ -160,11 +196,26 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         this.index = 0;
         this.lastDelimiter = null;
         this.lastBracket = null;
+        this.inlineNodes = 0;
+        this.delimiterRuns = 0;
+        this.brackets = 0;
 
         boolean customOnly = (block instanceof DoNotDecorate);// || block.getAncestorOfType(DoNotDecorate.class) != null;
 
         boolean moreToParse;
         do {
+            if (inlineNodes++ == options.maxInlineNodes) {
+                appendRemainingText();
+                break;
+            }
+
+            if (parseDeadline != 0 && (inlineNodes & 0xff) == 1 && isPastDeadline()) {
+                // delimiters are left as text
+                appendRemainingText();
+                this.lastDelimiter = null;
+                break;
+            }
+
             moreToParse = parseInline(customOnly);
         } while (moreToParse);
 
@@ -185,6 +236,17 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         mergeTextNodes(block.getFirstChild(), block.getLastChild());
     }
 
+    private void appendRemainingText() {
+        if (index < input.length()) {
+            appendText(input.subSequence(index));
+            index = input.length();
+        }
+    }
+
+    protected boolean isPastDeadline() {
+        return parseDeadline != 0 && System.nanoTime() - parseDeadline > 0;
+    }
+
     @Override
     public void mergeTextNodes(@Nullable Node fromNode, @Nullable Node toNode) {
         Text first = null;
@@ -243,7 +305,7 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         int leadingSpaces = contentChars.countLeading(SequenceUtils.SPACE_TAB_SET);
         int length = contentChars.length();
 
-        while (leadingSpaces <= 3 && length > 3 + leadingSpaces && contentChars.charAt(leadingSpaces) == '[') {
+        while (leadingSpaces <= 3 && length > 3 + leadingSpaces && contentChars.charAt(leadingSpaces) == '[' && !isPastDeadline()) {
             if (leadingSpaces > 0) {
                 contentChars = contentChars.subSequence(leadingSpaces, length);
                 length -= leadingSpaces;
@@ -364,7 +426,13 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
             List<InlineParserExtension> extensions = inlineParserExtensions.get(c);
             if (extensions != null) {
                 for (InlineParserExtension extension : extensions) {
-                    res = extension.parse(this);
+                    if (instrumentation == null) {
+                        res = extension.parse(this);
+                    } else {
+                        long start = System.nanoTime();
+                        res = extension.parse(this);
+                        instrumentation.activity(InstrumentationListener.Activity.INLINE_PARSER_EXTENSION, extension, System.nanoTime() - start);
+                    }
                     if (res) return true;
                 }
             }
@@ -561,6 +629,15 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
             return false;
         }
         int afterOpenTicks = index;
+        int openTicksLength = ticks.length();
+
+        if (ticksScannedInput == input && afterOpenTicks >= ticksScannedFrom
+                && (openTicksLength >= lastTicksRun.length || lastTicksRun[openTicksLength] < afterOpenTicks)) {
+            // no closing run of the same length follows
+            appendText(ticks);
+            return true;
+        }
+
         BasedSequence matched;
         while ((matched = match(myParsing.TICKS)) != null) {
             if (matched.equals(ticks)) {
@@ -611,9 +688,41 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         // If we got here, we didn't match a closing backtick sequence.
         index = afterOpenTicks;
         appendText(ticks);
+        scanTicksRuns(afterOpenTicks);
         return true;
     }
 
+    private void scanTicksRuns(int startIndex) {
+        if (ticksScannedInput == input && startIndex >= ticksScannedFrom) return;
+
+        int[] lastRun = new int[16];
+        Arrays.fill(lastRun, -1);
+
+        int iMax = input.length();
+        int i = startIndex;
+        while (i < iMax) {
+            if (input.charAt(i) != '`') {
+                i++;
+                continue;
+            }
+
+            int runStart = i;
+            while (i < iMax && input.charAt(i) == '`') i++;
+
+            int runLength = i - runStart;
+            if (runLength >= lastRun.length) {
+                int length = lastRun.length;
+                lastRun = Arrays.copyOf(lastRun, Math.max(length * 2, runLength + 1));
+                Arrays.fill(lastRun, length, lastRun.length, -1);
+            }
+            lastRun[runLength] = runStart;
+        }
+
+        lastTicksRun = lastRun;
+        ticksScannedFrom = startIndex;
+        ticksScannedInput = input;
+    }
+
     private static class DelimiterData {
         final int count;
         final boolean canClose;
@@ -642,6 +751,11 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         int startIndex = index;
 
         index += numDelims;
+
+        if (delimiterRuns++ >= options.maxDelimiterRuns) {
+            appendText(input.subSequence(startIndex, index));
+            return true;
+        }
         Text node = appendSeparateText(input.subSequence(startIndex, index));
 
         // Add entry to stack for this opener
@@ -662,6 +776,11 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         int startIndex = index;
         index++;
 
+        if (brackets++ >= options.maxBrackets) {
+            appendText(input.subSequence(startIndex, index));
+            return true;
+        }
+
         Text node = appendSeparateText(input.subSequence(index - 1, index));
 
         // Add entry to stack for this opener
@@ -681,6 +800,11 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         if (peek() == '[') {
             index++;
 
+            if (brackets++ >= options.maxBrackets) {
+                appendText(input.subSequence(startIndex, index));
+                return true;
+            }
+
             Text node = appendSeparateText(input.subSequence(index - 2, index));
 
             // Add entry to stack for this opener
@@ -1154,6 +1278,20 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
         }
     }
 
+    /**
+     * Advance index to end of match by an inline scanner
+     *
+     * @param endIndex end of match or -1 if not matched
+     * @return matched sequence or null if not matched
+     */
+    protected BasedSequence matchTo(int endIndex) {
+        if (endIndex == -1) return null;
+
+        BasedSequence matched = input.subSequence(index, endIndex);
+        index = endIndex;
+        return matched;
+    }
+
     /**
      * Attempt to parse link destination,
      *
@@ -1218,7 +1356,7 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
      */
     @Override
     public BasedSequence parseLinkTitle() {
-        BasedSequence title = match(myParsing.LINK_TITLE);
+        BasedSequence title = inlineScanner != null ? matchTo(inlineScanner.scanLinkTitle(input, index)) : match(myParsing.LINK_TITLE);
         if (title != null) {
             // chop off quotes from title and unescape:
             return title; //Escaping.unescapeString(title.substring(1, title.length() - 1));
@@ -1234,7 +1372,7 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
      */
     @Override
     public int parseLinkLabel() {
-        BasedSequence m = match(myParsing.LINK_LABEL);
+        BasedSequence m = inlineScanner != null ? matchTo(inlineScanner.scanLinkLabel(input, index)) : match(myParsing.LINK_LABEL);
         return m == null ? 0 : m.length();
     }
 
@@ -1246,7 +1384,20 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
     @Override
     public boolean parseAutolink() {
         BasedSequence m;
-        if ((m = match(myParsing.EMAIL_AUTOLINK)) != null) {
+        if (htmlScanner != null) {
+            if ((m = matchTo(htmlScanner.scanEmailAutolink(input, index))) != null) {
+                MailLink node = new MailLink(m.subSequence(0, 1), m.subSequence(1, m.length() - 1), m.subSequence(m.length() - 1, m.length()));
+                appendNode(node);
+                return true;
+            } else if ((m = matchTo(htmlScanner.scanAutolink(input, index))) != null
+                    || options.wwwAutoLinkElement && (m = matchTo(htmlScanner.scanWwwAutolink(input, index))) != null) {
+                AutoLink node = new AutoLink(m.subSequence(0, 1), m.subSequence(1, m.length() - 1), m.subSequence(m.length() - 1, m.length()));
+                appendNode(node);
+                return true;
+            } else {
+                return false;
+            }
+        } else if ((m = match(myParsing.EMAIL_AUTOLINK)) != null) {
             MailLink node = new MailLink(m.subSequence(0, 1), m.subSequence(1, m.length() - 1), m.subSequence(m.length() - 1, m.length()));
             appendNode(node);
             return true;
@@ -1270,7 +1421,7 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
      */
     @Override
     public boolean parseHtmlInline() {
-        BasedSequence m = match(myParsing.HTML_TAG);
+        BasedSequence m = htmlScanner != null ? matchTo(htmlScanner.scanHtmlTag(input, index)) : match(myParsing.HTML_TAG);
         if (m != null) {
             // separate HTML comment from herd
             HtmlInlineBase node;
@@ -1294,7 +1445,7 @@ public class InlineParserImpl extends LightInlineParserImpl implements InlinePar
     @Override
     public boolean parseEntity() {
         BasedSequence m;
-        if ((m = match(myParsing.ENTITY_HERE)) != null) {
+        if ((m = inlineScanner != null ? matchTo(inlineScanner.scanEntity(input, index)) : match(myParsing.ENTITY_HERE)) != null) {
             HtmlEntity node = new HtmlEntity(m);
             appendNode(node);
             return true;
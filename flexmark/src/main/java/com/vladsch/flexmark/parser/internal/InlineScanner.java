@@ -0,0 +1,449 @@
+package com.vladsch.flexmark.parser.internal;
+
+import com.vladsch.flexmark.ast.util.Parsing;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.format.TableFormatOptions;
+import com.vladsch.flexmark.util.html.Escaping;
+
+/**
+ * Hand rolled scanners for inline elements otherwise matched by patterns of {@link Parsing},
+ * used by the inline parser when {@link Parser#USE_HARDCODED_INLINE_SCANNERS} is true
+ * <p>
+ * Each scan method matches the same text as the pattern given in its description, starting at index, and returns the end
+ * of the match or -1 if there is no match. No matcher is allocated and time is linear in the length of text examined
+ * so input with long runs of brackets, backslashes or quotes does not cause backtracking.
+ * <p>
+ * Patterns which include {@link Parser#TRANSLATION_AUTOLINK_TAG_PATTERN} or {@link Parser#TRANSLATION_HTML_INLINE_TAG_PATTERN}
+ * cannot be scanned, the inline parser uses the pattern when {@link Parser#HTML_FOR_TRANSLATOR} is true.
+ */
+public class InlineScanner {
+    public static final int LINK_LABEL_MAX_ITEMS = 999;
+    public static final int EMAIL_MAX_DOMAIN_LABEL = 63;
+
+    private static final boolean[] ESCAPABLE_CHARS = charSet("!" + Escaping.ESCAPABLE_CHARS);
+    private static final boolean[] EMAIL_LOCAL_CHARS = charSet(".!#$%&'*+/=?^_`{|}~-");
+    private static final boolean[] UNQUOTED_VALUE_EXCLUDED_CHARS = charSet("\"'=<>{}`");
+
+    public final boolean intellijDummyIdentifier;
+
+    public InlineScanner(boolean intellijDummyIdentifier) {
+        this.intellijDummyIdentifier = intellijDummyIdentifier;
+    }
+
+    private static boolean[] charSet(String chars) {
+        boolean[] charSet = new boolean[128];
+        for (int i = 0; i < chars.length(); i++) {
+            charSet[chars.charAt(i)] = true;
+        }
+        return charSet;
+    }
+
+    private static boolean isIn(boolean[] charSet, char c) {
+        return c < 128 && charSet[c];
+    }
+
+    static boolean isEscapable(char c) {
+        return isIn(ESCAPABLE_CHARS, c);
+    }
+
+    // matches Java regex \s
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // matches Java regex . without DOTALL
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    static boolean isAsciiLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    boolean isAdditional(char c) {
+        return intellijDummyIdentifier && c == TableFormatOptions.INTELLIJ_DUMMY_IDENTIFIER_CHAR;
+    }
+
+    boolean isLetter(char c) {
+        return isAsciiLetter(c) || isAdditional(c);
+    }
+
+    boolean isLetterOrDigit(char c) {
+        return isAsciiLetter(c) || isDigit(c) || isAdditional(c);
+    }
+
+    boolean isExcluded0ToSpace(char c) {
+        return c <= ' ' && !isAdditional(c);
+    }
+
+    /**
+     * Scan link label, same as {@link Parsing#LINK_LABEL}: {@code ^\[(?:[^\\\[\]]|\\ESCAPABLE|\\){0,999}\]}
+     * <p>
+     * The pattern treats a backslash before an escapable char as an escape but will backtrack to treat it as
+     * a literal backslash if the label cannot be completed otherwise. So a {@code [} preceded by a backslash
+     * is part of the label and the label ends at the last escaped {@code ]} if there is no unescaped one.
+     *
+     * @param input text
+     * @param index start of label
+     * @return end of label or -1 if not a link label
+     */
+    public int scanLinkLabel(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index >= iMax || input.charAt(index) != '[') return -1;
+
+        int lastEscapedClose = -1;
+        int items = 0;
+        int i = index + 1;
+
+        while (i < iMax) {
+            char c = input.charAt(i);
+            if (c == ']') return i + 1;
+            if (items == LINK_LABEL_MAX_ITEMS) break;
+
+            if (c == '\\') {
+                if (i + 1 < iMax && isEscapable(input.charAt(i + 1))) {
+                    if (input.charAt(i + 1) == ']') lastEscapedClose = i + 1;
+                    i += 2;
+                } else {
+                    i++;
+                }
+            } else if (c == '[') {
+                // preceding escaped backslash is split into a backslash and an escaped [, both single items
+                if (input.charAt(i - 1) != '\\') break;
+                i++;
+            } else {
+                i++;
+            }
+            items++;
+        }
+        return lastEscapedClose == -1 ? -1 : lastEscapedClose + 1;
+    }
+
+    /**
+     * Scan link title, same as {@link Parsing#LINK_TITLE}: text in double quotes, single quotes or parentheses
+     * with escapes, not containing {@code \0}
+     * <p>
+     * Like the pattern, an escaped closing quote will end the title if there is no unescaped one.
+     *
+     * @param input text
+     * @param index start of title
+     * @return end of title or -1 if not a link title
+     */
+    public int scanLinkTitle(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index >= iMax) return -1;
+
+        char open = input.charAt(index);
+        char close;
+        if (open == '"' || open == '\'') close = open;
+        else if (open == '(') close = ')';
+        else return -1;
+
+        int lastEscapedClose = -1;
+        for (int i = index + 1; i < iMax; i++) {
+            char c = input.charAt(i);
+            if (c == close) return i + 1;
+            if (c == '\0') break;
+
+            if (c == '\\' && i + 1 < iMax && isEscapable(input.charAt(i + 1))) {
+                if (input.charAt(i + 1) == close) lastEscapedClose = i + 1;
+                i++;
+            }
+        }
+        return lastEscapedClose == -1 ? -1 : lastEscapedClose + 1;
+    }
+
+    /**
+     * Scan entity, same as {@link Parsing#ENTITY_HERE}: {@code &(?:#x[a-f0-9]{1,8}|#[0-9]{1,8}|[a-z][a-z0-9]{1,31});}
+     * case insensitive
+     *
+     * @param input text
+     * @param index start of entity
+     * @return end of entity or -1 if not an entity
+     */
+    public int scanEntity(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index + 1 >= iMax || input.charAt(index) != '&') return -1;
+
+        int i = index + 1;
+        char c = input.charAt(i);
+        int start;
+
+        if (c == '#') {
+            i++;
+            if (i < iMax && (input.charAt(i) == 'x' || input.charAt(i) == 'X')) {
+                start = ++i;
+                while (i < iMax && i - start < 8 && isHexDigit(input.charAt(i))) i++;
+            } else {
+                start = i;
+                while (i < iMax && i - start < 8 && isDigit(input.charAt(i))) i++;
+            }
+        } else if (isLetter(c)) {
+            start = ++i;
+            while (i < iMax && i - start < 31 && isLetterOrDigit(input.charAt(i))) i++;
+        } else {
+            return -1;
+        }
+
+        return i > start && i < iMax && input.charAt(i) == ';' ? i + 1 : -1;
+    }
+
+    private boolean isHexDigit(char c) {
+        return isDigit(c) || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F' || isAdditional(c);
+    }
+
+    /**
+     * Scan email autolink, same as {@link Parsing#EMAIL_AUTOLINK} without translation tag pattern
+     *
+     * @param input text
+     * @param index start of autolink
+     * @return end of autolink or -1 if not an email autolink
+     */
+    public int scanEmailAutolink(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index >= iMax || input.charAt(index) != '<') return -1;
+
+        int i = index + 1;
+        while (i < iMax && (isLetterOrDigit(input.charAt(i)) || isIn(EMAIL_LOCAL_CHARS, input.charAt(i)))) i++;
+        if (i == index + 1 || i >= iMax || input.charAt(i) != '@') return -1;
+        i++;
+
+        while (true) {
+            int start = i;
+            while (i < iMax && (isLetterOrDigit(input.charAt(i)) || input.charAt(i) == '-')) i++;
+            if (i == start || i - start > EMAIL_MAX_DOMAIN_LABEL || input.charAt(start) == '-' || input.charAt(i - 1) == '-' || i >= iMax) return -1;
+
+            char c = input.charAt(i);
+            if (c == '>') return i + 1;
+            if (c != '.') return -1;
+            i++;
+        }
+    }
+
+    /**
+     * Scan URI autolink, same as {@link Parsing#AUTOLINK} without translation tag pattern
+     *
+     * @param input text
+     * @param index start of autolink
+     * @return end of autolink or -1 if not an autolink
+     */
+    public int scanAutolink(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index + 1 >= iMax || input.charAt(index) != '<' || !isAsciiLetter(input.charAt(index + 1))) return -1;
+
+        int start = index + 2;
+        int i = start;
+        while (i < iMax && i - start < 31) {
+            char c = input.charAt(i);
+            if (!(isLetterOrDigit(c) || c == '.' || c == '+' || c == '-')) break;
+            i++;
+        }
+        if (i == start || i >= iMax || input.charAt(i) != ':') return -1;
+
+        return scanAutolinkEnd(input, i + 1);
+    }
+
+    /**
+     * Scan www autolink, same as {@link Parsing#WWW_AUTOLINK} without translation tag pattern
+     * <p>
+     * NOTE: without intellij dummy identifier the pattern's {@code (?:w?){3,3}} allows 0 to 3 w's before the period
+     *
+     * @param input text
+     * @param index start of autolink
+     * @return end of autolink or -1 if not a www autolink
+     */
+    public int scanWwwAutolink(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index >= iMax || input.charAt(index) != '<') return -1;
+
+        int i = index + 1;
+        for (int w = 0; w < 3; w++) {
+            if (i < iMax && input.charAt(i) == 'w') {
+                i++;
+                if (intellijDummyIdentifier && i < iMax && isAdditional(input.charAt(i))) i++;
+            } else if (intellijDummyIdentifier) {
+                return -1;
+            }
+        }
+        if (i >= iMax || input.charAt(i) != '.') return -1;
+
+        return scanAutolinkEnd(input, i + 1);
+    }
+
+    private int scanAutolinkEnd(CharSequence input, int index) {
+        int iMax = input.length();
+        for (int i = index; i < iMax; i++) {
+            char c = input.charAt(i);
+            if (c == '>') return i + 1;
+            if (c == '<' || isExcluded0ToSpace(c)) break;
+        }
+        return -1;
+    }
+
+    /**
+     * Scan inline HTML, same as {@link Parsing#HTML_TAG} without translation tag pattern: open tag, closing tag,
+     * comment, processing instruction, declaration or CDATA section
+     *
+     * @param input text
+     * @param index start of HTML
+     * @return end of HTML or -1 if not inline HTML
+     */
+    public int scanHtmlTag(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index + 2 >= iMax || input.charAt(index) != '<') return -1;
+
+        char c = input.charAt(index + 1);
+        if (isLetter(c)) {
+            return scanOpenTag(input, index + 2);
+        } else if (c == '/') {
+            return scanCloseTag(input, index + 2);
+        } else if (c == '?') {
+            return scanProcessingInstruction(input, index + 2);
+        } else if (c == '!') {
+            c = input.charAt(index + 2);
+            if (c == '-') {
+                return scanComment(input, index + 3);
+            } else if (c == '[') {
+                return scanCData(input, index + 3);
+            } else if (isLetter(c)) {
+                return scanDeclaration(input, index + 3);
+            }
+        }
+        return -1;
+    }
+
+    private int skipTagName(CharSequence input, int index) {
+        int iMax = input.length();
+        int i = index;
+        while (i < iMax && (isLetterOrDigit(input.charAt(i)) || input.charAt(i) == '-')) i++;
+        return i;
+    }
+
+    private int skipWhitespace(CharSequence input, int index) {
+        int iMax = input.length();
+        int i = index;
+        while (i < iMax && isWhitespace(input.charAt(i))) i++;
+        return i;
+    }
+
+    private boolean isAttributeNameStart(char c) {
+        return isLetter(c) || c == '_' || c == ':';
+    }
+
+    private boolean isAttributeName(char c) {
+        return isLetterOrDigit(c) || c == ':' || c == '.' || c == '_' || c == '-';
+    }
+
+    private int scanOpenTag(CharSequence input, int index) {
+        int iMax = input.length();
+        int i = skipTagName(input, index);
+
+        while (true) {
+            int start = i;
+            i = skipWhitespace(input, i);
+            if (i == start || i >= iMax || !isAttributeNameStart(input.charAt(i))) break;
+
+            i++;
+            while (i < iMax && isAttributeName(input.charAt(i))) i++;
+
+            int j = skipWhitespace(input, i);
+            if (j < iMax && input.charAt(j) == '=') {
+                // value is required once = is present, without it the tag cannot be completed
+                j = skipWhitespace(input, j + 1);
+                if (j >= iMax) return -1;
+
+                char c = input.charAt(j);
+                if (c == '"' || c == '\'') {
+                    int k = j + 1;
+                    while (k < iMax && input.charAt(k) != c) k++;
+                    if (k >= iMax) return -1;
+                    i = k + 1;
+                } else {
+                    int k = j;
+                    while (k < iMax && !isIn(UNQUOTED_VALUE_EXCLUDED_CHARS, input.charAt(k)) && !isExcluded0ToSpace(input.charAt(k))) k++;
+                    if (k == j) return -1;
+                    i = k;
+                }
+            }
+        }
+
+        if (i < iMax && input.charAt(i) == '/') i++;
+        return i < iMax && input.charAt(i) == '>' ? i + 1 : -1;
+    }
+
+    private int scanCloseTag(CharSequence input, int index) {
+        int iMax = input.length();
+        if (!isLetter(input.charAt(index))) return -1;
+
+        int i = skipWhitespace(input, skipTagName(input, index + 1));
+        return i < iMax && input.charAt(i) == '>' ? i + 1 : -1;
+    }
+
+    // index is after <!-
+    private int scanComment(CharSequence input, int index) {
+        int iMax = input.length();
+        if (index >= iMax || input.charAt(index) != '-') return -1;
+
+        // text cannot start with > or -> and ends at the first --, which must be followed by >
+        int start = index + 1;
+        if (start < iMax && (input.charAt(start) == '>' || input.charAt(start) == '-' && start + 1 < iMax && input.charAt(start + 1) == '>')) {
+            return -1;
+        }
+
+        for (int i = start; i + 1 < iMax; i++) {
+            if (input.charAt(i) == '-' && input.charAt(i + 1) == '-') {
+                return i + 2 < iMax && input.charAt(i + 2) == '>' ? i + 3 : -1;
+            }
+        }
+        return -1;
+    }
+
+    // index is after <?
+    private int scanProcessingInstruction(CharSequence input, int index) {
+        int iMax = input.length();
+        for (int i = index; i < iMax; i++) {
+            char c = input.charAt(i);
+            if (c == '?' && i + 1 < iMax && input.charAt(i + 1) == '>') return i + 2;
+            if (isLineTerminator(c)) break;
+        }
+        return -1;
+    }
+
+    // index is after <! and first letter
+    private int scanDeclaration(CharSequence input, int index) {
+        int iMax = input.length();
+        int i = index;
+        while (i < iMax && isLetter(input.charAt(i))) i++;
+
+        int start = i;
+        i = skipWhitespace(input, i);
+        if (i == start) return -1;
+
+        for (; i < iMax; i++) {
+            if (input.charAt(i) == '>') return i + 1;
+        }
+        return -1;
+    }
+
+    // index is after <![
+    private int scanCData(CharSequence input, int index) {
+        int iMax = input.length();
+        String cdata = "CDATA[";
+        if (index + cdata.length() > iMax) return -1;
+
+        for (int i = 0; i < cdata.length(); i++) {
+            char c = input.charAt(index + i);
+            char expected = cdata.charAt(i);
+            if (c != expected && c != Character.toLowerCase(expected)) return -1;
+        }
+
+        for (int i = index + cdata.length(); i + 2 < iMax; i++) {
+            if (input.charAt(i) == ']' && input.charAt(i + 1) == ']' && input.charAt(i + 2) == '>') return i + 3;
+        }
+        return -1;
+    }
+}
@@ -1,5 +1,7 @@
 package com.vladsch.flexmark.parser.internal;
 
+import com.vladsch.flexmark.parser.InstrumentationListener;
+import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.parser.PostProcessor;
 import com.vladsch.flexmark.parser.PostProcessorFactory;
 import com.vladsch.flexmark.util.ast.ClassifyingNodeTracker;
@@ -7,7 +9,6 @@ import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.ast.NodeClassifierVisitor;
 import com.vladsch.flexmark.util.collection.OrderedSet;
-import com.vladsch.flexmark.util.collection.iteration.ReversibleIterable;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.dependency.DependencyHandler;
@@ -15,6 +16,7 @@ import com.vladsch.flexmark.util.dependency.DependentItem;
 import com.vladsch.flexmark.util.dependency.DependentItemMap;
 import com.vladsch.flexmark.util.dependency.ResolvedDependencies;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -57,69 +59,202 @@ public class PostProcessorManager {
         return document;
     }
 
+    /**
+     * Post process only the document children starting at the given node and their descendants
+     *
+     * @param document              document to process
+     * @param processorDependencies post processors
+     * @param firstChild            first child of document to process, preceding children are not processed by node post processors
+     * @return processed document
+     */
+    public static Document processDocument(Document document, PostProcessorDependencies processorDependencies, @NotNull Node firstChild) {
+        if (!processorDependencies.isEmpty()) {
+            PostProcessorManager manager = new PostProcessorManager(processorDependencies);
+            document = manager.postProcess(document, firstChild);
+        }
+        return document;
+    }
+
     public Document postProcess(Document document) {
+        return postProcess(document, null);
+    }
+
+    private Document postProcess(Document document, @Nullable Node firstChild) {
         // first initialize node tracker if
         ClassifyingNodeTracker classifyingNodeTracker;
+        InstrumentationListener instrumentation = Parser.INSTRUMENTATION.get(document);
+        boolean fused = Parser.FUSED_POST_PROCESSING.get(document);
 
         classifyingNodeTracker = null;
         for (PostProcessorDependencyStage stage : postProcessorDependencies.getDependentStages()) {
             // idiosyncrasy of post processors the last dependency can be global, in which case it processes the whole document and no ancestry info is
             // provided
             //new ClassifyingNodeTracker()
-            boolean hadGlobal = false;
-            for (PostProcessorFactory dependent : stage.dependents) {
+            List<PostProcessorFactory> dependents = stage.dependents;
+            int dependentCount = dependents.size();
+
+            for (int i = 0; i < dependentCount; ) {
+                PostProcessorFactory dependent = dependents.get(i);
+
                 if (dependent.affectsGlobalScope()) {
-                    document = dependent.apply(document).processDocument(document);
-                    hadGlobal = true;
+                    if (instrumentation == null) {
+                        document = dependent.apply(document).processDocument(document);
+                    } else {
+                        long start = System.nanoTime();
+                        document = dependent.apply(document).processDocument(document);
+                        instrumentation.activity(InstrumentationListener.Activity.POST_PROCESSOR, dependent, System.nanoTime() - start);
+                    }
+
                     // assume it no longer reflects reality;
                     classifyingNodeTracker = null;
-                } else {
-                    assert !hadGlobal;
+                    i++;
+                    continue;
+                }
 
-                    if (classifyingNodeTracker == null) {
-                        // build the node type information by traversing the document tree
-                        classifyingNodeTracker = new NodeClassifierVisitor(stage.myNodeMap).classify(document);
-                    }
+                if (classifyingNodeTracker == null) {
+                    // build the node type information by traversing the document tree
+                    NodeClassifierVisitor classifier = new NodeClassifierVisitor(stage.myNodeMap);
+                    classifyingNodeTracker = firstChild == null || firstChild.getParent() != document ? classifier.classify(document) : classifier.classify(document, firstChild);
+                }
 
-                    Map<Class<?>, Set<Class<?>>> dependentNodeTypes = dependent.getNodeTypes();
-                    PostProcessor postProcessor = dependent.apply(document);
-                    BitSet exclusionSet = new BitSet();
-                    for (Set<Class<?>> excluded : dependentNodeTypes.values()) {
-                        BitSet mapped = classifyingNodeTracker.getExclusionSet().indexBitSet(excluded);
-                        exclusionSet.or(mapped);
-                    }
+                // node local dependents which follow each other are fused, others get a pass each
+                int fusedEnd = i + 1;
+                if (fused && dependent.isNodeLocal()) {
+                    while (fusedEnd < dependentCount && !dependents.get(fusedEnd).affectsGlobalScope() && dependents.get(fusedEnd).isNodeLocal()) fusedEnd++;
+                }
 
-                    ReversibleIterable<Node> nodes = classifyingNodeTracker.getCategoryItems(Node.class, dependentNodeTypes.keySet());
-                    for (Node node : nodes) {
-                        if (node.getParent() == null) continue; // was already removed
-                        // now we need to get the bitset for the excluded ancestors of the node, then intersect it with the actual ancestors of this factory
-                        int index;
-                        BitSet nodeAncestors;
-                        BitSet nodeExclusions;
-                        Set<Class<?>> excluded = dependentNodeTypes.get(node.getClass());
-                        if (excluded != null) {
-                            index = classifyingNodeTracker.getItems().indexOf(node);
-                            if (index != -1) {
-                                nodeAncestors = classifyingNodeTracker.getNodeAncestryMap().get(index);
-                                if (nodeAncestors != null) {
-                                    nodeExclusions = classifyingNodeTracker.getExclusionSet().indexBitSet(excluded);
-                                    nodeExclusions.and(nodeAncestors);
-                                    if (!nodeExclusions.isEmpty()) {
-                                        // has excluded ancestor
-                                        continue;
-                                    }
-                                }
-                            }
-                        }
-                        postProcessor.process(classifyingNodeTracker, node);
+                if (fusedEnd - i > 1) {
+                    NodePostProcessor[] processors = new NodePostProcessor[fusedEnd - i];
+                    for (int j = i; j < fusedEnd; j++) {
+                        processors[j - i] = new NodePostProcessor(dependents.get(j), document, classifyingNodeTracker);
                     }
+                    processFused(processors, classifyingNodeTracker, instrumentation);
+                } else {
+                    NodePostProcessor processor = new NodePostProcessor(dependent, document, classifyingNodeTracker);
+                    processNodes(processor, classifyingNodeTracker, instrumentation);
                 }
+                i = fusedEnd;
             }
         }
 
         return document;
     }
 
+    /**
+     * Process all nodes of the dependent's node types which are tracked when processing starts
+     */
+    private static void processNodes(NodePostProcessor processor, ClassifyingNodeTracker classifyingNodeTracker, InstrumentationListener instrumentation) {
+        List<Node> items = classifyingNodeTracker.getItems().getValueList();
+        BitSet nodeIndices = classifyingNodeTracker.getNodeClassifier().categoriesBitSet(processor.nodeTypes.keySet());
+
+        for (int index = nodeIndices.nextSetBit(0); index >= 0; index = nodeIndices.nextSetBit(index + 1)) {
+            Node node = items.get(index);
+            if (node.getParent() == null) continue; // was already removed
+            if (processor.isExcluded(node, index, classifyingNodeTracker)) continue;
+
+            processor.process(node, classifyingNodeTracker, instrumentation);
+        }
+    }
+
+    /**
+     * Process tracked nodes in one pass, each node is processed by all dependents for its type in stage order
+     * <p>
+     * Nodes added by a dependent are processed by dependents which follow it in the stage. Dependents are node local
+     * so the result is the same as when each dependent processes all its nodes before the next one.
+     */
+    private static void processFused(NodePostProcessor[] processors, ClassifyingNodeTracker classifyingNodeTracker, InstrumentationListener instrumentation) {
+        List<Node> items = classifyingNodeTracker.getItems().getValueList();
+        HashSet<Class<?>> nodeTypes = new HashSet<>();
+        for (NodePostProcessor processor : processors) {
+            nodeTypes.addAll(processor.nodeTypes.keySet());
+        }
+
+        BitSet nodeIndices = classifyingNodeTracker.getNodeClassifier().categoriesBitSet(nodeTypes);
+        int trackedCount = items.size();
+
+        // index of first dependent for nodes added during processing, indexed from trackedCount
+        int[] addedFirstProcessor = new int[16];
+
+        int index = nodeIndices.nextSetBit(0);
+        if (index < 0) index = trackedCount;
+
+        while (index < items.size()) {
+            Node node = items.get(index);
+            int firstProcessor = index < trackedCount ? 0 : addedFirstProcessor[index - trackedCount];
+
+            for (int i = firstProcessor; i < processors.length; i++) {
+                if (node.getParent() == null) break; // was already removed
+
+                NodePostProcessor processor = processors[i];
+                if (!processor.nodeTypes.containsKey(node.getClass())) continue;
+                if (processor.isExcluded(node, index, classifyingNodeTracker)) continue;
+
+                int itemCount = items.size();
+                processor.process(node, classifyingNodeTracker, instrumentation);
+
+                int addedCount = items.size() - trackedCount;
+                if (addedCount > 0 && items.size() > itemCount) {
+                    if (addedCount > addedFirstProcessor.length) {
+                        addedFirstProcessor = Arrays.copyOf(addedFirstProcessor, Math.max(addedCount, addedFirstProcessor.length * 2));
+                    }
+                    Arrays.fill(addedFirstProcessor, Math.max(itemCount - trackedCount, 0), addedCount, i + 1);
+                }
+            }
+
+            if (index + 1 < trackedCount) {
+                index = nodeIndices.nextSetBit(index + 1);
+                if (index < 0) index = trackedCount;
+            } else {
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Node post processor of a dependent with exclusion masks for its node types
+     */
+    private static class NodePostProcessor {
+        final PostProcessorFactory dependent;
+        final PostProcessor postProcessor;
+        final Map<Class<?>, Set<Class<?>>> nodeTypes;
+        final HashMap<Class<?>, BitSet> exclusionMasks;
+
+        NodePostProcessor(PostProcessorFactory dependent, Document document, ClassifyingNodeTracker classifyingNodeTracker) {
+            this.dependent = dependent;
+            this.nodeTypes = dependent.getNodeTypes();
+            this.postProcessor = dependent.apply(document);
+
+            // map excluded ancestor types to bits of tracked node ancestry once, instead of for every node
+            exclusionMasks = new HashMap<>();
+            for (Map.Entry<Class<?>, Set<Class<?>>> entry : nodeTypes.entrySet()) {
+                if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                    BitSet mask = classifyingNodeTracker.getExclusionSet().indexBitSet(entry.getValue());
+                    if (!mask.isEmpty()) exclusionMasks.put(entry.getKey(), mask);
+                }
+            }
+        }
+
+        boolean isExcluded(Node node, int index, ClassifyingNodeTracker classifyingNodeTracker) {
+            if (exclusionMasks.isEmpty()) return false;
+
+            BitSet mask = exclusionMasks.get(node.getClass());
+            if (mask == null) return false;
+
+            BitSet nodeAncestors = classifyingNodeTracker.getNodeAncestryMap().get(index);
+            return nodeAncestors != null && mask.intersects(nodeAncestors);
+        }
+
+        void process(Node node, ClassifyingNodeTracker classifyingNodeTracker, InstrumentationListener instrumentation) {
+            if (instrumentation == null) {
+                postProcessor.process(classifyingNodeTracker, node);
+            } else {
+                long start = System.nanoTime();
+                postProcessor.process(classifyingNodeTracker, node);
+                instrumentation.activity(InstrumentationListener.Activity.POST_PROCESSOR, dependent, System.nanoTime() - start);
+            }
+        }
+    }
+
     public static class PostProcessorDependencyStage {
         final Map<Class<? extends Node>, Set<Class<?>>> myNodeMap;
         final boolean myWithExclusions;
@@ -169,22 +304,37 @@ public class PostProcessorManager {
 
     public static class PostProcessorDependencies extends ResolvedDependencies<PostProcessorDependencyStage> {
         private final boolean myWithExclusions;
+        private final boolean myWithGlobalScope;
 
         public PostProcessorDependencies(List<PostProcessorDependencyStage> dependentStages) {
             super(dependentStages);
             boolean haveExclusions = false;
+            boolean haveGlobalScope = false;
             for (PostProcessorDependencyStage stage : dependentStages) {
                 if (stage.myWithExclusions) {
                     haveExclusions = true;
-                    break;
+                }
+                for (PostProcessorFactory dependent : stage.dependents) {
+                    if (dependent.affectsGlobalScope()) {
+                        haveGlobalScope = true;
+                        break;
+                    }
                 }
             }
             myWithExclusions = haveExclusions;
+            myWithGlobalScope = haveGlobalScope;
         }
 
         public boolean isWithExclusions() {
             return myWithExclusions;
         }
+
+        /**
+         * @return true if any of the post processors processes the whole document instead of individual nodes
+         */
+        public boolean isWithGlobalScope() {
+            return myWithGlobalScope;
+        }
     }
 
     private static class PostProcessDependencyHandler extends DependencyHandler<PostProcessorFactory, PostProcessorDependencyStage, PostProcessorDependencies> {